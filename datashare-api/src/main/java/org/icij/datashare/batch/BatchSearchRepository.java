@@ -11,6 +11,7 @@ import java.io.Closeable;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 import static java.util.Collections.unmodifiableList;
 import static org.icij.datashare.text.ProjectProxy.fromNameStringList;
@@ -30,6 +31,12 @@ public interface BatchSearchRepository extends Closeable {
     List<String> getQueued();
     List<SearchResult> getResults(User user, String batchSearchId);
     List<SearchResult> getResults(User user, String batchId, WebQuery webQuery);
+    /**
+     * reads the results by keyset pages, without loading them all in memory nor keeping a
+     * database connection while the consumer is called. Results can only be streamed in the
+     * default order.
+     */
+    void streamResults(User user, String batchId, WebQuery webQuery, Consumer<SearchResult> consumer);
     int getResultsTotal(User user, String batchId, WebQuery webQuery);
 
     boolean publish(User user, String batchId, boolean published);
@@ -57,6 +64,17 @@ public interface BatchSearchRepository extends Closeable {
         public final List<String> state;
         public final String publishState;
         public final boolean withQueries;
+        /**
+         * keyset pagination of results: [query, documentNumber, documentId] of the last result of
+         * the previous page. The page starts after this result, from is then ignored.
+         */
+        public final List<String> after;
+
+        public WebQuery(int size, int from, String sort, String order, String query, String field,
+                        List<String> queries, List<String> project, List<String> batchDate, List<String> state,
+                        String publishState, boolean withQueries, boolean queriesExcluded, List<String> contentTypes) {
+            this(size, from, sort, order, query, field, queries, project, batchDate, state, publishState, withQueries, queriesExcluded, contentTypes, null);
+        }
 
         @JsonCreator
         public WebQuery(@JsonProperty("size") int size, @JsonProperty("from") int from,
@@ -65,7 +83,8 @@ public interface BatchSearchRepository extends Closeable {
                         @JsonProperty("queries") List<String> queries,  @JsonProperty("project") List<String> project,
                         @JsonProperty("batchDate") List<String> batchDate, @JsonProperty("state") List<String> state,
                         @JsonProperty("publishState") String publishState, @JsonProperty("withQueries") boolean withQueries,
-                        @JsonProperty("queriesExcluded") boolean queriesExcluded, @JsonProperty("contentTypes") List<String> contentTypes) {
+                        @JsonProperty("queriesExcluded") boolean queriesExcluded, @JsonProperty("contentTypes") List<String> contentTypes,
+                        @JsonProperty("after") List<String> after) {
             super(sort == null ? DEFAULT_SORT_FIELD : sort, sort == null ? "asc": order,from,size);
             this.query = query;
             this.field = field;
@@ -77,6 +96,7 @@ public interface BatchSearchRepository extends Closeable {
             this.state = state == null ? null: unmodifiableList(state);
             this.publishState = publishState;
             this.withQueries = withQueries;
+            this.after = after == null ? null: unmodifiableList(after);
         }
 
         @Override
@@ -96,11 +116,12 @@ public interface BatchSearchRepository extends Closeable {
                     Objects.equals(state, that.state) &&
                     Objects.equals(publishState, that.publishState) &&
                     Objects.equals(contentTypes, that.contentTypes) &&
-                    Objects.equals(queriesExcluded, that.queriesExcluded);
+                    Objects.equals(queriesExcluded, that.queriesExcluded) &&
+                    Objects.equals(after, that.after);
         }
 
         @Override
-        public int hashCode() { return Objects.hash(sort, order, query, field, from, size, queries, project, batchDate, state, publishState, contentTypes, queriesExcluded); }
+        public int hashCode() { return Objects.hash(sort, order, query, field, from, size, queries, project, batchDate, state, publishState, contentTypes, queriesExcluded, after); }
         public boolean hasFilteredContentTypes() { return contentTypes !=null && !contentTypes.isEmpty();}
         public boolean hasFilteredQueries() { return queries !=null && !queries.isEmpty();}
         public boolean hasFilteredProjects() { return project !=null && !project.isEmpty();}
@@ -108,5 +129,6 @@ public interface BatchSearchRepository extends Closeable {
         public boolean hasFilteredStates() { return state !=null && !state.isEmpty();}
         public boolean hasFilteredPublishStates() { return publishState !=null && !publishState.isEmpty();}
         public boolean isSorted() { return !DEFAULT_SORT_FIELD.equals(this.sort);}
+        public boolean hasAfter() { return after !=null && !after.isEmpty();}
     }
 }
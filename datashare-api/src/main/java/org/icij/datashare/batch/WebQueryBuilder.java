@@ -18,6 +18,7 @@ public class WebQueryBuilder {
     private List<String> state;
     private String publishState;
     private boolean withQueries;
+    private List<String> after;
 
     private WebQueryBuilder(){}
 
@@ -85,8 +86,12 @@ public class WebQueryBuilder {
         this.withQueries = withQueries;
         return this;
     }
+    public WebQueryBuilder withAfter(SearchResult lastResult){
+        this.after = List.of(lastResult.query, String.valueOf(lastResult.documentNumber), lastResult.documentId);
+        return this;
+    }
     public BatchSearchRepository.WebQuery build() {
         return new BatchSearchRepository.WebQuery(size,from,sort,order,query,field,
-                queries, project, batchDate,state ,publishState,withQueries,queriesExcluded,contentTypes);
+                queries, project, batchDate,state ,publishState,withQueries,queriesExcluded,contentTypes,after);
     }
 }
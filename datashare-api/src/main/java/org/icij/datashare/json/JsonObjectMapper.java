@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
 import org.icij.datashare.Entity;
@@ -15,9 +16,11 @@ import org.icij.datashare.text.indexing.IndexRoot;
 import org.icij.datashare.text.indexing.IndexType;
 
 import java.io.IOException;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.ANY;
 import static com.fasterxml.jackson.annotation.PropertyAccessor.FIELD;
@@ -39,6 +42,10 @@ public class JsonObjectMapper {
 
     // JSON - Object mapper
     public static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<HashMap<String, Object>> MAP_TYPE = new TypeReference<>() {};
+    private static final ClassValue<Optional<Field>> ID_FIELD = annotatedField(IndexId.class);
+    private static final ClassValue<Optional<Field>> PARENT_FIELD = annotatedField(IndexParent.class);
+    private static final ClassValue<Optional<Field>> ROOT_FIELD = annotatedField(IndexRoot.class);
     static {
         // Handle Optional and other JDK 8 only features
         MAPPER.registerModule(new Jdk8Module());
@@ -58,13 +65,7 @@ public class JsonObjectMapper {
      * @return JSON representation of {@code obj}
      */
     public static <T extends Entity> Map<String, Object> getJson(T obj) {
-        String json;
-        try {
-            json = MAPPER.writeValueAsString(obj);
-            return MAPPER.readValue(json, new TypeReference<HashMap<String, Object>>(){});
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        return MAPPER.convertValue(obj, MAP_TYPE);
     }
 
     public static <T extends Entity> T getObject(String id, String projectId, Map<String, Object> source, Class<T> type) {
@@ -84,10 +85,32 @@ public class JsonObjectMapper {
         return getObject(map, type);
     }
 
-    private static <T extends Entity> T getObject(Map<String, Object> source, Class<T> type) {
+    /**
+     * Get an entity from its JSON tree representation (for example an elasticsearch _source).
+     * The source node is completed in place with {@code id} and {@code projectId}.
+     *
+     * @param id the id of the entity
+     * @param projectId the project of the entity
+     * @param source JSON tree of the entity, can be null
+     * @param type the concrete type of entity
+     * @param <T> the concrete type of entity
+     * @return the entity instance
+     */
+    public static <T extends Entity> T getObject(String id, String projectId, ObjectNode source, Class<T> type) {
+        ObjectNode node = source == null ? MAPPER.createObjectNode() : source;
+        node.put("id", id);
+        node.put("projectId", projectId);
         try {
-            return MAPPER.readValue(MAPPER.writeValueAsString(source), type);
+            return MAPPER.treeToValue(node, type);
         } catch (IOException e) {
+            throw new IllegalArgumentException("cannot deserialize object node " + node, e);
+        }
+    }
+
+    private static <T extends Entity> T getObject(Map<String, Object> source, Class<T> type) {
+        try {
+            return MAPPER.convertValue(source, type);
+        } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("cannot deserialize object map " + source, e);
         }
     }
@@ -139,17 +162,7 @@ public class JsonObjectMapper {
      * @return the index id String
      */
     public static <T extends Entity> String getId(T obj) {
-        for(Field field : obj.getClass().getDeclaredFields()) {
-            if (field.isAnnotationPresent(IndexId.class)) {
-                field.setAccessible(true);
-                try {
-                    return (String) field.get(obj);
-                } catch (IllegalAccessException e) {
-                    break;
-                }
-            }
-        }
-        return null;
+        return getFieldValue(ID_FIELD, obj);
     }
 
     /**
@@ -160,30 +173,43 @@ public class JsonObjectMapper {
      * @return the parent's hash String
      */
     public static <T extends Entity> String getParent(T obj) {
-        for(Field field : obj.getClass().getDeclaredFields()) {
-            if (field.isAnnotationPresent(IndexParent.class)) {
-                field.setAccessible(true);
-                try {
-                    return (String) field.get(obj);
-                } catch (IllegalAccessException e) {
-                    break;
-                }
+        return getFieldValue(PARENT_FIELD, obj);
+    }
+
+    public static <T extends Entity> String getRoot(T obj) {
+        return getFieldValue(ROOT_FIELD, obj);
+    }
+
+    private static <T extends Entity> String getFieldValue(ClassValue<Optional<Field>> annotatedField, T obj) {
+        Optional<Field> field = annotatedField.get(obj.getClass());
+        if (field.isPresent()) {
+            try {
+                return (String) field.get().get(obj);
+            } catch (IllegalAccessException e) {
+                return null;
             }
         }
         return null;
     }
 
-    public static <T extends Entity> String getRoot(T obj) {
-        for (Field field : obj.getClass().getDeclaredFields()) {
-            if (field.isAnnotationPresent(IndexRoot.class)) {
-                field.setAccessible(true);
-                try {
-                    return (String) field.get(obj);
-                } catch (IllegalAccessException e) {
-                    break;
+    /**
+     * Resolves once per class the first declared field marked with the given annotation.
+     *
+     * @param annotation the index annotation to look for
+     * @return the field cache, empty for classes without annotated field
+     */
+    private static ClassValue<Optional<Field>> annotatedField(Class<? extends Annotation> annotation) {
+        return new ClassValue<>() {
+            @Override
+            protected Optional<Field> computeValue(Class<?> cls) {
+                for (Field field : cls.getDeclaredFields()) {
+                    if (field.isAnnotationPresent(annotation)) {
+                        field.setAccessible(true);
+                        return Optional.of(field);
+                    }
                 }
+                return Optional.empty();
             }
-        }
-        return null;
+        };
     }
 }
@@ -12,6 +12,8 @@ import org.slf4j.LoggerFactory;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Stream;
 
 
@@ -29,14 +31,35 @@ public interface Indexer extends Closeable {
     void close() throws IOException;
 
     boolean bulkAdd(String indexName, Pipeline.Type nerType, List<NamedEntity> namedEntities, Document parent) throws IOException;
+    boolean bulkAdd(String indexName, Pipeline.Type nerType, Map<String, List<NamedEntity>> namedEntitiesByDocumentId, Map<String, String> routingByDocumentId) throws IOException;
     <T extends Entity> boolean bulkAdd(final String indexName, List<T> entities) throws IOException;
+    <T extends Entity> Map<String, String> bulkAddWithErrors(final String indexName, List<T> entities) throws IOException;
     <T extends Entity> boolean bulkUpdate(String indexName, List<T> entities) throws IOException;
     <T extends Entity> void add(String indexName, T obj) throws IOException;
     <T extends Entity> void update(String indexName, T obj) throws IOException;
     <T extends Entity> boolean exists(String indexName, String id) throws IOException;
+    Set<String> exists(String indexName, List<String> ids) throws IOException;
 
     <T extends Entity> T get(String indexName, String id);
     <T extends Entity> T get(String indexName, String id, String root);
+    <T extends Entity> T get(String indexName, String id, List<String> sourceIncludes, List<String> sourceExcludes);
+    <T extends Entity> T get(String indexName, String id, String root, List<String> sourceIncludes, List<String> sourceExcludes);
+
+    /**
+     * gets several root documents (routed by their own id) with a single request.
+     *
+     * @return the entities found, by id. Missing ids are not in the map.
+     */
+    <T extends Entity> Map<String, T> get(String indexName, List<String> rootIds, List<String> sourceIncludes) throws IOException;
+
+    /**
+     * runs the first page of several searchers with a single request.
+     * The string queries are used for query templates like in Searcher.scroll(duration, stringQuery), they can be null.
+     * After the call, totalHits() of each searcher is set, and searchers cannot be used anymore.
+     *
+     * @return the first page of results of each searcher, in the searchers order
+     */
+    List<List<? extends Entity>> multiSearch(List<? extends Searcher> searchers, List<String> stringQueries) throws IOException;
 
     String executeRaw(String method, String url, String body) throws IOException;
 
@@ -58,6 +81,7 @@ public interface Indexer extends Closeable {
         Searcher withSource(String... fields);
         Searcher withoutSource(String... fields);
         Searcher withSource(boolean source);
+        Searcher withPointInTime();
         Searcher limit(int maxCount);
         void clearScroll() throws IOException;
         long totalHits();
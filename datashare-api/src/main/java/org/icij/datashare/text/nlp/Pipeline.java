@@ -106,6 +106,14 @@ public interface Pipeline {
 
     void terminate(Language language) throws InterruptedException ;
 
+    /**
+     * @return true if initialize, process and terminate can be called by several threads at the
+     * same time. Otherwise the callers have to serialize these calls.
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
     /**
      * Is stage supported for language?
      *
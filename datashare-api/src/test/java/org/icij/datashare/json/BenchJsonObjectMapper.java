@@ -0,0 +1,143 @@
+package org.icij.datashare.json;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.icij.datashare.Entity;
+import org.icij.datashare.text.Document;
+import org.icij.datashare.text.Language;
+import org.icij.datashare.text.NamedEntity;
+import org.icij.datashare.text.indexing.IndexId;
+import org.icij.datashare.text.indexing.IndexParent;
+import org.icij.datashare.text.indexing.IndexRoot;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.icij.datashare.json.JsonObjectMapper.MAPPER;
+import static org.icij.datashare.text.DocumentBuilder.createDoc;
+import static org.icij.datashare.text.NamedEntity.Category.PERSON;
+import static org.icij.datashare.text.nlp.Pipeline.Type.CORENLP;
+
+/**
+ * Entity/JSON conversions as done when indexing and fetching documents,
+ * through intermediate JSON strings vs direct tree/object conversion.
+ */
+public class BenchJsonObjectMapper {
+    static Logger logger = LoggerFactory.getLogger(BenchJsonObjectMapper.class);
+    private static final int NB_ITERATIONS = 20000;
+    private static final int NB_WARMUP = 5000;
+    private static final TypeReference<HashMap<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    @Test
+    public void testDocumentConversions() throws Exception {
+        Document document = createDoc("docId").with(content(10_000)).with(Paths.get("/bench/dir/document.eml"))
+                .with(Language.ENGLISH).ofContentType("message/rfc822").with(new HashMap<String, Object>() {{
+                    put("tika_metadata_message_from", "john@doe.com");
+                    put("tika_metadata_message_to", "jane@doe.com");
+                    put("tika_metadata_dc_title", "Hello");
+                }}).withContentLength(10_000).build();
+        bench("Document", document, Document.class);
+    }
+
+    @Test
+    public void testNamedEntityConversions() throws Exception {
+        NamedEntity namedEntity = NamedEntity.create(PERSON, "John Doe", List.of(12L, 123L, 1234L), "docId", "rootId", CORENLP, Language.ENGLISH);
+        bench("NamedEntity", namedEntity, NamedEntity.class);
+    }
+
+    @Test
+    public void testIndexAccessors() {
+        NamedEntity namedEntity = NamedEntity.create(PERSON, "John Doe", List.of(12L), "docId", "rootId", CORENLP, Language.ENGLISH);
+        int nbIterations = NB_ITERATIONS * 50;
+        long length = 0;
+        for (int i = 0; i < NB_WARMUP * 50; i++) {
+            length += scanAnnotatedField(namedEntity, IndexParent.class).length();
+            length += JsonObjectMapper.getParent(namedEntity).length();
+        }
+
+        long beginTime = System.nanoTime();
+        for (int i = 0; i < nbIterations; i++) {
+            length += scanAnnotatedField(namedEntity, IndexId.class).length();
+            length += scanAnnotatedField(namedEntity, IndexParent.class).length();
+            length += scanAnnotatedField(namedEntity, IndexRoot.class).length();
+        }
+        long scanNs = System.nanoTime() - beginTime;
+        logger.info("id/parent/root with declared fields scan: {} ns/entity", String.format("%.1f", (double) scanNs / nbIterations));
+
+        beginTime = System.nanoTime();
+        for (int i = 0; i < nbIterations; i++) {
+            length += JsonObjectMapper.getId(namedEntity).length();
+            length += JsonObjectMapper.getParent(namedEntity).length();
+            length += JsonObjectMapper.getRoot(namedEntity).length();
+        }
+        long cachedNs = System.nanoTime() - beginTime;
+        logger.info("id/parent/root with cached fields: {} ns/entity ({})", String.format("%.1f", (double) cachedNs / nbIterations), length);
+    }
+
+    private static String scanAnnotatedField(Entity obj, Class<? extends Annotation> annotation) {
+        for (Field field : obj.getClass().getDeclaredFields()) {
+            if (field.isAnnotationPresent(annotation)) {
+                field.setAccessible(true);
+                try {
+                    return (String) field.get(obj);
+                } catch (IllegalAccessException e) {
+                    break;
+                }
+            }
+        }
+        return null;
+    }
+
+    private <T extends Entity> void bench(String name, T entity, Class<T> cls) throws IOException {
+        ObjectNode source = MAPPER.valueToTree(entity);
+        for (int i = 0; i < NB_WARMUP; i++) {
+            withStrings(entity, source, cls);
+            direct(entity, source, cls);
+        }
+
+        long beginTime = System.nanoTime();
+        for (int i = 0; i < NB_ITERATIONS; i++) {
+            withStrings(entity, source, cls);
+        }
+        long stringsNs = System.nanoTime() - beginTime;
+        logger.info("{} with JSON strings: {} conversions/s", name, String.format("%.0f", NB_ITERATIONS * 1e9 / stringsNs));
+
+        beginTime = System.nanoTime();
+        for (int i = 0; i < NB_ITERATIONS; i++) {
+            direct(entity, source, cls);
+        }
+        long directNs = System.nanoTime() - beginTime;
+        logger.info("{} direct: {} conversions/s", name, String.format("%.0f", NB_ITERATIONS * 1e9 / directNs));
+    }
+
+    private <T extends Entity> T withStrings(T entity, ObjectNode source, Class<T> cls) throws IOException {
+        Map<String, Object> json = MAPPER.readValue(MAPPER.writeValueAsString(entity), MAP_TYPE);
+        Map<String, Object> sourceAsMap = MAPPER.readValue(MAPPER.writeValueAsString(source), MAP_TYPE);
+        sourceAsMap.put("id", entity.getId());
+        sourceAsMap.put("projectId", "prj");
+        return json.isEmpty() ? null : MAPPER.readValue(MAPPER.writeValueAsString(sourceAsMap), cls);
+    }
+
+    private <T extends Entity> T direct(T entity, ObjectNode source, Class<T> cls) {
+        Map<String, Object> json = JsonObjectMapper.getJson(entity);
+        return json.isEmpty() ? null : JsonObjectMapper.getObject(entity.getId(), "prj", source.deepCopy(), cls);
+    }
+
+    private static String content(int length) {
+        StringBuilder builder = new StringBuilder(length);
+        List<String> words = new ArrayList<>(List.of("lorem", "ipsum", "dolor", "sit", "amet", "consectetur"));
+        for (int i = 0; builder.length() < length; i++) {
+            builder.append(words.get(i % words.size())).append(' ');
+        }
+        return builder.toString();
+    }
+}
@@ -4,9 +4,21 @@ package org.icij.datashare.json;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.icij.datashare.text.Document;
+import org.icij.datashare.text.Language;
+import org.icij.datashare.text.NamedEntity;
 import org.junit.Test;
 
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
 import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.MapAssert.entry;
+import static org.icij.datashare.text.DocumentBuilder.createDoc;
+import static org.icij.datashare.text.NamedEntity.Category.PERSON;
+import static org.icij.datashare.text.nlp.Pipeline.Type.CORENLP;
 
 public class JsonObjectMapperTest {
     @Test
@@ -34,6 +46,58 @@ public class JsonObjectMapperTest {
         assertThat(wrapper.throwable.getMessage()).isEqualTo("hello");
     }
 
+    @Test
+    public void test_get_json_and_object_from_map() {
+        Document document = createDoc("id").with("content").with(Paths.get("/tmp/file.txt")).with(Language.FRENCH).withContentLength(123L).build();
+
+        Map<String, Object> json = JsonObjectMapper.getJson(document);
+        assertThat(json).includes(entry("path", "/tmp/file.txt"), entry("content", "content"), entry("language", "FRENCH"));
+
+        Document actual = JsonObjectMapper.getObject("id", "prj", json, Document.class);
+        assertThat(actual.getId()).isEqualTo("id");
+        assertThat(actual.getProjectId()).isEqualTo("prj");
+        assertThat(actual.getPath()).isEqualTo(Paths.get("/tmp/file.txt"));
+        assertThat(actual.getContentLength()).isEqualTo(123L);
+        assertThat(actual.getLanguage()).isEqualTo(Language.FRENCH);
+    }
+
+    @Test
+    public void test_get_object_from_node() {
+        Document document = createDoc("id").with("content").with(Paths.get("/tmp/file.txt")).withContentLength(123L).build();
+        ObjectNode source = JsonObjectMapper.MAPPER.valueToTree(document);
+
+        Document actual = JsonObjectMapper.getObject("id", "prj", source, Document.class);
+        assertThat(actual.getProjectId()).isEqualTo("prj");
+        assertThat(actual.getContent()).isEqualTo("content");
+        assertThat(actual.getPath()).isEqualTo(Paths.get("/tmp/file.txt"));
+        assertThat(actual.getContentLength()).isEqualTo(123L);
+    }
+
+    @Test
+    public void test_get_object_from_null_node() {
+        Document actual = JsonObjectMapper.getObject("id", "prj", (ObjectNode) null, Document.class);
+        assertThat(actual.getId()).isEqualTo("id");
+        assertThat(actual.getProjectId()).isEqualTo("prj");
+    }
+
+    @Test
+    public void test_get_parent_and_root_of_document() {
+        Document document = createDoc("id").withParentId("parent").withRootId("root").build();
+
+        assertThat(JsonObjectMapper.getId(document)).isNull();
+        assertThat(JsonObjectMapper.getParent(document)).isEqualTo("parent");
+        assertThat(JsonObjectMapper.getRoot(document)).isEqualTo("root");
+    }
+
+    @Test
+    public void test_get_id_parent_and_root_of_named_entity() {
+        NamedEntity namedEntity = NamedEntity.create(PERSON, "John Doe", List.of(12L), "docId", "rootId", CORENLP, Language.ENGLISH);
+
+        assertThat(JsonObjectMapper.getId(namedEntity)).isEqualTo(namedEntity.getId());
+        assertThat(JsonObjectMapper.getParent(namedEntity)).isEqualTo("docId");
+        assertThat(JsonObjectMapper.getRoot(namedEntity)).isEqualTo("rootId");
+    }
+
     static class ExceptionWrapper {
         private final Throwable throwable;
 
@@ -9,11 +9,18 @@ import org.redisson.api.RedissonClient;
 
 import java.util.Properties;
 
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_TASK_PROGRESS_INTERVAL;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_TASK_WORKERS;
+import static org.icij.datashare.cli.DatashareCliOptions.TASK_PROGRESS_INTERVAL_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.TASK_WORKERS_OPT;
+
 
 public class BatchDownloadApp {
     public static void start(Properties properties) throws Exception {
         CommonMode commonMode = CommonMode.create(properties);
-        TaskRunnerLoop taskRunnerLoop = new TaskRunnerLoop(commonMode.get(TaskFactory.class), commonMode.get(TaskSupplier.class));
+        TaskRunnerLoop taskRunnerLoop = new TaskRunnerLoop(commonMode.get(TaskFactory.class), commonMode.get(TaskSupplier.class),
+                commonMode.get(PropertiesProvider.class).get(TASK_WORKERS_OPT).map(Integer::parseInt).orElse(DEFAULT_TASK_WORKERS),
+                commonMode.get(PropertiesProvider.class).get(TASK_PROGRESS_INTERVAL_OPT).map(Integer::parseInt).orElse(DEFAULT_TASK_PROGRESS_INTERVAL));
         taskRunnerLoop.call();
         commonMode.get(Indexer.class).close();
         commonMode.get(RedissonClient.class).shutdown();
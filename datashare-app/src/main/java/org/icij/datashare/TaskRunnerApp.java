@@ -9,11 +9,18 @@ import org.redisson.api.RedissonClient;
 
 import java.util.Properties;
 
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_TASK_PROGRESS_INTERVAL;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_TASK_WORKERS;
+import static org.icij.datashare.cli.DatashareCliOptions.TASK_PROGRESS_INTERVAL_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.TASK_WORKERS_OPT;
+
 
 public class TaskRunnerApp {
     public static void start(Properties properties) throws Exception {
         CommonMode mode = CommonMode.create(properties);
-        TaskRunnerLoop batchSearchLoop = new TaskRunnerLoop(mode.get(DatashareTaskFactory.class), mode.get(TaskSupplier.class));
+        TaskRunnerLoop batchSearchLoop = new TaskRunnerLoop(mode.get(DatashareTaskFactory.class), mode.get(TaskSupplier.class),
+                mode.get(PropertiesProvider.class).get(TASK_WORKERS_OPT).map(Integer::parseInt).orElse(DEFAULT_TASK_WORKERS),
+                mode.get(PropertiesProvider.class).get(TASK_PROGRESS_INTERVAL_OPT).map(Integer::parseInt).orElse(DEFAULT_TASK_PROGRESS_INTERVAL));
         batchSearchLoop.call();
         batchSearchLoop.close();
         mode.get(Indexer.class).close();// to avoid being blocked
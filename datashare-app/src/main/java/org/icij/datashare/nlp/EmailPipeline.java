@@ -158,6 +158,9 @@ public class EmailPipeline extends AbstractPipeline {
     @Override
     public boolean isCaching() { return false;}
 
+    @Override
+    public boolean isThreadSafe() { return true;}
+
     @Override
     public Charset getEncoding() { return Charset.defaultCharset();}
 
@@ -0,0 +1,146 @@
+package org.icij.datashare.tasks;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import org.icij.datashare.time.DatashareTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Pause between elasticsearch requests adapted to the cluster load.
+ *
+ * The delay is doubled (up to maxDelayMs) when the mean latency of the requests goes over
+ * the target latency or when elasticsearch rejects a request (429/503), and it is decreased
+ * by a quarter (down to minDelayMs) when the requests are faster than the target.
+ * Rejected requests are retried after the delay.
+ */
+class AdaptiveThrottle {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    static final int MAX_RETRIES = 5;
+    static final int MIN_INCREASE_MS = 50;
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private final int minDelayMs;
+    private final int maxDelayMs;
+    private final int targetLatencyMs;
+    private final long startTime;
+
+    private int delayMs;
+    private double meanLatencyMs = 0;
+    private long nbRequests = 0;
+    private long nbRejections = 0;
+    private long totalLatencyMs = 0;
+    private long totalDelayMs = 0;
+
+    interface Request<V> {
+        V execute() throws IOException;
+    }
+
+    AdaptiveThrottle(int minDelayMs, int maxDelayMs, int targetLatencyMs) {
+        this.minDelayMs = max(0, minDelayMs);
+        this.maxDelayMs = max(this.minDelayMs, maxDelayMs);
+        this.targetLatencyMs = targetLatencyMs;
+        this.delayMs = this.minDelayMs;
+        this.startTime = DatashareTime.getInstance().currentTimeMillis();
+    }
+
+    /**
+     * executes the request, measuring its latency. Requests rejected by elasticsearch
+     * are retried after the throttle delay, at most MAX_RETRIES times.
+     */
+    <V> V call(Request<V> request) throws IOException, InterruptedException {
+        for (int retry = 0; ; retry++) {
+            long before = DatashareTime.getInstance().currentTimeMillis();
+            try {
+                V result = request.execute();
+                succeeded(DatashareTime.getInstance().currentTimeMillis() - before);
+                return result;
+            } catch (ElasticsearchException esEx) {
+                if (!isRejection(esEx) || retry >= MAX_RETRIES) {
+                    throw esEx;
+                }
+                rejected();
+                logger.info("elasticsearch rejected request ({}), retrying in {}ms", esEx.status(), getDelayMs());
+                pause();
+            }
+        }
+    }
+
+    /**
+     * sleeps the current delay
+     */
+    void pause() throws InterruptedException {
+        int delay = getDelayMs();
+        synchronized (this) {
+            totalDelayMs += delay;
+        }
+        DatashareTime.getInstance().sleep(delay);
+    }
+
+    synchronized void succeeded(long latencyMs) {
+        nbRequests++;
+        totalLatencyMs += latencyMs;
+        meanLatencyMs = nbRequests == 1 ? latencyMs : (1 - LATENCY_WEIGHT) * meanLatencyMs + LATENCY_WEIGHT * latencyMs;
+        if (meanLatencyMs > targetLatencyMs) {
+            increaseDelay();
+        } else {
+            delayMs = max(minDelayMs, delayMs * 3 / 4);
+        }
+    }
+
+    synchronized void rejected() {
+        nbRequests++;
+        nbRejections++;
+        increaseDelay();
+    }
+
+    synchronized int getDelayMs() {
+        return delayMs;
+    }
+
+    synchronized Metrics getMetrics() {
+        long elapsedMs = max(1, DatashareTime.getInstance().currentTimeMillis() - startTime);
+        return new Metrics(nbRequests, nbRejections, nbRequests == 0 ? 0 : totalLatencyMs / nbRequests,
+                delayMs, totalDelayMs, nbRequests * 1000.0 / elapsedMs);
+    }
+
+    private void increaseDelay() {
+        int previousDelay = delayMs;
+        delayMs = min(maxDelayMs, max(delayMs * 2, MIN_INCREASE_MS));
+        if (delayMs != previousDelay) {
+            logger.debug("throttle delay increased from {}ms to {}ms (mean latency {}ms)", previousDelay, delayMs, (long) meanLatencyMs);
+        }
+    }
+
+    private static boolean isRejection(ElasticsearchException esEx) {
+        return esEx.status() == 429 || esEx.status() == 503;
+    }
+
+    static class Metrics {
+        final long nbRequests;
+        final long nbRejections;
+        final long meanLatencyMs;
+        final int delayMs;
+        final long totalDelayMs;
+        final double requestsPerSecond;
+
+        Metrics(long nbRequests, long nbRejections, long meanLatencyMs, int delayMs, long totalDelayMs, double requestsPerSecond) {
+            this.nbRequests = nbRequests;
+            this.nbRejections = nbRejections;
+            this.meanLatencyMs = meanLatencyMs;
+            this.delayMs = delayMs;
+            this.totalDelayMs = totalDelayMs;
+            this.requestsPerSecond = requestsPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests (%d rejected) at %.1f requests/s, mean latency %dms, throttle delay %dms (%dms slept)",
+                    nbRequests, nbRejections, requestsPerSecond, meanLatencyMs, delayMs, totalDelayMs);
+        }
+    }
+}
@@ -34,16 +34,24 @@ import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.zip.ZipException;
 
+import static java.lang.Boolean.parseBoolean;
 import static java.lang.Integer.min;
 import static java.lang.Integer.parseInt;
 import static java.lang.String.valueOf;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.stream.Collectors.toList;
 import static org.icij.datashare.cli.DatashareCliOptions.*;
 
@@ -85,13 +93,18 @@ public class BatchDownloadRunner implements Callable<UriResult>, Monitorable, Us
                 .orElse(valueOf(DEFAULT_SCROLL_SIZE))));
         int scrollSize = min(scrollSizeFromParams, MAX_SCROLL_SIZE);
         long maxZipSizeBytes = HumanReadableSize.parse(propertiesProvider.get(BATCH_DOWNLOAD_MAX_SIZE_OPT).orElse(DEFAULT_BATCH_DOWNLOAD_MAX_SIZE));
+        int parallelism = Math.max(1, parseInt(propertiesProvider.get(BATCH_DOWNLOAD_PARALLELISM_OPT).orElse(valueOf(DEFAULT_BATCH_DOWNLOAD_PARALLELISM))));
+        long memoryBudgetBytes = HumanReadableSize.parse(propertiesProvider.get(BATCH_DOWNLOAD_MEMORY_BUDGET_OPT).orElse(DEFAULT_BATCH_DOWNLOAD_MEMORY_BUDGET));
         long zippedFilesSize = 0;
         BatchDownload batchDownload = getBatchDownload();
 
-        logger.info("running batch download for user {} on project {} with {} scroll with throttle {}ms and scroll size of {}",
-                batchDownload.user.getId(), batchDownload.projects, scrollDuration, throttleMs, scrollSize);
+        logger.info("running batch download for user {} on project {} with {} scroll with throttle {}ms, scroll size of {} and {} extraction thread(s)",
+                batchDownload.user.getId(), batchDownload.projects, scrollDuration, throttleMs, scrollSize, parallelism);
         Indexer.Searcher searcher = indexer.search(batchDownload.projects.stream().map(Project::getId).collect(toList()),
-                Document.class, batchDownload.query).withoutSource("content").limit(scrollSize);
+                Document.class, batchDownload.query).withoutSource("content", "content_translated").limit(scrollSize);
+        if (parseBoolean(propertiesProvider.get(SCROLL_POINT_IN_TIME_OPT).orElse(valueOf(DEFAULT_SCROLL_POINT_IN_TIME)))) {
+            searcher.withPointInTime();
+        }
 
         try {
             List<? extends Entity> docsToProcess = searcher.scroll(scrollDuration).collect(toList());
@@ -105,22 +118,28 @@ public class BatchDownloadRunner implements Callable<UriResult>, Monitorable, Us
                         maxResultSize, batchDownload.uuid, batchDownload.user);
             }
 
-            try (Zipper zipper = createZipper(batchDownload, propertiesProvider, mailSenderSupplier)) {
-                HashMap<String, Object> taskProperties = new HashMap<>();
-                taskProperties.put("batchDownload", batchDownload);
+            try (Zipper zipper = createZipper(batchDownload, propertiesProvider, mailSenderSupplier);
+                 SourcePipeline sources = new SourcePipeline(parallelism, memoryBudgetBytes)) {
                 while (!docsToProcess.isEmpty()) {
-                    for (int i = 0; i < docsToProcess.size() && numberOfResults.get() < maxResultSize && zippedFilesSize <= maxZipSizeBytes; i++) {
+                    documentVerifier.loadRootDocumentSizes(docsToProcess.stream().map(Document.class::cast).collect(toList()));
+                    for (int i = 0; i < docsToProcess.size() && isUnderLimits(zippedFilesSize, maxResultSize, maxZipSizeBytes); i++) {
                         Document document = (Document) docsToProcess.get(i);
-                        int addedBytes = documentVerifier.isRootDocumentSizeAllowed(document) ? zipper.add(document) : 0;
-                        if (addedBytes > 0) {
-                            zippedFilesSize += addedBytes;
-                            numberOfResults.incrementAndGet();
-                            progressCallback.apply(getProgressRate());
+                        while (!sources.offer(document) && isUnderLimits(zippedFilesSize, maxResultSize, maxZipSizeBytes)) {
+                            zippedFilesSize += zip(zipper, sources.next());
+                        }
+                        // entries are zipped in the documents order, as soon as their source is ready
+                        while (sources.hasReadySource() && isUnderLimits(zippedFilesSize, maxResultSize, maxZipSizeBytes)) {
+                            zippedFilesSize += zip(zipper, sources.next());
                         }
                     }
-                    docsToProcess = searcher.scroll(scrollDuration).collect(toList());
+                    docsToProcess = isUnderLimits(zippedFilesSize, maxResultSize, maxZipSizeBytes) ?
+                            searcher.scroll(scrollDuration).collect(toList()) : List.of();
+                }
+                while (sources.hasNext() && isUnderLimits(zippedFilesSize, maxResultSize, maxZipSizeBytes)) {
+                    zippedFilesSize += zip(zipper, sources.next());
                 }
             }
+            searcher.clearScroll();
         } catch (ElasticsearchException esEx) {
             throw ElasticSearchAdapterException.createFrom(esEx);
         }
@@ -129,6 +148,19 @@ public class BatchDownloadRunner implements Callable<UriResult>, Monitorable, Us
         return result;
     }
 
+    private boolean isUnderLimits(long zippedFilesSize, int maxResultSize, long maxZipSizeBytes) {
+        return numberOfResults.get() < maxResultSize && zippedFilesSize <= maxZipSizeBytes;
+    }
+
+    private int zip(Zipper zipper, PreparedSource source) throws IOException {
+        int addedBytes = source.zip(zipper);
+        if (addedBytes > 0) {
+            numberOfResults.incrementAndGet();
+            progressCallback.apply(getProgressRate());
+        }
+        return addedBytes;
+    }
+
     private Zipper createZipper(BatchDownload batchDownload, PropertiesProvider propertiesProvider, Function<URI, MailSender> mailSenderSupplier) throws URISyntaxException, IOException {
         if (batchDownload.encrypted) {
             String rootHost = propertiesProvider.get("rootHost").orElse(null);
@@ -157,6 +189,178 @@ public class BatchDownloadRunner implements Callable<UriResult>, Monitorable, Us
     private BatchDownload getBatchDownload() {
         return (BatchDownload) task.properties.get("batchDownload");
     }
+
+    /**
+     * Prepares the sources of the documents to zip. When parallelism is 1, the sources are streamed
+     * by the zip writer thread from the extractor. Otherwise a pool of threads extracts them in memory
+     * ahead of the zip writer, within a memory budget: a document that does not fit in the remaining
+     * budget (according to its content length) waits for the previous sources to be zipped. Sources
+     * without a content length or bigger than the budget are streamed by the zip writer, and the rest of
+     * a source longer than its content length is streamed by the zip writer after the bytes already read,
+     * so that a source is always extracted once.
+     */
+    private class SourcePipeline implements AutoCloseable {
+        private final ExecutorService executor;
+        private final long memoryBudgetBytes;
+        private final int maxPendingSources;
+        private final Deque<PendingSource> pending = new ArrayDeque<>();
+        private long reservedBytes = 0;
+
+        SourcePipeline(int parallelism, long memoryBudgetBytes) {
+            this.executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+            this.memoryBudgetBytes = memoryBudgetBytes;
+            this.maxPendingSources = parallelism * 2;
+        }
+
+        /**
+         * @return false if the document cannot be prepared before the next source is zipped
+         */
+        boolean offer(Document document) {
+            if (executor == null) {
+                pending.add(new PendingSource(completedFuture(new PreparedSource(document, documentVerifier.isRootDocumentSizeAllowed(document))), 0));
+                return true;
+            }
+            if (pending.size() >= maxPendingSources) {
+                return false;
+            }
+            long contentLength = document.getContentLength() == null ? 0 : document.getContentLength();
+            if (contentLength <= 0 || contentLength >= memoryBudgetBytes || contentLength >= Integer.MAX_VALUE - 8) {
+                pending.add(new PendingSource(executor.submit(() -> new PreparedSource(document, documentVerifier.isRootDocumentSizeAllowed(document))), 0));
+                return true;
+            }
+            if (reservedBytes + contentLength > memoryBudgetBytes) {
+                return false;
+            }
+            reservedBytes += contentLength;
+            pending.add(new PendingSource(executor.submit(() -> extract(document, (int) contentLength)), contentLength));
+            return true;
+        }
+
+        boolean hasReadySource() {
+            return !pending.isEmpty() && (pending.peek().source.isDone() || pending.size() >= maxPendingSources);
+        }
+
+        boolean hasNext() {
+            return !pending.isEmpty();
+        }
+
+        PreparedSource next() throws IOException, InterruptedException {
+            PendingSource head = pending.poll();
+            reservedBytes -= head.reservedBytes;
+            try {
+                return head.source.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        private PreparedSource extract(Document document, int maxBytes) throws IOException {
+            if (!documentVerifier.isRootDocumentSizeAllowed(document)) {
+                return new PreparedSource(document, false);
+            }
+            InputStream from = null;
+            boolean streamed = false;
+            try {
+                from = new SourceExtractor(propertiesProvider, false, false).getSource(document.getProject(), document);
+                byte[] content = from.readNBytes(maxBytes + 1);
+                if (content.length <= maxBytes) {
+                    return new PreparedSource(document, content);
+                }
+                streamed = true;
+                return new PreparedSource(document, new SequenceInputStream(new ByteArrayInputStream(content), from));
+            } catch (ExtractException | ZipException | FileNotFoundException | ContentNotFoundException zex) {
+                logger.warn("exception during extract. skipping entry for doc " + document.getId(), zex);
+                return new PreparedSource(document, false);
+            } finally {
+                if (from != null && !streamed) {
+                    from.close();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (executor != null) {
+                for (PendingSource p : pending) {
+                    if (!p.source.cancel(true)) {
+                        closeQuietly(p.source);
+                    }
+                }
+                executor.shutdownNow();
+            }
+        }
+
+        private void closeQuietly(Future<PreparedSource> source) {
+            try {
+                source.get().close();
+            } catch (ExecutionException | CancellationException | IOException e) {
+                logger.debug("cannot close source", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class PendingSource {
+        final Future<PreparedSource> source;
+        final long reservedBytes;
+
+        PendingSource(Future<PreparedSource> source, long reservedBytes) {
+            this.source = source;
+            this.reservedBytes = reservedBytes;
+        }
+    }
+
+    private static class PreparedSource implements Closeable {
+        final Document document;
+        final boolean allowed;
+        final byte[] content; // source read in memory
+        final InputStream stream; // source already opened, longer than its content length
+        // when both are null the source is streamed from the extractor by the zip writer
+
+        PreparedSource(Document document, boolean allowed) {
+            this(document, allowed, null, null);
+        }
+
+        PreparedSource(Document document, byte[] content) {
+            this(document, true, content, null);
+        }
+
+        PreparedSource(Document document, InputStream stream) {
+            this(document, true, null, stream);
+        }
+
+        private PreparedSource(Document document, boolean allowed, byte[] content, InputStream stream) {
+            this.document = document;
+            this.allowed = allowed;
+            this.content = content;
+            this.stream = stream;
+        }
+
+        int zip(Zipper zipper) throws IOException {
+            if (!allowed) {
+                return 0;
+            }
+            if (content != null) {
+                return zipper.add(document, content);
+            }
+            return stream != null ? zipper.add(document, stream) : zipper.add(document);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
     private static class Zipper implements AutoCloseable {
 
         protected final BatchDownload batchDownload;
@@ -174,23 +378,53 @@ public class BatchDownloadRunner implements Callable<UriResult>, Monitorable, Us
         }
 
         public int add(Document doc) throws IOException {
-            try (InputStream from = new SourceExtractor(propertiesProvider).getSource(doc.getProject(), doc)) {
-                int zippedSize = 0;
-                zipOutputStream.putNextEntry(createEntry(getEntryName(doc)));
-                byte[] buffer = new byte[4096];
-                int len;
-                while ((len = from.read(buffer)) > 0) {
-                    zipOutputStream.write(buffer, 0, len);
-                    zippedSize += len;
-                }
-                zipOutputStream.closeEntry();
-                return zippedSize;
+            try (InputStream from = new SourceExtractor(propertiesProvider, false, false).getSource(doc.getProject(), doc)) {
+                return write(doc, from);
             } catch (ExtractException | ZipException | FileNotFoundException | ContentNotFoundException zex) {
                 logger.warn("exception during extract/zip. skipping entry for doc " + doc.getId(), zex);
                 return 0;
             }
         }
 
+        /**
+         * zips a source that is already opened, and closes it
+         *
+         * @return the number of bytes read from the source
+         */
+        public int add(Document doc, InputStream source) throws IOException {
+            try (InputStream from = source) {
+                return write(doc, from);
+            } catch (ZipException zex) {
+                logger.warn("exception during zip. skipping entry for doc " + doc.getId(), zex);
+                return 0;
+            }
+        }
+
+        private int write(Document doc, InputStream from) throws IOException {
+            int zippedSize = 0;
+            zipOutputStream.putNextEntry(createEntry(getEntryName(doc)));
+            byte[] buffer = new byte[4096];
+            int len;
+            while ((len = from.read(buffer)) > 0) {
+                zipOutputStream.write(buffer, 0, len);
+                zippedSize += len;
+            }
+            zipOutputStream.closeEntry();
+            return zippedSize;
+        }
+
+        public int add(Document doc, byte[] content) throws IOException {
+            try {
+                zipOutputStream.putNextEntry(createEntry(getEntryName(doc)));
+                zipOutputStream.write(content);
+                zipOutputStream.closeEntry();
+                return content.length;
+            } catch (ZipException zex) {
+                logger.warn("exception during zip. skipping entry for doc " + doc.getId(), zex);
+                return 0;
+            }
+        }
+
         protected ZipParameters createEntry(String entryName) {
             ZipParameters zipParams = new ZipParameters();
             zipParams.setFileNameInZip(entryName);
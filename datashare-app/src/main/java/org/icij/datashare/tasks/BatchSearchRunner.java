@@ -26,21 +26,40 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static java.lang.Boolean.parseBoolean;
 import static java.lang.Integer.min;
 import static java.lang.Integer.parseInt;
+import static java.util.Collections.nCopies;
 import static java.util.stream.Collectors.toList;
 import static org.icij.datashare.cli.DatashareCliOptions.BATCH_SEARCH_MAX_TIME_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.BATCH_SEARCH_MULTI_SEARCH_SIZE_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.BATCH_SEARCH_PARALLELISM_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.BATCH_SEARCH_SCROLL_DURATION_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.BATCH_SEARCH_SCROLL_SIZE_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.BATCH_THROTTLE_MAX_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.BATCH_THROTTLE_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.BATCH_THROTTLE_TARGET_LATENCY_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_BATCH_SEARCH_MAX_TIME;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_BATCH_SEARCH_MULTI_SEARCH_SIZE;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_BATCH_SEARCH_PARALLELISM;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_BATCH_THROTTLE;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_BATCH_THROTTLE_MAX;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_BATCH_THROTTLE_TARGET_LATENCY;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_SCROLL_DURATION;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_SCROLL_POINT_IN_TIME;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_SCROLL_SIZE;
+import static org.icij.datashare.cli.DatashareCliOptions.SCROLL_POINT_IN_TIME_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.SCROLL_SIZE_OPT;
 import static org.icij.datashare.text.ProjectProxy.asCommaConcatNames;
 
@@ -48,14 +67,17 @@ public class BatchSearchRunner implements CancellableTask, UserTask, Callable<In
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     /**
-     * max scroll size will get n results at each scroll
-     * each result is binding 9 fields on an insert query
-     * and max sql binding is an int(2) = 32768
-     * As we do batch insert with VALUES (val1, ..., val9), (val1, ..., val9)
-     * max scroll size should be < 32768 / 9 (3640)
+     * max scroll size will get n results at each scroll.
+     * Results are inserted with a JDBC batch so it is not bounded by the max sql binding
+     * anymore, but by the default elasticsearch index.max_result_window
      */
-    static final int MAX_SCROLL_SIZE = 3500;
+    static final int MAX_SCROLL_SIZE = 10000;
     static final int MAX_BATCH_RESULT_SIZE = 60000;
+    /**
+     * batch searches are short and started by users waiting for them: they are taken
+     * before long running tasks queued with the default priority (indexing, NER...)
+     */
+    public static final int PRIORITY = TaskView.DEFAULT_PRIORITY + 2;
 
     private final Indexer indexer;
     private final PropertiesProvider propertiesProvider;
@@ -67,6 +89,14 @@ public class BatchSearchRunner implements CancellableTask, UserTask, Callable<In
     protected volatile boolean cancelAsked = false;
     protected volatile Thread callThread;
     protected volatile boolean requeueCancel;
+    private volatile boolean queryFailed = false;
+    private volatile boolean maxResultsReached = false;
+    private int numberOfResults = 0;
+    private AdaptiveThrottle throttle;
+    private int maxTimeSeconds;
+    private String scrollDuration;
+    private int scrollSize;
+    private boolean scrollPointInTime;
 
     @Inject
     public BatchSearchRunner(Indexer indexer, PropertiesProvider propertiesProvider, BatchSearchRepository repository,
@@ -86,16 +116,20 @@ public class BatchSearchRunner implements CancellableTask, UserTask, Callable<In
 
     @Override
     public Integer call() throws Exception {
-        int numberOfResults = 0;
         int totalProcessed = 0;
 
         int throttleMs = parseInt(propertiesProvider.get(BATCH_THROTTLE_OPT).orElse(DEFAULT_BATCH_THROTTLE));
-        int maxTimeSeconds = parseInt(propertiesProvider.get(BATCH_SEARCH_MAX_TIME_OPT).orElse(DEFAULT_BATCH_SEARCH_MAX_TIME));
-        String scrollDuration = propertiesProvider.get(BATCH_SEARCH_SCROLL_DURATION_OPT).orElse(DEFAULT_SCROLL_DURATION);
+        int throttleMaxMs = parseInt(propertiesProvider.get(BATCH_THROTTLE_MAX_OPT).orElse(DEFAULT_BATCH_THROTTLE_MAX));
+        int throttleTargetLatencyMs = parseInt(propertiesProvider.get(BATCH_THROTTLE_TARGET_LATENCY_OPT).orElse(DEFAULT_BATCH_THROTTLE_TARGET_LATENCY));
+        maxTimeSeconds = parseInt(propertiesProvider.get(BATCH_SEARCH_MAX_TIME_OPT).orElse(DEFAULT_BATCH_SEARCH_MAX_TIME));
+        scrollDuration = propertiesProvider.get(BATCH_SEARCH_SCROLL_DURATION_OPT).orElse(DEFAULT_SCROLL_DURATION);
         int scrollSizeFromParams = parseInt(propertiesProvider.get(BATCH_SEARCH_SCROLL_SIZE_OPT)
                 .orElse(propertiesProvider.get(SCROLL_SIZE_OPT)
                 .orElse(String.valueOf(DEFAULT_SCROLL_SIZE))));
-        int scrollSize = min(scrollSizeFromParams, MAX_SCROLL_SIZE);
+        scrollSize = min(scrollSizeFromParams, MAX_SCROLL_SIZE);
+        scrollPointInTime = parseBoolean(propertiesProvider.get(SCROLL_POINT_IN_TIME_OPT).orElse(String.valueOf(DEFAULT_SCROLL_POINT_IN_TIME)));
+        int parallelism = Math.max(1, parseInt(propertiesProvider.get(BATCH_SEARCH_PARALLELISM_OPT).orElse(DEFAULT_BATCH_SEARCH_PARALLELISM)));
+        int multiSearchSize = Math.max(1, parseInt(propertiesProvider.get(BATCH_SEARCH_MULTI_SEARCH_SIZE_OPT).orElse(DEFAULT_BATCH_SEARCH_MULTI_SEARCH_SIZE)));
         callThread = Thread.currentThread();
         callWaiterLatch.countDown(); // for tests
         BatchSearch batchSearch = repository.get(taskView.getUser(), taskView.id);
@@ -105,61 +139,276 @@ public class BatchSearchRunner implements CancellableTask, UserTask, Callable<In
         }
 
         String query = null;
+        throttle = new AdaptiveThrottle(throttleMs, throttleMaxMs, throttleTargetLatencyMs);
+        List<List<String>> queryGroups = partition(new ArrayList<>(batchSearch.queries.keySet()), multiSearchSize);
+        ExecutorService workers = parallelism > 1 && queryGroups.size() > 1 ? Executors.newFixedThreadPool(min(parallelism, queryGroups.size())) : null;
         try {
-            logger.info("running {} queries for batch search {} on projects {} with throttle {}ms and scroll size of {}",
+            logger.info("running {} queries for batch search {} on projects {} with throttle {}-{}ms (target latency {}ms), scroll size of {}, {} queries per request and {} worker(s)",
                     batchSearch.queries.size(), batchSearch.uuid, asCommaConcatNames(batchSearch.projects)
-                    , throttleMs, scrollSize);
+                    , throttleMs, throttleMaxMs, throttleTargetLatencyMs, scrollSize, multiSearchSize, workers == null ? 1 : min(parallelism, queryGroups.size()));
             repository.setState(batchSearch.uuid, BatchSearchRecord.State.RUNNING);
-            for (String s : batchSearch.queries.keySet()) {
-                query = s;
-                Indexer.Searcher searcher;
-                List<? extends Entity> docsToProcess;
-                if (batchSearch.hasQueryTemplate()) { // for retro-compatibility should be removed at some point to keep only bodyTemplate
-                    searcher = indexer.search(batchSearch.projects.stream().map(ProjectProxy::getId).collect(toList()), Document.class, batchSearch.queryTemplate)
-                            .with(batchSearch.fuzziness, batchSearch.phraseMatches).withoutSource("content").limit(scrollSize);
-                    docsToProcess = searcher.scroll(scrollDuration, query).collect(toList());
-                } else {
-                    searcher = indexer.search(batchSearch.projects.stream().map(ProjectProxy::getId).collect(toList()), Document.class, new SearchQuery(query));
-                    ((Indexer.QueryBuilderSearcher) searcher).withFieldValues("contentType", batchSearch.fileTypes.toArray(new String[]{}))
-                            .withPrefixQuery("path", batchSearch.paths.toArray(new String[]{}))
-                            .with(batchSearch.fuzziness, batchSearch.phraseMatches)
-                            .withoutSource("content").limit(scrollSize);
-                    docsToProcess = searcher.scroll(scrollDuration).collect(toList());
+            List<Future<Integer>> results = new ArrayList<>(queryGroups.size());
+            if (workers != null) {
+                for (List<String> queryGroup : queryGroups) {
+                    results.add(workers.submit(() -> {
+                        try {
+                            return runQueries(batchSearch, queryGroup);
+                        } catch (Exception e) {
+                            queryFailed = true;
+                            throw e;
+                        }
+                    }));
                 }
-
-                long beforeScrollLoop = DatashareTime.getInstance().currentTimeMillis();
-                while (docsToProcess.size() != 0 && numberOfResults < MAX_BATCH_RESULT_SIZE - MAX_SCROLL_SIZE) {
-                    if (cancelAsked) {
-                        logger.info("cancelling batch search {} requeue={}", batchSearch.uuid, requeueCancel);
-                        repository.reset(batchSearch.uuid);
-                        throw new CancelException(requeueCancel);
-                    }
-                    repository.saveResults(batchSearch.uuid, query, (List<Document>) docsToProcess);
-                    if (DatashareTime.getInstance().currentTimeMillis() - beforeScrollLoop < maxTimeSeconds * 1000L) {
-                        DatashareTime.getInstance().sleep(throttleMs);
+            }
+            // results are accounted in queries order, whatever the order in which workers finish
+            for (int i = 0; i < queryGroups.size(); i++) {
+                query = queryGroups.get(i).get(0);
+                try {
+                    if (workers == null) {
+                        runQueries(batchSearch, queryGroups.get(i));
                     } else {
-                        throw new SearchException(query, new TimeoutException("Batch timed out after " + maxTimeSeconds + "s"));
+                        getResult(results.get(i));
                     }
-                    numberOfResults += docsToProcess.size();
-                    docsToProcess = searcher.scroll(scrollDuration).collect(toList());
+                } catch (QueryException queryEx) {
+                    query = queryEx.query;
+                    throw rethrow(queryEx.getCause());
+                }
+                for (int j = 0; j < queryGroups.get(i).size(); j++) {
+                    totalProcessed += 1;
+                    updateCallback.apply((double) totalProcessed / batchSearch.queries.size());
                 }
-                searcher.clearScroll();
-                totalProcessed += 1;
-                updateCallback.apply((double) totalProcessed / batchSearch.queries.size());
             }
             repository.setState(batchSearch.uuid, BatchSearchRecord.State.SUCCESS);
             logger.info("done batch search {} with success", batchSearch.uuid);
+        } catch (CancelException cancelEx) {
+            stopWorkers(workers);
+            logger.info("cancelling batch search {} requeue={}", batchSearch.uuid, requeueCancel);
+            repository.reset(batchSearch.uuid);
+            throw cancelEx;
         } catch (ElasticsearchException esEx) {
+            stopWorkers(workers);
             logger.error("ES exception while running batch " + taskView.id, esEx);
             repository.setState(taskView.id, new SearchException(query,
                     ElasticSearchAdapterException.createFrom(esEx)));
         } catch (IOException | InterruptedException | JsonException ex) {
+            stopWorkers(workers);
             logger.error("exception while running batch " + taskView.id, ex);
             repository.setState(taskView.id, new SearchException(query, ex));
+        } catch (RuntimeException ex) {
+            stopWorkers(workers);
+            logger.error("unexpected exception while running batch " + taskView.id, ex);
+            repository.setState(taskView.id, ex instanceof SearchException ? (SearchException) ex : new SearchException(query, ex));
+            throw ex;
+        } finally {
+            stopWorkers(workers);
+            logger.info("batch search {} elasticsearch requests: {}", batchSearch.uuid, throttle.getMetrics());
         }
         return numberOfResults;
     }
 
+    /**
+     * runs a group of queries with one multi search request. The queries having more hits
+     * than the first page, and all of them if the multi search fails, are run with scrolls.
+     */
+    private int runQueries(BatchSearch batchSearch, List<String> queries) throws QueryException {
+        if (maxResultsReached) {
+            return 0;
+        }
+        if (queries.size() == 1) {
+            return runQuery(batchSearch, queries.get(0));
+        }
+        List<Indexer.Searcher> searchers = new ArrayList<>(queries.size());
+        List<List<? extends Entity>> firstPages;
+        try {
+            List<String> stringQueries = batchSearch.hasQueryTemplate() ? queries : nCopies(queries.size(), null);
+            // the request of a searcher can only be built once: searchers are rebuilt when the request is retried
+            firstPages = throttle.call(() -> {
+                searchers.clear();
+                for (String query : queries) {
+                    searchers.add(searcher(batchSearch, query));
+                }
+                return indexer.multiSearch(searchers, stringQueries);
+            });
+        } catch (ElasticsearchException | JsonException | IOException ex) {
+            logger.info("multi search failed for batch search {}, running its queries one by one ({})", batchSearch.uuid, ex.getMessage());
+            firstPages = null;
+        } catch (InterruptedException e) {
+            throw new QueryException(queries.get(0), e);
+        }
+        int queriesResults = 0;
+        for (int i = 0; i < queries.size() && !maxResultsReached; i++) {
+            String query = queries.get(i);
+            if (firstPages == null || searchers.get(i).totalHits() > firstPages.get(i).size()) {
+                queriesResults += runQuery(batchSearch, query);
+            } else if (!firstPages.get(i).isEmpty()) {
+                if (cancelAsked) {
+                    throw new QueryException(query, new CancelException(requeueCancel));
+                }
+                if (queryFailed) {
+                    break;
+                }
+                queriesResults += saveResults(batchSearch.uuid, query, (List<Document>) firstPages.get(i));
+            }
+        }
+        if (firstPages != null) {
+            try {
+                throttle.pause();
+            } catch (InterruptedException e) {
+                throw new QueryException(queries.get(queries.size() - 1), e);
+            }
+        }
+        return queriesResults;
+    }
+
+    private int runQuery(BatchSearch batchSearch, String query) throws QueryException {
+        try {
+            return scrollQuery(batchSearch, query);
+        } catch (Exception e) {
+            throw new QueryException(query, e);
+        }
+    }
+
+    private int scrollQuery(BatchSearch batchSearch, String query) throws IOException, InterruptedException {
+        AtomicReference<Indexer.Searcher> searcher = new AtomicReference<>();
+        // the first scroll request of a searcher can only be sent once: the searcher is rebuilt
+        // when the request is retried. Next pages are retried with the same scroll id.
+        List<? extends Entity> docsToProcess = throttle.call(() -> {
+            searcher.set(scrollSearcher(batchSearch, query));
+            return batchSearch.hasQueryTemplate() ?
+                    searcher.get().scroll(scrollDuration, query).collect(toList()) :
+                    searcher.get().scroll(scrollDuration).collect(toList());
+        });
+
+        int queryResults = 0;
+        long beforeScrollLoop = DatashareTime.getInstance().currentTimeMillis();
+        while (docsToProcess.size() != 0) {
+            if (cancelAsked) {
+                throw new CancelException(requeueCancel);
+            }
+            if (queryFailed) {
+                break; // another query failed so the batch search will fail
+            }
+            queryResults += saveResults(batchSearch.uuid, query, (List<Document>) docsToProcess);
+            if (maxResultsReached) {
+                break;
+            }
+            if (DatashareTime.getInstance().currentTimeMillis() - beforeScrollLoop < maxTimeSeconds * 1000L) {
+                throttle.pause();
+            } else {
+                throw new SearchException(query, new TimeoutException("Batch timed out after " + maxTimeSeconds + "s"));
+            }
+            docsToProcess = throttle.call(() -> searcher.get().scroll(scrollDuration).collect(toList()));
+        }
+        searcher.get().clearScroll();
+        return queryResults;
+    }
+
+    private Indexer.Searcher scrollSearcher(BatchSearch batchSearch, String query) {
+        Indexer.Searcher searcher = searcher(batchSearch, query);
+        if (scrollPointInTime) {
+            searcher.withPointInTime();
+        }
+        return searcher;
+    }
+
+    private Indexer.Searcher searcher(BatchSearch batchSearch, String query) {
+        if (batchSearch.hasQueryTemplate()) { // for retro-compatibility should be removed at some point to keep only bodyTemplate
+            return indexer.search(batchSearch.projects.stream().map(ProjectProxy::getId).collect(toList()), Document.class, batchSearch.queryTemplate)
+                    .with(batchSearch.fuzziness, batchSearch.phraseMatches).withoutSource("content").limit(scrollSize);
+        }
+        Indexer.Searcher searcher = indexer.search(batchSearch.projects.stream().map(ProjectProxy::getId).collect(toList()), Document.class, new SearchQuery(query));
+        ((Indexer.QueryBuilderSearcher) searcher).withFieldValues("contentType", batchSearch.fileTypes.toArray(new String[]{}))
+                .withPrefixQuery("path", batchSearch.paths.toArray(new String[]{}))
+                .with(batchSearch.fuzziness, batchSearch.phraseMatches)
+                .withoutSource("content").limit(scrollSize);
+        return searcher;
+    }
+
+    /**
+     * results are saved one page at a time. The number of results is reserved under the lock so
+     * that the batch never exceeds MAX_BATCH_RESULT_SIZE even when several queries are running
+     * concurrently, and the results are inserted outside of it. The page reaching the maximum is
+     * truncated, then all the queries of the batch stop.
+     *
+     * @return the number of saved results
+     */
+    private int saveResults(String batchSearchId, String query, List<Document> documents) {
+        List<Document> page;
+        boolean reached;
+        synchronized (this) {
+            if (maxResultsReached) {
+                return 0;
+            }
+            page = documents.subList(0, min(documents.size(), MAX_BATCH_RESULT_SIZE - numberOfResults));
+            numberOfResults += page.size();
+            reached = maxResultsReached = numberOfResults >= MAX_BATCH_RESULT_SIZE;
+        }
+        if (reached) {
+            logger.info("batch search {} reached {} results, stopping its queries", batchSearchId, MAX_BATCH_RESULT_SIZE);
+        }
+        repository.saveResults(batchSearchId, query, page);
+        return page.size();
+    }
+
+    private static List<List<String>> partition(List<String> queries, int size) {
+        List<List<String>> groups = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i += size) {
+            groups.add(queries.subList(i, min(i + size, queries.size())));
+        }
+        return groups;
+    }
+
+    private static <V> V getResult(Future<V> future) throws IOException, InterruptedException, QueryException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof QueryException) {
+                throw (QueryException) e.getCause();
+            }
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) throws IOException, InterruptedException {
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof IOException) {
+            throw (IOException) cause;
+        } else if (cause instanceof InterruptedException) {
+            throw (InterruptedException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * exception of a query, so that errors are reported with the query that failed
+     * when queries are grouped or run by workers.
+     */
+    private static class QueryException extends Exception {
+        private final String query;
+
+        QueryException(String query, Throwable cause) {
+            super(cause);
+            this.query = query;
+        }
+    }
+
+    private void stopWorkers(ExecutorService workers) {
+        if (workers != null && !workers.isTerminated()) {
+            workers.shutdownNow();
+            try {
+                if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                    logger.warn("batch search workers for {} did not terminate", taskView.id);
+                }
+            } catch (InterruptedException e) {
+                logger.warn("batch search interrupted while stopping workers for {}", taskView.id);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     @Override
     public User getUser() {
         return taskView.user;
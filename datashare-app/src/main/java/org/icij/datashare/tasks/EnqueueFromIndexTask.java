@@ -17,15 +17,18 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 
+import static java.lang.Boolean.parseBoolean;
 import static java.lang.Integer.parseInt;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_DEFAULT_PROJECT;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_PROJECT_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_SCROLL_DURATION;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_SCROLL_POINT_IN_TIME;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_SCROLL_SIZE;
 import static org.icij.datashare.cli.DatashareCliOptions.NLP_PIPELINE_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.SCROLL_DURATION_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.SCROLL_POINT_IN_TIME_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.SCROLL_SIZE_OPT;
 
 public class EnqueueFromIndexTask extends PipelineTask<String> {
@@ -36,6 +39,7 @@ public class EnqueueFromIndexTask extends PipelineTask<String> {
     private final Indexer indexer;
     private final String scrollDuration;
     private final int scrollSize;
+    private final boolean scrollPointInTime;
 
     @Inject
     public EnqueueFromIndexTask(final DocumentCollectionFactory<String> factory, final Indexer indexer,
@@ -47,6 +51,7 @@ public class EnqueueFromIndexTask extends PipelineTask<String> {
         this.projectName = (String)taskView.properties.getOrDefault(DEFAULT_PROJECT_OPT, DEFAULT_DEFAULT_PROJECT);
         this.scrollDuration = propertiesProvider.get(SCROLL_DURATION_OPT).orElse(DEFAULT_SCROLL_DURATION);
         this.scrollSize = parseInt(propertiesProvider.get(SCROLL_SIZE_OPT).orElse(String.valueOf(DEFAULT_SCROLL_SIZE)));
+        this.scrollPointInTime = parseBoolean(propertiesProvider.get(SCROLL_POINT_IN_TIME_OPT).orElse(String.valueOf(DEFAULT_SCROLL_POINT_IN_TIME)));
 
     }
 
@@ -55,6 +60,9 @@ public class EnqueueFromIndexTask extends PipelineTask<String> {
         super.call();
         Indexer.Searcher searcher = indexer.search(singletonList(projectName), Document.class)
                 .without(nlpPipeline).withSource("rootDocument").limit(scrollSize);
+        if (scrollPointInTime) {
+            searcher.withPointInTime();
+        }
         logger.info("resuming NLP name finding for index {} and {} with {} scroll and size of {} : {} documents found", projectName, nlpPipeline,
                 scrollDuration, scrollSize, searcher.totalHits());
         List<? extends Entity> docsToProcess = searcher.scroll(scrollDuration).collect(toList());
@@ -11,6 +11,7 @@ import org.icij.datashare.extension.PipelineRegistry;
 import org.icij.datashare.extract.DocumentCollectionFactory;
 import org.icij.datashare.monitoring.Monitorable;
 import org.icij.datashare.text.Document;
+import org.icij.datashare.text.Language;
 import org.icij.datashare.text.NamedEntity;
 import org.icij.datashare.text.Project;
 import org.icij.datashare.text.indexing.Indexer;
@@ -19,24 +20,46 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.lang.String.valueOf;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static java.util.Optional.ofNullable;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_DEFAULT_PROJECT;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_PROJECT_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.MAX_CONTENT_LENGTH_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.NLP_BATCH_SIZE_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.NLP_PARALLELISM_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.NLP_PIPELINE_OPT;
 import static org.icij.extract.document.Identifier.shorten;
 
 public class ExtractNlpTask extends PipelineTask<String> implements Monitorable {
     private static final int DEFAULT_MAX_CONTENT_LENGTH = 1024 * 1024;
+    private static final int MAX_BATCH_NAMED_ENTITIES = 10000;
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final Indexer indexer;
     private final Pipeline nlpPipeline;
     private final Project project;
     private final int maxContentLengthChars;
+    private final int parallelism;
+    private final AtomicLong nbProcessed = new AtomicLong();
+    private final AtomicLong nbErrors = new AtomicLong();
+    private final Map<Language, Boolean> initializedLanguages = new HashMap<>();
+    private final Semaphore inFlight;
+    private final int batchSize;
+    private final Map<String, List<NamedEntity>> batchNamedEntities = new LinkedHashMap<>();
+    private final Map<String, String> batchRoutings = new HashMap<>();
+    private int batchNbNamedEntities = 0;
 
     @Inject
     public ExtractNlpTask(Indexer indexer, PipelineRegistry registry, final DocumentCollectionFactory<String> factory, @Assisted TaskView<Long> taskView, @Assisted final Function<Double, Void> updateCallback) {
@@ -49,55 +72,91 @@ public class ExtractNlpTask extends PipelineTask<String> implements Monitorable
         this.nlpPipeline = pipeline;
         project = Project.project(ofNullable((String)taskView.properties.get(DEFAULT_PROJECT_OPT)).orElse(DEFAULT_DEFAULT_PROJECT));
         maxContentLengthChars = (int) HumanReadableSize.parse(ofNullable((String)taskView.properties.get(MAX_CONTENT_LENGTH_OPT)).orElse(valueOf(DEFAULT_MAX_CONTENT_LENGTH)));
+        parallelism = Math.max(1, propertiesProvider.get(NLP_PARALLELISM_OPT).map(Integer::parseInt).orElse(1));
+        inFlight = new Semaphore(2 * parallelism);
+        batchSize = propertiesProvider.get(NLP_BATCH_SIZE_OPT).map(Integer::parseInt).orElse(1);
         this.indexer = indexer;
     }
 
     @Override
     public Long call() throws Exception {
         super.call();
-        logger.info("extracting Named Entities with pipeline {} for {} from queue {}", nlpPipeline.getType(), project, inputQueue.getName());
+        logger.info("extracting Named Entities with pipeline {} for {} from queue {} with {} worker(s)",
+                nlpPipeline.getType(), project, inputQueue.getName(), parallelism);
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        Thread callThread = Thread.currentThread();
+        AtomicBoolean stopping = new AtomicBoolean(false);
         String docId;
-        long nbMessages = 0;
-        while (!(STRING_POISON.equals(docId = inputQueue.poll(60, TimeUnit.SECONDS)))) {
-            try {
+        try {
+            while (!(STRING_POISON.equals(docId = inputQueue.poll(60, TimeUnit.SECONDS)))) {
                 if (docId != null) {
-                    findNamedEntities(project, docId);
-                    nbMessages++;
+                    inFlight.acquire();
+                    final String id = docId;
+                    workers.submit(() -> {
+                        try {
+                            findNamedEntities(project, id);
+                            nbProcessed.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            // stops the task: the interruption is propagated to the thread polling the queue
+                            logger.info("NLP worker interrupted while processing doc {}", id);
+                            if (!stopping.get()) {
+                                callThread.interrupt();
+                            }
+                            Thread.currentThread().interrupt();
+                            throw e;
+                        } catch (Throwable e) {
+                            nbErrors.incrementAndGet();
+                            logger.error("error in ExtractNlpTask worker for doc " + id, e);
+                        } finally {
+                            inFlight.release();
+                        }
+                        return null;
+                    });
                 }
-            } catch (Throwable e) {
-                logger.error("error in ExtractNlpTask loop", e);
+            }
+            workers.shutdown();
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.info("waiting for {} NLP worker(s) to finish", parallelism);
+            }
+        } finally {
+            stopping.set(true);
+            workers.shutdownNow();
+            try {
+                flushNamedEntities();
+            } finally {
+                terminatePipeline();
             }
         }
-        logger.info("exiting ExtractNlpTask loop after {} messages.", nbMessages);
-        return nbMessages;
+        logger.info("exiting ExtractNlpTask loop after {} messages ({} error(s)).", nbProcessed.get(), nbErrors.get());
+        return nbProcessed.get();
     }
 
     void findNamedEntities(final Project project, final String id) throws InterruptedException {
         try {
-            Document doc = indexer.get(project.getName(), id);
+            Document doc = indexer.get(project.getName(), id, emptyList(), singletonList("content_translated"));
             if (doc != null) {
                 logger.info("extracting {} entities for document {}", nlpPipeline.getType(), shorten(doc.getId(), 4));
-                if (nlpPipeline.initialize(doc.getLanguage())) {
+                if (initializePipeline(doc.getLanguage())) {
                     int nbEntities = 0;
                     if (doc.getContent().length() < this.maxContentLengthChars) {
-                        List<NamedEntity> namedEntities = nlpPipeline.process(doc);
-                        indexer.bulkAdd(project.getName(), nlpPipeline.getType(), namedEntities, doc);
+                        List<NamedEntity> namedEntities = withPipeline(() -> nlpPipeline.process(doc));
+                        addNamedEntities(project, doc, namedEntities);
                         nbEntities = namedEntities.size();
                     } else {
                         int nbChunks = doc.getContent().length() / this.maxContentLengthChars + 1;
                         logger.info("document is too large, extracting entities for {} document chunks", nbChunks);
                         for (int chunkIndex = 0; chunkIndex < nbChunks; chunkIndex++) {
-                            List<NamedEntity> namedEntities = nlpPipeline.process(doc, maxContentLengthChars, chunkIndex * maxContentLengthChars);
+                            int contentOffset = chunkIndex * maxContentLengthChars;
+                            List<NamedEntity> namedEntities = withPipeline(() -> nlpPipeline.process(doc, maxContentLengthChars, contentOffset));
                             if (chunkIndex < nbChunks - 1) {
                                 indexer.bulkAdd(project.getName(), namedEntities);
                             } else {
-                                indexer.bulkAdd(project.getName(), nlpPipeline.getType(), namedEntities, doc);
+                                addNamedEntities(project, doc, namedEntities);
                             }
                             nbEntities += namedEntities.size();
                         }
                     }
                     logger.info("added {} named entities to document {}", nbEntities, shorten(doc.getId(), 4));
-                    nlpPipeline.terminate(doc.getLanguage());
                 }
             } else {
                 logger.warn("no document found in index with id " + id);
@@ -107,8 +166,105 @@ public class ExtractNlpTask extends PipelineTask<String> implements Monitorable
         }
     }
 
+    /**
+     * initializes the pipeline once per language for the whole task: the workers share the
+     * pipeline, so a worker cannot terminate a language while another one is processing with it.
+     */
+    private boolean initializePipeline(Language language) throws InterruptedException {
+        synchronized (initializedLanguages) {
+            Boolean initialized = initializedLanguages.get(language);
+            if (initialized == null) {
+                initialized = withPipeline(() -> nlpPipeline.initialize(language));
+                initializedLanguages.put(language, initialized);
+            }
+            return initialized;
+        }
+    }
+
+    private void terminatePipeline() throws InterruptedException {
+        synchronized (initializedLanguages) {
+            for (Map.Entry<Language, Boolean> language : initializedLanguages.entrySet()) {
+                if (language.getValue()) {
+                    withPipeline(() -> {
+                        nlpPipeline.terminate(language.getKey());
+                        return null;
+                    });
+                }
+            }
+            initializedLanguages.clear();
+        }
+    }
+
+    /**
+     * the pipelines that are not thread safe (like CoreNLP that keeps annotators by language) are
+     * called by one worker at a time. The workers still read the documents and write the named
+     * entities in parallel.
+     */
+    private <T> T withPipeline(PipelineCall<T> call) throws InterruptedException {
+        if (nlpPipeline.isThreadSafe()) {
+            return call.call();
+        }
+        synchronized (nlpPipeline) {
+            return call.call();
+        }
+    }
+
+    @FunctionalInterface
+    private interface PipelineCall<T> {
+        T call() throws InterruptedException;
+    }
+
+    private void addNamedEntities(final Project project, Document doc, List<NamedEntity> namedEntities) throws IOException {
+        if (batchSize <= 1 || !this.project.equals(project)) {
+            indexer.bulkAdd(project.getName(), nlpPipeline.getType(), namedEntities, doc);
+            return;
+        }
+        synchronized (batchNamedEntities) {
+            batchNamedEntities.put(doc.getId(), namedEntities);
+            batchRoutings.put(doc.getId(), ofNullable(doc.getRootDocument()).orElse(doc.getId()));
+            batchNbNamedEntities += namedEntities.size();
+            if (batchNamedEntities.size() >= batchSize || batchNbNamedEntities >= MAX_BATCH_NAMED_ENTITIES) {
+                try {
+                    flushNamedEntities();
+                } catch (IOException e) {
+                    logger.error("cannot write named entities bulk", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * writes the buffered named entities in one bulk request. If it fails, the failure is
+     * reported for each document of the bulk, not only for the one that triggered the flush.
+     */
+    void flushNamedEntities() throws IOException {
+        synchronized (batchNamedEntities) {
+            if (batchNamedEntities.isEmpty()) {
+                return;
+            }
+            int nbDocuments = batchNamedEntities.size();
+            try {
+                logger.info("writing named entities of {} documents ({} entities)", nbDocuments, batchNbNamedEntities);
+                if (!indexer.bulkAdd(project.getName(), nlpPipeline.getType(), new LinkedHashMap<>(batchNamedEntities), new HashMap<>(batchRoutings))) {
+                    logger.warn("named entities bulk of {} documents has been written with errors", nbDocuments);
+                }
+            } catch (IOException | RuntimeException e) {
+                for (String id : batchNamedEntities.keySet()) {
+                    logger.error("cannot write named entities of doc {}: {}", id, e.toString());
+                }
+                throw new IOException(String.format("cannot write named entities of %d documents", nbDocuments), e);
+            } finally {
+                batchNamedEntities.clear();
+                batchRoutings.clear();
+                batchNbNamedEntities = 0;
+            }
+        }
+    }
+
     @Override
     public double getProgressRate() {
-        return 0;
+        long processed = nbProcessed.get() + nbErrors.get();
+        long total = processed + (2L * parallelism - inFlight.availablePermits()) + inputQueue.size();
+        return total == 0 ? 0 : (double) processed / total;
     }
 }
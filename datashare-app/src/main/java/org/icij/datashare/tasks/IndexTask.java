@@ -37,6 +37,7 @@ public class IndexTask extends PipelineTask<Path> implements Monitorable{
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final DocumentQueueDrainer<Path> drainer;
     private final DocumentConsumer consumer;
+    private final ElasticsearchSpewer spewer;
     private long totalToProcess;
     private final Integer parallelism;
 
@@ -46,6 +47,7 @@ public class IndexTask extends PipelineTask<Path> implements Monitorable{
         parallelism = propertiesProvider.get(PARALLELISM_OPT).map(Integer::parseInt).orElse(Runtime.getRuntime().availableProcessors());
 
         Options<String> allTaskOptions = options().createFrom(Options.from(taskView.properties));
+        this.spewer = spewer;
         ((ElasticsearchSpewer) spewer.configure(allTaskOptions)).createIndexIfNotExists();
 
         DocumentFactory documentFactory = new DocumentFactory().configure(allTaskOptions);
@@ -73,6 +75,7 @@ public class IndexTask extends PipelineTask<Path> implements Monitorable{
         while (!consumer.awaitTermination(30, MINUTES)) {
             logger.info("Consumer has not terminated yet.");
         }
+        spewer.flush();
 
         if (consumer.getReporter() != null) consumer.getReporter().close();
         logger.info("exiting");
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.IntStream;
 
+import static java.lang.Boolean.parseBoolean;
 import static java.lang.Integer.parseInt;
 import static java.lang.String.valueOf;
 import static java.util.Collections.singletonList;
@@ -32,10 +33,12 @@ import static java.util.stream.Collectors.toMap;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_DEFAULT_PROJECT;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_PROJECT_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_SCROLL_DURATION;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_SCROLL_POINT_IN_TIME;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_SCROLL_SIZE;
 import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_SCROLL_SLICES;
 import static org.icij.datashare.cli.DatashareCliOptions.REPORT_NAME_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.SCROLL_DURATION_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.SCROLL_POINT_IN_TIME_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.SCROLL_SIZE_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.SCROLL_SLICES_OPT;
 import static org.icij.datashare.text.indexing.ScrollQueryBuilder.createScrollQuery;
@@ -48,6 +51,7 @@ public class ScanIndexTask extends PipelineTask<Path> {
     private final String scrollDuration;
     private final int scrollSize;
     private final int scrollSlices;
+    private final boolean scrollPointInTime;
 
     @Inject
     public ScanIndexTask(DocumentCollectionFactory<Path> factory, final Indexer indexer,
@@ -56,6 +60,7 @@ public class ScanIndexTask extends PipelineTask<Path> {
         this.scrollDuration = propertiesProvider.get(SCROLL_DURATION_OPT).orElse(DEFAULT_SCROLL_DURATION);
         this.scrollSize = parseInt(propertiesProvider.get(SCROLL_SIZE_OPT).orElse(valueOf(DEFAULT_SCROLL_SIZE)));
         this.scrollSlices = parseInt(propertiesProvider.get(SCROLL_SLICES_OPT).orElse(valueOf(DEFAULT_SCROLL_SLICES)));
+        this.scrollPointInTime = parseBoolean(propertiesProvider.get(SCROLL_POINT_IN_TIME_OPT).orElse(valueOf(DEFAULT_SCROLL_POINT_IN_TIME)));
         this.projectName = propertiesProvider.get(DEFAULT_PROJECT_OPT).orElse(DEFAULT_DEFAULT_PROJECT);
         this.reportMap = factory.createMap(getMapName());
         this.indexer = indexer;
@@ -72,6 +77,9 @@ public class ScanIndexTask extends PipelineTask<Path> {
 
     private Long slicedScroll(int sliceNum) {
         Indexer.Searcher search = indexer.search(singletonList(projectName), Document.class).withSource("path").limit(scrollSize);
+        if (scrollPointInTime) {
+            search.withPointInTime();
+        }
         List<? extends Entity> docsToProcess = new ArrayList<>();
         long nbProcessed = 0;
         do {
@@ -83,6 +91,11 @@ public class ScanIndexTask extends PipelineTask<Path> {
                 logger.error("error in slice {}", sliceNum, e);
             }
         } while (!docsToProcess.isEmpty());
+        try {
+            search.clearScroll();
+        } catch (IOException e) {
+            logger.error("cannot clear scroll of slice {}", sliceNum, e);
+        }
         return nbProcessed;
     }
 
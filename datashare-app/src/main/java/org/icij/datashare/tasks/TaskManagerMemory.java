@@ -2,20 +2,45 @@ package org.icij.datashare.tasks;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import org.icij.datashare.PropertiesProvider;
 import org.icij.datashare.asynctasks.TaskView;
 
+import static java.lang.Integer.parseInt;
+import static java.util.Arrays.stream;
+import static java.util.stream.Collectors.toMap;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_TASK_WORKERS;
+import static org.icij.datashare.cli.DatashareCliOptions.TASK_TYPE_LIMITS_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.TASK_WORKERS_OPT;
+
 
 @Singleton
 public class TaskManagerMemory extends org.icij.datashare.asynctasks.TaskManagerMemory {
 
-    @Inject
     public TaskManagerMemory(BlockingQueue<TaskView<?>> taskQueue, DatashareTaskFactory taskFactory) {
         this(taskQueue, taskFactory, new CountDownLatch(1));
     }
 
+    @Inject
+    public TaskManagerMemory(BlockingQueue<TaskView<?>> taskQueue, DatashareTaskFactory taskFactory, PropertiesProvider propertiesProvider) {
+        this(taskQueue, taskFactory, new CountDownLatch(1),
+                Math.max(1, propertiesProvider.get(TASK_WORKERS_OPT).map(Integer::parseInt).orElse(DEFAULT_TASK_WORKERS)),
+                parseTaskTypeLimits(propertiesProvider.get(TASK_TYPE_LIMITS_OPT).orElse("")));
+    }
+
     TaskManagerMemory(BlockingQueue<TaskView<?>> taskQueue, DatashareTaskFactory taskFactory, CountDownLatch latch) {
         super(taskQueue, taskFactory, latch);
     }
+
+    TaskManagerMemory(BlockingQueue<TaskView<?>> taskQueue, DatashareTaskFactory taskFactory, CountDownLatch latch, int nbWorkers, Map<String, Integer> taskTypeLimits) {
+        super(taskQueue, taskFactory, latch, nbWorkers, taskTypeLimits);
+    }
+
+    static Map<String, Integer> parseTaskTypeLimits(String taskTypeLimits) {
+        return stream(taskTypeLimits.split(",")).map(String::trim).filter(limit -> !limit.isEmpty())
+                .map(limit -> limit.split("="))
+                .collect(toMap(limit -> limit[0].trim(), limit -> parseInt(limit[1].trim())));
+    }
 }
@@ -3,13 +3,21 @@ package org.icij.datashare.tasks;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.io.IOException;
+import org.icij.datashare.PropertiesProvider;
 import org.icij.datashare.asynctasks.bus.amqp.AmqpInterlocutor;
 
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_TASK_WORKERS;
+import static org.icij.datashare.cli.DatashareCliOptions.TASK_WORKERS_OPT;
+
 @Singleton
 public class TaskSupplierAmqp extends org.icij.datashare.asynctasks.TaskSupplierAmqp {
     // Convenience class made to ease injection and test
-    @Inject
     public TaskSupplierAmqp(AmqpInterlocutor amqp) throws IOException {
         super(amqp);
     }
+
+    @Inject
+    public TaskSupplierAmqp(AmqpInterlocutor amqp, PropertiesProvider propertiesProvider) throws IOException {
+        super(amqp, Math.max(1, propertiesProvider.get(TASK_WORKERS_OPT).map(Integer::parseInt).orElse(DEFAULT_TASK_WORKERS)));
+    }
 }
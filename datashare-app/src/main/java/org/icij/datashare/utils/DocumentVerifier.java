@@ -5,6 +5,17 @@ import org.icij.datashare.PropertiesProvider;
 import org.icij.datashare.text.Document;
 import org.icij.datashare.text.indexing.Indexer;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.icij.datashare.cli.DatashareCliOptions.EMBEDDED_DOCUMENT_DOWNLOAD_MAX_SIZE_OPT;
 
 /**
@@ -16,6 +27,7 @@ public class DocumentVerifier {
 
     private final Indexer indexer;
     private final PropertiesProvider propertiesProvider;
+    private final Map<String, Long> rootContentLengths = new ConcurrentHashMap<>();
 
     /**
      * Constructs a new DocumentVerifier with the provided indexer and propertiesProvider.
@@ -39,8 +51,34 @@ public class DocumentVerifier {
             return true;
         }
         long maxSizeBytes = getEmbeddedDocumentDownloadMaxSizeBytes();
-        Document rootDocument = indexer.get(document.getProjectId(), document.getRootDocument());
-        return rootDocument.getContentLength() < maxSizeBytes;
+        Long rootContentLength = rootContentLengths.get(document.getRootDocument());
+        if (rootContentLength == null) {
+            Document rootDocument = indexer.get(document.getProjectId(), document.getRootDocument(), singletonList("contentLength"), emptyList());
+            rootContentLength = rootDocument.getContentLength();
+        }
+        return rootContentLength < maxSizeBytes;
+    }
+
+    /**
+     * Fetches the sizes of the root documents of the given documents with one request per project,
+     * and keeps them for the next calls to isRootDocumentSizeAllowed. Root documents already loaded
+     * are not fetched again.
+     *
+     * @param documents The documents that will be verified.
+     * @throws IOException if the root documents cannot be fetched.
+     */
+    public void loadRootDocumentSizes(List<Document> documents) throws IOException {
+        Map<String, Set<String>> rootIdsByProject = new HashMap<>();
+        for (Document document : documents) {
+            if (!document.isRootDocument() && !rootContentLengths.containsKey(document.getRootDocument())) {
+                rootIdsByProject.computeIfAbsent(document.getProjectId(), p -> new LinkedHashSet<>()).add(document.getRootDocument());
+            }
+        }
+        for (Map.Entry<String, Set<String>> projectRootIds : rootIdsByProject.entrySet()) {
+            Map<String, Document> rootDocuments = indexer.get(projectRootIds.getKey(), new ArrayList<>(projectRootIds.getValue()), singletonList("contentLength"));
+            rootDocuments.values().stream().filter(rootDocument -> rootDocument.getContentLength() != null)
+                    .forEach(rootDocument -> rootContentLengths.put(rootDocument.getId(), rootDocument.getContentLength()));
+        }
     }
 
     /**
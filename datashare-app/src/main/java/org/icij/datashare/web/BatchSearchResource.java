@@ -15,6 +15,7 @@ import net.codestory.http.Context;
 import net.codestory.http.Part;
 import net.codestory.http.annotations.*;
 import net.codestory.http.constants.HttpStatus;
+import net.codestory.http.errors.BadRequestException;
 import net.codestory.http.errors.NotFoundException;
 import net.codestory.http.errors.UnauthorizedException;
 import net.codestory.http.payload.Payload;
@@ -25,12 +26,10 @@ import org.icij.datashare.db.JooqBatchSearchRepository;
 import org.icij.datashare.session.DatashareUser;
 import org.icij.datashare.tasks.BatchSearchRunner;
 import org.icij.datashare.text.Project;
-import org.icij.datashare.text.ProjectProxy;
 import org.icij.datashare.user.User;
 import org.icij.datashare.utils.PayloadFormatter;
 
 import java.io.IOException;
-import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -38,7 +37,6 @@ import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
 import static java.lang.Boolean.parseBoolean;
 import static java.lang.Integer.parseInt;
-import static java.lang.String.format;
 import static java.util.Arrays.stream;
 import static java.util.Optional.ofNullable;
 import static net.codestory.http.payload.Payload.*;
@@ -279,7 +277,7 @@ public class BatchSearchResource {
                 (User) context.currentUser(), published, fileTypes, queryTemplate, paths, fuzziness,phraseMatches);
         boolean isSaved = batchSearchRepository.save(batchSearch);
         if (isSaved) {
-            taskManager.startTask(batchSearch.uuid, BatchSearchRunner.class.getName(), (User) context.currentUser());
+            taskManager.startTask(batchSearch.uuid, BatchSearchRunner.class.getName(), (User) context.currentUser(), BatchSearchRunner.PRIORITY);
         }
         return isSaved ? new Payload("application/json", batchSearch.uuid, 200) : badRequest();
     }
@@ -308,12 +306,14 @@ public class BatchSearchResource {
         }
         BatchSearch copy = new BatchSearch(sourceBatchSearch, context.extract(HashMap.class));
         boolean isSaved = batchSearchRepository.save(copy);
-        if (isSaved) taskManager.startTask(copy.uuid, BatchSearchRunner.class.getName(), (User) context.currentUser());
+        if (isSaved) taskManager.startTask(copy.uuid, BatchSearchRunner.class.getName(), (User) context.currentUser(), BatchSearchRunner.PRIORITY);
         return copy.uuid;
     }
 
     @Operation( description = "Retrieves the results of a batch search as JSON with a list of items and a pagination metadata.<br/>" +
-            "If from/size are not given their default values are 0, meaning that all the results are returned.",
+            "If from/size are not given their default values are 0, meaning that all the results are returned.<br/>" +
+            "For deep pages, after can be given instead of from with the [query, documentNumber, documentId] of the last result of the previous page " +
+            "(only with the default sort).",
                 requestBody = @RequestBody(
                         required = true,
                         description = "filter ",
@@ -330,40 +330,22 @@ public class BatchSearchResource {
                 parameters = {@Parameter(name = "batchid")}
     )
     @ApiResponse(responseCode = "200", description = "returns the results of the batch search as CSV attached file.")
+    @ApiResponse(responseCode = "401", description = "if the batch search is not published and belongs to another user")
+    @ApiResponse(responseCode = "404", description = "if the batch search is not found")
     @Get("/search/result/csv/:batchid")
     public Payload getResultAsCsv(String batchId, Context context) {
-        // Define the CSV header
-        final String CSV_HEADER = "query,documentUrl,documentId,rootId,contentType,contentLength,documentPath,documentDirname,creationDate,documentNumber";
-
-        // Create a StringBuilder to build the CSV content
-        StringBuilder builder = new StringBuilder();
-        builder.append(CSV_HEADER).append("\n");
-
-        // Get the current user and batch search information
         User currentUser = (User) context.currentUser();
         BatchSearch batchSearch = batchSearchRepository.get(currentUser, batchId);
+        if (batchSearch == null) {
+            throw new NotFoundException();
+        }
+        if (!currentUser.equals(batchSearch.user) && !batchSearch.published) {
+            throw new UnauthorizedException();
+        }
         String url = propertiesProvider.get("rootHost").orElse(context.header("Host"));
-        BatchSearchRepository.WebQuery webQuery = WebQueryBuilder.createWebQuery().queryAll().build();
-        WebResponse<SearchResult> results = getResultsOrThrowUnauthorized(batchId, (User) context.currentUser(), webQuery);
-
-        // Iterate through the results and construct CSV lines
-        results.items.forEach(result -> {
-            String docUrl = docUrl(url, batchSearch.projects, result.documentId, result.rootId);
-            String dirname = dirname(result.documentPath);
-
-            builder.append("\"").append(result.query).append("\",");
-            builder.append("\"").append(docUrl).append("\",");
-            builder.append("\"").append(result.documentId).append("\",");
-            builder.append("\"").append(result.rootId).append("\",");
-            builder.append("\"").append(result.contentType).append("\",");
-            builder.append("\"").append(result.contentLength).append("\",");
-            builder.append("\"").append(result.documentPath).append("\",");
-            builder.append("\"").append(dirname).append("\",");
-            builder.append("\"").append(result.creationDate).append("\",");
-            builder.append("\"").append(result.documentNumber).append("\"\n");
-        });
-
-        return new Payload("text/csv", builder.toString())
+
+        // results are read by keyset pages while the response is written, so the export is never held in memory
+        return new Payload("text/csv", new BatchSearchResultCsv(batchSearchRepository, currentUser, batchSearch, url))
                 .withHeader("Content-Disposition", "attachment;filename=\"" + batchId + ".csv\"");
     }
 
@@ -376,14 +358,6 @@ public class BatchSearchResource {
         return new Payload(204);
     }
 
-    private String docUrl(String uri, List<ProjectProxy> projects, String documentId, String rootId) {
-        return format("%s/#/d/%s/%s/%s", uri, projects.stream().map(ProjectProxy::getId).collect(Collectors.joining(",")), documentId, rootId);
-    }
-
-    private String dirname(Path path) {
-        return path.getParent().toString();
-    }
-
     private LinkedHashSet<String> getQueries(String csv) {
         return asSet(stream(csv.split("\r?\n")).filter(q -> q.length() >= 2).toArray(String[]::new));
     }
@@ -394,6 +368,8 @@ public class BatchSearchResource {
                     batchSearchRepository.getResultsTotal(user,batchId,webQuery));
         } catch (JooqBatchSearchRepository.UnauthorizedUserException unauthorized) {
             throw new UnauthorizedException();
+        } catch (IllegalArgumentException badPage) {
+            throw new BadRequestException();
         }
     }
 
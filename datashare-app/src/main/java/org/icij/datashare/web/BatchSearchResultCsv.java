@@ -0,0 +1,82 @@
+package org.icij.datashare.web;
+
+import net.codestory.http.payload.StreamingOutput;
+import org.icij.datashare.batch.BatchSearch;
+import org.icij.datashare.batch.BatchSearchRepository;
+import org.icij.datashare.batch.SearchResult;
+import org.icij.datashare.batch.WebQueryBuilder;
+import org.icij.datashare.text.ProjectProxy;
+import org.icij.datashare.user.User;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * CSV export of batch search results written to the response while they are read
+ * from the database, so that the export is never held in memory.
+ */
+class BatchSearchResultCsv implements StreamingOutput {
+    static final String CSV_HEADER = "query,documentUrl,documentId,rootId,contentType,contentLength,documentPath,documentDirname,creationDate,documentNumber";
+
+    private final BatchSearchRepository repository;
+    private final User user;
+    private final BatchSearch batchSearch;
+    private final String url;
+    private final String projectIds;
+
+    BatchSearchResultCsv(BatchSearchRepository repository, User user, BatchSearch batchSearch, String url) {
+        this.repository = repository;
+        this.user = user;
+        this.batchSearch = batchSearch;
+        this.url = url;
+        this.projectIds = batchSearch.projects.stream().map(ProjectProxy::getId).collect(Collectors.joining(","));
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+        writer.append(CSV_HEADER).append("\n");
+        try {
+            repository.streamResults(user, batchSearch.uuid, WebQueryBuilder.createWebQuery().queryAll().build(), result -> {
+                try {
+                    writeLine(writer, result);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeLine(Writer writer, SearchResult result) throws IOException {
+        writer.append("\"").append(result.query).append("\",");
+        writer.append("\"").append(docUrl(result.documentId, result.rootId)).append("\",");
+        writer.append("\"").append(result.documentId).append("\",");
+        writer.append("\"").append(result.rootId).append("\",");
+        writer.append("\"").append(result.contentType).append("\",");
+        writer.append("\"").append(String.valueOf(result.contentLength)).append("\",");
+        writer.append("\"").append(String.valueOf(result.documentPath)).append("\",");
+        writer.append("\"").append(dirname(result.documentPath)).append("\",");
+        writer.append("\"").append(String.valueOf(result.creationDate)).append("\",");
+        writer.append("\"").append(String.valueOf(result.documentNumber)).append("\"\n");
+    }
+
+    private String docUrl(String documentId, String rootId) {
+        return format("%s/#/d/%s/%s/%s", url, projectIds, documentId, rootId);
+    }
+
+    private static String dirname(Path path) {
+        return path.getParent().toString();
+    }
+}
@@ -20,6 +20,7 @@ import net.codestory.http.errors.ForbiddenException;
 import net.codestory.http.payload.Payload;
 import org.apache.commons.lang3.StringUtils;
 import org.icij.datashare.PropertiesProvider;
+import org.icij.datashare.asynctasks.QueueWaitTimes;
 import org.icij.datashare.asynctasks.TaskManager;
 import org.icij.datashare.asynctasks.TaskView;
 import org.icij.datashare.batch.BatchDownload;
@@ -85,6 +86,13 @@ public class TaskResource {
         return taskManager.getTasks((User) context.currentUser(), pattern);
     }
 
+    @Operation(description = "Gets the time spent by the tasks in the queue before running, by task priority.")
+    @ApiResponse(responseCode = "200", description = "returns the number of started tasks with their mean and max wait time in milliseconds by priority", useReturnTypeSchema = true)
+    @Get("/queue/waitTimes")
+    public Map<Integer, QueueWaitTimes.Stats> queueWaitTimes() {
+        return taskManager.getQueueWaitTimes().byPriority();
+    }
+
     @Operation(description = "Gets one task with its id.")
     @ApiResponse(responseCode = "200", description = "returns the task from its id", useReturnTypeSchema = true)
     @Get("/:id")
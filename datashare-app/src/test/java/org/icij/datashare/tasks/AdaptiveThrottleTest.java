@@ -0,0 +1,178 @@
+package org.icij.datashare.tasks;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.ErrorResponse;
+import org.icij.datashare.test.DatashareTimeRule;
+import org.icij.datashare.time.DatashareTime;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class AdaptiveThrottleTest {
+    @Rule public DatashareTimeRule time = new DatashareTimeRule("2021-07-07T12:23:34Z");
+
+    @Test
+    public void test_delay_is_min_delay_when_requests_are_fast() throws Exception {
+        AdaptiveThrottle throttle = new AdaptiveThrottle(100, 10000, 1000);
+
+        for (int i = 0; i < 10; i++) {
+            throttle.call(() -> request(10));
+        }
+
+        assertThat(throttle.getDelayMs()).isEqualTo(100);
+    }
+
+    @Test
+    public void test_delay_increases_when_requests_are_slow() throws Exception {
+        AdaptiveThrottle throttle = new AdaptiveThrottle(100, 10000, 1000);
+
+        throttle.call(() -> request(2000));
+        assertThat(throttle.getDelayMs()).isEqualTo(200);
+        throttle.call(() -> request(2000));
+        assertThat(throttle.getDelayMs()).isEqualTo(400);
+    }
+
+    @Test
+    public void test_delay_increases_from_zero_min_delay() throws Exception {
+        AdaptiveThrottle throttle = new AdaptiveThrottle(0, 10000, 1000);
+
+        throttle.call(() -> request(2000));
+
+        assertThat(throttle.getDelayMs()).isEqualTo(AdaptiveThrottle.MIN_INCREASE_MS);
+    }
+
+    @Test
+    public void test_delay_is_bounded_by_max_delay() throws Exception {
+        AdaptiveThrottle throttle = new AdaptiveThrottle(100, 1000, 1000);
+
+        for (int i = 0; i < 10; i++) {
+            throttle.call(() -> request(2000));
+        }
+
+        assertThat(throttle.getDelayMs()).isEqualTo(1000);
+    }
+
+    @Test
+    public void test_delay_decreases_to_min_delay_when_cluster_recovers() throws Exception {
+        AdaptiveThrottle throttle = new AdaptiveThrottle(100, 10000, 1000);
+        for (int i = 0; i < 5; i++) {
+            throttle.call(() -> request(2000));
+        }
+        assertThat(throttle.getDelayMs()).isEqualTo(3200);
+
+        for (int i = 0; i < 30; i++) {
+            throttle.call(() -> request(10));
+        }
+
+        assertThat(throttle.getDelayMs()).isEqualTo(100);
+    }
+
+    @Test
+    public void test_pause_sleeps_delay() throws Exception {
+        AdaptiveThrottle throttle = new AdaptiveThrottle(100, 10000, 1000);
+        long before = DatashareTime.getInstance().currentTimeMillis();
+
+        throttle.pause();
+
+        assertThat(DatashareTime.getInstance().currentTimeMillis() - before).isEqualTo(100);
+    }
+
+    @Test
+    public void test_rejected_request_is_retried_after_increased_delay() throws Exception {
+        AdaptiveThrottle throttle = new AdaptiveThrottle(100, 10000, 1000);
+        AtomicInteger nbCalls = new AtomicInteger();
+        long before = DatashareTime.getInstance().currentTimeMillis();
+
+        String result = throttle.call(() -> {
+            if (nbCalls.getAndIncrement() == 0) {
+                throw esException(429);
+            }
+            return "result";
+        });
+
+        assertThat(result).isEqualTo("result");
+        assertThat(nbCalls.get()).isEqualTo(2);
+        assertThat(DatashareTime.getInstance().currentTimeMillis() - before).isEqualTo(200);
+        assertThat(throttle.getMetrics().nbRejections).isEqualTo(1);
+    }
+
+    @Test
+    public void test_unavailable_cluster_is_a_rejection() throws Exception {
+        AdaptiveThrottle throttle = new AdaptiveThrottle(100, 10000, 1000);
+        AtomicInteger nbCalls = new AtomicInteger();
+
+        throttle.call(() -> {
+            if (nbCalls.getAndIncrement() == 0) {
+                throw esException(503);
+            }
+            return "result";
+        });
+
+        assertThat(nbCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void test_rejected_request_is_thrown_after_max_retries() throws Exception {
+        AdaptiveThrottle throttle = new AdaptiveThrottle(100, 10000, 1000);
+        AtomicInteger nbCalls = new AtomicInteger();
+
+        try {
+            throttle.call(() -> {
+                nbCalls.incrementAndGet();
+                throw esException(429);
+            });
+        } catch (ElasticsearchException esEx) {
+            assertThat(esEx.status()).isEqualTo(429);
+        }
+
+        assertThat(nbCalls.get()).isEqualTo(AdaptiveThrottle.MAX_RETRIES + 1);
+    }
+
+    @Test(expected = ElasticsearchException.class)
+    public void test_other_elasticsearch_errors_are_not_retried() throws Exception {
+        AdaptiveThrottle throttle = new AdaptiveThrottle(100, 10000, 1000);
+        AtomicInteger nbCalls = new AtomicInteger();
+
+        try {
+            throttle.call(() -> {
+                nbCalls.incrementAndGet();
+                throw esException(400);
+            });
+        } finally {
+            assertThat(nbCalls.get()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void test_metrics() throws Exception {
+        AdaptiveThrottle throttle = new AdaptiveThrottle(100, 10000, 1000);
+        for (int i = 0; i < 4; i++) {
+            throttle.call(() -> request(200));
+            throttle.pause();
+        }
+
+        AdaptiveThrottle.Metrics metrics = throttle.getMetrics();
+
+        assertThat(metrics.nbRequests).isEqualTo(4);
+        assertThat(metrics.nbRejections).isEqualTo(0);
+        assertThat(metrics.meanLatencyMs).isEqualTo(200);
+        assertThat(metrics.delayMs).isEqualTo(100);
+        assertThat(metrics.totalDelayMs).isEqualTo(400);
+        assertThat(metrics.requestsPerSecond).isEqualTo(4 * 1000.0 / 1200);
+        assertThat(metrics.toString()).startsWith("4 requests (0 rejected) at ");
+        assertThat(metrics.toString()).endsWith(" requests/s, mean latency 200ms, throttle delay 100ms (400ms slept)");
+    }
+
+    private static String request(int latencyMs) {
+        DatashareTime.getInstance().addMilliseconds(latencyMs);
+        return "result";
+    }
+
+    private static ElasticsearchException esException(int status) {
+        return new ElasticsearchException("search", ErrorResponse.of(r -> r.status(status)
+                .error(e -> e.type("es_rejected_execution_exception").reason("rejected"))));
+    }
+}
@@ -23,11 +23,14 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import static java.lang.String.valueOf;
 import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.icij.datashare.cli.DatashareCliOptions.*;
 import static org.icij.datashare.text.DocumentBuilder.createDoc;
@@ -72,6 +75,56 @@ public class BatchDownloadRunnerTest {
         assertThat(new ZipFile(new File(result.uri)).size()).isEqualTo(4);
     }
 
+    @Test
+    public void test_parallel_extraction_keeps_documents_order() throws Exception {
+        Document[] documents = IntStream.range(0, 10).mapToObj(i -> createDoc("doc" + i).with(createFile(i))
+                .withContentLength(("hello world " + i).length()).build()).toArray(Document[]::new);
+        mockSearch.willReturn(1, documents);
+        TaskView<File> taskView = getTaskView(new BatchDownload(singletonList(project("test-datashare")), User.local(), "query"));
+        UriResult result = new BatchDownloadRunner(indexer, new PropertiesProvider(new HashMap<>() {{
+            put(BATCH_DOWNLOAD_PARALLELISM_OPT, "4");
+            put(SCROLL_SIZE_OPT, "10");
+        }}), taskView, taskView.progress(updater::progress)).call();
+
+        assertThat(zipEntryNames(result)).isEqualTo(IntStream.range(0, 10).mapToObj(i -> documents[i].getPath().toString().substring(1)).collect(toList()));
+    }
+
+    @Test
+    public void test_parallel_extraction_with_memory_budget_smaller_than_documents() throws Exception {
+        Document[] documents = IntStream.range(0, 6).mapToObj(i -> createDoc("doc" + i).with(createFile(i))
+                .withContentLength(i % 2 == 0 ? ("hello world " + i).length() : 1).build()).toArray(Document[]::new);
+        mockSearch.willReturn(1, documents);
+        TaskView<File> taskView = getTaskView(new BatchDownload(singletonList(project("test-datashare")), User.local(), "query"));
+        UriResult result = new BatchDownloadRunner(indexer, new PropertiesProvider(new HashMap<>() {{
+            put(BATCH_DOWNLOAD_PARALLELISM_OPT, "4");
+            put(BATCH_DOWNLOAD_MEMORY_BUDGET_OPT, "20");
+            put(SCROLL_SIZE_OPT, "6");
+        }}), taskView, taskView.progress(updater::progress)).call();
+
+        assertThat(zipEntryNames(result)).isEqualTo(IntStream.range(0, 6).mapToObj(i -> documents[i].getPath().toString().substring(1)).collect(toList()));
+        try (ZipFile zipFile = new ZipFile(new File(result.uri))) {
+            assertThat(new String(zipFile.getInputStream(zipFile.getEntry(documents[3].getPath().toString().substring(1))).readAllBytes(), StandardCharsets.UTF_8))
+                    .isEqualTo("hello world 3");
+        }
+    }
+
+    @Test
+    public void test_parallel_extraction_of_documents_without_content_length() throws Exception {
+        Document[] documents = IntStream.range(0, 4).mapToObj(i -> createDoc("doc" + i).with(createFile(i)).build()).toArray(Document[]::new);
+        mockSearch.willReturn(1, documents);
+        TaskView<File> taskView = getTaskView(new BatchDownload(singletonList(project("test-datashare")), User.local(), "query"));
+        UriResult result = new BatchDownloadRunner(indexer, new PropertiesProvider(new HashMap<>() {{
+            put(BATCH_DOWNLOAD_PARALLELISM_OPT, "2");
+            put(SCROLL_SIZE_OPT, "4");
+        }}), taskView, taskView.progress(updater::progress)).call();
+
+        assertThat(zipEntryNames(result)).isEqualTo(IntStream.range(0, 4).mapToObj(i -> documents[i].getPath().toString().substring(1)).collect(toList()));
+        try (ZipFile zipFile = new ZipFile(new File(result.uri))) {
+            assertThat(new String(zipFile.getInputStream(zipFile.getEntry(documents[2].getPath().toString().substring(1))).readAllBytes(), StandardCharsets.UTF_8))
+                    .isEqualTo("hello world 2");
+        }
+    }
+
     @Test(expected = ElasticsearchException.class)
     public void test_elasticsearch_status_exception__should_be_sent() throws Exception {
         mockSearch.willThrow(new ElasticsearchException("error", RestStatus.BAD_REQUEST, new RuntimeException()));
@@ -79,6 +132,12 @@ public class BatchDownloadRunnerTest {
         new BatchDownloadRunner(indexer, new PropertiesProvider(), taskView, taskView.progress(updater::progress)).call();
     }
 
+    private static List<String> zipEntryNames(UriResult result) throws IOException {
+        try (ZipFile zipFile = new ZipFile(new File(result.uri))) {
+            return zipFile.stream().map(ZipEntry::getName).collect(toList());
+        }
+    }
+
     private Path createFile(int index) {
         File file;
         try {
@@ -1,6 +1,12 @@
 package org.icij.datashare.tasks;
 
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.ErrorResponse;
 import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch.core.MsearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.util.function.Function;
 import org.icij.datashare.PropertiesProvider;
 import org.icij.datashare.asynctasks.TaskView;
@@ -30,6 +36,7 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.icij.datashare.CollectionUtils.asSet;
+import static org.icij.datashare.cli.DatashareCliOptions.BATCH_SEARCH_MULTI_SEARCH_SIZE_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.BATCH_SEARCH_SCROLL_DURATION_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.BATCH_SEARCH_SCROLL_SIZE_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.SCROLL_SIZE_OPT;
@@ -37,9 +44,13 @@ import static org.icij.datashare.test.ElasticsearchRule.TEST_INDEX;
 import static org.icij.datashare.text.DocumentBuilder.createDoc;
 import static org.icij.datashare.text.Project.project;
 import static org.icij.datashare.user.User.local;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.anyList;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -67,6 +78,49 @@ public class BatchSearchRunnerIntTest {
         return new TaskView<>(search.uuid, BatchSearchRunner.class.getName(), User.local());
     }
 
+    @Test
+    public void test_rejected_scroll_request_is_retried_with_a_new_searcher() throws Exception {
+        ElasticsearchClient client = spy(es.client);
+        doThrow(rejection()).doCallRealMethod().when(client).search(any(SearchRequest.class), eq(ObjectNode.class));
+        ElasticsearchIndexer rejectingIndexer = new ElasticsearchIndexer(client, new PropertiesProvider()).withRefresh(Refresh.True);
+        Document mydoc = createDoc("mydoc").build();
+        rejectingIndexer.add(TEST_INDEX, mydoc);
+        BatchSearch search = new BatchSearch(singletonList(project(TEST_INDEX)), "name", "desc", asSet("mydoc"), User.local(), false, null, null, null, 0);
+        when(repository.get(local(), search.uuid)).thenReturn(search);
+
+        assertThat(new BatchSearchRunner(rejectingIndexer, new PropertiesProvider(), repository, taskView(search), progressCb).call()).isEqualTo(1);
+
+        verify(client, times(2)).search(any(SearchRequest.class), eq(ObjectNode.class));
+        verify(repository).saveResults(search.uuid, "mydoc", singletonList(mydoc));
+        verify(repository).setState(search.uuid, BatchSearch.State.SUCCESS);
+    }
+
+    @Test
+    public void test_rejected_multi_search_request_is_retried_with_new_searchers() throws Exception {
+        ElasticsearchClient client = spy(es.client);
+        doThrow(rejection()).doCallRealMethod().when(client).msearch(any(MsearchRequest.class), eq(ObjectNode.class));
+        ElasticsearchIndexer rejectingIndexer = new ElasticsearchIndexer(client, new PropertiesProvider()).withRefresh(Refresh.True);
+        Document doc1 = createDoc("doc1").build();
+        Document doc2 = createDoc("doc2").build();
+        rejectingIndexer.add(TEST_INDEX, doc1);
+        rejectingIndexer.add(TEST_INDEX, doc2);
+        BatchSearch search = new BatchSearch(singletonList(project(TEST_INDEX)), "name", "desc", asSet("doc1", "doc2"), User.local(), false, null, null, null, 0);
+        when(repository.get(local(), search.uuid)).thenReturn(search);
+
+        assertThat(new BatchSearchRunner(rejectingIndexer, new PropertiesProvider(new HashMap<>() {{
+            put(BATCH_SEARCH_MULTI_SEARCH_SIZE_OPT, "2");
+        }}), repository, taskView(search), progressCb).call()).isEqualTo(2);
+
+        verify(client, times(2)).msearch(any(MsearchRequest.class), eq(ObjectNode.class));
+        verify(client, never()).search(any(SearchRequest.class), eq(ObjectNode.class));
+        verify(repository).setState(search.uuid, BatchSearch.State.SUCCESS);
+    }
+
+    private static ElasticsearchException rejection() {
+        return new ElasticsearchException("search", ErrorResponse.of(r -> r.status(429)
+                .error(e -> e.type("es_rejected_execution_exception").reason("rejected"))));
+    }
+
     @Test
     public void test_search_with_file_types_ko() throws Exception {
         Document mydoc = createDoc("mydoc").build();
@@ -251,6 +305,66 @@ public class BatchSearchRunnerIntTest {
         assertThat(searchExceptionArgumentCaptor.getValue().toString()).contains("Unexpected char");
     }
 
+    @Test
+    public void test_search_with_multi_search() throws Exception {
+        Document mydoc1 = createDoc("docId1").with("mydoc one").build();
+        Document mydoc2 = createDoc("docId2").with("mydoc two").build();
+        Document mydoc3 = createDoc("docId3").with("mydoc three").build();
+        indexer.add(TEST_INDEX, mydoc1);
+        indexer.add(TEST_INDEX, mydoc2);
+        indexer.add(TEST_INDEX, mydoc3);
+        BatchSearch search = new BatchSearch(singletonList(project(TEST_INDEX)), "name", "desc", asSet("one", "two", "foo", "mydoc"), User.local());
+        when(repository.get(local(), search.uuid)).thenReturn(search);
+
+        new BatchSearchRunner(indexer, new PropertiesProvider(new HashMap<>() {{
+            put(BATCH_SEARCH_MULTI_SEARCH_SIZE_OPT, "4");
+            put(BATCH_SEARCH_SCROLL_SIZE_OPT, "2");
+        }}), repository, taskView(search), progressCb).call();
+
+        verify(repository).saveResults(search.uuid, "one", singletonList(mydoc1));
+        verify(repository).saveResults(search.uuid, "two", singletonList(mydoc2));
+        verify(repository, never()).saveResults(eq(search.uuid), eq("foo"), anyList());
+        verify(repository, times(2)).saveResults(eq(search.uuid), eq("mydoc"), anyList());
+        verify(repository).setState(search.uuid, BatchSearch.State.SUCCESS);
+        verify(progressCb).apply(1.0);
+    }
+
+    @Test
+    public void test_search_with_multi_search_and_query_template() throws Exception {
+        String queryBody = "{\"bool\":{\"must\":[{\"match_all\":{}},{\"bool\":{\"should\":[{\"query_string\":{\"query\":\"<query>\"}}]}},{\"match\":{\"type\":\"Document\"}}]}}";
+        Document mydoc1 = createDoc("docId1").with("mydoc one").build();
+        Document mydoc2 = createDoc("docId2").with("mydoc two").build();
+        indexer.add(TEST_INDEX, mydoc1);
+        indexer.add(TEST_INDEX, mydoc2);
+        BatchSearch search = new BatchSearch(singletonList(project(TEST_INDEX)), "name", "desc", asSet("one", "two"), User.local(), false, null, queryBody,
+                null, 0);
+        when(repository.get(local(), search.uuid)).thenReturn(search);
+
+        new BatchSearchRunner(indexer, new PropertiesProvider(new HashMap<>() {{
+            put(BATCH_SEARCH_MULTI_SEARCH_SIZE_OPT, "2");
+        }}), repository, taskView(search), progressCb).call();
+
+        verify(repository).saveResults(search.uuid, "one", singletonList(mydoc1));
+        verify(repository).saveResults(search.uuid, "two", singletonList(mydoc2));
+    }
+
+    @Test
+    public void test_search_with_multi_search_error_is_reported_for_the_failing_query() throws Exception {
+        Document mydoc = createDoc("docId1").with("mydoc").build();
+        indexer.add(TEST_INDEX, mydoc);
+        BatchSearch search = new BatchSearch(singletonList(project(TEST_INDEX)), "name", "desc", asSet("mydoc", "AND mydoc"), User.local());
+        when(repository.get(local(), search.uuid)).thenReturn(search);
+
+        new BatchSearchRunner(indexer, new PropertiesProvider(new HashMap<>() {{
+            put(BATCH_SEARCH_MULTI_SEARCH_SIZE_OPT, "2");
+        }}), repository, taskView(search), progressCb).call();
+
+        verify(repository).saveResults(search.uuid, "mydoc", singletonList(mydoc));
+        ArgumentCaptor<SearchException> searchExceptionArgumentCaptor = ArgumentCaptor.forClass(SearchException.class);
+        verify(repository).setState(eq(search.uuid), searchExceptionArgumentCaptor.capture());
+        assertThat(searchExceptionArgumentCaptor.getValue().toString()).contains("Failed to parse query [AND mydoc]");
+    }
+
     @Test
     public void test_use_batch_search_scroll_size_value_over_scroll_size_value() throws Exception {
         PropertiesProvider propertiesProvider = new PropertiesProvider(new HashMap<>() {{
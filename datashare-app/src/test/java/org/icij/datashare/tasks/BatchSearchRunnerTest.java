@@ -1,5 +1,7 @@
 package org.icij.datashare.tasks;
 
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.ErrorResponse;
 import org.icij.datashare.PropertiesProvider;
 import org.icij.datashare.asynctasks.TaskView;
 import org.icij.datashare.batch.BatchSearch;
@@ -12,6 +14,7 @@ import org.icij.datashare.user.User;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 
 import java.util.Date;
@@ -27,6 +30,8 @@ import static java.util.Collections.singletonList;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.icij.datashare.CollectionUtils.asSet;
 import static org.icij.datashare.cli.DatashareCliOptions.BATCH_SEARCH_MAX_TIME_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.BATCH_SEARCH_PARALLELISM_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.BATCH_SEARCH_SCROLL_SIZE_OPT;
 import static org.icij.datashare.cli.DatashareCliOptions.BATCH_THROTTLE_OPT;
 import static org.icij.datashare.tasks.BatchSearchRunner.MAX_BATCH_RESULT_SIZE;
 import static org.icij.datashare.tasks.BatchSearchRunner.MAX_SCROLL_SIZE;
@@ -35,8 +40,12 @@ import static org.icij.datashare.text.Project.project;
 import static org.icij.datashare.user.User.local;
 import static org.junit.Assert.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -90,7 +99,21 @@ public class BatchSearchRunnerTest {
         BatchSearch batchSearch = new BatchSearch("uuid1", singletonList(project("test-datashare")), "name", "desc", asSet("query"), new Date(), BatchSearch.State.QUEUED, local());
         when(repository.get(local(), batchSearch.uuid)).thenReturn(batchSearch);
 
-        assertThat(new BatchSearchRunner(indexer, new PropertiesProvider(), repository, taskView(batchSearch), progressCb).call()).isLessThan(60000);
+        assertThat(new BatchSearchRunner(indexer, new PropertiesProvider(), repository, taskView(batchSearch), progressCb).call()).isEqualTo(MAX_BATCH_RESULT_SIZE);
+    }
+
+    @Test
+    public void test_run_batch_search_truncates_the_page_exceeding_max_results() throws Exception {
+        Document[] documents = IntStream.range(0, 7000).mapToObj(i -> createDoc("doc" + i).build()).toArray(Document[]::new);
+        mockSearch.willReturn(10, documents);
+        BatchSearch batchSearch = new BatchSearch("uuid1", singletonList(project("test-datashare")), "name", "desc", asSet("query"), new Date(), BatchSearch.State.QUEUED, local());
+        when(repository.get(local(), batchSearch.uuid)).thenReturn(batchSearch);
+
+        assertThat(new BatchSearchRunner(indexer, new PropertiesProvider(new HashMap<>() {{
+            put(BATCH_SEARCH_SCROLL_SIZE_OPT, "7000");
+        }}), repository, taskView(batchSearch), progressCb).call()).isEqualTo(MAX_BATCH_RESULT_SIZE);
+        verify(repository, times(8)).saveResults(eq(batchSearch.uuid), eq("query"), argThat(page -> page.size() == 7000));
+        verify(repository).saveResults(eq(batchSearch.uuid), eq("query"), argThat(page -> page.size() == 4000));
     }
 
     @Test
@@ -124,6 +147,66 @@ public class BatchSearchRunnerTest {
         assertThat(timeRule.now().getTime() - beforeBatch.getTime()).isEqualTo(1000);
     }
 
+    @Test
+    public void test_run_batch_search_retries_rejected_requests_with_throttle() throws Exception {
+        mockSearch.willThrowOnceThenReturn(new ElasticsearchException("search", ErrorResponse.of(r -> r.status(429)
+                .error(e -> e.type("es_rejected_execution_exception").reason("rejected")))), createDoc("doc").build());
+        BatchSearch batchSearch = new BatchSearch("uuid1", singletonList(project("test-datashare")), "name1", "desc1", asSet("query1"), new Date(), BatchSearch.State.QUEUED, local());
+        when(repository.get(local(), batchSearch.uuid)).thenReturn(batchSearch);
+        Date beforeBatch  = timeRule.now;
+
+        assertThat(new BatchSearchRunner(indexer, new PropertiesProvider(new HashMap<>() {{
+            put(BATCH_THROTTLE_OPT, "1000");
+        }}), repository, taskView(batchSearch), progressCb).call()).isEqualTo(1);
+
+        verify(repository).setState(batchSearch.uuid, BatchSearch.State.SUCCESS);
+        assertThat(timeRule.now().getTime() - beforeBatch.getTime()).isEqualTo(2000 + 1500);
+    }
+
+    @Test
+    public void test_run_batch_search_with_parallelism() throws Exception {
+        Document[] documents = {createDoc("doc1").build(), createDoc("doc2").build()};
+        mockSearch.willReturn(2, documents);
+        BatchSearch search = new BatchSearch("uuid1", singletonList(project("test-datashare")), "name1", "desc1", asSet("query1", "query2", "query3", "query4"), new Date(), BatchSearch.State.QUEUED, User.local());
+        when(repository.get(local(), search.uuid)).thenReturn(search);
+
+        assertThat(new BatchSearchRunner(indexer, new PropertiesProvider(new HashMap<>() {{
+            put(BATCH_SEARCH_PARALLELISM_OPT, "3");
+        }}), repository, taskView(search), progressCb).call()).isEqualTo(4);
+
+        InOrder inOrder = inOrder(progressCb);
+        inOrder.verify(progressCb).apply(0.25);
+        inOrder.verify(progressCb).apply(0.5);
+        inOrder.verify(progressCb).apply(0.75);
+        inOrder.verify(progressCb).apply(1.0);
+        verify(repository).setState(search.uuid, BatchSearch.State.SUCCESS);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void test_run_batch_search_failure_with_parallelism() throws Exception {
+        Document[] documents = {createDoc("doc").build()};
+        mockSearch.willReturn(1, documents);
+        BatchSearch batchSearch = new BatchSearch("uuid1", singletonList(project("test-datashare")), "name1", "desc1", asSet("query1", "query2"), new Date(), BatchSearch.State.QUEUED, local());
+        when(repository.get(local(), batchSearch.uuid)).thenReturn(batchSearch);
+        when(repository.saveResults(anyString(), any(), anyList())).thenThrow(new RuntimeException());
+
+        new BatchSearchRunner(indexer, new PropertiesProvider(new HashMap<>() {{
+            put(BATCH_SEARCH_PARALLELISM_OPT, "2");
+        }}), repository, taskView(batchSearch), progressCb).call();
+    }
+
+    @Test
+    public void test_run_batch_search_with_parallelism_truncate_to_60k_max_results() throws Exception {
+        Document[] documents = IntStream.range(0, MAX_SCROLL_SIZE).mapToObj(i -> createDoc("doc" + i).build()).toArray(Document[]::new);
+        mockSearch.willReturn(MAX_BATCH_RESULT_SIZE/MAX_SCROLL_SIZE + 1, documents);
+        BatchSearch batchSearch = new BatchSearch("uuid1", singletonList(project("test-datashare")), "name", "desc", asSet("query1", "query2", "query3"), new Date(), BatchSearch.State.QUEUED, local());
+        when(repository.get(local(), batchSearch.uuid)).thenReturn(batchSearch);
+
+        assertThat(new BatchSearchRunner(indexer, new PropertiesProvider(new HashMap<>() {{
+            put(BATCH_SEARCH_PARALLELISM_OPT, "3");
+        }}), repository, taskView(batchSearch), progressCb).call()).isEqualTo(MAX_BATCH_RESULT_SIZE);
+    }
+
     @Test
     public void test_cancel_current_batch_search() throws Exception {
         CountDownLatch countDownLatch = new CountDownLatch(1);
@@ -0,0 +1,76 @@
+package org.icij.datashare.tasks;
+
+import co.elastic.clients.elasticsearch._types.Refresh;
+import org.icij.datashare.PropertiesProvider;
+import org.icij.datashare.asynctasks.TaskView;
+import org.icij.datashare.batch.BatchSearch;
+import org.icij.datashare.batch.BatchSearchRepository;
+import org.icij.datashare.test.ElasticsearchRule;
+import org.icij.datashare.text.Document;
+import org.icij.datashare.text.indexing.elasticsearch.ElasticsearchIndexer;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toCollection;
+import static org.icij.datashare.cli.DatashareCliOptions.BATCH_SEARCH_MULTI_SEARCH_SIZE_OPT;
+import static org.icij.datashare.test.ElasticsearchRule.TEST_INDEX;
+import static org.icij.datashare.text.DocumentBuilder.createDoc;
+import static org.icij.datashare.text.Project.project;
+import static org.icij.datashare.user.User.local;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Queries per second of a batch search of 10k single names (like a CSV upload)
+ * returning a handful of hits each, with one search per query and with multi searches.
+ */
+public class BenchBatchSearchMultiSearch {
+    static Logger logger = LoggerFactory.getLogger(BenchBatchSearchMultiSearch.class);
+    @ClassRule
+    public static ElasticsearchRule es = new ElasticsearchRule();
+
+    private static final int NB_QUERIES = 10000;
+    private static final int NB_DOCS = 2000;
+
+    @Test
+    public void testQueriesPerSecond() throws Exception {
+        ElasticsearchIndexer indexer = new ElasticsearchIndexer(es.client, new PropertiesProvider()).withRefresh(Refresh.False);
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < NB_DOCS; i++) {
+            documents.add(createDoc("doc" + i).with("a document about name" + i % 1000 + " and name" + (i + 1) % 1000).build());
+        }
+        indexer.bulkAdd(TEST_INDEX, documents);
+        es.client.indices().refresh(r -> r.index(TEST_INDEX));
+
+        for (String multiSearchSize : new String[] {"1", "20", "100"}) {
+            BatchSearch batchSearch = new BatchSearch("uuid" + multiSearchSize, singletonList(project(TEST_INDEX)), "name", "desc",
+                    queries(), new Date(), BatchSearch.State.QUEUED, local());
+            BatchSearchRepository repository = mock(BatchSearchRepository.class);
+            when(repository.get(local(), batchSearch.uuid)).thenReturn(batchSearch);
+
+            long beginTime = System.currentTimeMillis();
+            int nbResults = new BatchSearchRunner(indexer, new PropertiesProvider(new HashMap<>() {{
+                put(BATCH_SEARCH_MULTI_SEARCH_SIZE_OPT, multiSearchSize);
+            }}), repository, new TaskView<>(batchSearch.uuid, BatchSearchRunner.class.getName(), local()), p -> null).call();
+            long duration = System.currentTimeMillis() - beginTime;
+
+            logger.info("{} queries with {} queries per request: {} results in {}ms ({} queries/s)",
+                    NB_QUERIES, multiSearchSize, nbResults, duration, NB_QUERIES * 1000L / duration);
+        }
+    }
+
+    private static Set<String> queries() {
+        return IntStream.range(0, NB_QUERIES).mapToObj(i -> "name" + i).collect(toCollection(LinkedHashSet::new));
+    }
+}
@@ -0,0 +1,94 @@
+package org.icij.datashare.tasks;
+
+import org.icij.datashare.PropertiesProvider;
+import org.icij.datashare.asynctasks.TaskView;
+import org.icij.datashare.batch.BatchSearch;
+import org.icij.datashare.batch.BatchSearchRepository;
+import org.icij.datashare.text.Document;
+import org.icij.datashare.text.indexing.Indexer;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toCollection;
+import static org.icij.datashare.cli.DatashareCliOptions.BATCH_SEARCH_PARALLELISM_OPT;
+import static org.icij.datashare.text.DocumentBuilder.createDoc;
+import static org.icij.datashare.text.Project.project;
+import static org.icij.datashare.user.User.local;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Batch search of many queries against a stand-in index answering each scroll
+ * with a fixed latency, sequentially and with several workers.
+ */
+public class BenchBatchSearchRunner {
+    static Logger logger = LoggerFactory.getLogger(BenchBatchSearchRunner.class);
+
+    private static final int NB_QUERIES = 500;
+    private static final int SCROLL_LATENCY_MS = 20;
+    private static final Document[] PAGE = IntStream.range(0, 10).mapToObj(i -> createDoc("doc" + i).build()).toArray(Document[]::new);
+
+    @Test
+    public void testSequentialAndParallelQueries() throws Exception {
+        for (String parallelism : new String[] {"1", "4", "8", "16"}) {
+            BatchSearch batchSearch = new BatchSearch("uuid", singletonList(project("test-datashare")), "name", "desc",
+                    queries(), new Date(), BatchSearch.State.QUEUED, local());
+            BatchSearchRepository repository = mock(BatchSearchRepository.class);
+            when(repository.get(local(), batchSearch.uuid)).thenReturn(batchSearch);
+
+            long beginTime = System.currentTimeMillis();
+            int nbResults = new BatchSearchRunner(standInIndexer(), new PropertiesProvider(new HashMap<>() {{
+                put(BATCH_SEARCH_PARALLELISM_OPT, parallelism);
+            }}), repository, new TaskView<>(batchSearch.uuid, BatchSearchRunner.class.getName(), local()), p -> null).call();
+            long duration = System.currentTimeMillis() - beginTime;
+
+            logger.info("{} queries with {} worker(s): {} results in {}ms ({} queries/s)",
+                    NB_QUERIES, parallelism, nbResults, duration, NB_QUERIES * 1000L / duration);
+        }
+    }
+
+    private static Set<String> queries() {
+        return IntStream.range(0, NB_QUERIES).mapToObj(i -> "query" + i).collect(toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * each search returns one page of results then an empty page, each scroll taking SCROLL_LATENCY_MS
+     */
+    private static Indexer standInIndexer() throws Exception {
+        Queue<Indexer.Searcher> searchers = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < NB_QUERIES; i++) {
+            Indexer.QueryBuilderSearcher searcher = mock(Indexer.QueryBuilderSearcher.class);
+            AtomicInteger nbScrolls = new AtomicInteger();
+            when(searcher.withFieldValues(anyString())).thenReturn(searcher);
+            when(searcher.withPrefixQuery(anyString())).thenReturn(searcher);
+            when(searcher.with(anyInt(), anyBoolean())).thenReturn(searcher);
+            when(searcher.withoutSource(any())).thenReturn(searcher);
+            when(searcher.limit(anyInt())).thenReturn(searcher);
+            when(searcher.scroll(anyString())).thenAnswer(s -> {
+                Thread.sleep(SCROLL_LATENCY_MS);
+                return nbScrolls.getAndIncrement() == 0 ? Stream.of(PAGE) : Stream.empty();
+            });
+            searchers.add(searcher);
+        }
+        Indexer indexer = mock(Indexer.class);
+        when(indexer.search(eq(singletonList("test-datashare")), eq(Document.class), any())).thenAnswer(a -> searchers.poll());
+        return indexer;
+    }
+}
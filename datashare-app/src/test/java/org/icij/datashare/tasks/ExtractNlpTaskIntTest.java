@@ -32,6 +32,7 @@ import static java.util.Arrays.asList;
 import static org.icij.datashare.text.DocumentBuilder.createDoc;
 import static org.icij.datashare.text.Language.ENGLISH;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
@@ -54,7 +55,7 @@ public class ExtractNlpTaskIntTest {
         when(pipeline.getType()).thenReturn(Pipeline.Type.CORENLP);
         when(pipeline.initialize(any())).thenReturn(true);
         Document doc = createDoc("content").build();
-        when(indexer.get(anyString(), eq("docId"))).thenReturn(doc);
+        when(indexer.get(anyString(), eq("docId"), anyList(), anyList())).thenReturn(doc);
 
         String queueName = new PipelineHelper(new PropertiesProvider()).getQueueNameFor(Stage.NLP);
         DocumentQueue<String> queue = factory.createQueue(queueName, String.class);
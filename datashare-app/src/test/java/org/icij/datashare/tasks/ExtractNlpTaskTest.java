@@ -1,27 +1,48 @@
 package org.icij.datashare.tasks;
 
+import org.icij.datashare.PipelineHelper;
+import org.icij.datashare.PropertiesProvider;
+import org.icij.datashare.Stage;
 import org.icij.datashare.asynctasks.TaskView;
 import org.icij.datashare.extract.MemoryDocumentCollectionFactory;
 import org.icij.datashare.text.Document;
 import org.icij.datashare.text.Language;
+import org.icij.datashare.text.NamedEntity;
 import org.icij.datashare.text.indexing.Indexer;
 import org.icij.datashare.text.nlp.AbstractPipeline;
+import org.icij.datashare.text.nlp.Pipeline;
 import org.icij.datashare.user.User;
+import org.icij.extract.queue.DocumentQueue;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.fest.assertions.Assertions.assertThat;
 import static org.icij.datashare.text.DocumentBuilder.createDoc;
 import static org.icij.datashare.text.Language.ENGLISH;
 import static org.icij.datashare.text.Project.project;
+import static org.junit.Assert.fail;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -51,7 +72,7 @@ public class ExtractNlpTaskTest {
     @Test
     public void test_on_message_do_not_processNLP__when_init_fails() throws Exception {
         when(pipeline.initialize(any())).thenReturn(false);
-        when(indexer.get(anyString(), anyString(), anyString())).thenReturn(createDoc("content").build());
+        when(indexer.get(anyString(), anyString(), anyList(), anyList())).thenReturn(createDoc("content").build());
 
         nlpTask.findNamedEntities(project("projectName"),"id");
         verify(pipeline, never()).process(any());
@@ -62,7 +83,7 @@ public class ExtractNlpTaskTest {
         when(pipeline.initialize(any())).thenReturn(true);
         Document doc = createDoc("content").build();
         when(pipeline.process(doc)).thenReturn(emptyList());
-        when(indexer.get("projectName", doc.getId())).thenReturn(doc);
+        when(indexer.get("projectName", doc.getId(), emptyList(), singletonList("content_translated"))).thenReturn(doc);
 
         nlpTask.findNamedEntities(project("projectName"), doc.getId());
 
@@ -75,7 +96,7 @@ public class ExtractNlpTaskTest {
         when(pipeline.initialize(any())).thenReturn(true);
         Document doc = createDoc("huge_doc").with("0123456789abcdef0123456789abcdef+").build();
         when(pipeline.process(doc)).thenReturn(emptyList());
-        when(indexer.get("projectName", doc.getId())).thenReturn(doc);
+        when(indexer.get("projectName", doc.getId(), emptyList(), singletonList("content_translated"))).thenReturn(doc);
 
         nlpTask.findNamedEntities(project("projectName"), doc.getId());
 
@@ -83,4 +104,171 @@ public class ExtractNlpTaskTest {
         verify(pipeline).process(doc, 32, 0);
         verify(pipeline).process(doc, 32, 32);
     }
+
+    @Test(timeout = 5000)
+    public void test_call_with_parallel_workers() throws Exception {
+        ExtractNlpTask parallelTask = new ExtractNlpTask(indexer, pipeline, factory, new TaskView<>(ExtractNlpTask.class.getName(), User.local(), new HashMap<>(){{
+            put("nlpParallelism", "2");
+        }}), null);
+        when(pipeline.getType()).thenReturn(Pipeline.Type.CORENLP);
+        when(pipeline.initialize(any())).thenReturn(true);
+        Document doc = createDoc("content").build();
+        when(pipeline.process(doc)).thenReturn(emptyList());
+        when(indexer.get(anyString(), anyString(), anyList(), anyList())).thenReturn(doc);
+        DocumentQueue<String> queue = factory.createQueue(new PipelineHelper(new PropertiesProvider()).getQueueNameFor(Stage.NLP), String.class);
+        for (int i = 0; i < 4; i++) {
+            queue.add("docId" + i);
+        }
+        queue.add(PipelineTask.STRING_POISON);
+
+        assertThat(parallelTask.call()).isEqualTo(4);
+
+        verify(pipeline, times(4)).process(doc);
+        assertThat(parallelTask.getProgressRate()).isEqualTo(1.0);
+    }
+
+    @Test(timeout = 5000)
+    public void test_pipeline_not_thread_safe_is_called_by_one_worker_at_a_time() throws Exception {
+        ExtractNlpTask parallelTask = new ExtractNlpTask(indexer, pipeline, factory, new TaskView<>(ExtractNlpTask.class.getName(), User.local(), new HashMap<>(){{
+            put("nlpParallelism", "4");
+        }}), null);
+        when(pipeline.getType()).thenReturn(Pipeline.Type.CORENLP);
+        when(pipeline.isThreadSafe()).thenReturn(false);
+        when(pipeline.initialize(any())).thenReturn(true);
+        Document doc = createDoc("content").build();
+        AtomicInteger concurrentCalls = new AtomicInteger();
+        AtomicInteger maxConcurrentCalls = new AtomicInteger();
+        when(pipeline.process(doc)).thenAnswer(invocation -> {
+            maxConcurrentCalls.accumulateAndGet(concurrentCalls.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            concurrentCalls.decrementAndGet();
+            return emptyList();
+        });
+        when(indexer.get(anyString(), anyString(), anyList(), anyList())).thenReturn(doc);
+        DocumentQueue<String> queue = factory.createQueue(new PipelineHelper(new PropertiesProvider()).getQueueNameFor(Stage.NLP), String.class);
+        for (int i = 0; i < 8; i++) {
+            queue.add("docId" + i);
+        }
+        queue.add(PipelineTask.STRING_POISON);
+
+        assertThat(parallelTask.call()).isEqualTo(8);
+
+        assertThat(maxConcurrentCalls.get()).isEqualTo(1);
+    }
+
+    @Test(timeout = 5000)
+    public void test_interrupted_worker_stops_the_task() throws Exception {
+        ExtractNlpTask parallelTask = new ExtractNlpTask(indexer, pipeline, factory, new TaskView<>(ExtractNlpTask.class.getName(), User.local(), new HashMap<>(){{
+            put("nlpParallelism", "2");
+        }}), null);
+        when(pipeline.getType()).thenReturn(Pipeline.Type.CORENLP);
+        when(pipeline.initialize(any())).thenReturn(true);
+        Document doc = createDoc("content").build();
+        when(pipeline.process(doc)).thenThrow(new InterruptedException("cancelled"));
+        when(indexer.get(anyString(), anyString(), anyList(), anyList())).thenReturn(doc);
+        DocumentQueue<String> queue = factory.createQueue(new PipelineHelper(new PropertiesProvider()).getQueueNameFor(Stage.NLP), String.class);
+        queue.add("docId");
+
+        try {
+            parallelTask.call();
+            fail("interrupted worker should stop the task");
+        } catch (InterruptedException ie) {
+            Thread.interrupted();
+        }
+
+        verify(pipeline).terminate(ENGLISH);
+    }
+
+    @Test(timeout = 5000)
+    public void test_pipeline_is_initialized_once_by_language_and_terminated_after_workers() throws Exception {
+        ExtractNlpTask parallelTask = new ExtractNlpTask(indexer, pipeline, factory, new TaskView<>(ExtractNlpTask.class.getName(), User.local(), new HashMap<>(){{
+            put("nlpParallelism", "2");
+        }}), null);
+        when(pipeline.getType()).thenReturn(Pipeline.Type.CORENLP);
+        when(pipeline.initialize(any())).thenReturn(true);
+        Document doc = createDoc("content").build();
+        when(pipeline.process(doc)).thenReturn(emptyList());
+        when(indexer.get(anyString(), anyString(), anyList(), anyList())).thenReturn(doc);
+        DocumentQueue<String> queue = factory.createQueue(new PipelineHelper(new PropertiesProvider()).getQueueNameFor(Stage.NLP), String.class);
+        for (int i = 0; i < 4; i++) {
+            queue.add("docId" + i);
+        }
+        queue.add(PipelineTask.STRING_POISON);
+
+        parallelTask.call();
+
+        InOrder inOrder = inOrder(pipeline);
+        inOrder.verify(pipeline, times(1)).initialize(ENGLISH);
+        inOrder.verify(pipeline, times(4)).process(doc);
+        inOrder.verify(pipeline, times(1)).terminate(ENGLISH);
+    }
+
+    @Test(timeout = 5000)
+    public void test_failed_documents_are_not_counted_as_processed() throws Exception {
+        when(pipeline.getType()).thenReturn(Pipeline.Type.CORENLP);
+        when(pipeline.initialize(any())).thenReturn(true);
+        Document doc = createDoc("content").build();
+        when(pipeline.process(doc)).thenThrow(new IllegalStateException("nlp failure"));
+        when(indexer.get(anyString(), anyString(), anyList(), anyList())).thenReturn(doc);
+        DocumentQueue<String> queue = factory.createQueue(new PipelineHelper(new PropertiesProvider()).getQueueNameFor(Stage.NLP), String.class);
+        queue.add("docId");
+        queue.add(PipelineTask.STRING_POISON);
+
+        assertThat(nlpTask.call()).isEqualTo(0);
+        assertThat(nlpTask.getProgressRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void test_progress_rate_without_documents() {
+        assertThat(nlpTask.getProgressRate()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void test_named_entities_of_several_documents_are_written_in_one_bulk() throws Exception {
+        ExtractNlpTask batchTask = new ExtractNlpTask(indexer, pipeline, factory, new TaskView<>(ExtractNlpTask.class.getName(), User.local(), new HashMap<>(){{
+            put("nlpBatchSize", "2");
+            put("defaultProject", "projectName");
+        }}), null);
+        when(pipeline.getType()).thenReturn(Pipeline.Type.CORENLP);
+        when(pipeline.initialize(any())).thenReturn(true);
+        Document doc1 = createDoc("doc1").build();
+        Document doc2 = createDoc("doc2").build();
+        when(pipeline.process(any(Document.class))).thenReturn(emptyList());
+        when(indexer.get("projectName", doc1.getId(), emptyList(), singletonList("content_translated"))).thenReturn(doc1);
+        when(indexer.get("projectName", doc2.getId(), emptyList(), singletonList("content_translated"))).thenReturn(doc2);
+
+        batchTask.findNamedEntities(project("projectName"), doc1.getId());
+        verify(indexer, never()).bulkAdd(anyString(), any(Pipeline.Type.class), anyMap(), anyMap());
+
+        batchTask.findNamedEntities(project("projectName"), doc2.getId());
+        verify(indexer).bulkAdd(anyString(), eq(Pipeline.Type.CORENLP),
+                argThat((Map<String, List<NamedEntity>> m) -> m.keySet().equals(Set.of("doc1", "doc2"))),
+                eq(Map.of("doc1", "doc1", "doc2", "doc2")));
+        verify(indexer, never()).bulkAdd(anyString(), any(Pipeline.Type.class), anyList(), any(Document.class));
+    }
+
+    @Test
+    public void test_failed_named_entities_bulk_is_reported_for_the_whole_batch() throws Exception {
+        ExtractNlpTask batchTask = new ExtractNlpTask(indexer, pipeline, factory, new TaskView<>(ExtractNlpTask.class.getName(), User.local(), new HashMap<>(){{
+            put("nlpBatchSize", "10");
+            put("defaultProject", "projectName");
+        }}), null);
+        when(pipeline.getType()).thenReturn(Pipeline.Type.CORENLP);
+        when(pipeline.initialize(any())).thenReturn(true);
+        when(pipeline.process(any(Document.class))).thenReturn(emptyList());
+        when(indexer.bulkAdd(anyString(), any(Pipeline.Type.class), anyMap(), anyMap())).thenThrow(new IOException("es is down"));
+        for (String id : List.of("doc1", "doc2")) {
+            when(indexer.get("projectName", id, emptyList(), singletonList("content_translated"))).thenReturn(createDoc(id).build());
+            batchTask.findNamedEntities(project("projectName"), id);
+        }
+
+        try {
+            batchTask.flushNamedEntities();
+            throw new AssertionError("flush should have failed");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).isEqualTo("cannot write named entities of 2 documents");
+        }
+        batchTask.flushNamedEntities();
+        verify(indexer, times(1)).bulkAdd(anyString(), any(Pipeline.Type.class), anyMap(), anyMap());
+    }
 }
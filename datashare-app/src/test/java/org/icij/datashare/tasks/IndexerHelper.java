@@ -65,6 +65,7 @@ public class IndexerHelper {
                 new PropertiesProvider()).withRefresh(Refresh.True), new MemoryDocumentCollectionFactory<>(), l -> ENGLISH,
                 new FieldNames(), new PropertiesProvider(new HashMap<>() {{
                     put("defaultProject","test-datashare");
+                    put("elasticsearchBulkSize", "1");
         }}));
         elasticsearchSpewer.write(document);
         return path.toFile();
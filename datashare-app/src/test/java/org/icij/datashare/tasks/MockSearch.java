@@ -44,6 +44,13 @@ class MockSearch<S extends Indexer.Searcher> {
         prepareSearcher(documents.length, searcher);
     }
 
+    void willThrowOnceThenReturn(Exception expectedClassException, Document... documents) throws IOException {
+        S searcher = mock(searcherInstance);
+        when(searcher.scroll(any(String.class))).thenThrow(expectedClassException)
+                .thenAnswer(a -> Stream.of(documents)).thenAnswer(a -> Stream.empty());
+        prepareSearcher(documents.length, searcher);
+    }
+
     private void prepareSearcher(long length, Indexer.Searcher searcher) {
         when(searcher.with(anyInt(), anyBoolean())).thenReturn(searcher);
         when(searcher.withoutSource(any())).thenReturn(searcher);
@@ -9,10 +9,20 @@ import org.junit.Test;
 import org.junit.Before;
 import org.mockito.Mock;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.icij.datashare.cli.DatashareCliOptions.EMBEDDED_DOCUMENT_DOWNLOAD_MAX_SIZE_OPT;
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -40,7 +50,7 @@ public class DocumentVerifierTest {
         Document rootDoc = DocumentBuilder.createDoc("bar").with(project).withContentLength(1024).build();
         Document doc = DocumentBuilder.createDoc("foo").with(project).withParentId("bar").withRootId("bar").build();
 
-        when(indexer.get(project.getId(), "bar")).thenReturn(rootDoc);
+        when(indexer.get(project.getId(), "bar", singletonList("contentLength"), emptyList())).thenReturn(rootDoc);
         when(propertiesProvider.get(EMBEDDED_DOCUMENT_DOWNLOAD_MAX_SIZE_OPT)).thenReturn(Optional.of("200G"));
 
         assertTrue(documentVerifier.isRootDocumentSizeAllowed(doc));
@@ -52,12 +62,39 @@ public class DocumentVerifierTest {
         Document rootDoc = DocumentBuilder.createDoc("bar").with(project).withContentLength(1024).build();
         Document doc = DocumentBuilder.createDoc("foo").with(project).withParentId("bar").withRootId("bar").build();
 
-        when(indexer.get(project.getId(), "bar")).thenReturn(rootDoc);
+        when(indexer.get(project.getId(), "bar", singletonList("contentLength"), emptyList())).thenReturn(rootDoc);
         when(propertiesProvider.get(EMBEDDED_DOCUMENT_DOWNLOAD_MAX_SIZE_OPT)).thenReturn(Optional.of("200"));
 
         assertFalse(documentVerifier.isRootDocumentSizeAllowed(doc));
     }
 
+    @Test
+    public void test_load_root_document_sizes_with_one_request_per_page() throws Exception {
+        Project project = new Project("local-datashare");
+        Document bar = DocumentBuilder.createDoc("bar").with(project).withContentLength(1024).build();
+        Document baz = DocumentBuilder.createDoc("baz").with(project).withContentLength(4096).build();
+        List<Document> page = asList(
+                DocumentBuilder.createDoc("foo1").with(project).withParentId("bar").withRootId("bar").build(),
+                DocumentBuilder.createDoc("foo2").with(project).withParentId("bar").withRootId("bar").build(),
+                DocumentBuilder.createDoc("foo3").with(project).withParentId("baz").withRootId("baz").build(),
+                bar);
+        when(indexer.<Document>get(project.getId(), asList("bar", "baz"), singletonList("contentLength"))).thenReturn(new HashMap<>() {{
+            put("bar", bar);
+            put("baz", baz);
+        }});
+        when(propertiesProvider.get(EMBEDDED_DOCUMENT_DOWNLOAD_MAX_SIZE_OPT)).thenReturn(Optional.of("2000"));
+
+        documentVerifier.loadRootDocumentSizes(page);
+        documentVerifier.loadRootDocumentSizes(page);
+
+        assertTrue(documentVerifier.isRootDocumentSizeAllowed(page.get(0)));
+        assertTrue(documentVerifier.isRootDocumentSizeAllowed(page.get(1)));
+        assertFalse(documentVerifier.isRootDocumentSizeAllowed(page.get(2)));
+        assertTrue(documentVerifier.isRootDocumentSizeAllowed(page.get(3)));
+        verify(indexer, times(1)).get(anyString(), anyList(), anyList());
+        verify(indexer, never()).get(anyString(), anyString(), anyList(), anyList());
+    }
+
     private void indexFile(String index, Document document) {
         when(indexer.get(index, document.getId())).thenReturn(document);
     }
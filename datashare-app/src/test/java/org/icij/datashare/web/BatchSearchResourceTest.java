@@ -29,17 +29,20 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
+import static java.util.Arrays.stream;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.icij.datashare.CollectionUtils.asSet;
 import static org.icij.datashare.text.Project.project;
 import static org.icij.datashare.text.ProjectProxy.proxy;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -302,6 +305,28 @@ public class BatchSearchResourceTest extends AbstractProdWebServerTest {
                 contain("\"documentId\":\"docId9\"").
                 not().contain("\"documentId\":\"docId7\"");
     }
+    @Test
+    public void test_get_search_results_after_last_result() {
+        SearchResult lastResult = new SearchResult("q1", "docId4", "rootId4", Paths.get("/path/to/doc4"), new Date(), "content/type", 123L, 4);
+        when(batchSearchRepository.getResults(User.local(), "batchSearchId", WebQueryBuilder.createWebQuery().queryAll().withRange(0, 2).withAfter(lastResult).build())).thenReturn(asList(
+                new SearchResult("q1", "docId5", "rootId5", Paths.get("/path/to/doc5"), new Date(), "content/type", 123L, 5),
+                new SearchResult("q2", "docId6", "rootId6", Paths.get("/path/to/doc6"), new Date(), "content/type", 123L, 0)
+        ));
+
+        post("/api/batch/search/result/batchSearchId", "{\"from\":0, \"size\":2, \"query\":\"*\", \"field\":\"all\", \"after\":[\"q1\", \"4\", \"docId4\"]}").
+                should().respond(200).
+                contain("\"documentId\":\"docId5\"").
+                contain("\"documentId\":\"docId6\"");
+    }
+
+    @Test
+    public void test_get_search_results_after_with_bad_cursor() {
+        when(batchSearchRepository.getResults(eq(User.local()), eq("batchSearchId"), any())).thenThrow(new IllegalArgumentException("bad cursor"));
+
+        post("/api/batch/search/result/batchSearchId", "{\"from\":0, \"size\":2, \"query\":\"*\", \"field\":\"all\", \"after\":[\"q1\"]}").
+                should().respond(400);
+    }
+
     @Test
     public void test_get_search_results_filtered_by_content_types() {
         SearchResult searchResult1 = new SearchResult("q1", "docId1", "rootId1",
@@ -331,10 +356,10 @@ public class BatchSearchResourceTest extends AbstractProdWebServerTest {
     @Test
     public void test_get_search_results_csv() {
         when(batchSearchRepository.get(User.local(), "batchSearchId")).thenReturn(new BatchSearch(singletonList(project("prj")), "name", "desc", asSet("q1", "q2"),User.local()));
-        when(batchSearchRepository.getResults(User.local(), "batchSearchId",WebQueryBuilder.createWebQuery().queryAll().build())).thenReturn(asList(
+        willStreamResults(
                 new SearchResult("q1", "docId1", "rootId1", Paths.get("/path/to/doc1"), new Date(), "content/type", 123L, 1),
                 new SearchResult("q2", "docId2", "rootId2", Paths.get("/path/to/doc2"), new Date(), "content/type", 123L, 2)
-        ));
+        );
 
         get("/api/batch/search/result/csv/batchSearchId").
                 should().respond(200).haveType("text/csv").
@@ -355,9 +380,7 @@ public class BatchSearchResourceTest extends AbstractProdWebServerTest {
                     filter(new LocalUserFilter(propertiesProvider, jooqRepository));
         });
         when(batchSearchRepository.get(User.local(), "batchSearchId")).thenReturn(new BatchSearch(singletonList(project("prj")), "name", "desc", asSet("q"), User.local()));
-        when(batchSearchRepository.getResults(User.local(), "batchSearchId",WebQueryBuilder.createWebQuery().queryAll().build())).thenReturn(singletonList(
-                new SearchResult("q", "docId", "rootId", Paths.get("/path/to/doc"), new Date(), "content/type", 123L, 1)
-        ));
+        willStreamResults(new SearchResult("q", "docId", "rootId", Paths.get("/path/to/doc"), new Date(), "content/type", 123L, 1));
 
         get("/api/batch/search/result/csv/batchSearchId").should().respond(200).haveType("text/csv").
                 haveHeader("Content-Disposition", "attachment;filename=\"batchSearchId.csv\"").
@@ -366,6 +389,7 @@ public class BatchSearchResourceTest extends AbstractProdWebServerTest {
 
     @Test
     public void test_get_search_results_unauthorized_user() {
+        when(batchSearchRepository.get(User.local(), "batchSearchId")).thenReturn(new BatchSearch(singletonList(project("prj")), "name", "desc", asSet("q"), new User("owner")));
         when(batchSearchRepository.getResults(User.local(), "batchSearchId", WebQueryBuilder.createWebQuery().queryAll().build())).
                 thenThrow(new JooqBatchSearchRepository.UnauthorizedUserException("batchSearchId", "owner", "actual"));
 
@@ -373,6 +397,20 @@ public class BatchSearchResourceTest extends AbstractProdWebServerTest {
         post("/api/batch/search/result/batchSearchId", "{\"from\":0, \"size\":0, \"query\":\"*\", \"field\":\"all\"}").should().respond(401);
     }
 
+    @Test
+    public void test_get_search_results_csv_of_published_batch_search_from_other_user() {
+        when(batchSearchRepository.get(User.local(), "batchSearchId")).thenReturn(new BatchSearch(singletonList(project("prj")), "name", "desc", asSet("q"), new User("owner"), true));
+        willStreamResults(new SearchResult("q", "docId", "rootId", Paths.get("/path/to/doc"), new Date(), "content/type", 123L, 1));
+
+        get("/api/batch/search/result/csv/batchSearchId").should().respond(200).haveType("text/csv").
+                contain("\"docId\",\"rootId\"");
+    }
+
+    @Test
+    public void test_get_search_results_csv_not_found() {
+        get("/api/batch/search/result/csv/unknownId").should().respond(404);
+    }
+
     @Test
     public void test_delete_batch_search() {
         when(batchSearchRepository.deleteAll(User.local())).thenReturn(true).thenReturn(false);
@@ -488,6 +526,14 @@ public class BatchSearchResourceTest extends AbstractProdWebServerTest {
         assertThat(argument.getValue().queries.keySet()).containsOnly(tripleQuoteResult, "\"query two\"", "query three", "query\" four");
     }
 
+    private void willStreamResults(SearchResult... results) {
+        doAnswer(invocation -> {
+            Consumer<SearchResult> consumer = invocation.getArgument(3);
+            stream(results).forEach(consumer);
+            return null;
+        }).when(batchSearchRepository).streamResults(eq(User.local()), eq("batchSearchId"), any(), any());
+    }
+
     @Before
     public void setUp() {
         initMocks(this);
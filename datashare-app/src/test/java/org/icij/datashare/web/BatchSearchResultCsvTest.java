@@ -0,0 +1,96 @@
+package org.icij.datashare.web;
+
+import org.icij.datashare.batch.BatchSearch;
+import org.icij.datashare.batch.BatchSearchRepository;
+import org.icij.datashare.batch.SearchResult;
+import org.icij.datashare.user.User;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.icij.datashare.CollectionUtils.asSet;
+import static org.icij.datashare.text.Project.project;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class BatchSearchResultCsvTest {
+    private final BatchSearchRepository repository = mock(BatchSearchRepository.class);
+    private final BatchSearch batchSearch = new BatchSearch(singletonList(project("prj")), "name", "desc", asSet("q"), User.local());
+
+    @Test
+    public void test_write_csv() throws IOException {
+        Date date = new Date();
+        willStreamResults(2, i -> new SearchResult("q" + i, "docId" + i, "rootId" + i, Paths.get("/path/to/doc" + i), date, "content/type", 123L, i));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        new BatchSearchResultCsv(repository, User.local(), batchSearch, "http://host").write(output);
+
+        assertThat(output.toString(UTF_8)).isEqualTo(BatchSearchResultCsv.CSV_HEADER + "\n" +
+                format("\"q0\",\"http://host/#/d/prj/docId0/rootId0\",\"docId0\",\"rootId0\",\"content/type\",\"123\",\"/path/to/doc0\",\"/path/to\",\"%s\",\"0\"\n", date) +
+                format("\"q1\",\"http://host/#/d/prj/docId1/rootId1\",\"docId1\",\"rootId1\",\"content/type\",\"123\",\"/path/to/doc1\",\"/path/to\",\"%s\",\"1\"\n", date));
+    }
+
+    @Test
+    public void test_write_csv_of_large_result_set_with_bounded_memory() throws IOException {
+        int nbResults = 100_000;
+        int maxBufferedBytes = 64 * 1024;
+        Date date = new Date(0);
+        CountingOutputStream output = new CountingOutputStream();
+        List<long[]> writtenWhileReading = new ArrayList<>();
+        willStreamResults(nbResults, i -> {
+            if (i % 1000 == 0) {
+                writtenWhileReading.add(new long[] {i, output.count});
+            }
+            // constant size lines
+            return new SearchResult("query", format("doc%06d", i), format("doc%06d", i), Paths.get(format("/path/to/doc%06d", i)), date, "content/type", 123L, 1_000_000 + i);
+        });
+
+        new BatchSearchResultCsv(repository, User.local(), batchSearch, "http://host").write(output);
+
+        long headerSize = (BatchSearchResultCsv.CSV_HEADER + "\n").getBytes(UTF_8).length;
+        long lineSize = (output.count - headerSize) / nbResults;
+        assertThat(output.count).isEqualTo(headerSize + lineSize * nbResults);
+        for (long[] written : writtenWhileReading) {
+            long produced = headerSize + written[0] * lineSize;
+            assertThat(produced - written[1]).isLessThan(maxBufferedBytes);
+        }
+    }
+
+    private void willStreamResults(int nbResults, IntFunction<SearchResult> results) {
+        doAnswer(invocation -> {
+            Consumer<SearchResult> consumer = invocation.getArgument(3);
+            for (int i = 0; i < nbResults; i++) {
+                consumer.accept(results.apply(i));
+            }
+            return null;
+        }).when(repository).streamResults(eq(User.local()), eq(batchSearch.uuid), any(), any());
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long count = 0;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
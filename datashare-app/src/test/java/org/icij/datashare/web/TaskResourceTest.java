@@ -399,6 +399,15 @@ public class TaskResourceTest extends AbstractProdWebServerTest {
         put("/api/task/stopAll").should().respond(200);
     }
 
+    @Test
+    public void test_queue_wait_times_by_priority() throws IOException {
+        taskManager.startTask(TestTask.class.getName(), User.local(), new HashMap<>(), TaskView.MAX_PRIORITY);
+        taskManager.waitTasksToBeDone(1, SECONDS);
+
+        get("/api/task/queue/waitTimes").should().respond(200).haveType("application/json")
+                .contain("\"9\":{").contain("\"count\":1");
+    }
+
     @Test
     public void test_stop_task() throws IOException {
         TaskView<String> dummyTask = taskManager.startTask(TestSleepingTask.class.getName(), User.local(), new HashMap<>());
@@ -122,6 +122,7 @@ public class DatashareCli {
         DatashareCliOptions.scroll(parser);
         DatashareCliOptions.scrollSize(parser);
         DatashareCliOptions.scrollSlices(parser);
+        DatashareCliOptions.scrollPointInTime(parser);
         DatashareCliOptions.batchSearchScroll(parser);
         DatashareCliOptions.batchSearchScrollSize(parser);
         DatashareCliOptions.batchDownloadScroll(parser);
@@ -132,16 +133,29 @@ public class DatashareCli {
         DatashareCliOptions.parallelism(parser);
         DatashareCliOptions.fileParserParallelism(parser);
         DatashareCliOptions.nlpParallelism(parser);
+        DatashareCliOptions.nlpBatchSize(parser);
         DatashareCliOptions.followSymlinks(parser);
         DatashareCliOptions.enableBrowserOpenLink(parser);
         DatashareCliOptions.embeddedDocumentDownloadMaxSize(parser);
+        DatashareCliOptions.embeddedSourceCacheDir(parser);
+        DatashareCliOptions.embeddedSourceCacheSize(parser);
+        DatashareCliOptions.textCacheSize(parser);
         DatashareCliOptions.batchSearchMaxTime(parser);
+        DatashareCliOptions.batchSearchParallelism(parser);
+        DatashareCliOptions.batchSearchMultiSearchSize(parser);
         DatashareCliOptions.batchThrottle(parser);
+        DatashareCliOptions.batchThrottleMax(parser);
+        DatashareCliOptions.batchThrottleTargetLatency(parser);
         DatashareCliOptions.batchQueueType(parser);
+        DatashareCliOptions.taskWorkers(parser);
+        DatashareCliOptions.taskTypeLimits(parser);
+        DatashareCliOptions.taskProgressInterval(parser);
         DatashareCliOptions.sessionStoreType(parser);
         DatashareCliOptions.batchDownloadTimeToLive(parser);
         DatashareCliOptions.batchDownloadMaxNbFiles(parser);
         DatashareCliOptions.batchDownloadMaxSize(parser);
+        DatashareCliOptions.batchDownloadParallelism(parser);
+        DatashareCliOptions.batchDownloadMemoryBudget(parser);
         DatashareCliOptions.batchDownloadEncrypt(parser);
         DatashareCliOptions.batchDownloadDir(parser);
         DatashareCliOptions.smtpUrl(parser);
@@ -152,6 +166,9 @@ public class DatashareCli {
         DatashareCliOptions.defaultProject(parser);
         DatashareCliOptions.oauthClaimIdAttribute(parser);
         DatashareCliOptions.esHost(parser);
+        DatashareCliOptions.elasticsearchBulkSize(parser);
+        DatashareCliOptions.elasticsearchBulkMaxSize(parser);
+        DatashareCliOptions.elasticsearchBulkFlush(parser);
         DatashareCliOptions.queueName(parser);
         DatashareCliOptions.cors(parser);
         DatashareCliOptions.queueType(parser);
@@ -30,14 +30,20 @@ public final class DatashareCliOptions {
     public static final String BATCH_DOWNLOAD_ENCRYPT_OPT = "batchDownloadEncrypt";
     public static final String BATCH_DOWNLOAD_MAX_NB_FILES_OPT = "batchDownloadMaxNbFiles";
     public static final String BATCH_DOWNLOAD_MAX_SIZE_OPT = "batchDownloadMaxSize";
+    public static final String BATCH_DOWNLOAD_MEMORY_BUDGET_OPT = "batchDownloadMemoryBudget";
+    public static final String BATCH_DOWNLOAD_PARALLELISM_OPT = "batchDownloadParallelism";
     public static final String BATCH_DOWNLOAD_SCROLL_DURATION_OPT = "batchDownloadScroll";
     public static final String BATCH_DOWNLOAD_SCROLL_SIZE_OPT = "batchDownloadScrollSize";
     public static final String BATCH_DOWNLOAD_ZIP_TTL_OPT = "batchDownloadTimeToLive";
     public static final String BATCH_QUEUE_TYPE_OPT = "batchQueueType";
     public static final String BATCH_SEARCH_MAX_TIME_OPT = "batchSearchMaxTimeSeconds";
+    public static final String BATCH_SEARCH_MULTI_SEARCH_SIZE_OPT = "batchSearchMultiSearchSize";
+    public static final String BATCH_SEARCH_PARALLELISM_OPT = "batchSearchParallelism";
     public static final String BATCH_SEARCH_SCROLL_DURATION_OPT = "batchSearchScroll";
     public static final String BATCH_SEARCH_SCROLL_SIZE_OPT = "batchSearchScrollSize";
+    public static final String BATCH_THROTTLE_MAX_OPT = "batchThrottleMaxMilliseconds";
     public static final String BATCH_THROTTLE_OPT = "batchThrottleMilliseconds";
+    public static final String BATCH_THROTTLE_TARGET_LATENCY_OPT = "batchThrottleTargetLatencyMilliseconds";
     public static final String BROWSER_OPEN_LINK_OPT = "browserOpenLink";
     public static final String BUS_TYPE_OPT = "busType";
     public static final String CHARSET_OPT = "charset";
@@ -57,8 +63,13 @@ public final class DatashareCliOptions {
     public static final String DIGEST_ALGORITHM_OPT = "digestAlgorithm";
     public static final String DIGEST_PROJECT_NAME_OPT = "digestProjectName";
     public static final String ELASTICSEARCH_ADDRESS_OPT = "elasticsearchAddress";
+    public static final String ELASTICSEARCH_BULK_FLUSH_OPT = "elasticsearchBulkFlushMilliseconds";
+    public static final String ELASTICSEARCH_BULK_MAX_SIZE_OPT = "elasticsearchBulkMaxSize";
+    public static final String ELASTICSEARCH_BULK_SIZE_OPT = "elasticsearchBulkSize";
     public static final String ELASTICSEARCH_DATA_PATH_OPT = "elasticsearchDataPath";
     public static final String EMBEDDED_DOCUMENT_DOWNLOAD_MAX_SIZE_OPT = "embeddedDocumentDownloadMaxSize";
+    public static final String EMBEDDED_SOURCE_CACHE_DIR_OPT = "embeddedSourceCacheDir";
+    public static final String EMBEDDED_SOURCE_CACHE_SIZE_OPT = "embeddedSourceCacheSize";
     public static final String EXTENSIONS_DIR_OPT = "extensionsDir";
     public static final String EXTENSION_DELETE_OPT = "extensionDelete";
     public static final String EXTENSION_INSTALL_OPT = "extensionInstall";
@@ -75,6 +86,7 @@ public final class DatashareCliOptions {
     public static final String MESSAGE_BUS_OPT = "messageBusAddress";
     public static final String MODE_ABBR_OPT = "m";
     public static final String MODE_OPT = "mode";
+    public static final String NLP_BATCH_SIZE_OPT = "nlpBatchSize";
     public static final String NLP_PARALLELISM_ABBR_OPT = "np";
     public static final String NLP_PARALLELISM_OPT = "nlpParallelism";
     public static final String NLP_PIPELINE_ABBR_OPT = "nlpp";
@@ -109,6 +121,7 @@ public final class DatashareCliOptions {
     public static final String RESUME_OPT = "resume";
     public static final String ROOT_HOST_OPT = "rootHost";
     public static final String SCROLL_DURATION_OPT = "scroll";
+    public static final String SCROLL_POINT_IN_TIME_OPT = "scrollPointInTime";
     public static final String SCROLL_SIZE_OPT = "scrollSize";
     public static final String SCROLL_SLICES_OPT = "scrollSlices";
     public static final String SESSION_STORE_TYPE_OPT = "sessionStoreType";
@@ -116,7 +129,11 @@ public final class DatashareCliOptions {
     public static final String SETTINGS_OPT = "settings";
     public static final String SETTING_ABBR_OPT = "s";
     public static final String SMTP_URL_OPT = "smtpUrl";
+    public static final String TASK_PROGRESS_INTERVAL_OPT = "taskProgressIntervalMilliseconds";
+    public static final String TASK_TYPE_LIMITS_OPT = "taskTypeLimits";
+    public static final String TASK_WORKERS_OPT = "taskWorkers";
     public static final String TCP_LISTEN_PORT_OPT = "tcpListenPort";
+    public static final String TEXT_CACHE_SIZE_OPT = "textCacheSize";
     public static final String VERSION_ABBR_OPT = "v";
     public static final String VERSION_OPT = "version";
 
@@ -132,21 +149,33 @@ public final class DatashareCliOptions {
     public static final QueueType DEFAULT_QUEUE_TYPE = QueueType.MEMORY;
     public static final QueueType DEFAULT_SESSION_STORE_TYPE = QueueType.MEMORY;
     public static final String DEFAULT_BATCH_THROTTLE = "0";
+    public static final String DEFAULT_BATCH_THROTTLE_MAX = "10000";
+    public static final String DEFAULT_BATCH_THROTTLE_TARGET_LATENCY = "1000";
     public static final String DEFAULT_BATCH_DOWNLOAD_DIR = DEFAULT_DATASHARE_HOME.resolve("tmp").toString();
     public static final String DEFAULT_BATCH_DOWNLOAD_MAX_SIZE = "100M";
+    public static final String DEFAULT_BATCH_DOWNLOAD_MEMORY_BUDGET = "100M";
+    public static final int DEFAULT_BATCH_DOWNLOAD_PARALLELISM = 1;
     public static final String DEFAULT_BATCH_SEARCH_MAX_TIME = "100000";
+    public static final String DEFAULT_BATCH_SEARCH_MULTI_SEARCH_SIZE = "1";
+    public static final String DEFAULT_BATCH_SEARCH_PARALLELISM = "1";
     public static final String DEFAULT_CHARSET = Charset.defaultCharset().toString();
     public static final String DEFAULT_CLUSTER_NAME = "datashare";
     public static final String DEFAULT_CORS = "no-cors";
     public static final String DEFAULT_DATA_SOURCE_URL = "jdbc:sqlite:file:" + DEFAULT_DATASHARE_HOME.resolve("dist/datashare.db");
     public static final String DEFAULT_DEFAULT_PROJECT = "local-datashare";
     public static final String DEFAULT_ELASTICSEARCH_ADDRESS = "http://elasticsearch:9200";
+    public static final int DEFAULT_ELASTICSEARCH_BULK_FLUSH = 1000;
+    public static final String DEFAULT_ELASTICSEARCH_BULK_MAX_SIZE = "10M";
+    public static final int DEFAULT_ELASTICSEARCH_BULK_SIZE = 500;
     public static final String DEFAULT_ELASTICSEARCH_DATA_PATH = DEFAULT_DATASHARE_HOME.resolve("es").toString();
     public static final String DEFAULT_EMBEDDED_DOCUMENT_DOWNLOAD_MAX_SIZE = "1G";
+    public static final String DEFAULT_EMBEDDED_SOURCE_CACHE_DIR = DEFAULT_DATASHARE_HOME.resolve("cache/embedded").toString();
+    public static final String DEFAULT_EMBEDDED_SOURCE_CACHE_SIZE = "0";
     public static final String DEFAULT_EXTENSIONS_DIR = DEFAULT_DATASHARE_HOME.resolve("extensions").toString();
     public static final boolean DEFAULT_FOLLOW_SYMLINKS = true;
     public static final String DEFAULT_LOG_LEVEL = Level.INFO.toString();
     public static final String DEFAULT_MESSAGE_BUS_ADDRESS = "redis://redis:6379";
+    public static final int DEFAULT_NLP_BATCH_SIZE = 100;
     public static final String DEFAULT_NLP_PIPELINE = "CORENLP";
     public static final String DEFAULT_PROTECTED_URI_PREFIX = "/api/";
     public static final String DEFAULT_QUEUE_NAME = "extract:queue";
@@ -160,9 +189,13 @@ public final class DatashareCliOptions {
     public static final String DEFAULT_PLUGIN_DIR = DEFAULT_DATASHARE_HOME.resolve("plugins").toString();
     public static final int DEFAULT_REDIS_POOL_SIZE = 5;
     public static final String DEFAULT_SCROLL_DURATION = "60000ms";
+    public static final boolean DEFAULT_SCROLL_POINT_IN_TIME = false;
     public static final int DEFAULT_SCROLL_SIZE = 1000;
     public static final int DEFAULT_SCROLL_SLICES = 1;
     public static final int DEFAULT_TCP_LISTEN_PORT = 8080;
+    public static final String DEFAULT_TEXT_CACHE_SIZE = "64M";
+    public static final int DEFAULT_TASK_WORKERS = 1;
+    public static final int DEFAULT_TASK_PROGRESS_INTERVAL = 1000;
     public static final int DEFAULT_SESSION_TTL_SECONDS = 43200;
     // A list of aliases for retro-compatibility when an option changed
     public static final Map<String, String> OPT_ALIASES = Map.ofEntries(
@@ -396,6 +429,15 @@ public final class DatashareCliOptions {
                 .defaultsTo(DEFAULT_NLP_PARALLELISM);
     }
 
+    public static void nlpBatchSize(OptionParser parser) {
+        parser.acceptsAll(
+                singletonList(NLP_BATCH_SIZE_OPT),
+                "Number of documents whose named entities are written to the index in the same bulk request.")
+                .withRequiredArg()
+                .ofType( Integer.class )
+                .defaultsTo(DEFAULT_NLP_BATCH_SIZE);
+    }
+
     public static void batchSearchMaxTime(OptionParser parser) {
          parser.acceptsAll(
                  singletonList(BATCH_SEARCH_MAX_TIME_OPT), "Max time for batch search in seconds")
@@ -403,9 +445,37 @@ public final class DatashareCliOptions {
                          .ofType(Integer.class);
     }
 
+    public static void batchSearchMultiSearchSize(OptionParser parser) {
+         parser.acceptsAll(
+                 singletonList(BATCH_SEARCH_MULTI_SEARCH_SIZE_OPT), "Number of batch search queries sent in the same multi search request. Queries with more results than a scroll page are then scrolled")
+                         .withRequiredArg()
+                         .ofType(Integer.class);
+    }
+
+    public static void batchSearchParallelism(OptionParser parser) {
+         parser.acceptsAll(
+                 singletonList(BATCH_SEARCH_PARALLELISM_OPT), "Number of queries of a batch search running concurrently")
+                         .withRequiredArg()
+                         .ofType(Integer.class);
+    }
+
     public static void batchThrottle(OptionParser parser) {
          parser.acceptsAll(
-                 singletonList(BATCH_THROTTLE_OPT), "Throttle for batch in milliseconds")
+                 singletonList(BATCH_THROTTLE_OPT), "Throttle for batch in milliseconds. It is the minimum delay between batch search requests, increased when elasticsearch is slow or rejects requests")
+                         .withRequiredArg()
+                         .ofType(Integer.class);
+    }
+
+    public static void batchThrottleMax(OptionParser parser) {
+         parser.acceptsAll(
+                 singletonList(BATCH_THROTTLE_MAX_OPT), "Maximum delay in milliseconds between batch search requests when elasticsearch is slow or rejects requests")
+                         .withRequiredArg()
+                         .ofType(Integer.class);
+    }
+
+    public static void batchThrottleTargetLatency(OptionParser parser) {
+         parser.acceptsAll(
+                 singletonList(BATCH_THROTTLE_TARGET_LATENCY_OPT), "Elasticsearch latency in milliseconds over which batch search requests are slowed down")
                          .withRequiredArg()
                          .ofType(Integer.class);
     }
@@ -433,6 +503,15 @@ public final class DatashareCliOptions {
                 .defaultsTo(DEFAULT_SCROLL_SLICES);
     }
 
+    public static void scrollPointInTime(OptionParser parser) {
+        parser.acceptsAll(
+                singletonList(SCROLL_POINT_IN_TIME_OPT), "Iterate over elasticsearch results with a point in time and search_after instead of scroll contexts " +
+                        "(SCANIDX task, NLP enqueue, Batch Search and Batch Download)")
+                .withRequiredArg()
+                .ofType(Boolean.class)
+                .defaultsTo(DEFAULT_SCROLL_POINT_IN_TIME);
+    }
+
     public static void batchSearchScroll(OptionParser parser) {
         parser.acceptsAll(
                 singletonList(BATCH_SEARCH_SCROLL_DURATION_OPT), "Scroll duration used for elasticsearch scrolls (Batch Search)")
@@ -549,6 +628,31 @@ public final class DatashareCliOptions {
                 .defaultsTo(DEFAULT_ELASTICSEARCH_ADDRESS);
     }
 
+    public static void elasticsearchBulkSize(OptionParser parser) {
+        parser.acceptsAll(
+                singletonList(ELASTICSEARCH_BULK_SIZE_OPT), "Maximum number of documents sent in one elasticsearch bulk request during indexing")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(DEFAULT_ELASTICSEARCH_BULK_SIZE);
+    }
+
+    public static void elasticsearchBulkMaxSize(OptionParser parser) {
+        parser.acceptsAll(
+                singletonList(ELASTICSEARCH_BULK_MAX_SIZE_OPT), "Maximum number of extracted text characters sent in one elasticsearch bulk request during indexing. " +
+                        "Human readable suffix K/M/G for thousands/millions/billions of characters (Default 10M)")
+                .withRequiredArg()
+                .withValuesConvertedBy(regex("[0-9]+[KMG]?"))
+                .defaultsTo(DEFAULT_ELASTICSEARCH_BULK_MAX_SIZE);
+    }
+
+    public static void elasticsearchBulkFlush(OptionParser parser) {
+        parser.acceptsAll(
+                singletonList(ELASTICSEARCH_BULK_FLUSH_OPT), "Maximum time in milliseconds a document waits in the indexing bulk before being sent to elasticsearch")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(DEFAULT_ELASTICSEARCH_BULK_FLUSH);
+    }
+
     static void dataSourceUrl(OptionParser parser) {
         parser.acceptsAll(
                 singletonList(DATA_SOURCE_URL_OPT), "Datasource URL. For using memory you can use 'jdbc:sqlite:file:memorydb.db?mode=memory&cache=shared'")
@@ -698,6 +802,31 @@ public final class DatashareCliOptions {
                 .defaultsTo(DEFAULT_EMBEDDED_DOCUMENT_DOWNLOAD_MAX_SIZE);
     }
 
+    public static void embeddedSourceCacheDir(OptionParser parser) {
+        parser.acceptsAll(
+                singletonList(EMBEDDED_SOURCE_CACHE_DIR_OPT), "Directory where extracted embedded documents are cached")
+                .withRequiredArg()
+                .ofType(String.class)
+                .defaultsTo(DEFAULT_EMBEDDED_SOURCE_CACHE_DIR);
+    }
+
+    public static void embeddedSourceCacheSize(OptionParser parser) {
+        parser.acceptsAll(
+                singletonList(EMBEDDED_SOURCE_CACHE_SIZE_OPT), "Maximum size of the embedded documents cache, 0 to disable it. Human readable suffix K/M/G for KB/MB/GB (Default 0, disabled)")
+                .withRequiredArg()
+                .withValuesConvertedBy(regex("[0-9]+[KMG]?"))
+                .defaultsTo(DEFAULT_EMBEDDED_SOURCE_CACHE_SIZE);
+    }
+
+    public static void textCacheSize(OptionParser parser) {
+        parser.acceptsAll(
+                singletonList(TEXT_CACHE_SIZE_OPT), "Maximum number of chars of document texts kept in memory to page them and search occurrences, " +
+                        "0 to disable it. Human readable suffix K/M/G (Default 64M)")
+                .withRequiredArg()
+                .withValuesConvertedBy(regex("[0-9]+[KMG]?"))
+                .defaultsTo(DEFAULT_TEXT_CACHE_SIZE);
+    }
+
     public static void batchDownloadMaxSize(OptionParser parser) {
         parser.acceptsAll(
                 singletonList(BATCH_DOWNLOAD_MAX_SIZE_OPT), "Maximum total files size that can be zipped. Human readable suffix K/M/G for KB/MB/GB (Default 100M)")
@@ -706,6 +835,22 @@ public final class DatashareCliOptions {
                 .defaultsTo(DEFAULT_BATCH_DOWNLOAD_MAX_SIZE);
     }
 
+    public static void batchDownloadParallelism(OptionParser parser) {
+        parser.acceptsAll(
+                singletonList(BATCH_DOWNLOAD_PARALLELISM_OPT), "Number of threads extracting the sources of a batch download zip (Default 1)")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(DEFAULT_BATCH_DOWNLOAD_PARALLELISM);
+    }
+
+    public static void batchDownloadMemoryBudget(OptionParser parser) {
+        parser.acceptsAll(
+                singletonList(BATCH_DOWNLOAD_MEMORY_BUDGET_OPT), "Maximum size of the sources extracted in memory while waiting to be zipped, when batchDownloadParallelism > 1. Human readable suffix K/M/G for KB/MB/GB (Default 100M)")
+                .withRequiredArg()
+                .withValuesConvertedBy(regex("[0-9]+[KMG]?"))
+                .defaultsTo(DEFAULT_BATCH_DOWNLOAD_MEMORY_BUDGET);
+    }
+
     public static void batchDownloadDir(OptionParser parser) {
         parser.acceptsAll(
                 singletonList(BATCH_DOWNLOAD_DIR_OPT), "Directory where Batch Download archives are downloaded.")
@@ -723,6 +868,31 @@ public final class DatashareCliOptions {
                 .withValuesConvertedBy(regex("[0-9]+[KMG]?"));
     }
 
+    public static void taskWorkers(OptionParser parser) {
+        parser.acceptsAll(
+                singletonList(TASK_WORKERS_OPT), "Number of tasks run concurrently by the task manager when batchQueueType is MEMORY, or by a task runner process with REDIS and AMQP (Default 1)")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(DEFAULT_TASK_WORKERS);
+    }
+
+    public static void taskProgressInterval(OptionParser parser) {
+        parser.acceptsAll(
+                singletonList(TASK_PROGRESS_INTERVAL_OPT), "Minimum time in milliseconds between two progress updates of a task " +
+                        "sent on the bus by a task runner process with REDIS and AMQP, 0 to send all updates (Default 1000)")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(DEFAULT_TASK_PROGRESS_INTERVAL);
+    }
+
+    public static void taskTypeLimits(OptionParser parser) {
+        parser.acceptsAll(
+                singletonList(TASK_TYPE_LIMITS_OPT), "Maximum number of tasks of a type running concurrently when batchQueueType is MEMORY, " +
+                        "as comma separated task class simple names and limits, for example BatchDownloadRunner=1,ExtractNlpTask=2")
+                .withRequiredArg()
+                .withValuesConvertedBy(regex("([A-Za-z0-9_.$]+=[0-9]+)(,[A-Za-z0-9_.$]+=[0-9]+)*"));
+    }
+
     public static void sessionStoreType(OptionParser parser) {
         parser.acceptsAll(
                 singletonList(SESSION_STORE_TYPE_OPT), "Type of session store")
@@ -4,7 +4,6 @@ import org.icij.datashare.batch.*;
 import org.icij.datashare.batch.BatchSearchRecord.State;
 import org.icij.datashare.db.tables.records.BatchSearchProjectRecord;
 import org.icij.datashare.db.tables.records.BatchSearchQueryRecord;
-import org.icij.datashare.db.tables.records.BatchSearchResultRecord;
 import org.icij.datashare.text.Document;
 import org.icij.datashare.text.ProjectProxy;
 import org.icij.datashare.user.User;
@@ -18,6 +17,7 @@ import java.io.IOException;
 import java.nio.file.Paths;
 import java.sql.Timestamp;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
 import static java.lang.String.join;
@@ -37,6 +37,7 @@ import static org.jooq.impl.DSL.*;
 
 public class JooqBatchSearchRepository implements BatchSearchRepository {
     private static final String LIST_SEPARATOR = ",";
+    private static final int RESULTS_PAGE_SIZE = 1000;
     final DataSource dataSource;
     final SQLDialect dialect;
 
@@ -88,17 +89,21 @@ public class JooqBatchSearchRepository implements BatchSearchRepository {
                                 where(BATCH_SEARCH.UUID.eq(batchSearchId)).execute();
                     }
 
-                    InsertValuesStep10<BatchSearchResultRecord, String, String, Integer, String, String, String, Timestamp, String, Long, String>
-                            insertQuery =
-                            inner.insertInto(BATCH_SEARCH_RESULT, BATCH_SEARCH_RESULT.SEARCH_UUID, BATCH_SEARCH_RESULT.QUERY, BATCH_SEARCH_RESULT.DOC_NB,
+                    if (documents.isEmpty()) {
+                        return false;
+                    }
+                    // one prepared statement executed as a JDBC batch in the transaction: unlike a multi-row
+                    // VALUES insert, the number of rows is not bounded by the max number of bind variables
+                    BatchBindStep insertBatch = inner.batch(inner.insertInto(BATCH_SEARCH_RESULT, BATCH_SEARCH_RESULT.SEARCH_UUID, BATCH_SEARCH_RESULT.QUERY, BATCH_SEARCH_RESULT.DOC_NB,
                                     BATCH_SEARCH_RESULT.DOC_ID, BATCH_SEARCH_RESULT.ROOT_ID, BATCH_SEARCH_RESULT.DOC_PATH, BATCH_SEARCH_RESULT.CREATION_DATE,
-                                    BATCH_SEARCH_RESULT.CONTENT_TYPE, BATCH_SEARCH_RESULT.CONTENT_LENGTH, BATCH_SEARCH_RESULT.PRJ_ID);
-                    IntStream.range(0, documents.size()).forEach(i -> insertQuery.values(batchSearchId, query, i,
+                                    BATCH_SEARCH_RESULT.CONTENT_TYPE, BATCH_SEARCH_RESULT.CONTENT_LENGTH, BATCH_SEARCH_RESULT.PRJ_ID)
+                            .values((String) null, null, null, null, null, null, null, null, null, null));
+                    IntStream.range(0, documents.size()).forEach(i -> insertBatch.bind(batchSearchId, query, i,
                             documents.get(i).getId(), documents.get(i).getRootDocument(), documents.get(i).getPath().toString(),
                             documents.get(i).getCreationDate() == null ? null :
                                     new Timestamp(documents.get(i).getCreationDate().getTime()),
                             documents.get(i).getContentType(), documents.get(i).getContentLength(), documents.get(i).getProject().getId()));
-                    return insertQuery.execute() > 0;
+                    return insertBatch.execute().length > 0;
                 }});
         }
     }
@@ -306,13 +311,47 @@ public class JooqBatchSearchRepository implements BatchSearchRepository {
             SelectConditionStep<Record> query = batchSearchUUIDs.
                     where(BATCH_SEARCH_RESULT.SEARCH_UUID.eq(batchSearchId));
             addFiltersToBatchSearchResultQuery(webQuery, query);
-            if (webQuery.size > 0) query.limit(webQuery.size);
-            if (webQuery.from > 0) query.offset(webQuery.from);
+            addPageToBatchSearchResultQuery(webQuery, query);
 
             return query.fetch().stream().map(r -> createSearchResult(user, r)).collect(toList());
         }
     }
 
+    @Override
+    public void streamResults(User user, String batchSearchId, WebQuery webQuery, Consumer<SearchResult> consumer) {
+        if (webQuery.isSorted()) {
+            throw new IllegalArgumentException("results can only be streamed sorted by " + DEFAULT_SORT_FIELD);
+        }
+        // one short query by keyset page, so that no connection nor transaction is held
+        // (and no sqlite writer is blocked) while the consumer is writing the results
+        List<String> after = webQuery.after;
+        int remaining = webQuery.size > 0 ? webQuery.size : Integer.MAX_VALUE;
+        while (remaining > 0) {
+            int pageSize = Math.min(remaining, RESULTS_PAGE_SIZE);
+            List<SearchResult> page;
+            try (SelectOnConditionStep<Record> batchSearchUUIDs = using(dataSource, dialect).select().from(BATCH_SEARCH_RESULT).
+                    join(BATCH_SEARCH).on(BATCH_SEARCH.UUID.equal(BATCH_SEARCH_RESULT.SEARCH_UUID))) {
+                SelectConditionStep<Record> query = batchSearchUUIDs.
+                        where(BATCH_SEARCH_RESULT.SEARCH_UUID.eq(batchSearchId));
+                addFiltersToBatchSearchResultQuery(webQuery, query);
+                query.limit(pageSize);
+                if (after != null && !after.isEmpty()) {
+                    addAfterToBatchSearchResultQuery(webQuery.order, after, query);
+                } else if (webQuery.from > 0) {
+                    query.offset(webQuery.from);
+                }
+                page = query.fetch().stream().map(r -> createSearchResult(user, r)).collect(toList());
+            }
+            page.forEach(consumer);
+            if (page.size() < pageSize) {
+                return;
+            }
+            SearchResult last = page.get(page.size() - 1);
+            after = List.of(last.query, String.valueOf(last.documentNumber), last.documentId);
+            remaining -= page.size();
+        }
+    }
+
     @Override
     public int getResultsTotal(User user, String batchSearchId, WebQuery webQuery) {
         try(DSLContext create = DSL.using(dataSource, dialect); SelectOnConditionStep<Record1<String>> batchSearchUUIDs = create.
@@ -366,8 +405,38 @@ public class JooqBatchSearchRepository implements BatchSearchRepository {
         if (webQuery.isSorted()) {
             query.orderBy(field(webQuery.sort + " " + webQuery.order));
         } else {
-            query.orderBy(field("query " + webQuery.order), field(DEFAULT_SORT_FIELD + " " + webQuery.order));
+            // doc_id makes the order total for keyset pagination
+            query.orderBy(field("query " + webQuery.order), field(DEFAULT_SORT_FIELD + " " + webQuery.order), field("doc_id " + webQuery.order));
+        }
+    }
+
+    /**
+     * pages with the last result of the previous page (keyset pagination) when it is given, so that
+     * the database seeks the page with the (search_uuid, query, doc_nb, doc_id) index instead of
+     * reading and skipping all the rows before the offset.
+     */
+    private static void addPageToBatchSearchResultQuery(WebQuery webQuery, SelectConditionStep<?> query) {
+        if (webQuery.size > 0) query.limit(webQuery.size);
+        if (webQuery.hasAfter()) {
+            if (webQuery.isSorted()) {
+                throw new IllegalArgumentException("after should be [query, documentNumber, documentId] of a result sorted by " + DEFAULT_SORT_FIELD);
+            }
+            addAfterToBatchSearchResultQuery(webQuery.order, webQuery.after, query);
+        } else if (webQuery.from > 0) {
+            query.offset(webQuery.from);
+        }
+    }
+
+    private static void addAfterToBatchSearchResultQuery(String order, List<String> after, SelectConditionStep<?> query) {
+        if (after.size() != 3) {
+            throw new IllegalArgumentException("after should be [query, documentNumber, documentId] of a result sorted by " + DEFAULT_SORT_FIELD);
         }
+        Row3<String, Integer, String> key = row(BATCH_SEARCH_RESULT.QUERY, BATCH_SEARCH_RESULT.DOC_NB, BATCH_SEARCH_RESULT.DOC_ID);
+        String afterQuery = after.get(0);
+        Integer afterDocNb = Integer.valueOf(after.get(1));
+        String afterDocId = after.get(2);
+        query.and("desc".equalsIgnoreCase(order) ?
+                key.lt(afterQuery, afterDocNb, afterDocId) : key.gt(afterQuery, afterDocNb, afterDocId));
     }
 
     private SelectJoinStep<Record19<String, String, String, String, Timestamp, String, Integer, String, String, String,Integer, Integer, Integer, String, String, String, String, Integer, Integer>>
@@ -0,0 +1,90 @@
+package org.icij.datashare.db;
+
+import org.icij.datashare.batch.BatchSearch;
+import org.icij.datashare.batch.SearchResult;
+import org.icij.datashare.batch.WebQueryBuilder;
+import org.icij.datashare.text.Document;
+import org.icij.datashare.user.User;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.icij.datashare.CollectionUtils.asSet;
+import static org.icij.datashare.text.DocumentBuilder.createDoc;
+import static org.icij.datashare.text.Project.project;
+
+/**
+ * Latency of a page of batch search results at increasing depths, with offset
+ * and with keyset pagination (after the last result of the previous page).
+ */
+@RunWith(Parameterized.class)
+public class BenchBatchSearchResultsPage {
+    private static final Logger logger = LoggerFactory.getLogger(BenchBatchSearchResultsPage.class);
+    private static final int NB_QUERIES = 100;
+    private static final int NB_RESULTS_PER_QUERY = 10000;
+    private static final int PAGE_SIZE = 100;
+    private static final int NB_PAGES_PER_DEPTH = 10;
+
+    @Rule public DbSetupRule dbRule;
+    private final JooqBatchSearchRepository repository;
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> dataSources() {
+        return asList(new Object[][]{
+                {new DbSetupRule("jdbc:sqlite:file:memorydb.db?mode=memory&cache=shared")},
+                {new DbSetupRule("jdbc:postgresql://postgres/dstest?user=dstest&password=test")}
+        });
+    }
+
+    public BenchBatchSearchResultsPage(DbSetupRule rule) {
+        dbRule = rule;
+        repository = rule.createBatchSearchRepository();
+    }
+
+    @Test
+    public void testPageLatencyAtDepth() {
+        String[] queries = IntStream.range(0, NB_QUERIES).mapToObj(i -> String.format("query %03d", i)).toArray(String[]::new);
+        BatchSearch batchSearch = new BatchSearch(singletonList(project("test")), "name", "desc", asSet(queries), User.local());
+        repository.save(batchSearch);
+        logger.info("{}: writing {} results", repository.dialect, NB_QUERIES * NB_RESULTS_PER_QUERY);
+        for (String query : queries) {
+            for (int page = 0; page < NB_RESULTS_PER_QUERY / 1000; page++) {
+                int firstDoc = page * 1000;
+                List<Document> documents = IntStream.range(firstDoc, firstDoc + 1000).mapToObj(i -> createDoc("doc" + i).build()).collect(Collectors.toList());
+                repository.saveResults(batchSearch.uuid, query, documents);
+            }
+        }
+
+        for (int depth : new int[] {0, 10_000, 100_000, 500_000, 990_000}) {
+            long beginTime = System.currentTimeMillis();
+            for (int i = 0; i < NB_PAGES_PER_DEPTH; i++) {
+                repository.getResults(User.local(), batchSearch.uuid, WebQueryBuilder.createWebQuery().queryAll().withRange(depth + i * PAGE_SIZE, PAGE_SIZE).build());
+            }
+            long offsetDuration = System.currentTimeMillis() - beginTime;
+
+            SearchResult lastResult = depth == 0 ? null : repository.getResults(User.local(), batchSearch.uuid,
+                    WebQueryBuilder.createWebQuery().queryAll().withRange(depth - 1, 1).build()).get(0);
+            beginTime = System.currentTimeMillis();
+            for (int i = 0; i < NB_PAGES_PER_DEPTH; i++) {
+                WebQueryBuilder webQuery = WebQueryBuilder.createWebQuery().queryAll().withRange(0, PAGE_SIZE);
+                List<SearchResult> page = repository.getResults(User.local(), batchSearch.uuid,
+                        lastResult == null ? webQuery.build() : webQuery.withAfter(lastResult).build());
+                lastResult = page.get(page.size() - 1);
+            }
+            long keysetDuration = System.currentTimeMillis() - beginTime;
+
+            logger.info("{}: page of {} results at depth {}: offset {}ms keyset {}ms",
+                    repository.dialect, PAGE_SIZE, depth, offsetDuration / NB_PAGES_PER_DEPTH, keysetDuration / NB_PAGES_PER_DEPTH);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.icij.datashare.db;
+
+import org.icij.datashare.batch.BatchSearch;
+import org.icij.datashare.text.Document;
+import org.icij.datashare.user.User;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.icij.datashare.CollectionUtils.asSet;
+import static org.icij.datashare.text.DocumentBuilder.createDoc;
+import static org.icij.datashare.text.Project.project;
+
+/**
+ * Rows per second inserted by saveResults for each dialect, with the page sizes
+ * of a batch search scroll.
+ */
+@RunWith(Parameterized.class)
+public class BenchBatchSearchSaveResults {
+    private static final Logger logger = LoggerFactory.getLogger(BenchBatchSearchSaveResults.class);
+    private static final int NB_ROWS = 200_000;
+
+    @Rule public DbSetupRule dbRule;
+    private final JooqBatchSearchRepository repository;
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> dataSources() {
+        return asList(new Object[][]{
+                {new DbSetupRule("jdbc:sqlite:file:memorydb.db?mode=memory&cache=shared")},
+                {new DbSetupRule("jdbc:postgresql://postgres/dstest?user=dstest&password=test")}
+        });
+    }
+
+    public BenchBatchSearchSaveResults(DbSetupRule rule) {
+        dbRule = rule;
+        repository = rule.createBatchSearchRepository();
+    }
+
+    @Test
+    public void testRowsPerSecond() {
+        for (int pageSize : new int[] {100, 1000, 3500, 10000}) {
+            BatchSearch batchSearch = new BatchSearch(singletonList(project("test")), "name" + pageSize, "desc", asSet("query"), User.local());
+            repository.save(batchSearch);
+            List<Document> documents = IntStream.range(0, pageSize).mapToObj(i -> createDoc("doc" + i).build()).collect(Collectors.toList());
+
+            long beginTime = System.currentTimeMillis();
+            for (int i = 0; i < NB_ROWS / pageSize; i++) {
+                repository.saveResults(batchSearch.uuid, "query", documents);
+            }
+            long duration = Math.max(1, System.currentTimeMillis() - beginTime);
+
+            logger.info("{}: {} rows saved by pages of {} in {}ms ({} rows/s)",
+                    repository.dialect, NB_ROWS / pageSize * pageSize, pageSize, duration, NB_ROWS / pageSize * pageSize * 1000L / duration);
+        }
+    }
+}
@@ -17,9 +17,11 @@ import org.junit.runners.Parameterized;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.fest.assertions.MapAssert.entry;
@@ -354,6 +356,78 @@ public class JooqBatchSearchRepositoryTest {
         assertThat(results.get(1).project.getId()).isEqualTo("prj");
     }
 
+    @Test
+    public void test_save_results_over_max_bind_variables() {
+        BatchSearch batchSearch = new BatchSearch(singletonList(proxy("prj")), "name", "description", asSet("my query"), User.local());
+        repository.save(batchSearch);
+        List<Document> documents = IntStream.range(0, 10000).mapToObj(i -> createDoc("doc" + i).build()).collect(Collectors.toList());
+
+        assertThat(repository.saveResults(batchSearch.uuid, "my query", documents)).isTrue();
+
+        assertThat(repository.get(User.local(), batchSearch.uuid).nbResults).isEqualTo(10000);
+        assertThat(repository.getResultsTotal(User.local(), batchSearch.uuid, WebQueryBuilder.createWebQuery().queryAll().build())).isEqualTo(10000);
+    }
+
+    @Test
+    public void test_save_empty_results() {
+        BatchSearch batchSearch = new BatchSearch(singletonList(proxy("prj")), "name", "description", asSet("my query"), User.local());
+        repository.save(batchSearch);
+
+        assertThat(repository.saveResults(batchSearch.uuid, "my query", emptyList())).isFalse();
+        assertThat(repository.get(User.local(), batchSearch.uuid).nbResults).isEqualTo(0);
+    }
+
+    @Test
+    public void test_stream_results() {
+        BatchSearch batchSearch = new BatchSearch(singletonList(proxy("prj")), "name", "description", asSet("q1", "q2"), User.local());
+        repository.save(batchSearch);
+        repository.saveResults(batchSearch.uuid, "q1", asList(createDoc("doc1").build(), createDoc("doc2").build()));
+        repository.saveResults(batchSearch.uuid, "q2", singletonList(createDoc("doc3").build()));
+
+        List<SearchResult> results = new ArrayList<>();
+        repository.streamResults(User.local(), batchSearch.uuid, WebQueryBuilder.createWebQuery().queryAll().build(), results::add);
+
+        assertThat(results).isEqualTo(repository.getResults(User.local(), batchSearch.uuid, WebQueryBuilder.createWebQuery().queryAll().build()));
+        assertThat(results).hasSize(3);
+    }
+
+    @Test
+    public void test_stream_results_with_filter() {
+        BatchSearch batchSearch = new BatchSearch(singletonList(proxy("prj")), "name", "description", asSet("q1", "q2"), User.local());
+        repository.save(batchSearch);
+        repository.saveResults(batchSearch.uuid, "q1", asList(createDoc("doc1").build(), createDoc("doc2").build()));
+        repository.saveResults(batchSearch.uuid, "q2", singletonList(createDoc("doc3").build()));
+
+        List<SearchResult> results = new ArrayList<>();
+        repository.streamResults(User.local(), batchSearch.uuid, WebQueryBuilder.createWebQuery().queryAll().withQueries(singletonList("q2")).build(), results::add);
+
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).documentId).isEqualTo("doc3");
+    }
+
+    @Test
+    public void test_stream_results_over_several_pages() {
+        BatchSearch batchSearch = new BatchSearch(singletonList(proxy("prj")), "name", "description", asSet("q1", "q2"), User.local());
+        repository.save(batchSearch);
+        repository.saveResults(batchSearch.uuid, "q1", IntStream.range(0, 1200).mapToObj(i -> createDoc("doc" + i).build()).collect(Collectors.toList()));
+        repository.saveResults(batchSearch.uuid, "q2", IntStream.range(0, 900).mapToObj(i -> createDoc("doc" + i).build()).collect(Collectors.toList()));
+
+        List<SearchResult> results = new ArrayList<>();
+        repository.streamResults(User.local(), batchSearch.uuid, WebQueryBuilder.createWebQuery().queryAll().build(), results::add);
+
+        assertThat(results).hasSize(2100);
+        assertThat(results).isEqualTo(repository.getResults(User.local(), batchSearch.uuid, WebQueryBuilder.createWebQuery().queryAll().build()));
+    }
+
+    @Test(expected = JooqBatchSearchRepository.UnauthorizedUserException.class)
+    public void test_stream_results_unauthorized_user() {
+        BatchSearch batchSearch = new BatchSearch(singletonList(proxy("prj")), "name", "description", asSet("q1"), User.local());
+        repository.save(batchSearch);
+        repository.saveResults(batchSearch.uuid, "q1", singletonList(createDoc("doc1").build()));
+
+        repository.streamResults(new User("other"), batchSearch.uuid, WebQueryBuilder.createWebQuery().queryAll().build(), r -> {});
+    }
+
     @Test
     public void test_get_results_total() {
         BatchSearch batchSearch = new BatchSearch(singletonList(proxy("prj")), "name", "description", asSet("my query", "my other query"), User.local());
@@ -407,6 +481,50 @@ public class JooqBatchSearchRepositoryTest {
 
     }
 
+    @Test
+    public void test_get_results_paginated_after_last_result() {
+        BatchSearch batchSearch = new BatchSearch(singletonList(proxy("prj")), "name", "description", asSet("q1", "q2"), User.local());
+        repository.save(batchSearch);
+        repository.saveResults(batchSearch.uuid, "q1", asList(createDoc("doc1").build(), createDoc("doc2").build(), createDoc("doc3").build()));
+        repository.saveResults(batchSearch.uuid, "q1", asList(createDoc("doc4").build(), createDoc("doc5").build()));
+        repository.saveResults(batchSearch.uuid, "q2", asList(createDoc("doc6").build(), createDoc("doc7").build()));
+
+        List<SearchResult> allResults = repository.getResults(User.local(), batchSearch.uuid, WebQueryBuilder.createWebQuery().queryAll().build());
+        List<SearchResult> pagedResults = new ArrayList<>(repository.getResults(User.local(), batchSearch.uuid, WebQueryBuilder.createWebQuery().queryAll().withRange(0, 2).build()));
+        List<SearchResult> page;
+        do {
+            page = repository.getResults(User.local(), batchSearch.uuid, WebQueryBuilder.createWebQuery().queryAll()
+                    .withRange(0, 2).withAfter(pagedResults.get(pagedResults.size() - 1)).build());
+            pagedResults.addAll(page);
+        } while (!page.isEmpty());
+
+        assertThat(allResults).hasSize(7);
+        assertThat(pagedResults).isEqualTo(allResults);
+    }
+
+    @Test
+    public void test_get_results_paginated_after_last_result_desc() {
+        BatchSearch batchSearch = new BatchSearch(singletonList(proxy("prj")), "name", "description", asSet("q1", "q2"), User.local());
+        repository.save(batchSearch);
+        repository.saveResults(batchSearch.uuid, "q1", asList(createDoc("doc1").build(), createDoc("doc2").build()));
+        repository.saveResults(batchSearch.uuid, "q2", asList(createDoc("doc3").build(), createDoc("doc4").build()));
+
+        List<SearchResult> page = repository.getResults(User.local(), batchSearch.uuid, WebQueryBuilder.createWebQuery().queryAll()
+                .withSortOrder("doc_nb", "desc").withRange(0, 2).withAfter(resultFrom(createDoc("doc3").build(), 0, "q2")).build());
+
+        assertThat(page).containsExactly(resultFrom(createDoc("doc2").build(), 2, "q1"), resultFrom(createDoc("doc1").build(), 1, "q1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_get_results_paginated_after_last_result_with_other_sort() {
+        BatchSearch batchSearch = new BatchSearch(singletonList(proxy("prj")), "name", "description", asSet("q1"), User.local());
+        repository.save(batchSearch);
+        repository.saveResults(batchSearch.uuid, "q1", asList(createDoc("doc1").build(), createDoc("doc2").build()));
+
+        repository.getResults(User.local(), batchSearch.uuid, WebQueryBuilder.createWebQuery().queryAll()
+                .withSortOrder("doc_path", "asc").withRange(0, 2).withAfter(resultFrom(createDoc("doc1").build(), 1, "q1")).build());
+    }
+
     @Test
     public void test_get_results_filtered_by_query() {
         BatchSearch batchSearch = new BatchSearch(singletonList(proxy("prj")), "name", "description", asSet("q1", "q2"), User.local());
@@ -0,0 +1,57 @@
+package org.icij.datashare.text.indexing.elasticsearch;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.DigestingParser;
+import org.apache.tika.parser.ParseContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Digester computing the digests of several candidate digesters during the same parsing.
+ *
+ * Each digester writes its own digest in the document metadata. When one of them is the
+ * digest we are looking for, all the digest values written are replaced with it, so that
+ * the embedded document extractor sees a match whatever the metadata key it reads.
+ */
+class CandidateDigester implements DigestingParser.Digester {
+    private final List<DigestingParser.Digester> digesters;
+    private final String expectedDigest;
+
+    CandidateDigester(List<DigestingParser.Digester> digesters, String expectedDigest) {
+        this.digesters = digesters;
+        this.expectedDigest = expectedDigest;
+    }
+
+    @Override
+    public void digest(InputStream is, Metadata metadata, ParseContext parseContext) throws IOException {
+        Set<String> digestNames = new HashSet<>();
+        boolean found = false;
+        for (DigestingParser.Digester digester : digesters) {
+            Metadata before = copy(metadata);
+            digester.digest(is, metadata, parseContext);
+            for (String name : metadata.names()) {
+                String value = metadata.get(name);
+                if (!Objects.equals(value, before.get(name))) {
+                    digestNames.add(name);
+                    found |= expectedDigest.equals(value);
+                }
+            }
+        }
+        if (found) {
+            digestNames.forEach(name -> metadata.set(name, expectedDigest));
+        }
+    }
+
+    private static Metadata copy(Metadata metadata) {
+        Metadata copy = new Metadata();
+        for (String name : metadata.names()) {
+            copy.set(name, metadata.get(name));
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,47 @@
+package org.icij.datashare.text.indexing.elasticsearch;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Java version of the normalization done in searchOccurrences.painless.java:
+ * text is lower cased and diacritics of lower case letters are removed.
+ * Offsets are given in the normalized text, like the painless script does.
+ */
+class ContentNormalizer {
+    private ContentNormalizer() {}
+
+    static String normalize(String text) {
+        String lowerCase = text.toLowerCase();
+        StringBuilder output = new StringBuilder(lowerCase.length());
+        for (int i = 0; i < lowerCase.length(); i++) {
+            char c = lowerCase.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                output.append(c);
+            } else if (Character.getType(c) == Character.LOWERCASE_LETTER) {
+                String decomposed = Normalizer.normalize(Character.toString(c), Normalizer.Form.NFKD);
+                for (int j = 0; j < decomposed.length(); j++) {
+                    char d = decomposed.charAt(j);
+                    if (Character.getType(d) != Character.NON_SPACING_MARK) {
+                        output.append(d);
+                    }
+                }
+            } else {
+                output.append(c);
+            }
+        }
+        return output.toString();
+    }
+
+    static int[] occurrences(String normalizedContent, String query) {
+        String normalizedQuery = normalize(query);
+        List<Integer> offsets = new ArrayList<>();
+        int lastIndex = normalizedContent.indexOf(normalizedQuery);
+        while (lastIndex != -1) {
+            offsets.add(lastIndex);
+            lastIndex = normalizedContent.indexOf(normalizedQuery, lastIndex + query.length());
+        }
+        return offsets.stream().mapToInt(i -> i).toArray();
+    }
+}
@@ -0,0 +1,131 @@
+package org.icij.datashare.text.indexing.elasticsearch;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of document texts (content or translations), bounded by the total
+ * number of chars that it holds for all the documents.
+ *
+ * A text is kept with its normalized form, the pair is counted as one unit: it is kept only if
+ * both fit in the cache, and they are evicted together. The texts of a document are invalidated
+ * together. The texts that don't fit are remembered (up to {@link #MAX_OVERSIZED_TEXTS}) so that
+ * the callers can use the index scripts without fetching them again.
+ */
+class DocumentTextCache {
+    static final int MAX_OVERSIZED_TEXTS = 1024;
+    private final long maxChars;
+    private final LinkedHashMap<String, Map<String, Texts>> textsByDocument = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Boolean> oversizedTexts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_OVERSIZED_TEXTS;
+        }
+    };
+    private long nbChars = 0;
+
+    DocumentTextCache(long maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    static String documentKey(String indexName, String id) {
+        return String.join("/", indexName, id);
+    }
+
+    /**
+     * @param targetLanguage the translation language, null for the document content
+     */
+    static String textKey(String targetLanguage) {
+        return "text/" + targetLanguage;
+    }
+
+    boolean isEnabled() {
+        return maxChars > 0;
+    }
+
+    synchronized Texts get(String documentKey, String textKey) {
+        Map<String, Texts> texts = textsByDocument.get(documentKey);
+        return texts == null ? null : texts.get(textKey);
+    }
+
+    synchronized boolean isOversized(String documentKey, String textKey) {
+        return oversizedTexts.containsKey(documentKey + "/" + textKey);
+    }
+
+    /**
+     * normalizes the text and keeps both if they fit in the cache. The least recently used
+     * documents are evicted first, then the other texts of the same document.
+     *
+     * @return the cached texts, or null if the text and its normalized form are larger than the cache
+     */
+    Texts put(String documentKey, String textKey, String text) {
+        Texts texts = text.length() > maxChars ? null : new Texts(text, ContentNormalizer.normalize(text));
+        synchronized (this) {
+            if (texts == null || texts.length() > maxChars) {
+                oversizedTexts.put(documentKey + "/" + textKey, true);
+                return null;
+            }
+            Map<String, Texts> documentTexts = textsByDocument.computeIfAbsent(documentKey, k -> new HashMap<>());
+            Texts previous = documentTexts.put(textKey, texts);
+            nbChars += texts.length() - (previous == null ? 0 : previous.length());
+            Iterator<Map.Entry<String, Map<String, Texts>>> lru = textsByDocument.entrySet().iterator();
+            while (nbChars > maxChars && lru.hasNext()) {
+                Map.Entry<String, Map<String, Texts>> eldest = lru.next();
+                if (!eldest.getKey().equals(documentKey)) {
+                    nbChars -= length(eldest.getValue());
+                    lru.remove();
+                }
+            }
+            Iterator<Map.Entry<String, Texts>> others = documentTexts.entrySet().iterator();
+            while (nbChars > maxChars && others.hasNext()) {
+                Map.Entry<String, Texts> other = others.next();
+                if (!other.getKey().equals(textKey)) {
+                    nbChars -= other.getValue().length();
+                    others.remove();
+                }
+            }
+            return texts;
+        }
+    }
+
+    /**
+     * removes all the texts of a document, to be called when its content or translations change
+     */
+    synchronized void invalidate(String documentKey) {
+        Map<String, Texts> texts = textsByDocument.remove(documentKey);
+        if (texts != null) {
+            nbChars -= length(texts);
+        }
+        oversizedTexts.keySet().removeIf(key -> key.startsWith(documentKey + "/"));
+    }
+
+    synchronized void clear() {
+        textsByDocument.clear();
+        oversizedTexts.clear();
+        nbChars = 0;
+    }
+
+    synchronized long size() {
+        return nbChars;
+    }
+
+    private static long length(Map<String, Texts> texts) {
+        return texts.values().stream().mapToLong(Texts::length).sum();
+    }
+
+    static class Texts {
+        final String text;
+        final String normalized;
+
+        Texts(String text, String normalized) {
+            this.text = text;
+            this.normalized = normalized;
+        }
+
+        long length() {
+            return (long) text.length() + normalized.length();
+        }
+    }
+}
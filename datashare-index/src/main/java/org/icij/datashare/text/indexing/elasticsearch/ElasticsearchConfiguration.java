@@ -18,6 +18,7 @@ import org.apache.http.message.BasicHeader;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
 import org.elasticsearch.common.settings.Settings;
+import org.icij.datashare.HumanReadableSize;
 import org.icij.datashare.PropertiesProvider;
 import org.icij.datashare.json.JsonObjectMapper;
 import org.slf4j.Logger;
@@ -33,6 +34,8 @@ import static java.lang.String.format;
 import static java.util.Collections.singletonList;
 import static org.apache.commons.lang3.SystemUtils.IS_OS_WINDOWS;
 import static org.apache.http.HttpHost.create;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_TEXT_CACHE_SIZE;
+import static org.icij.datashare.cli.DatashareCliOptions.TEXT_CACHE_SIZE_OPT;
 
 public class ElasticsearchConfiguration {
     static final String MAPPING_RESOURCE_NAME = "datashare_index_mappings.json";
@@ -64,6 +67,7 @@ public class ElasticsearchConfiguration {
 
     final String indexJoinField;
     final String docTypeField;
+    final long textCacheSize;
     Refresh refreshPolicy = Refresh.False;
 
     final int shards = 1;
@@ -72,6 +76,7 @@ public class ElasticsearchConfiguration {
     ElasticsearchConfiguration(PropertiesProvider propertiesProvider) {
         indexJoinField = propertiesProvider.get(INDEX_JOIN_FIELD_NAME_PROP).orElse(DEFAULT_INDEX_JOIN_FIELD);
         docTypeField = propertiesProvider.get(INDEX_TYPE_FIELD_NAME_PROP).orElse(DEFAULT_DOC_TYPE_FIELD);
+        textCacheSize = HumanReadableSize.parse(propertiesProvider.get(TEXT_CACHE_SIZE_OPT).orElse(DEFAULT_TEXT_CACHE_SIZE));
     }
 
     public static ElasticsearchClient createESClient(final PropertiesProvider propertiesProvider) {
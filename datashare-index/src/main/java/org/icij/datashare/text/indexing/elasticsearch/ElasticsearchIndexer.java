@@ -1,6 +1,7 @@
 package org.icij.datashare.text.indexing.elasticsearch;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
 import co.elastic.clients.elasticsearch._types.Conflicts;
 import co.elastic.clients.elasticsearch._types.FieldValue;
 import co.elastic.clients.elasticsearch._types.InlineScript;
@@ -14,6 +15,10 @@ import co.elastic.clients.elasticsearch.core.ExistsRequest;
 import co.elastic.clients.elasticsearch.core.GetRequest;
 import co.elastic.clients.elasticsearch.core.GetResponse;
 import co.elastic.clients.elasticsearch.core.IndexRequest;
+import co.elastic.clients.elasticsearch.core.MgetRequest;
+import co.elastic.clients.elasticsearch.core.MgetResponse;
+import co.elastic.clients.elasticsearch.core.MsearchRequest;
+import co.elastic.clients.elasticsearch.core.MsearchResponse;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
 import co.elastic.clients.elasticsearch.core.UpdateByQueryRequest;
@@ -25,11 +30,15 @@ import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
 import co.elastic.clients.elasticsearch.core.bulk.IndexOperation;
 import co.elastic.clients.elasticsearch.core.bulk.UpdateAction;
 import co.elastic.clients.elasticsearch.core.bulk.UpdateOperation;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetOperation;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetResponseItem;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
 import co.elastic.clients.elasticsearch.core.search.Hit;
 import co.elastic.clients.elasticsearch.core.search.SourceConfigParam;
 import co.elastic.clients.json.JsonData;
 import co.elastic.clients.transport.rest_client.RestClientTransport;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.inject.Inject;
 import org.apache.commons.io.IOUtils;
@@ -60,14 +69,19 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 import static co.elastic.clients.elasticsearch.core.UpdateRequest.Builder;
 import static java.lang.String.format;
 import static java.util.Arrays.stream;
+import static java.util.Collections.emptyList;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toList;
 import static org.icij.datashare.json.JsonObjectMapper.MAPPER;
@@ -76,6 +90,7 @@ import static org.icij.datashare.json.JsonObjectMapper.getParent;
 import static org.icij.datashare.json.JsonObjectMapper.getRoot;
 import static org.icij.datashare.json.JsonObjectMapper.getType;
 import static org.icij.datashare.text.indexing.elasticsearch.ElasticsearchConfiguration.DEFAULT_SEARCH_SIZE;
+import static org.icij.datashare.text.indexing.elasticsearch.ElasticsearchConfiguration.ES_CONTENT_FIELD;
 import static org.icij.datashare.text.indexing.elasticsearch.ElasticsearchSearcher.searchHitStream;
 import static org.icij.datashare.utils.JsonUtils.mapObjectTomapJsonData;
 
@@ -83,8 +98,10 @@ import static org.icij.datashare.utils.JsonUtils.mapObjectTomapJsonData;
 public class ElasticsearchIndexer implements Indexer {
     public final ElasticsearchClient client;
     private final ElasticsearchConfiguration esCfg;
+    private final DocumentTextCache textCache;
 
     static private final Map<String, String> memoizeScript = new HashMap<>();
+    static private final Map<String, Class<?>> memoizeEntityClass = new ConcurrentHashMap<>();
 
     public static Map<String, String> getMemoizeScript() {
         return memoizeScript;
@@ -94,6 +111,7 @@ public class ElasticsearchIndexer implements Indexer {
     public ElasticsearchIndexer(final ElasticsearchClient esClient, final PropertiesProvider propertiesProvider) {
         this.client = esClient;
         esCfg = new ElasticsearchConfiguration(propertiesProvider);
+        textCache = new DocumentTextCache(esCfg.textCacheSize);
         LOGGER.info("indexer defined with {}", esCfg);
     }
 
@@ -106,28 +124,37 @@ public class ElasticsearchIndexer implements Indexer {
 
     @Override
     public boolean bulkAdd(final String indexName, Pipeline.Type nerType, List<NamedEntity> namedEntities, Document parent) throws IOException {
+        return bulkAdd(indexName, nerType, Map.of(parent.getId(), namedEntities),
+                Map.of(parent.getId(), ofNullable(parent.getRootDocument()).orElse(parent.getId())));
+    }
+
+    @Override
+    public boolean bulkAdd(final String indexName, Pipeline.Type nerType, Map<String, List<NamedEntity>> namedEntitiesByDocumentId, Map<String, String> routingByDocumentId) throws IOException {
         BulkRequest.Builder bulkRequest = new BulkRequest.Builder();
 
-        String routing = ofNullable(parent.getRootDocument()).orElse(parent.getId());
         HashMap<String, Object> status = new HashMap<>() {{
             put("status", Document.Status.DONE);
         }};
-        bulkRequest.operations(
-            BulkOperation.of(op -> op.update(up -> up.index(indexName)
-                    .id(parent.getId())
-                    .routing(routing)
-                    .action(a -> a.doc(status)))),
-            BulkOperation.of(op -> op.update(up -> up.index(indexName)
-                    .id(parent.getId())
-                    .routing(routing)
-                    .action(a -> a.script(scr -> scr.inline(iscr -> iscr.lang("painless")
-                            .source("if (!ctx._source.nerTags.contains(params.nerTag)) ctx._source.nerTags.add(params.nerTag);")
-                            .params("nerTag", JsonData.of(nerType.toString())))))))
-        );
-
-        for (Entity child : namedEntities) {
-            bulkRequest.operations(op -> op.index(createIndexRequest(indexName, JsonObjectMapper.getType(child), child.getId(),
-                    getJson(child), parent.getId(), routing)));
+        for (Map.Entry<String, List<NamedEntity>> entry : namedEntitiesByDocumentId.entrySet()) {
+            String parentId = entry.getKey();
+            String routing = ofNullable(routingByDocumentId.get(parentId)).orElse(parentId);
+            bulkRequest.operations(
+                BulkOperation.of(op -> op.update(up -> up.index(indexName)
+                        .id(parentId)
+                        .routing(routing)
+                        .action(a -> a.doc(status)))),
+                BulkOperation.of(op -> op.update(up -> up.index(indexName)
+                        .id(parentId)
+                        .routing(routing)
+                        .action(a -> a.script(scr -> scr.inline(iscr -> iscr.lang("painless")
+                                .source("if (!ctx._source.nerTags.contains(params.nerTag)) ctx._source.nerTags.add(params.nerTag);")
+                                .params("nerTag", JsonData.of(nerType.toString())))))))
+            );
+
+            for (Entity child : entry.getValue()) {
+                bulkRequest.operations(op -> op.index(createIndexRequest(indexName, JsonObjectMapper.getType(child), child.getId(),
+                        getJson(child), parentId, routing)));
+            }
         }
 
         bulkRequest.refresh(esCfg.refreshPolicy);
@@ -136,7 +163,7 @@ public class ElasticsearchIndexer implements Indexer {
         if (bulkResponse.errors()) {
             for (BulkResponseItem resp : bulkResponse.items()) {
                 if (resp.error() != null) {
-                    LOGGER.error("bulk add failed : {}", resp.error().reason());
+                    LOGGER.error("bulk add failed for {} : {}", resp.id(), resp.error().reason());
                 }
             }
             return false;
@@ -146,11 +173,28 @@ public class ElasticsearchIndexer implements Indexer {
 
     @Override
     public <T extends Entity> boolean bulkAdd(final String indexName, List<T> objs) throws IOException {
+        return bulkAddWithErrors(indexName, objs).isEmpty();
+    }
+
+    @Override
+    public <T extends Entity> Map<String, String> bulkAddWithErrors(final String indexName, List<T> objs) throws IOException {
         BulkRequest.Builder bulkRequest = new BulkRequest.Builder();
         for (T obj : objs) {
             bulkRequest.operations(op -> op.index(createIndexRequest(indexName, getType(obj), obj.getId(), getJson(obj), getParent(obj), getRoot(obj))));
         }
-        return executeBulk(bulkRequest);
+        bulkRequest.refresh(esCfg.refreshPolicy);
+        BulkResponse bulkResponse = client.bulk(bulkRequest.build());
+        invalidateTexts(indexName, objs);
+        Map<String, String> errors = new LinkedHashMap<>();
+        if (bulkResponse.errors()) {
+            for (BulkResponseItem resp : bulkResponse.items()) {
+                if (resp.error() != null) {
+                    LOGGER.error("bulk request failed for {} : {}", resp.id(), resp.error().reason());
+                    errors.put(resp.id(), resp.error().reason());
+                }
+            }
+        }
+        return errors;
     }
 
     @Override
@@ -159,7 +203,19 @@ public class ElasticsearchIndexer implements Indexer {
         for (T e : entities) {
             bulkRequest.operations(op -> op.update(createUpdateRequest(indexName, getType(e), e.getId(), getJson(e), getParent(e), getRoot(e))));
         }
-        return executeBulk(bulkRequest);
+        try {
+            return executeBulk(bulkRequest);
+        } finally {
+            invalidateTexts(indexName, entities);
+        }
+    }
+
+    private <T extends Entity> void invalidateTexts(String indexName, List<T> entities) {
+        if (textCache.isEnabled()) {
+            for (T entity : entities) {
+                textCache.invalidate(DocumentTextCache.documentKey(indexName, entity.getId()));
+            }
+        }
     }
 
     @Override
@@ -179,6 +235,7 @@ public class ElasticsearchIndexer implements Indexer {
             req.routing(root);
         }
         client.index(req.build());
+        textCache.invalidate(DocumentTextCache.documentKey(indexName, id));
     }
 
     @Override
@@ -198,6 +255,7 @@ public class ElasticsearchIndexer implements Indexer {
             req.routing(root);
         }
         client.update(req.build(), Object.class);
+        textCache.invalidate(DocumentTextCache.documentKey(indexName, id));
     }
 
     @Override
@@ -208,6 +266,43 @@ public class ElasticsearchIndexer implements Indexer {
         return client.exists(getRequest.build()).value();
     }
 
+    @Override
+    public Set<String> exists(String indexName, List<String> ids) throws IOException {
+        Set<String> existing = new HashSet<>();
+        if (ids.isEmpty()) {
+            return existing;
+        }
+        MgetRequest.Builder mgetRequest = new MgetRequest.Builder().index(indexName).ids(ids);
+        mgetRequest.source(SourceConfigParam.of(scp -> scp.fetch(false)));
+        MgetResponse<ObjectNode> mgetResponse = client.mget(mgetRequest.build(), ObjectNode.class);
+        for (MultiGetResponseItem<ObjectNode> item : mgetResponse.docs()) {
+            if (item.isResult() && item.result().found()) {
+                existing.add(item.result().id());
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public List<List<? extends Entity>> multiSearch(List<? extends Searcher> searchers, List<String> stringQueries) throws IOException {
+        MsearchRequest.Builder msearchRequest = new MsearchRequest.Builder();
+        for (int i = 0; i < searchers.size(); i++) {
+            SearchRequest request = ((ElasticsearchSearcher) searchers.get(i)).searchRequest(stringQueries.get(i));
+            msearchRequest.searches(s -> s.header(h -> h.index(request.index()))
+                    .body(b -> b.query(request.query()).size(request.size()).source(request.source())));
+        }
+        MsearchResponse<ObjectNode> msearchResponse = client.msearch(msearchRequest.build(), ObjectNode.class);
+        List<List<? extends Entity>> results = new ArrayList<>(searchers.size());
+        for (int i = 0; i < searchers.size(); i++) {
+            MultiSearchResponseItem<ObjectNode> item = msearchResponse.responses().get(i);
+            if (item.isFailure()) {
+                throw new ElasticsearchException("msearch", item.failure());
+            }
+            results.add(((ElasticsearchSearcher) searchers.get(i)).searchResult(item.result()));
+        }
+        return results;
+    }
+
     @Override
     public String executeRaw(String method, String url, String rawJson) throws IOException {
         Request request = new Request(method, url.startsWith("/") ? url : "/" + url);
@@ -267,16 +362,38 @@ public class ElasticsearchIndexer implements Indexer {
 
     @Override
     public <T extends Entity> T get(String indexName, String id, String root) {
+        return get(indexName, id, root, emptyList(), emptyList());
+    }
+
+    @Override
+    public <T extends Entity> T get(String indexName, String id, List<String> sourceIncludes, List<String> sourceExcludes) {
+        return get(indexName, id, id, sourceIncludes, sourceExcludes);
+    }
+
+    @Override
+    public <T extends Entity> T get(String indexName, String id, String root, List<String> sourceIncludes, List<String> sourceExcludes) {
         String type = null;
         try {
-            final GetRequest req = new GetRequest.Builder().index(indexName).id(id).routing(root).build();
+            GetRequest.Builder reqBuilder = new GetRequest.Builder().index(indexName).id(id).routing(root);
+            if (!sourceIncludes.isEmpty()) {
+                // the type field is needed to know which entity class to build
+                List<String> includes = new ArrayList<>(sourceIncludes);
+                if (!includes.contains(esCfg.docTypeField)) {
+                    includes.add(esCfg.docTypeField);
+                }
+                reqBuilder.sourceIncludes(includes);
+            }
+            if (!sourceExcludes.isEmpty()) {
+                reqBuilder.sourceExcludes(sourceExcludes);
+            }
+            final GetRequest req = reqBuilder.build();
             GetResponse<ObjectNode> resp = client.get(req, ObjectNode.class);
             if (resp.found()) {
-                Map<String, Object> sourceAsMap = MAPPER.readValue(MAPPER.writeValueAsString(resp.source()), new TypeReference<>() {});
-                sourceAsMap.put("rootDocument", ofNullable(resp.routing()).orElse(id));
-                type = (String) sourceAsMap.get(esCfg.docTypeField);
-                Class<T> tClass = (Class<T>) Class.forName("org.icij.datashare.text." + type);
-                return JsonObjectMapper.getObject(id, resp.index(), sourceAsMap, tClass);
+                ObjectNode source = ofNullable(resp.source()).orElseGet(MAPPER::createObjectNode);
+                source.put("rootDocument", ofNullable(resp.routing()).orElse(id));
+                type = source.hasNonNull(esCfg.docTypeField) ? source.get(esCfg.docTypeField).asText() : null;
+                Class<T> tClass = (Class<T>) getEntityClass(type);
+                return JsonObjectMapper.getObject(id, resp.index(), source, tClass);
             }
         } catch (IOException e) {
             LOGGER.error("Failed to get entity " + id + " in index " + indexName, e);
@@ -285,6 +402,39 @@ public class ElasticsearchIndexer implements Indexer {
         }
         return null;
     }
+
+    @Override
+    public <T extends Entity> Map<String, T> get(String indexName, List<String> rootIds, List<String> sourceIncludes) throws IOException {
+        Map<String, T> entities = new HashMap<>();
+        if (rootIds.isEmpty()) {
+            return entities;
+        }
+        MgetRequest.Builder mgetRequest = new MgetRequest.Builder().index(indexName)
+                .docs(rootIds.stream().map(id -> MultiGetOperation.of(op -> op.id(id).routing(id))).collect(toList()));
+        if (!sourceIncludes.isEmpty()) {
+            List<String> includes = new ArrayList<>(sourceIncludes);
+            if (!includes.contains(esCfg.docTypeField)) {
+                includes.add(esCfg.docTypeField);
+            }
+            mgetRequest.sourceIncludes(includes);
+        }
+        MgetResponse<ObjectNode> mgetResponse = client.mget(mgetRequest.build(), ObjectNode.class);
+        for (MultiGetResponseItem<ObjectNode> item : mgetResponse.docs()) {
+            if (item.isResult() && item.result().found()) {
+                ObjectNode source = ofNullable(item.result().source()).orElseGet(MAPPER::createObjectNode);
+                source.put("rootDocument", ofNullable(item.result().routing()).orElse(item.result().id()));
+                String type = source.hasNonNull(esCfg.docTypeField) ? source.get(esCfg.docTypeField).asText() : null;
+                try {
+                    Class<T> tClass = (Class<T>) getEntityClass(type);
+                    entities.put(item.result().id(), JsonObjectMapper.getObject(item.result().id(), item.result().index(), source, tClass));
+                } catch (ClassNotFoundException e) {
+                    LOGGER.error("no entity for type " + type);
+                }
+            }
+        }
+        return entities;
+    }
+
     public static String readScriptFile(String painlessFilename) throws IOException {
         InputStream inputStream = ElasticsearchIndexer.class.getClassLoader().getResourceAsStream(painlessFilename);
         if (inputStream != null) {
@@ -293,6 +443,16 @@ public class ElasticsearchIndexer implements Indexer {
             throw new FileNotFoundException(String.format("Unable to find : %s", painlessFilename));
         }
     }
+    static Class<?> getEntityClass(String type) throws ClassNotFoundException {
+        String className = "org.icij.datashare.text." + type;
+        Class<?> entityClass = memoizeEntityClass.get(className);
+        if (entityClass == null) {
+            entityClass = Class.forName(className);
+            memoizeEntityClass.put(className, entityClass);
+        }
+        return entityClass;
+    }
+
     public static String getScriptStringFromFile(String filename) throws IOException {
         String script;
         if (memoizeScript.containsKey(filename)) {
@@ -327,6 +487,12 @@ public class ElasticsearchIndexer implements Indexer {
         if (offset < 0 || limit < 0) {
             throw new StringIndexOutOfBoundsException(format("offset or limit should not be negative (offset=%d, limit=%d)", offset, limit));
         }
+        if (textCache.isEnabled()) {
+            ExtractedText cached = getCachedExtractedContent(indexName, id, routing, offset, limit, targetLanguage);
+            if (cached != null) {
+                return cached;
+            }
+        }
         sourceBuilder.query(Query.of(q -> q.bool(bq -> bq.must(qt -> qt.term(t -> t.field("_id").value(id))))));
         InlineScript script = getExtractedTextScript(offset, limit, targetLanguage);
         sourceBuilder.scriptFields("pagination", ScriptField.of(sf -> sf.script(scr -> scr.inline(script))));
@@ -358,6 +524,36 @@ public class ElasticsearchIndexer implements Indexer {
        return extractedText;
     }
 
+    /**
+     * same result as extractedText.painless.java but the text is fetched once and kept
+     * in the application so that next pages of the same document are only substrings.
+     *
+     * @return null if the text doesn't fit in the cache, the script has to be used
+     */
+    private ExtractedText getCachedExtractedContent(String indexName, String id, String routing, final int offset, final int limit, String targetLanguage) throws IOException {
+        String documentKey = DocumentTextCache.documentKey(indexName, id);
+        String textKey = DocumentTextCache.textKey(targetLanguage);
+        DocumentTextCache.Texts texts = textCache.get(documentKey, textKey);
+        if (texts == null) {
+            if (textCache.isOversized(documentKey, textKey)) {
+                return null;
+            }
+            texts = textCache.put(documentKey, textKey, getDocumentText(indexName, id, routing, targetLanguage));
+            if (texts == null) {
+                return null;
+            }
+        }
+        String text = texts.text;
+        int end = offset + limit;
+        if (end > text.length()) {
+            throw new StringIndexOutOfBoundsException(format("Range [%d-%d] is out of document range ([0-%d])", offset, end, text.length()));
+        }
+        String page = text.substring(offset, end);
+        return targetLanguage != null ?
+                new ExtractedText(page, offset, limit, text.length(), targetLanguage) :
+                new ExtractedText(page, offset, limit, text.length());
+    }
+
     private static InlineScript searchQueryOccurrencesScript(final String query, String targetLanguage) throws IOException {
         Map<String,Object> params = new HashMap<String, Object>() {{
             put("query", query);
@@ -382,6 +578,12 @@ public class ElasticsearchIndexer implements Indexer {
 
     }
     private SearchedText searchContentOccurrences(String indexName, String id, String routing, final String query, String targetLanguage) throws IOException {
+        if (textCache.isEnabled()) {
+            SearchedText cached = searchCachedContentOccurrences(indexName, id, routing, query, targetLanguage);
+            if (cached != null) {
+                return cached;
+            }
+        }
         SearchRequest.Builder sourceBuilder = new SearchRequest.Builder().index(indexName).size(DEFAULT_SEARCH_SIZE).timeout("30m");
         if (query.isEmpty()) {
             throw new IllegalArgumentException();
@@ -424,6 +626,60 @@ public class ElasticsearchIndexer implements Indexer {
         return searchedText;
     }
 
+    /**
+     * same result as searchOccurrences.painless.java but the normalized text is kept
+     * in the application so that next queries on the same document only scan it.
+     *
+     * @return null if the text doesn't fit in the cache, the script has to be used
+     */
+    private SearchedText searchCachedContentOccurrences(String indexName, String id, String routing, final String query, String targetLanguage) throws IOException {
+        if (query.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+        String documentKey = DocumentTextCache.documentKey(indexName, id);
+        String textLanguage = "original".equals(targetLanguage) ? null : targetLanguage;
+        String textKey = DocumentTextCache.textKey(textLanguage);
+        DocumentTextCache.Texts texts = textCache.get(documentKey, textKey);
+        if (texts == null) {
+            if (textCache.isOversized(documentKey, textKey)) {
+                return null;
+            }
+            texts = textCache.put(documentKey, textKey, getDocumentText(indexName, id, routing, textLanguage));
+            if (texts == null) {
+                return null;
+            }
+        }
+        int[] offsets = ContentNormalizer.occurrences(texts.normalized, query);
+        return targetLanguage != null ?
+                new SearchedText(offsets, offsets.length, query, targetLanguage) :
+                new SearchedText(offsets, offsets.length, query);
+    }
+
+    /**
+     * fetches only the content of a document or one of its translations
+     *
+     * @param targetLanguage the translation language, null for the document content
+     * @throws IllegalArgumentException if the document or its translation is not found
+     */
+    private String getDocumentText(String indexName, String id, String routing, String targetLanguage) throws IOException {
+        boolean original = targetLanguage == null;
+        String field = original ? ES_CONTENT_FIELD : "content_translated";
+        GetResponse<ObjectNode> resp = client.get(GetRequest.of(g -> g.index(indexName).id(id).routing(routing).sourceIncludes(field)), ObjectNode.class);
+        if (!resp.found() || resp.source() == null) {
+            throw new IllegalArgumentException("Document not found");
+        }
+        if (original) {
+            return resp.source().path(ES_CONTENT_FIELD).asText("");
+        }
+        for (JsonNode translation : resp.source().path("content_translated")) {
+            if (targetLanguage.equals(translation.path("target_language").asText())) {
+                //select first translations of maybe many with same target (different interpreters)
+                return translation.path("content").asText("");
+            }
+        }
+        throw new IllegalArgumentException("Translated content in " + targetLanguage + " not found");
+    }
+
     @Override
     public boolean tag(Project prj, String documentId, String rootDocument, Tag... tags) throws IOException {
         return tagUntag(prj, documentId, rootDocument, createTagScript(tags));
@@ -518,6 +774,7 @@ public class ElasticsearchIndexer implements Indexer {
         post.setEntity(new NStringEntity("{\"query\":{\"match_all\": {}}}", ContentType.APPLICATION_JSON));
         RestClient restClient = ((RestClientTransport) client._transport()).restClient();
         Response response = restClient.performRequest(post);
+        textCache.clear();
         return response.getStatusLine().getStatusCode() == RestStatus.OK.getStatus();
     }
 
@@ -1,12 +1,14 @@
 package org.icij.datashare.text.indexing.elasticsearch;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.SortOrder;
 import co.elastic.clients.elasticsearch._types.Time;
 import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
 import co.elastic.clients.elasticsearch.core.ClearScrollRequest;
 import co.elastic.clients.elasticsearch.core.ScrollRequest;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchItem;
 import co.elastic.clients.elasticsearch.core.search.Hit;
 import co.elastic.clients.elasticsearch.core.search.ResponseBody;
 import co.elastic.clients.json.JsonpMappingException;
@@ -16,7 +18,6 @@ import jakarta.json.JsonException;
 import org.icij.datashare.Entity;
 import org.icij.datashare.json.JsonObjectMapper;
 import org.icij.datashare.text.indexing.Indexer;
-import org.icij.datashare.utils.JsonUtils;
 
 import java.io.IOException;
 import java.io.StringReader;
@@ -41,8 +42,13 @@ class ElasticsearchSearcher implements Indexer.Searcher {
     private String scrollId;
     private SearchRequest scrollSearchRequest;
     private long totalHits;
+    private boolean pointInTime = false;
+    private String pitId;
+    private SearchRequest pitSearchRequest;
+    private List<String> searchAfter;
     private final JsonNode jsonBoolQuery;
     private final static String TEMPLATE_QUERY = "<query>";
+    private final static String SHARD_DOC_FIELD = "_shard_doc";
 
     protected int fuzziness = 0;
     protected boolean phraseMatches = false;
@@ -64,7 +70,7 @@ class ElasticsearchSearcher implements Indexer.Searcher {
     }
 
     static <T extends Entity> T hitToObject(Hit<ObjectNode> searchHit, Class<T> cls) {
-        return (T) JsonObjectMapper.getObject(searchHit.id(), searchHit.index(), JsonUtils.nodeToMap(searchHit.source()), cls);
+        return (T) JsonObjectMapper.getObject(searchHit.id(), searchHit.index(), searchHit.source(), cls);
     }
 
     @Override
@@ -114,6 +120,9 @@ class ElasticsearchSearcher implements Indexer.Searcher {
 
     @Override
     public Stream<? extends Entity> scroll(ScrollQuery scrollQuery) throws IOException {
+        if (pointInTime) {
+            return searchAfter(scrollQuery);
+        }
         ResponseBody<ObjectNode> response;
         if (scrollSearchRequest == null) {
             BoolQuery.Builder boolQueryBuilder = getBoolQueryBuilder(queryAsString(scrollQuery.getStringQuery()));
@@ -135,6 +144,70 @@ class ElasticsearchSearcher implements Indexer.Searcher {
         return resultStream(this.cls, () -> response.hits().hits().iterator());
     }
 
+    /**
+     * iterates like scroll but with a point in time and search_after:
+     * the point in time is kept alive between pages and the position in the results
+     * is given by the sort values of the last hit of the previous page.
+     */
+    private Stream<? extends Entity> searchAfter(ScrollQuery scrollQuery) throws IOException {
+        Time keepAlive = Time.of(t -> t.time(scrollQuery.getDuration()));
+        SearchRequest request;
+        if (pitSearchRequest == null) {
+            BoolQuery.Builder boolQueryBuilder = getBoolQueryBuilder(queryAsString(scrollQuery.getStringQuery()));
+            pitId = client.openPointInTime(o -> o.index(indexesNames).keepAlive(keepAlive)).id();
+            sourceBuilder.query(q -> q.bool(boolQueryBuilder.build())).trackTotalHits(t -> t.enabled(true))
+                    .sort(s -> s.field(f -> f.field(SHARD_DOC_FIELD).order(SortOrder.Asc)));
+            if (scrollQuery.getNbSlices() > 1) {
+                sourceBuilder.slice(s -> s.id(String.valueOf(scrollQuery.getNumSlice())).max(scrollQuery.getNbSlices()));
+            }
+            pitSearchRequest = sourceBuilder.pit(p -> p.id(pitId).keepAlive(keepAlive)).build();
+            request = pitSearchRequest;
+        } else if (scrollQuery.getStringQuery() == null) {
+            String currentPitId = ofNullable(pitId).orElseThrow(() -> new IllegalStateException("Point in time must have been closed"));
+            request = SearchRequest.of(s -> {
+                s.query(pitSearchRequest.query()).source(pitSearchRequest.source()).size(pitSearchRequest.size())
+                        .timeout(pitSearchRequest.timeout()).slice(pitSearchRequest.slice()).sort(pitSearchRequest.sort())
+                        .trackTotalHits(t -> t.enabled(false))
+                        .pit(p -> p.id(currentPitId).keepAlive(keepAlive));
+                if (searchAfter != null) {
+                    s.searchAfter(searchAfter);
+                }
+                return s;
+            });
+        } else {
+            throw new IllegalStateException("cannot change query when search after is pending");
+        }
+        SearchResponse<ObjectNode> response = client.search(request, ObjectNode.class);
+        if (request == pitSearchRequest) {
+            totalHits = response.hits().total().value();
+        }
+        pitId = ofNullable(response.pitId()).orElse(pitId);
+        List<Hit<ObjectNode>> hits = response.hits().hits();
+        if (!hits.isEmpty()) {
+            searchAfter = hits.get(hits.size() - 1).sort();
+        }
+        return resultStream(this.cls, hits);
+    }
+
+    /**
+     * first page request of the searcher, to be sent in a multi search
+     */
+    SearchRequest searchRequest(String stringQuery) throws JsonException {
+        BoolQuery.Builder boolQueryBuilder = getBoolQueryBuilder(queryAsString(stringQuery));
+        return sourceBuilder.index(indexesNames).query(q -> q.bool(boolQueryBuilder.build())).build();
+    }
+
+    List<? extends Entity> searchResult(MultiSearchItem<ObjectNode> result) {
+        totalHits = result.hits().total() == null ? result.hits().hits().size() : result.hits().total().value();
+        return resultStream(this.cls, result.hits().hits()).collect(Collectors.toList());
+    }
+
+    @Override
+    public Indexer.Searcher withPointInTime() {
+        pointInTime = true;
+        return this;
+    }
+
     @Override
     public Indexer.Searcher withSource(String... fields) {
         sourceBuilder.source(s -> s.filter(f -> f.includes(stream(fields).collect(Collectors.toList()))));
@@ -180,8 +253,16 @@ class ElasticsearchSearcher implements Indexer.Searcher {
 
     @Override
     public void clearScroll() throws IOException {
-        this.client.clearScroll(ClearScrollRequest.of(csr -> csr.scrollId(scrollId)));
-        scrollId = null;
+        if (pointInTime) {
+            if (pitId != null) {
+                this.client.closePointInTime(c -> c.id(pitId));
+            }
+            pitId = null;
+            searchAfter = null;
+        } else {
+            this.client.clearScroll(ClearScrollRequest.of(csr -> csr.scrollId(scrollId)));
+            scrollId = null;
+        }
         totalHits = 0;
     }
 
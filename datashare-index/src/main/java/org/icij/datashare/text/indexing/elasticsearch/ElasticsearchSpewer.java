@@ -20,10 +20,25 @@ import java.io.OutputStream;
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static java.lang.System.currentTimeMillis;
 import static java.util.Optional.ofNullable;
 import static org.apache.tika.metadata.HttpHeaders.*;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_ELASTICSEARCH_BULK_FLUSH;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_ELASTICSEARCH_BULK_MAX_SIZE;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_ELASTICSEARCH_BULK_SIZE;
+import static org.icij.datashare.cli.DatashareCliOptions.ELASTICSEARCH_BULK_FLUSH_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.ELASTICSEARCH_BULK_MAX_SIZE_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.ELASTICSEARCH_BULK_SIZE_OPT;
 import static org.icij.datashare.text.Hasher.shorten;
 
 public class ElasticsearchSpewer extends Spewer implements Serializable {
@@ -35,6 +50,15 @@ public class ElasticsearchSpewer extends Spewer implements Serializable {
     private final int maxContentLength;
     private final Hasher digestAlgorithm;
     private final DocumentQueue<String> nlpQueue;
+    private final int bulkSize;
+    private final long bulkMaxChars;
+    private final long bulkFlushIntervalMs;
+    private final List<Entity> bulkEntities = new ArrayList<>();
+    private final Map<String, TikaDocument> bulkRoots = new HashMap<>();
+    private final Set<String> inFlightRoots = ConcurrentHashMap.newKeySet(); // roots of the bulks being sent
+    private long bulkChars = 0;
+    private long bulkStartTime = 0;
+    private transient ScheduledExecutorService bulkFlusher;
     public String indexName;
 
     @Inject
@@ -47,7 +71,10 @@ public class ElasticsearchSpewer extends Spewer implements Serializable {
         this.digestAlgorithm = getDigestAlgorithm(propertiesProvider);
         this.nlpQueue = nlpQueueFactory.createQueue(new PipelineHelper(propertiesProvider).getOutputQueueNameFor(Stage.INDEX), String.class);
         this.indexName = propertiesProvider.get("defaultProject").orElse("local-datashare");
-        logger.info("spewer defined with {}", indexer);
+        this.bulkSize = Integer.parseInt(propertiesProvider.get(ELASTICSEARCH_BULK_SIZE_OPT).orElse(String.valueOf(DEFAULT_ELASTICSEARCH_BULK_SIZE)));
+        this.bulkMaxChars = HumanReadableSize.parse(propertiesProvider.get(ELASTICSEARCH_BULK_MAX_SIZE_OPT).orElse(DEFAULT_ELASTICSEARCH_BULK_MAX_SIZE));
+        this.bulkFlushIntervalMs = Long.parseLong(propertiesProvider.get(ELASTICSEARCH_BULK_FLUSH_OPT).orElse(String.valueOf(DEFAULT_ELASTICSEARCH_BULK_FLUSH)));
+        logger.info("spewer defined with {} (bulk size={} max chars={} flush interval={}ms)", indexer, bulkSize, bulkMaxChars, bulkFlushIntervalMs);
     }
 
     @Override
@@ -58,24 +85,148 @@ public class ElasticsearchSpewer extends Spewer implements Serializable {
         }
         long before = currentTimeMillis();
         String docType = parent == null ? "Document" : "Child";
-        if (parent == null && isDuplicate(doc.getId())) {
+        if (parent == null && isPendingInBulk(doc.getId())) {
             doc.setDuplicate(true);
             copy(doc.getReader(), OutputStream.nullOutputStream()); // flush document content reader
-            indexer.add(indexName, new Duplicate(doc.getPath(), doc.getId(), digestAlgorithm));
+            addToBulk(new Duplicate(doc.getPath(), doc.getId(), digestAlgorithm), null, 0);
             docType = "Duplicate";
         } else {
             Document document = getDocument(doc, root, parent, (short) level);
-            indexer.add(indexName, document);
-            if (!nlpQueue.offer(document.getId())) {
-                logger.warn("cannot offer {} to queue {}", document.getId(), nlpQueue.getName());
-            }
+            addToBulk(document, parent == null ? doc : null, document.getContentTextLength());
         }
-        logger.info("{} {} added to elasticsearch in {}ms: {}", docType,
+        logger.info("{} {} added to elasticsearch bulk in {}ms: {}", docType,
                 shorten(doc.getId(), 4), currentTimeMillis() - before, doc);
     }
 
-    private boolean isDuplicate(String docId) throws IOException {
-        return indexer.exists(indexName, docId);
+    private boolean isPendingInBulk(String docId) {
+        synchronized (bulkEntities) {
+            return bulkRoots.containsKey(docId) || inFlightRoots.contains(docId);
+        }
+    }
+
+    private void addToBulk(Entity entity, TikaDocument root, long nbChars) throws IOException {
+        boolean full;
+        synchronized (bulkEntities) {
+            if (bulkEntities.isEmpty()) {
+                bulkStartTime = currentTimeMillis();
+            }
+            bulkEntities.add(entity);
+            if (root != null) {
+                bulkRoots.put(root.getId(), root);
+            }
+            bulkChars += nbChars;
+            full = bulkEntities.size() >= bulkSize || bulkChars >= bulkMaxChars ||
+                    (bulkFlushIntervalMs > 0 && currentTimeMillis() - bulkStartTime >= bulkFlushIntervalMs);
+            if (!full) {
+                startBulkFlusher();
+            }
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * resolves the duplicates of the buffered root documents with one call to the index,
+     * sends the buffered documents to elasticsearch in one bulk request,
+     * then offers the successfully indexed documents to the NLP queue.
+     * If the bulk request fails, each buffered document is reported as not indexed.
+     *
+     * The buffer is swapped out under its lock and the requests are sent outside of it, so that
+     * the extracting threads can keep on filling the next bulk meanwhile.
+     */
+    public void flush() throws IOException {
+        List<Entity> bulk;
+        Map<String, TikaDocument> roots;
+        long nbChars;
+        synchronized (bulkEntities) {
+            if (bulkEntities.isEmpty()) {
+                return;
+            }
+            bulk = new ArrayList<>(bulkEntities);
+            roots = new HashMap<>(bulkRoots);
+            nbChars = bulkChars;
+            inFlightRoots.addAll(roots.keySet());
+            bulkEntities.clear();
+            bulkRoots.clear();
+            bulkChars = 0;
+        }
+        long before = currentTimeMillis();
+        try {
+            List<Entity> entities = resolveDuplicates(bulk, roots);
+            Map<String, String> errors = indexer.bulkAddWithErrors(indexName, entities);
+            for (Entity entity : entities) {
+                if (errors.containsKey(entity.getId())) {
+                    logger.error("{} {} has not been indexed: {}", entity.getClass().getSimpleName(), entity.getId(), errors.get(entity.getId()));
+                } else if (entity instanceof Document && !nlpQueue.offer(entity.getId())) {
+                    logger.warn("cannot offer {} to queue {}", entity.getId(), nlpQueue.getName());
+                }
+            }
+            logger.info("bulk of {} entities ({} chars) added to elasticsearch in {}ms with {} error(s)",
+                    entities.size(), nbChars, currentTimeMillis() - before, errors.size());
+        } catch (IOException | RuntimeException e) {
+            for (Entity entity : bulk) {
+                logger.error("{} {} has not been indexed: {}", entity.getClass().getSimpleName(), entity.getId(), e.toString());
+            }
+            throw new IOException(String.format("bulk of %d entities (%d chars) has not been indexed", bulk.size(), nbChars), e);
+        } finally {
+            inFlightRoots.removeAll(roots.keySet());
+        }
+    }
+
+    /**
+     * root documents already in the index are replaced by a Duplicate and their children are dropped.
+     * The root TikaDocument is flagged so that the children still to come are skipped.
+     */
+    private List<Entity> resolveDuplicates(List<Entity> bulk, Map<String, TikaDocument> roots) throws IOException {
+        if (roots.isEmpty()) {
+            return bulk;
+        }
+        Set<String> existing = indexer.exists(indexName, new ArrayList<>(roots.keySet()));
+        if (existing.isEmpty()) {
+            return bulk;
+        }
+        List<Entity> entities = new ArrayList<>(bulk.size());
+        for (Entity entity : bulk) {
+            if (entity instanceof Document) {
+                Document document = (Document) entity;
+                if (document.isRootDocument() && existing.contains(document.getId())) {
+                    roots.get(document.getId()).setDuplicate(true);
+                    entities.add(new Duplicate(document.getPath(), document.getId(), digestAlgorithm));
+                    logger.info("Duplicate {} found in index: {}", shorten(document.getId(), 4), document.getPath());
+                    continue;
+                } else if (!document.isRootDocument() && existing.contains(document.getRootDocument())) {
+                    continue;
+                }
+            }
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    private void startBulkFlusher() {
+        if (bulkFlusher == null && bulkFlushIntervalMs > 0) {
+            bulkFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "spewer-bulk-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            bulkFlusher.scheduleWithFixedDelay(this::flushIfExpired, bulkFlushIntervalMs, bulkFlushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushIfExpired() {
+        boolean expired;
+        synchronized (bulkEntities) {
+            expired = !bulkEntities.isEmpty() && currentTimeMillis() - bulkStartTime >= bulkFlushIntervalMs;
+        }
+        if (expired) {
+            try {
+                flush();
+            } catch (IOException e) {
+                logger.error("cannot flush bulk from flusher thread", e);
+            }
+        }
     }
 
     Document getDocument(TikaDocument document, TikaDocument root, TikaDocument parent, short level) throws IOException {
@@ -138,7 +289,17 @@ public class ElasticsearchSpewer extends Spewer implements Serializable {
 
     @Override
     public void close() throws Exception {
-        nlpQueue.put("POISON");
+        try {
+            flush();
+        } finally {
+            synchronized (bulkEntities) {
+                if (bulkFlusher != null) {
+                    bulkFlusher.shutdown();
+                    bulkFlusher = null;
+                }
+            }
+            nlpQueue.put("POISON");
+        }
     }
 
     private void setIndex(String indexName) {
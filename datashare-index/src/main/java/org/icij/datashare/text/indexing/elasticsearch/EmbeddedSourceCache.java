@@ -0,0 +1,149 @@
+package org.icij.datashare.text.indexing.elasticsearch;
+
+import org.icij.datashare.text.Document;
+import org.icij.datashare.text.Hasher;
+import org.icij.datashare.text.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * On-disk cache of embedded documents sources, so that downloading an attachment
+ * several times doesn't parse its root document each time.
+ *
+ * The cache is bounded by the total size of its files, the least recently used sources
+ * are removed first. Files already in the directory are taken into account at creation,
+ * in their last modification order.
+ */
+public class EmbeddedSourceCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EmbeddedSourceCache.class);
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final Map<Path, EmbeddedSourceCache> caches = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long nbBytes = 0;
+
+    /**
+     * @return the cache shared by all extractors using the same directory
+     */
+    public static EmbeddedSourceCache get(Path directory, long maxBytes) {
+        return caches.computeIfAbsent(directory.toAbsolutePath().normalize(), dir -> new EmbeddedSourceCache(dir, maxBytes));
+    }
+
+    EmbeddedSourceCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                List<Path> sources = files.filter(Files::isRegularFile)
+                        .filter(p -> !p.getFileName().toString().endsWith(TMP_SUFFIX))
+                        .sorted(Comparator.comparing(EmbeddedSourceCache::lastModified)).collect(toList());
+                for (Path source : sources) {
+                    long size = Files.size(source);
+                    entries.put(source.getFileName().toString(), size);
+                    nbBytes += size;
+                }
+            }
+            evict();
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot create embedded source cache in " + directory, e);
+        }
+        LOGGER.info("embedded source cache in {} with {} sources ({}/{} bytes)", directory, entries.size(), nbBytes, maxBytes);
+    }
+
+    static String key(Project project, Document document) {
+        return Hasher.SHA_256.hash(String.join("/", project.getId(), document.getRootDocument(), document.getId()));
+    }
+
+    /**
+     * @return a stream of the cached source or null if it is not in cache
+     */
+    public synchronized InputStream get(String key) throws IOException {
+        if (entries.get(key) == null) {
+            return null;
+        }
+        Path source = directory.resolve(key);
+        try {
+            Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis()));
+            return Files.newInputStream(source);
+        } catch (NoSuchFileException e) {
+            nbBytes -= entries.remove(key);
+            return null;
+        }
+    }
+
+    public void put(String key, byte[] content) {
+        if (content.length > maxBytes) {
+            return;
+        }
+        Path source = directory.resolve(key);
+        Path tmpSource = directory.resolve(key + "." + Thread.currentThread().getId() + TMP_SUFFIX);
+        try {
+            Files.write(tmpSource, content);
+            synchronized (this) {
+                Files.move(tmpSource, source, ATOMIC_MOVE, REPLACE_EXISTING);
+                Long previous = entries.put(key, (long) content.length);
+                nbBytes += content.length - (previous == null ? 0 : previous);
+                evict();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("cannot cache embedded source {}", key, e);
+            try {
+                Files.deleteIfExists(tmpSource);
+            } catch (IOException ignored) {}
+        }
+    }
+
+    synchronized long size() {
+        return nbBytes;
+    }
+
+    /**
+     * removes the least recently used sources until the cache fits in its size. A source that
+     * cannot be deleted (still opened by a reader on Windows) is kept and the next ones are
+     * removed, it will be tried again at the next eviction.
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> lru = entries.entrySet().iterator();
+        while (nbBytes > maxBytes && lru.hasNext()) {
+            Map.Entry<String, Long> eldest = lru.next();
+            try {
+                Files.deleteIfExists(directory.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                LOGGER.warn("cannot evict embedded source {}: {}", eldest.getKey(), e.toString());
+                continue;
+            }
+            nbBytes -= eldest.getValue();
+            lru.remove();
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
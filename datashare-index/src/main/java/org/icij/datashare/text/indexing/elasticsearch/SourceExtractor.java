@@ -3,6 +3,7 @@ package org.icij.datashare.text.indexing.elasticsearch;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.parser.DigestingParser;
 import org.apache.tika.parser.digestutils.CommonsDigester;
+import org.icij.datashare.HumanReadableSize;
 import org.icij.datashare.PropertiesProvider;
 import org.icij.datashare.cli.Mode;
 import org.icij.datashare.text.Document;
@@ -19,10 +20,16 @@ import org.xml.sax.SAXException;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.icij.datashare.PropertiesProvider.DEFAULT_PROJECT_OPTION;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_EMBEDDED_SOURCE_CACHE_DIR;
+import static org.icij.datashare.cli.DatashareCliOptions.DEFAULT_EMBEDDED_SOURCE_CACHE_SIZE;
+import static org.icij.datashare.cli.DatashareCliOptions.EMBEDDED_SOURCE_CACHE_DIR_OPT;
+import static org.icij.datashare.cli.DatashareCliOptions.EMBEDDED_SOURCE_CACHE_SIZE_OPT;
 
 
 public class SourceExtractor {
@@ -30,6 +37,7 @@ public class SourceExtractor {
     private final PropertiesProvider propertiesProvider;
     private final boolean filterMetadata;
     private final MetadataCleaner metadataCleaner = new MetadataCleaner();
+    private final EmbeddedSourceCache embeddedSourceCache;
 
     public SourceExtractor() {
         this(new PropertiesProvider(), false);
@@ -40,13 +48,24 @@ public class SourceExtractor {
     }
 
     public SourceExtractor( boolean filterMetadata) {
-        this.propertiesProvider = new PropertiesProvider();
-        this.filterMetadata = filterMetadata;
+        this(new PropertiesProvider(), filterMetadata);
     }
 
     public SourceExtractor(PropertiesProvider propertiesProvider, boolean filterMetadata) {
+        this(propertiesProvider, filterMetadata, true);
+    }
+
+    /**
+     * @param useEmbeddedSourceCache false to always extract the embedded documents from their root,
+     *                               for callers reading each document once (like batch downloads)
+     */
+    public SourceExtractor(PropertiesProvider propertiesProvider, boolean filterMetadata, boolean useEmbeddedSourceCache) {
         this.propertiesProvider = propertiesProvider;
         this.filterMetadata = filterMetadata;
+        long cacheSize = useEmbeddedSourceCache ? HumanReadableSize.parse(propertiesProvider.get(EMBEDDED_SOURCE_CACHE_SIZE_OPT).orElse(DEFAULT_EMBEDDED_SOURCE_CACHE_SIZE)) : 0;
+        this.embeddedSourceCache = cacheSize > 0 ?
+                EmbeddedSourceCache.get(Paths.get(propertiesProvider.get(EMBEDDED_SOURCE_CACHE_DIR_OPT).orElse(DEFAULT_EMBEDDED_SOURCE_CACHE_DIR)), cacheSize) :
+                null;
     }
 
 
@@ -72,9 +91,42 @@ public class SourceExtractor {
     }
 
     public InputStream getEmbeddedSource(final Project project, final Document document) {
+        if (embeddedSourceCache == null) {
+            return filter(extractEmbeddedSource(project, document));
+        }
+        String key = EmbeddedSourceCache.key(project, document);
+        try {
+            InputStream cachedSource = embeddedSourceCache.get(key);
+            if (cachedSource != null) {
+                LOGGER.info("Embedded document " + Identifier.shorten(document.getId(), 4) + " read from cache");
+                return filter(cachedSource);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("cannot read embedded source cache for " + document.getId(), e);
+        }
+        byte[] content = extractEmbeddedSource(project, document);
+        embeddedSourceCache.put(key, content);
+        return filter(content);
+    }
+
+    private InputStream filter(byte[] content) {
+        return filter(new ByteArrayInputStream(content));
+    }
+
+    private InputStream filter(InputStream inputStream) {
+        if (filterMetadata) {
+            try (inputStream) {
+                return new ByteArrayInputStream(metadataCleaner.clean(inputStream).getContent());
+            } catch (IOException e) {
+                throw new ExtractException("content cleaner error ", e);
+            }
+        }
+        return inputStream;
+    }
+
+    private byte[] extractEmbeddedSource(final Project project, final Document document) {
         Hasher hasher = Hasher.valueOf(document.getId().length());
         String algorithm = hasher.toString();
-        int i = 0;
         List<DigestingParser.Digester> digesters = new ArrayList<>(List.of());
         // Digester with the project name
         digesters.add(new CommonsDigester(20 * 1024 * 1024,  algorithm.replace("-", "")));
@@ -85,34 +137,29 @@ public class SourceExtractor {
             digesters.add(new UpdatableDigester(getDefaultProject(), algorithm));
         }
 
-        // Try each digester to find embedded doc and ensure we 
-        // used every available digesters to find it.
-        for (DigestingParser.Digester digester : digesters) {
-            Identifier identifier = new DigestIdentifier(hasher.toString(), Charset.defaultCharset());
-            TikaDocument rootDocument = new DocumentFactory().withIdentifier(identifier).create(document.getPath());
-            EmbeddedDocumentMemoryExtractor embeddedExtractor = new EmbeddedDocumentMemoryExtractor(digester, algorithm, false);
-
-            try {
-                TikaDocumentSource source = embeddedExtractor.extract(rootDocument, document.getId());
-                InputStream inputStream = new ByteArrayInputStream(source.content);
-                if (filterMetadata) {
-                    return new ByteArrayInputStream(metadataCleaner.clean(inputStream).getContent());
-                }
-                return inputStream;
-            } catch (ContentNotFoundException | SAXException | TikaException | IOException ex) {
-                LOGGER.info(String.format("Extract attempt %s/%s for embedded document failed:", ++i, digesters.size()));
-                LOGGER.info(String.format("\t├── exception: %s",  ex.getClass().getSimpleName()));
-                LOGGER.info(String.format("\t├── algorithm: %s",  algorithm));
-                LOGGER.info(String.format("\t├── digester: %s",  digester.getClass().getSimpleName()));
-                LOGGER.info(String.format("\t├── id: %s", document.getId()));
-                LOGGER.info(String.format("\t├── routing: %s",  document.getRootDocument()));
-                LOGGER.info(String.format("\t└── project: %s",  document.getProject().getName()));
-            }
+        // Compute every candidate digest while parsing the root document once,
+        // instead of parsing it again for each digester.
+        Identifier identifier = new DigestIdentifier(hasher.toString(), Charset.defaultCharset());
+        TikaDocument rootDocument = new DocumentFactory().withIdentifier(identifier).create(document.getPath());
+        try {
+            return extract(rootDocument, document.getId(), new CandidateDigester(digesters, document.getId()), algorithm).content;
+        } catch (ContentNotFoundException | SAXException | TikaException | IOException ex) {
+            LOGGER.info(String.format("Extract attempt with %s digesters for embedded document failed:", digesters.size()));
+            LOGGER.info(String.format("\t├── exception: %s",  ex.getClass().getSimpleName()));
+            LOGGER.info(String.format("\t├── algorithm: %s",  algorithm));
+            LOGGER.info(String.format("\t├── digesters: %s",  digesters.stream().map(d -> d.getClass().getSimpleName()).collect(Collectors.joining(", "))));
+            LOGGER.info(String.format("\t├── id: %s", document.getId()));
+            LOGGER.info(String.format("\t├── routing: %s",  document.getRootDocument()));
+            LOGGER.info(String.format("\t└── project: %s",  document.getProject().getName()));
         }
 
         throw new ContentNotFoundException(document.getRootDocument(), document.getId());
     }
 
+    TikaDocumentSource extract(TikaDocument rootDocument, String embeddedDocumentDigest, DigestingParser.Digester digester, String algorithm) throws SAXException, TikaException, IOException {
+        return new EmbeddedDocumentMemoryExtractor(digester, algorithm, false).extract(rootDocument, embeddedDocumentDigest);
+    }
+
     private boolean mightUseLegacyDigester(Document document) {
         return !isServerMode() && document.getExtractionLevel() > 0 && !document.getProject().name.equals(getDefaultProject());
     }
@@ -0,0 +1,80 @@
+package org.icij.datashare.text.indexing.elasticsearch;
+
+import org.apache.tika.parser.ParsingReader;
+import org.icij.datashare.PropertiesProvider;
+import org.icij.datashare.extract.MemoryDocumentCollectionFactory;
+import org.icij.datashare.text.Language;
+import org.icij.datashare.text.indexing.Indexer;
+import org.icij.extract.document.DocumentFactory;
+import org.icij.extract.document.PathIdentifier;
+import org.icij.extract.document.TikaDocument;
+import org.icij.spewer.FieldNames;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import static java.nio.file.Paths.get;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Indexing throughput of the spewer against a stand-in indexer that simulates
+ * the latency of an elasticsearch request (fixed cost per request + cost per document).
+ */
+public class BenchElasticsearchSpewer {
+    static Logger logger = LoggerFactory.getLogger(BenchElasticsearchSpewer.class);
+    private static final int REQUEST_LATENCY_MS = 5;
+    private static final int NB_DOCS = 2000;
+
+    @Test
+    public void testWritesPerDocumentAndBulk() throws Exception {
+        logger.info("writing {} documents with one request per document", NB_DOCS);
+        double perDocRate = writeDocuments("1");
+        logger.info("{} docs/s", String.format("%.1f", perDocRate));
+
+        logger.info("writing {} documents with bulks of 500 documents", NB_DOCS);
+        double bulkRate = writeDocuments("500");
+        logger.info("{} docs/s", String.format("%.1f", bulkRate));
+    }
+
+    private double writeDocuments(String bulkSize) throws Exception {
+        ElasticsearchSpewer spewer = new ElasticsearchSpewer(standInIndexer(), new MemoryDocumentCollectionFactory<>(),
+                text -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(new HashMap<>() {{
+            put("defaultProject", "bench-datashare");
+            put("elasticsearchBulkSize", bulkSize);
+        }}));
+        DocumentFactory documentFactory = new DocumentFactory().withIdentifier(new PathIdentifier());
+        long beginTime = System.currentTimeMillis();
+        for (int docIdx = 0; docIdx < NB_DOCS; docIdx++) {
+            TikaDocument document = documentFactory.create(get("/bench/doc_" + docIdx + ".txt"));
+            document.setReader(new ParsingReader(new ByteArrayInputStream(("content of document " + docIdx).getBytes())));
+            spewer.write(document);
+        }
+        spewer.flush();
+        long endTime = System.currentTimeMillis();
+        logger.info("done in {}ms", endTime - beginTime);
+        return NB_DOCS * 1000.0 / Math.max(1, endTime - beginTime);
+    }
+
+    private Indexer standInIndexer() throws IOException {
+        Indexer indexer = mock(Indexer.class);
+        when(indexer.exists(anyString(), anyList())).thenAnswer(inv -> {
+            Thread.sleep(REQUEST_LATENCY_MS);
+            return new HashSet<String>();
+        });
+        when(indexer.bulkAddWithErrors(anyString(), anyList())).thenAnswer(inv -> {
+            List<?> entities = inv.getArgument(1);
+            Thread.sleep(REQUEST_LATENCY_MS + entities.size() / 100);
+            return new HashMap<String, String>();
+        });
+        return indexer;
+    }
+}
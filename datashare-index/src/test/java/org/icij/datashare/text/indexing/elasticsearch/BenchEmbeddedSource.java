@@ -0,0 +1,80 @@
+package org.icij.datashare.text.indexing.elasticsearch;
+
+import co.elastic.clients.elasticsearch._types.Refresh;
+import org.icij.datashare.PropertiesProvider;
+import org.icij.datashare.extract.MemoryDocumentCollectionFactory;
+import org.icij.datashare.test.ElasticsearchRule;
+import org.icij.datashare.text.Document;
+import org.icij.datashare.text.Language;
+import org.icij.extract.document.DocumentFactory;
+import org.icij.extract.extractor.Extractor;
+import org.icij.spewer.FieldNames;
+import org.icij.task.Options;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.file.Paths.get;
+import static org.icij.datashare.test.ElasticsearchRule.TEST_INDEX;
+import static org.icij.datashare.text.Project.project;
+
+/**
+ * Repeated downloads of an email attachment,
+ * re-extracting it from its root document and reading it from the embedded source cache.
+ */
+public class BenchEmbeddedSource {
+    static Logger logger = LoggerFactory.getLogger(BenchEmbeddedSource.class);
+    @ClassRule static public TemporaryFolder tmpDir = new TemporaryFolder();
+    @ClassRule
+    public static ElasticsearchRule es = new ElasticsearchRule();
+
+    private static final int NB_DOWNLOADS = 20;
+
+    @Test
+    public void testDownloadsWithAndWithoutCache() throws Exception {
+        Options<String> options = Options.from(new HashMap<>() {{
+            put("digestAlgorithm", Document.DEFAULT_DIGESTER.toString());
+            put("digestProjectName", TEST_INDEX);
+        }});
+        Extractor extractor = new Extractor(new DocumentFactory().configure(options)).configure(options);
+        ElasticsearchIndexer indexer = new ElasticsearchIndexer(es.client, new PropertiesProvider(Map.of("defaultProject", TEST_INDEX, "elasticsearchBulkSize", "1"))).withRefresh(Refresh.True);
+        new ElasticsearchSpewer(indexer, new MemoryDocumentCollectionFactory<>(), l -> Language.ENGLISH, new FieldNames(),
+                new PropertiesProvider(Map.of("defaultProject", TEST_INDEX, "elasticsearchBulkSize", "1")))
+                .write(extractor.extract(get(getClass().getResource("/docs/embedded_doc.eml").getPath())));
+        Document attachedPdf = indexer.get(TEST_INDEX, "1bf2b6aa27dd8b45c7db58875004b8cb27a78ced5200b4976b63e351ebbae5ececb86076d90e156a7cdea06cde9573ca",
+                "f4078910c3e73a192e3a82d205f3c0bdb749c4e7b23c1d05a622db0f07d7f0ededb335abdb62aef41ace5d3cdb9298bc");
+
+        logger.info("downloading {} times an attachment without cache", NB_DOWNLOADS);
+        download(new SourceExtractor(), attachedPdf);
+
+        logger.info("downloading {} times an attachment with cache", NB_DOWNLOADS);
+        download(new SourceExtractor(new PropertiesProvider(new HashMap<>() {{
+            put("embeddedSourceCacheDir", tmpDir.getRoot().getPath());
+            put("embeddedSourceCacheSize", "10M");
+        }})), attachedPdf);
+    }
+
+    private void download(SourceExtractor sourceExtractor, Document attachedPdf) throws IOException {
+        long beginTime = System.currentTimeMillis();
+        readAll(sourceExtractor.getSource(project(TEST_INDEX), attachedPdf));
+        long firstDownloadTime = System.currentTimeMillis();
+        for (int i = 1; i < NB_DOWNLOADS; i++) {
+            readAll(sourceExtractor.getSource(project(TEST_INDEX), attachedPdf));
+        }
+        long endTime = System.currentTimeMillis();
+        logger.info("first download in {}ms, next downloads in {}ms/download", firstDownloadTime - beginTime, (endTime - firstDownloadTime) / (NB_DOWNLOADS - 1));
+    }
+
+    private static void readAll(InputStream source) throws IOException {
+        try (source) {
+            source.readAllBytes();
+        }
+    }
+}
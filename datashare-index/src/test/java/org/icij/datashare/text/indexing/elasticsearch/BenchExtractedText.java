@@ -0,0 +1,69 @@
+package org.icij.datashare.text.indexing.elasticsearch;
+
+import co.elastic.clients.elasticsearch._types.Refresh;
+import org.icij.datashare.PropertiesProvider;
+import org.icij.datashare.test.ElasticsearchRule;
+import org.icij.datashare.text.Document;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+import static org.icij.datashare.test.ElasticsearchRule.TEST_INDEX;
+import static org.icij.datashare.text.DocumentBuilder.createDoc;
+
+/**
+ * Paging through the extracted text of a large document,
+ * with the painless script and with the text cache.
+ */
+public class BenchExtractedText {
+    static Logger logger = LoggerFactory.getLogger(BenchExtractedText.class);
+    @ClassRule
+    public static ElasticsearchRule es = new ElasticsearchRule();
+
+    private static final int CONTENT_SIZE = 20 * 1024 * 1024;
+    private static final int PAGE_SIZE = 10000;
+    private static final int NB_PAGES = 50;
+
+    @Test
+    public void testPagingWithScriptAndTextCache() throws IOException {
+        ElasticsearchIndexer scriptIndexer = indexer("0");
+        Document document = createDoc("bigDoc").with(content()).withContentLength(CONTENT_SIZE).build();
+        scriptIndexer.add(TEST_INDEX, document);
+
+        logger.info("reading {} pages of {} chars of a document of {} chars with painless script", NB_PAGES, PAGE_SIZE, CONTENT_SIZE);
+        readPages(scriptIndexer, document);
+
+        logger.info("reading {} pages of {} chars of a document of {} chars with text cache", NB_PAGES, PAGE_SIZE, CONTENT_SIZE);
+        readPages(indexer("64M"), document);
+    }
+
+    private void readPages(ElasticsearchIndexer indexer, Document document) throws IOException {
+        long beginTime = System.currentTimeMillis();
+        indexer.getExtractedText(TEST_INDEX, document.getId(), null, 0, PAGE_SIZE, null);
+        long firstPageTime = System.currentTimeMillis();
+        for (int page = 1; page < NB_PAGES; page++) {
+            indexer.getExtractedText(TEST_INDEX, document.getId(), null, page * PAGE_SIZE, PAGE_SIZE, null);
+        }
+        long endTime = System.currentTimeMillis();
+        logger.info("first page in {}ms, next pages in {}ms/page", firstPageTime - beginTime, (endTime - firstPageTime) / (NB_PAGES - 1));
+    }
+
+    private static ElasticsearchIndexer indexer(String textCacheSize) {
+        return new ElasticsearchIndexer(es.client, new PropertiesProvider(new HashMap<>() {{
+            put("textCacheSize", textCacheSize);
+        }})).withRefresh(Refresh.WaitFor);
+    }
+
+    private static String content() {
+        StringBuilder builder = new StringBuilder(CONTENT_SIZE);
+        for (int line = 0; builder.length() < CONTENT_SIZE; line++) {
+            builder.append("line ").append(line).append(" of a very long text dump with some words in it\n");
+        }
+        builder.setLength(CONTENT_SIZE);
+        return builder.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package org.icij.datashare.text.indexing.elasticsearch;
+
+import co.elastic.clients.elasticsearch._types.Refresh;
+import org.icij.datashare.PropertiesProvider;
+import org.icij.datashare.test.ElasticsearchRule;
+import org.icij.datashare.text.Document;
+import org.icij.datashare.text.Language;
+import org.icij.datashare.text.NamedEntity;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.singletonList;
+import static org.icij.datashare.test.ElasticsearchRule.TEST_INDEX;
+import static org.icij.datashare.text.DocumentBuilder.createDoc;
+import static org.icij.datashare.text.NamedEntity.Category.PERSON;
+import static org.icij.datashare.text.nlp.Pipeline.Type.CORENLP;
+
+/**
+ * Named entities write throughput for short documents (emails),
+ * one bulk request per document vs one bulk request for a batch of documents.
+ */
+public class BenchNamedEntitiesBulkAdd {
+    static Logger logger = LoggerFactory.getLogger(BenchNamedEntitiesBulkAdd.class);
+    @ClassRule
+    public static ElasticsearchRule es = new ElasticsearchRule();
+    private final ElasticsearchIndexer indexer = new ElasticsearchIndexer(es.client, new PropertiesProvider()).withRefresh(Refresh.WaitFor);
+
+    private static final int NB_DOCS = 1000;
+    private static final int NB_NES = 5;
+    private static final int BATCH_SIZE = 100;
+
+    @Test
+    public void testPerDocumentAndBatchedWrites() throws IOException {
+        List<Document> documents = createDocuments("per_doc");
+        logger.info("writing named entities of {} documents ({} per document) with one request per document", NB_DOCS, NB_NES);
+        long beginTime = System.currentTimeMillis();
+        for (Document doc : documents) {
+            indexer.bulkAdd(TEST_INDEX, CORENLP, namedEntities(doc), doc);
+        }
+        long endTime = System.currentTimeMillis();
+        logger.info("done in {}ms ({} docs/s)", endTime - beginTime, NB_DOCS * 1000 / Math.max(1, endTime - beginTime));
+
+        documents = createDocuments("batched");
+        logger.info("writing named entities of {} documents ({} per document) with batches of {} documents", NB_DOCS, NB_NES, BATCH_SIZE);
+        beginTime = System.currentTimeMillis();
+        Map<String, List<NamedEntity>> batch = new LinkedHashMap<>();
+        Map<String, String> routings = new HashMap<>();
+        for (Document doc : documents) {
+            batch.put(doc.getId(), namedEntities(doc));
+            routings.put(doc.getId(), doc.getId());
+            if (batch.size() == BATCH_SIZE) {
+                indexer.bulkAdd(TEST_INDEX, CORENLP, batch, routings);
+                batch.clear();
+                routings.clear();
+            }
+        }
+        endTime = System.currentTimeMillis();
+        logger.info("done in {}ms ({} docs/s)", endTime - beginTime, NB_DOCS * 1000 / Math.max(1, endTime - beginTime));
+    }
+
+    private List<Document> createDocuments(String prefix) throws IOException {
+        List<Document> documents = new ArrayList<>();
+        for (int docIdx = 0; docIdx < NB_DOCS; docIdx++) {
+            documents.add(createDoc(prefix + docIdx).with("Hello John Doe, this is an email from Jane Doe " + docIdx).build());
+        }
+        indexer.bulkAdd(TEST_INDEX, documents);
+        return documents;
+    }
+
+    private List<NamedEntity> namedEntities(Document doc) {
+        List<NamedEntity> namedEntities = new ArrayList<>();
+        for (int neIdx = 0; neIdx < NB_NES; neIdx++) {
+            namedEntities.add(NamedEntity.create(PERSON, "John Doe " + neIdx, singletonList((long) neIdx), doc.getId(), doc.getId(), CORENLP, Language.ENGLISH));
+        }
+        return namedEntities;
+    }
+}
@@ -0,0 +1,71 @@
+package org.icij.datashare.text.indexing.elasticsearch;
+
+import co.elastic.clients.elasticsearch._types.Refresh;
+import org.icij.datashare.PropertiesProvider;
+import org.icij.datashare.test.ElasticsearchRule;
+import org.icij.datashare.text.Document;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+import static org.icij.datashare.test.ElasticsearchRule.TEST_INDEX;
+import static org.icij.datashare.text.DocumentBuilder.createDoc;
+
+/**
+ * Latency of in-document occurrences search (one request per keystroke)
+ * on a large document, with the painless script and with the normalized text cache.
+ */
+public class BenchSearchOccurrences {
+    static Logger logger = LoggerFactory.getLogger(BenchSearchOccurrences.class);
+    @ClassRule
+    public static ElasticsearchRule es = new ElasticsearchRule();
+
+    private static final int CONTENT_SIZE = 5 * 1024 * 1024;
+    private static final String[] KEYSTROKES = {"j", "jo", "joh", "john", "john ", "john d", "john do", "john doe"};
+
+    @Test
+    public void testColdAndWarmDocument() throws IOException {
+        ElasticsearchIndexer scriptIndexer = indexer("0");
+        Document document = createDoc("bigDoc").with(content()).withContentLength(CONTENT_SIZE).build();
+        scriptIndexer.add(TEST_INDEX, document);
+
+        logger.info("searching occurrences while typing in a document of {} chars with painless script", CONTENT_SIZE);
+        searchKeystrokes(scriptIndexer, document);
+
+        ElasticsearchIndexer cacheIndexer = indexer("64M");
+        logger.info("searching occurrences while typing in a document of {} chars with text cache", CONTENT_SIZE);
+        long beginTime = System.currentTimeMillis();
+        cacheIndexer.searchTextOccurrences(TEST_INDEX, document.getId(), KEYSTROKES[0], null);
+        logger.info("cold document: {}ms", System.currentTimeMillis() - beginTime);
+        searchKeystrokes(cacheIndexer, document);
+    }
+
+    private void searchKeystrokes(ElasticsearchIndexer indexer, Document document) throws IOException {
+        long beginTime = System.currentTimeMillis();
+        for (String query : KEYSTROKES) {
+            indexer.searchTextOccurrences(TEST_INDEX, document.getId(), query, null);
+        }
+        long endTime = System.currentTimeMillis();
+        logger.info("{} queries done in {}ms ({}ms/query)", KEYSTROKES.length, endTime - beginTime, (endTime - beginTime) / KEYSTROKES.length);
+    }
+
+    private static ElasticsearchIndexer indexer(String textCacheSize) {
+        return new ElasticsearchIndexer(es.client, new PropertiesProvider(new HashMap<>() {{
+            put("textCacheSize", textCacheSize);
+        }})).withRefresh(Refresh.WaitFor);
+    }
+
+    private static String content() {
+        StringBuilder builder = new StringBuilder(CONTENT_SIZE);
+        String[] words = {"Hello ", "John ", "Doe, ", "this ", "is ", "an ", "email ", "from ", "Jane ", "Doé.\n"};
+        for (int i = 0; builder.length() < CONTENT_SIZE; i++) {
+            builder.append(words[i % words.length]);
+        }
+        builder.setLength(CONTENT_SIZE);
+        return builder.toString();
+    }
+}
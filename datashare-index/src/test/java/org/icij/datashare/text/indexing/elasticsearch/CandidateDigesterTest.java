@@ -0,0 +1,63 @@
+package org.icij.datashare.text.indexing.elasticsearch;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.DigestingParser;
+import org.apache.tika.parser.ParseContext;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class CandidateDigesterTest {
+    @Test
+    public void test_no_candidate_matches() throws IOException {
+        Metadata metadata = digest(List.of(digester("digest", "foo"), digester("digest", "bar")), "baz");
+
+        assertThat(metadata.get("digest")).isEqualTo("bar");
+    }
+
+    @Test
+    public void test_last_candidate_matches() throws IOException {
+        Metadata metadata = digest(List.of(digester("digest", "foo"), digester("digest", "bar")), "bar");
+
+        assertThat(metadata.get("digest")).isEqualTo("bar");
+    }
+
+    @Test
+    public void test_first_candidate_matches_with_same_metadata_key() throws IOException {
+        Metadata metadata = digest(List.of(digester("digest", "foo"), digester("digest", "bar")), "foo");
+
+        assertThat(metadata.get("digest")).isEqualTo("foo");
+    }
+
+    @Test
+    public void test_candidate_matches_with_other_metadata_key() throws IOException {
+        Metadata metadata = digest(List.of(digester("digest1", "foo"), digester("digest2", "bar")), "foo");
+
+        assertThat(metadata.get("digest1")).isEqualTo("foo");
+        assertThat(metadata.get("digest2")).isEqualTo("foo");
+    }
+
+    @Test
+    public void test_other_metadata_is_kept() throws IOException {
+        Metadata metadata = new Metadata();
+        metadata.set("name", "value");
+
+        new CandidateDigester(List.of(digester("digest", "foo")), "foo").digest(new ByteArrayInputStream(new byte[0]), metadata, new ParseContext());
+
+        assertThat(metadata.get("name")).isEqualTo("value");
+    }
+
+    private static Metadata digest(List<DigestingParser.Digester> digesters, String expectedDigest) throws IOException {
+        Metadata metadata = new Metadata();
+        new CandidateDigester(digesters, expectedDigest).digest(new ByteArrayInputStream(new byte[0]), metadata, new ParseContext());
+        return metadata;
+    }
+
+    private static DigestingParser.Digester digester(String key, String digest) {
+        return (is, metadata, parseContext) -> metadata.set(key, digest);
+    }
+}
@@ -35,6 +35,7 @@ public class DatashareExtractIntegrationTest {
     private final ElasticsearchSpewer spewer = new ElasticsearchSpewer(indexer, new MemoryDocumentCollectionFactory<>(), l -> ENGLISH,
             new FieldNames(), new PropertiesProvider(new HashMap<>(){{
                 put("defaultProject", "test-datashare");
+                put("elasticsearchBulkSize", "1");
     }}));
 
     public DatashareExtractIntegrationTest() throws IOException {}
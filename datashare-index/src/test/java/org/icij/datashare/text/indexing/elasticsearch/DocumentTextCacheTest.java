@@ -0,0 +1,96 @@
+package org.icij.datashare.text.indexing.elasticsearch;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DocumentTextCacheTest {
+    private final DocumentTextCache cache = new DocumentTextCache(20);
+
+    @Test
+    public void test_get_unknown_key() {
+        assertThat(cache.get("unknown", "text")).isNull();
+    }
+
+    @Test
+    public void test_put_get_text_with_its_normalized_form() {
+        cache.put("doc", "text", "Text");
+
+        assertThat(cache.get("doc", "text").text).isEqualTo("Text");
+        assertThat(cache.get("doc", "text").normalized).isEqualTo("text");
+        assertThat(cache.get("doc", "fr")).isNull();
+        assertThat(cache.size()).isEqualTo(8);
+    }
+
+    @Test
+    public void test_replace_text() {
+        cache.put("doc", "text", "text");
+        cache.put("doc", "text", "other");
+        assertThat(cache.get("doc", "text").text).isEqualTo("other");
+        assertThat(cache.size()).isEqualTo(10);
+    }
+
+    @Test
+    public void test_evicts_least_recently_used_documents() {
+        cache.put("doc1", "text", "text1");
+        cache.put("doc2", "text", "text2");
+        cache.get("doc1", "text");
+
+        cache.put("doc3", "text", "text3");
+
+        assertThat(cache.get("doc1", "text").text).isEqualTo("text1");
+        assertThat(cache.get("doc2", "text")).isNull();
+        assertThat(cache.get("doc3", "text").text).isEqualTo("text3");
+        assertThat(cache.size()).isEqualTo(20);
+    }
+
+    @Test
+    public void test_evicts_other_documents_before_the_other_texts_of_the_document() {
+        cache.put("doc1", "text", "text1");
+        cache.put("doc2", "text", "text2");
+        cache.put("doc1", "fr", "texte");
+
+        assertThat(cache.get("doc2", "text")).isNull();
+        assertThat(cache.get("doc1", "text").text).isEqualTo("text1");
+        assertThat(cache.get("doc1", "fr").text).isEqualTo("texte");
+
+        cache.put("doc1", "es", "texto");
+
+        assertThat(cache.get("doc1", "es").text).isEqualTo("texto");
+        assertThat(cache.size()).isEqualTo(20);
+    }
+
+    @Test
+    public void test_text_and_normalized_form_larger_than_cache_are_not_kept() {
+        cache.put("doc1", "text", "text1");
+
+        assertThat(cache.put("doc2", "text", "a text of 11")).isNull();
+
+        assertThat(cache.get("doc2", "text")).isNull();
+        assertThat(cache.isOversized("doc2", "text")).isTrue();
+        assertThat(cache.isOversized("doc1", "text")).isFalse();
+        assertThat(cache.get("doc1", "text").text).isEqualTo("text1");
+    }
+
+    @Test
+    public void test_invalidate_document() {
+        cache.put("doc1", "text", "t1");
+        cache.put("doc1", "fr", "f1");
+        cache.put("doc1", "es", "a text larger than cache");
+        cache.put("doc2", "text", "t2");
+
+        cache.invalidate("doc1");
+
+        assertThat(cache.get("doc1", "text")).isNull();
+        assertThat(cache.get("doc1", "fr")).isNull();
+        assertThat(cache.isOversized("doc1", "es")).isFalse();
+        assertThat(cache.get("doc2", "text").text).isEqualTo("t2");
+        assertThat(cache.size()).isEqualTo(4);
+    }
+
+    @Test
+    public void test_disabled_cache() {
+        assertThat(new DocumentTextCache(0).isEnabled()).isFalse();
+        assertThat(cache.isEnabled()).isTrue();
+    }
+}
@@ -28,8 +28,11 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
@@ -73,6 +76,50 @@ public class ElasticsearchIndexerTest {
         assertThat(doc).isNull();
     }
 
+    @Test
+    public void test_get_with_source_includes() throws IOException {
+        Document doc = createDoc("doc").with("long content").withContentLength(12L).build();
+        indexer.add(TEST_INDEX, doc);
+
+        Document actual = indexer.get(TEST_INDEX, doc.getId(), singletonList("contentLength"), emptyList());
+
+        assertThat(actual.getId()).isEqualTo(doc.getId());
+        assertThat(actual.getContentLength()).isEqualTo(12L);
+        assertThat(actual.getContent()).isEmpty();
+        assertThat(actual.getPath()).isNull();
+    }
+
+    @Test
+    public void test_get_root_documents_with_source_includes() throws IOException {
+        Document doc1 = createDoc("doc1").with("long content").withContentLength(12L).build();
+        Document doc2 = createDoc("doc2").with("content").withContentLength(7L).build();
+        indexer.add(TEST_INDEX, doc1);
+        indexer.add(TEST_INDEX, doc2);
+
+        Map<String, Document> actual = indexer.get(TEST_INDEX, asList("doc1", "doc2", "unknown"), singletonList("contentLength"));
+
+        assertThat(actual.keySet()).containsOnly("doc1", "doc2");
+        assertThat(actual.get("doc1").getContentLength()).isEqualTo(12L);
+        assertThat(actual.get("doc2").getContentLength()).isEqualTo(7L);
+        assertThat(actual.get("doc1").getContent()).isEmpty();
+    }
+
+    @Test
+    public void test_get_with_source_excludes() throws IOException {
+        Document doc = createDoc("doc").with("content").with(singletonList(new HashMap<>() {{
+            put("content", "contenu");
+            put("source_language", "ENGLISH");
+            put("target_language", "FRENCH");
+        }})).build();
+        indexer.add(TEST_INDEX, doc);
+
+        Document actual = indexer.get(TEST_INDEX, doc.getId(), emptyList(), singletonList("content_translated"));
+
+        assertThat(actual.getContent()).isEqualTo("content");
+        assertThat(actual.getContentTranslated()).isEmpty();
+        assertThat(actual.getPath()).isEqualTo(doc.getPath());
+    }
+
     @Test
     public void test_bulk_add() throws IOException {
         Document doc1 = createDoc("doc1").build();
@@ -82,6 +129,25 @@ public class ElasticsearchIndexerTest {
         assertThat(((Document) indexer.get(TEST_INDEX, "doc2"))).isNotNull();
     }
 
+    @Test
+    public void test_bulk_add_named_entities_of_several_documents() throws IOException {
+        Document doc1 = createDoc("doc1").build();
+        Document doc2 = createDoc("doc2").build();
+        indexer.bulkAdd(TEST_INDEX, asList(doc1, doc2));
+        NamedEntity ne1 = create(PERSON, "John Doe", singletonList(12L), doc1.getId(), doc1.getId(), CORENLP, Language.FRENCH);
+        NamedEntity ne2 = create(ORGANIZATION, "AAA", singletonList(123L), doc2.getId(), doc2.getId(), CORENLP, Language.FRENCH);
+
+        assertThat(indexer.bulkAdd(TEST_INDEX, CORENLP, new LinkedHashMap<>() {{
+            put(doc1.getId(), singletonList(ne1));
+            put(doc2.getId(), singletonList(ne2));
+        }}, Map.of(doc1.getId(), doc1.getId(), doc2.getId(), doc2.getId()))).isTrue();
+
+        assertThat(((Document) indexer.get(TEST_INDEX, doc1.getId())).getStatus()).isEqualTo(Document.Status.DONE);
+        assertThat(((Document) indexer.get(TEST_INDEX, doc2.getId())).getNerTags()).containsOnly(CORENLP);
+        assertThat((NamedEntity) indexer.get(TEST_INDEX, ne1.getId(), doc1.getId())).isNotNull();
+        assertThat((NamedEntity) indexer.get(TEST_INDEX, ne2.getId(), doc2.getId())).isNotNull();
+    }
+
     @Test
     public void test_bulk_add_with_root_document() throws IOException {
         Document root = createDoc("root").build();
@@ -463,6 +529,116 @@ public class ElasticsearchIndexerTest {
         searcher.scroll(KEEP_ALIVE);
     }
 
+    @Test
+    public void test_search_with_point_in_time() throws IOException {
+        for (int i = 0 ; i < 12; i++) {
+            indexer.add(TEST_INDEX, createDoc("id" + i).build());
+        }
+
+        Indexer.Searcher searcher = indexer.search(singletonList(TEST_INDEX), Document.class).limit(5).withPointInTime();
+        List<String> ids = new ArrayList<>();
+        ids.addAll(searcher.scroll(KEEP_ALIVE).map(Entity::getId).collect(toList()));
+        assertThat(searcher.totalHits()).isEqualTo(12);
+        ids.addAll(searcher.scroll(KEEP_ALIVE).map(Entity::getId).collect(toList()));
+        ids.addAll(searcher.scroll(KEEP_ALIVE).map(Entity::getId).collect(toList()));
+        assertThat(searcher.scroll(KEEP_ALIVE).count()).isEqualTo(0);
+        searcher.clearScroll();
+
+        assertThat(ids).hasSize(12);
+        assertThat(new HashSet<>(ids)).hasSize(12);
+    }
+
+    @Test
+    public void test_search_with_point_in_time_and_json_query_template() throws IOException {
+        for (int i = 0; i < 12; i++) {
+            indexer.add(TEST_INDEX, createDoc("id" + i).build());
+        }
+        Indexer.Searcher searcher = indexer.search(singletonList(TEST_INDEX), Document.class,
+                new SearchQuery("{\"bool\":{\"must\":[{\"query_string\":{\"query\":\"<query>\"}}, {\"match\":{\"type\":\"Document\"}}]}}"))
+                .limit(12).withPointInTime();
+
+        assertThat(searcher.scroll(KEEP_ALIVE, "id*").count()).isEqualTo(12);
+        assertThat(searcher.totalHits()).isEqualTo(12);
+
+        try {
+            searcher.scroll(createScrollQuery().withStringQuery("other query").build());
+            fail("should throw IllegalStateException");
+        } catch (IllegalStateException ilex) {
+            assertThat(ilex.getMessage()).isEqualTo("cannot change query when search after is pending");
+        }
+
+        assertThat(searcher.scroll(KEEP_ALIVE).count()).isEqualTo(0);
+        searcher.clearScroll();
+    }
+
+    @Test
+    public void test_search_with_sliced_point_in_time() throws IOException {
+        for (int i = 0 ; i < 20; i++) {
+            indexer.add(TEST_INDEX, createDoc("id" + i).build());
+        }
+
+        Set<String> ids = new HashSet<>();
+        for (int slice = 0; slice < 2; slice++) {
+            Indexer.Searcher searcher = indexer.search(singletonList(TEST_INDEX), Document.class).limit(3).withPointInTime();
+            List<String> page;
+            do {
+                page = searcher.scroll(createScrollQuery().withDuration(KEEP_ALIVE).withSlices(slice, 2).build()).map(Entity::getId).collect(toList());
+                ids.addAll(page);
+            } while (!page.isEmpty());
+            searcher.clearScroll();
+        }
+
+        assertThat(ids).hasSize(20);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_searcher_point_in_time_is_not_usable_after_clear() throws IOException {
+        Indexer.Searcher searcher = indexer.search(singletonList(TEST_INDEX), Document.class).limit(5).withPointInTime();
+        assertThat(searcher.scroll(KEEP_ALIVE).count()).isEqualTo(0);
+
+        searcher.clearScroll();
+
+        searcher.scroll(KEEP_ALIVE);
+    }
+
+    @Test
+    public void test_multi_search() throws IOException {
+        for (int i = 0; i < 12; i++) {
+            indexer.add(TEST_INDEX, createDoc("id" + i).with(i % 2 == 0 ? "even" : "odd").build());
+        }
+        Indexer.Searcher evenSearcher = indexer.search(singletonList(TEST_INDEX), Document.class, new SearchQuery("even")).limit(10);
+        Indexer.Searcher oddSearcher = indexer.search(singletonList(TEST_INDEX), Document.class, new SearchQuery("odd")).limit(3);
+
+        List<List<? extends Entity>> results = indexer.multiSearch(asList(evenSearcher, oddSearcher), asList(null, null));
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0)).hasSize(6);
+        assertThat(evenSearcher.totalHits()).isEqualTo(6);
+        assertThat(results.get(1)).hasSize(3);
+        assertThat(oddSearcher.totalHits()).isEqualTo(6);
+    }
+
+    @Test
+    public void test_multi_search_with_json_query_template() throws IOException {
+        indexer.add(TEST_INDEX, createDoc("id1").with("foo").build());
+        indexer.add(TEST_INDEX, createDoc("id2").with("bar").build());
+        SearchQuery template = new SearchQuery("{\"bool\":{\"must\":[{\"query_string\":{\"query\":\"<query>\"}}, {\"match\":{\"type\":\"Document\"}}]}}");
+
+        List<List<? extends Entity>> results = indexer.multiSearch(asList(
+                indexer.search(singletonList(TEST_INDEX), Document.class, template),
+                indexer.search(singletonList(TEST_INDEX), Document.class, template)), asList("foo", "baz"));
+
+        assertThat(results.get(0).stream().map(Entity::getId).collect(toList())).containsOnly("id1");
+        assertThat(results.get(1)).isEmpty();
+    }
+
+    @Test(expected = ElasticsearchException.class)
+    public void test_multi_search_with_error() throws IOException {
+        indexer.multiSearch(asList(
+                indexer.search(singletonList(TEST_INDEX), Document.class, new SearchQuery("foo")),
+                indexer.search(singletonList(TEST_INDEX), Document.class, new SearchQuery("AND foo"))), asList(null, null));
+    }
+
     @Test
     public void test_bulk_update() throws IOException {
         Document doc = createDoc("id").build();
@@ -645,6 +821,64 @@ public class ElasticsearchIndexerTest {
         assertThat(actual.content).isEqualTo("content");
         assertThat(actual.content.length()).isEqualTo(7);
     }
+    @Test
+    public void test_get_slices_of_document_content_from_text_cache() throws Exception {
+        Document doc = createDoc("id").with("content with john doe").withContentLength(21L).build();
+        indexer.add(TEST_INDEX, doc);
+        assertThat(indexer.getExtractedText(TEST_INDEX, "id", null, 0, 7, null).content).isEqualTo("content");
+
+        es.removeAll();
+
+        ExtractedText actual = indexer.getExtractedText(TEST_INDEX, "id", null, 13, 8, null);
+        assertThat(actual.content).isEqualTo("john doe");
+        assertThat(actual.maxOffset).isEqualTo(21);
+    }
+
+    @Test
+    public void test_text_cache_is_invalidated_when_document_is_updated() throws Exception {
+        indexer.add(TEST_INDEX, createDoc("id").with("content with john doe").withContentLength(21L).build());
+        assertThat(indexer.getExtractedText(TEST_INDEX, "id", null, 0, 7, null).content).isEqualTo("content");
+        assertThat(indexer.searchTextOccurrences(TEST_INDEX, "id", "john", null).count).isEqualTo(1);
+
+        indexer.update(TEST_INDEX, createDoc("id").with("updated with jane doe").withContentLength(21L).build());
+
+        assertThat(indexer.getExtractedText(TEST_INDEX, "id", null, 0, 7, null).content).isEqualTo("updated");
+        assertThat(indexer.searchTextOccurrences(TEST_INDEX, "id", "john", null).count).isEqualTo(0);
+    }
+
+    @Test
+    public void test_get_slice_of_document_content_without_text_cache() throws Exception {
+        ElasticsearchIndexer indexerWithoutCache = new ElasticsearchIndexer(es.client, new PropertiesProvider(new HashMap<>() {{
+            put("textCacheSize", "0");
+        }})).withRefresh(Refresh.True);
+        Document doc = createDoc("id").with("content with john doe").withContentLength(21L).build();
+        indexerWithoutCache.add(TEST_INDEX, doc);
+
+        ExtractedText actual = indexerWithoutCache.getExtractedText(TEST_INDEX, "id", null, 13, 8, null);
+        assertThat(actual.content).isEqualTo("john doe");
+        assertThat(actual.maxOffset).isEqualTo(21);
+    }
+
+    @Test
+    public void test_get_slice_of_document_content_larger_than_text_cache() throws Exception {
+        ElasticsearchIndexer indexerWithSmallCache = new ElasticsearchIndexer(es.client, new PropertiesProvider(new HashMap<>() {{
+            put("textCacheSize", "40");
+        }})).withRefresh(Refresh.True);
+        indexerWithSmallCache.add(TEST_INDEX, createDoc("id").with("content with john doe").withContentLength(21L).build());
+
+        assertThat(indexerWithSmallCache.getExtractedText(TEST_INDEX, "id", null, 0, 7, null).content).isEqualTo("content");
+        ExtractedText actual = indexerWithSmallCache.getExtractedText(TEST_INDEX, "id", null, 13, 8, null);
+        assertThat(actual.content).isEqualTo("john doe");
+        assertThat(actual.maxOffset).isEqualTo(21);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_get_slice_of_original_target_language_is_not_found() throws Exception {
+        indexer.add(TEST_INDEX, createDoc("id").with("content with john doe").withContentLength(21L).build());
+
+        indexer.getExtractedText(TEST_INDEX, "id", null, 0, 7, "original");
+    }
+
     @Test
     public void test_search_occurrences_of_query_in_content_of_existing_document() throws Exception {
         Document doc = createDoc("id").with("this content contains content containing john doe").withContentLength(49L).build();
@@ -706,6 +940,54 @@ public class ElasticsearchIndexerTest {
         assertThat(actual.targetLanguage).isEqualTo("FRENCH");
         assertArrayEquals(actual.offsets, new int[]{3,11,23,31});
     }
+    @Test
+    public void test_search_occurrences_uses_cached_normalized_content() throws Exception {
+        Document doc = createDoc("id").with("this content contains content containing john doe").withContentLength(49L).build();
+        indexer.add(TEST_INDEX, doc);
+        assertThat(indexer.searchTextOccurrences(TEST_INDEX, "id", "cont", null).count).isEqualTo(4);
+
+        es.removeAll();
+
+        SearchedText actual = indexer.searchTextOccurrences(TEST_INDEX, "id", "john", null);
+        assertThat(actual.count).isEqualTo(1);
+        assertArrayEquals(new int[]{41}, actual.offsets);
+    }
+
+    @Test
+    public void test_search_occurrences_without_text_cache() throws Exception {
+        ElasticsearchIndexer indexerWithoutCache = new ElasticsearchIndexer(es.client, new PropertiesProvider(new HashMap<>() {{
+            put("textCacheSize", "0");
+        }})).withRefresh(Refresh.True);
+        Document doc = createDoc("id").with("contigüe et accentué s'est tueTuE").withContentLength(38L).build();
+        indexerWithoutCache.add(TEST_INDEX, doc);
+
+        SearchedText actual = indexerWithoutCache.searchTextOccurrences(TEST_INDEX, "id", "tué", null);
+        assertThat(actual.count).isEqualTo(3);
+        assertArrayEquals(new int[]{17, 27, 30}, actual.offsets);
+    }
+
+    @Test
+    public void test_search_occurrences_of_content_larger_than_text_cache() throws Exception {
+        ElasticsearchIndexer indexerWithSmallCache = new ElasticsearchIndexer(es.client, new PropertiesProvider(new HashMap<>() {{
+            put("textCacheSize", "40");
+        }})).withRefresh(Refresh.True);
+        Document doc = createDoc("id").with("contigüe et accentué s'est tueTuE").withContentLength(38L).build();
+        indexerWithSmallCache.add(TEST_INDEX, doc);
+
+        assertThat(indexerWithSmallCache.searchTextOccurrences(TEST_INDEX, "id", "tué", null).count).isEqualTo(3);
+        SearchedText actual = indexerWithSmallCache.searchTextOccurrences(TEST_INDEX, "id", "est", null);
+        assertThat(actual.count).isEqualTo(1);
+        assertArrayEquals(new int[]{23}, actual.offsets);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_search_occurrences_of_unknown_translation() throws Exception {
+        Document doc = createDoc("id").with("bonjour monde").with(FRENCH).withContentLength(13L).build();
+        indexer.add(TEST_INDEX, doc);
+
+        indexer.searchTextOccurrences(TEST_INDEX, "id", "hello", "ENGLISH");
+    }
+
     @Test
     public void test_retrieve_script_from_resource_file() throws IOException {
         String filename= "extractedText.painless.java";
@@ -37,6 +37,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -59,6 +61,7 @@ public class ElasticsearchSpewerTest {
     private final ElasticsearchSpewer spewer = new ElasticsearchSpewer(new ElasticsearchIndexer(es.client, new PropertiesProvider()).withRefresh(Refresh.True),
             documentQueueFactory, text -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(new HashMap<>() {{
                 put("defaultProject", "test-datashare");
+                put("elasticsearchBulkSize", "1");
     }}));
 
     @Test
@@ -336,6 +339,7 @@ public class ElasticsearchSpewerTest {
             put("digestProjectName", "project");
             put("defaultProject", "test-datashare");
             put("defaultProject", "test-datashare");
+            put("elasticsearchBulkSize", "1");
         }};
         ElasticsearchSpewer spewer256 = new ElasticsearchSpewer(new ElasticsearchIndexer(es.client, new PropertiesProvider()),
                 documentQueueFactory, text -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(properties));
@@ -386,6 +390,7 @@ public class ElasticsearchSpewerTest {
                 documentQueueFactory, text -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(new HashMap<>() {{
             put("maxContentLength", "20");
             put("defaultProject", "test-datashare");
+            put("elasticsearchBulkSize", "1");
         }}));
         final TikaDocument document = new DocumentFactory().withIdentifier(new PathIdentifier()).create(get("fake-file.txt"));
         final ParsingReader reader = new ParsingReader(new ByteArrayInputStream("this content should be truncated".getBytes()));
@@ -403,6 +408,7 @@ public class ElasticsearchSpewerTest {
                 documentQueueFactory, text -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(new HashMap<>() {{
             put("maxContentLength", "20");
             put("defaultProject", "test-datashare");
+            put("elasticsearchBulkSize", "1");
         }}));
         final TikaDocument document = new DocumentFactory().withIdentifier(new PathIdentifier()).create(get("ok-file.txt"));
         final ParsingReader reader = new ParsingReader(new ByteArrayInputStream("this content is ok".getBytes()));
@@ -414,6 +420,152 @@ public class ElasticsearchSpewerTest {
         assertThat(nodeToMap(documentFields.source())).includes(entry("content", "this content is ok"));
     }
 
+    @Test
+    public void test_bulk_write_is_sent_on_flush() throws Exception {
+        ElasticsearchSpewer bulkSpewer = new ElasticsearchSpewer(new ElasticsearchIndexer(es.client, new PropertiesProvider()).withRefresh(Refresh.True),
+                documentQueueFactory, text -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(new HashMap<>() {{
+            put("elasticsearchBulkSize", "10");
+            put("elasticsearchBulkFlushMilliseconds", "60000");
+            put("defaultProject", "test-datashare");
+        }}));
+        final TikaDocument document = new DocumentFactory().withIdentifier(new PathIdentifier()).create(get("bulk-file.txt"));
+        document.setReader(new ParsingReader(new ByteArrayInputStream("bulk content".getBytes())));
+
+        bulkSpewer.write(document);
+
+        assertThat(es.client.get(doc -> doc.index(TEST_INDEX).id(document.getId()), ObjectNode.class).found()).isFalse();
+        assertThat(documentQueueFactory.createQueue("extract:queue:nlp", String.class).size()).isEqualTo(0);
+
+        bulkSpewer.flush();
+
+        assertThat(es.client.get(doc -> doc.index(TEST_INDEX).id(document.getId()), ObjectNode.class).found()).isTrue();
+        assertThat(documentQueueFactory.createQueue("extract:queue:nlp", String.class).size()).isEqualTo(1);
+    }
+
+    @Test
+    public void test_bulk_write_is_sent_when_bulk_size_is_reached() throws Exception {
+        ElasticsearchSpewer bulkSpewer = new ElasticsearchSpewer(new ElasticsearchIndexer(es.client, new PropertiesProvider()).withRefresh(Refresh.True),
+                documentQueueFactory, text -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(new HashMap<>() {{
+            put("elasticsearchBulkSize", "2");
+            put("elasticsearchBulkFlushMilliseconds", "60000");
+            put("defaultProject", "test-datashare");
+        }}));
+        final TikaDocument document1 = new DocumentFactory().withIdentifier(new PathIdentifier()).create(get("bulk-file-1.txt"));
+        document1.setReader(new ParsingReader(new ByteArrayInputStream("bulk content 1".getBytes())));
+        final TikaDocument document2 = new DocumentFactory().withIdentifier(new PathIdentifier()).create(get("bulk-file-2.txt"));
+        document2.setReader(new ParsingReader(new ByteArrayInputStream("bulk content 2".getBytes())));
+
+        bulkSpewer.write(document1);
+        bulkSpewer.write(document2);
+
+        assertThat(es.client.get(doc -> doc.index(TEST_INDEX).id(document1.getId()), ObjectNode.class).found()).isTrue();
+        assertThat(es.client.get(doc -> doc.index(TEST_INDEX).id(document2.getId()), ObjectNode.class).found()).isTrue();
+    }
+
+    @Test
+    public void test_bulk_write_with_duplicate_in_pending_bulk() throws Exception {
+        HashMap<String, Object> properties = new HashMap<>() {{
+            put("digestAlgorithm", "SHA-256");
+            put("digestProjectName", "project");
+            put("defaultProject", "test-datashare");
+            put("elasticsearchBulkSize", "10");
+            put("elasticsearchBulkFlushMilliseconds", "60000");
+        }};
+        ElasticsearchSpewer bulkSpewer = new ElasticsearchSpewer(new ElasticsearchIndexer(es.client, new PropertiesProvider()).withRefresh(Refresh.True),
+                documentQueueFactory, text -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(properties));
+        Options<String> from = Options.from(properties);
+        Extractor extractor = new Extractor(new DocumentFactory().configure(from)).configure(from);
+        final TikaDocument document = extractor.extract(get(requireNonNull(getClass().getResource("/docs/doc.txt")).getPath()));
+        final TikaDocument document2 = extractor.extract(get(requireNonNull(getClass().getResource("/docs/doc-duplicate.txt")).getPath()));
+
+        bulkSpewer.write(document);
+        bulkSpewer.write(document2);
+        bulkSpewer.flush();
+
+        GetResponse<Duplicate> duplicate = es.client.get(doc -> doc.index(TEST_INDEX).id(Hasher.SHA_256.hash(document2.getPath().toString())), Duplicate.class);
+        assertThat(duplicate.found()).isTrue();
+        assertThat(documentQueueFactory.createQueue("extract:queue:nlp", String.class).size()).isEqualTo(1);
+    }
+
+    @Test
+    public void test_bulk_write_resolves_duplicates_with_one_call() throws Exception {
+        Indexer indexer = Mockito.mock(Indexer.class);
+        Mockito.when(indexer.exists(Mockito.anyString(), Mockito.anyList())).thenReturn(new HashSet<>());
+        Mockito.when(indexer.bulkAddWithErrors(Mockito.anyString(), Mockito.anyList())).thenReturn(new HashMap<>());
+        ElasticsearchSpewer bulkSpewer = new ElasticsearchSpewer(indexer, documentQueueFactory, text -> Language.ENGLISH, new FieldNames(),
+                new PropertiesProvider(new HashMap<>() {{
+            put("elasticsearchBulkSize", "3");
+            put("elasticsearchBulkFlushMilliseconds", "60000");
+            put("defaultProject", "test-datashare");
+        }}));
+        for (int i = 0; i < 3; i++) {
+            final TikaDocument document = new DocumentFactory().withIdentifier(new PathIdentifier()).create(get("bulk-file-" + i + ".txt"));
+            document.setReader(new ParsingReader(new ByteArrayInputStream(("bulk content " + i).getBytes())));
+            bulkSpewer.write(document);
+        }
+
+        Mockito.verify(indexer, Mockito.times(1)).exists(Mockito.eq("test-datashare"), Mockito.argThat((List<String> ids) -> ids.size() == 3));
+        Mockito.verify(indexer, Mockito.never()).exists(Mockito.anyString(), Mockito.anyString());
+        Mockito.verify(indexer, Mockito.times(1)).bulkAddWithErrors(Mockito.eq("test-datashare"), Mockito.anyList());
+    }
+
+    @Test
+    public void test_bulk_write_failure_reports_the_whole_bulk() throws Exception {
+        Indexer indexer = Mockito.mock(Indexer.class);
+        Mockito.when(indexer.exists(Mockito.anyString(), Mockito.anyList())).thenReturn(new HashSet<>());
+        Mockito.when(indexer.bulkAddWithErrors(Mockito.anyString(), Mockito.anyList())).thenThrow(new IOException("es is down"));
+        ElasticsearchSpewer bulkSpewer = new ElasticsearchSpewer(indexer, documentQueueFactory, text -> Language.ENGLISH, new FieldNames(),
+                new PropertiesProvider(new HashMap<>() {{
+            put("elasticsearchBulkSize", "10");
+            put("elasticsearchBulkFlushMilliseconds", "60000");
+            put("defaultProject", "test-datashare");
+        }}));
+        for (int i = 0; i < 3; i++) {
+            final TikaDocument document = new DocumentFactory().withIdentifier(new PathIdentifier()).create(get("bulk-file-" + i + ".txt"));
+            document.setReader(new ParsingReader(new ByteArrayInputStream(("bulk content " + i).getBytes())));
+            bulkSpewer.write(document);
+        }
+
+        try {
+            bulkSpewer.flush();
+            throw new AssertionError("flush should have failed");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("bulk of 3 entities");
+            assertThat(e.getCause()).hasMessage("es is down");
+        }
+        assertThat(documentQueueFactory.createQueue("extract:queue:nlp", String.class).size()).isEqualTo(0);
+        bulkSpewer.flush();
+        Mockito.verify(indexer, Mockito.times(1)).bulkAddWithErrors(Mockito.eq("test-datashare"), Mockito.anyList());
+    }
+
+    @Test
+    public void test_bulk_write_with_duplicate_embedded_documents_in_index() throws Exception {
+        Options<String> digestAlgorithm = Options.from(new HashMap<>() {{
+            put("digestAlgorithm", Document.DEFAULT_DIGESTER.toString());
+        }});
+        ElasticsearchSpewer bulkSpewer = new ElasticsearchSpewer(new ElasticsearchIndexer(es.client, new PropertiesProvider()).withRefresh(Refresh.True),
+                documentQueueFactory, text -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(new HashMap<>() {{
+            put("elasticsearchBulkSize", "100");
+            put("elasticsearchBulkFlushMilliseconds", "60000");
+            put("defaultProject", "test-datashare");
+        }}));
+        Path path1 = get(requireNonNull(getClass().getResource("/docs/embedded_doc.eml")).getPath());
+        Path path2 = get(requireNonNull(getClass().getResource("/docs/embedded_doc_duplicate.eml")).getPath());
+        Extractor extractor = new Extractor(new DocumentFactory().configure(digestAlgorithm)).configure(digestAlgorithm);
+        final TikaDocument document1 = extractor.extract(path1);
+        final TikaDocument document2 = extractor.extract(path2);
+
+        spewer.write(document1);
+        bulkSpewer.write(document2);
+        bulkSpewer.flush();
+
+        GetResponse<Duplicate> duplicateDoc = es.client.get(doc -> doc.index(TEST_INDEX).id(Document.DEFAULT_DIGESTER.hash(path2.toString())), Duplicate.class);
+        assertThat(duplicateDoc.found()).isTrue();
+        Stream<? extends Entity> searcher = new ElasticsearchIndexer(es.client, new PropertiesProvider()).search(asList(TEST_INDEX), Document.class).
+                thatMatchesFieldValue("path", path2).execute();
+        assertThat(searcher.count()).isEqualTo(0);
+    }
+
     @Test
     public void test_get_max_content_length_is_limited_to_2G() {
         assertThat(spewer.getMaxContentLength(new PropertiesProvider(new HashMap<>() {{put("maxContentLength", "20");}})))
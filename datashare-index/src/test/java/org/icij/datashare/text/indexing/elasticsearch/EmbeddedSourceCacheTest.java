@@ -0,0 +1,106 @@
+package org.icij.datashare.text.indexing.elasticsearch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class EmbeddedSourceCacheTest {
+    @Rule public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void test_get_unknown_key() throws IOException {
+        assertThat(new EmbeddedSourceCache(tmpDir.getRoot().toPath(), 10).get("unknown")).isNull();
+    }
+
+    @Test
+    public void test_put_get() throws IOException {
+        EmbeddedSourceCache cache = new EmbeddedSourceCache(tmpDir.getRoot().toPath(), 10);
+        cache.put("key", "source".getBytes());
+
+        assertThat(read(cache.get("key"))).isEqualTo("source");
+        assertThat(cache.size()).isEqualTo(6);
+        assertThat(tmpDir.getRoot().toPath().resolve("key").toFile()).exists();
+    }
+
+    @Test
+    public void test_evicts_least_recently_used_sources() throws IOException {
+        EmbeddedSourceCache cache = new EmbeddedSourceCache(tmpDir.getRoot().toPath(), 10);
+        cache.put("key1", "src1".getBytes());
+        cache.put("key2", "src2".getBytes());
+        read(cache.get("key1"));
+
+        cache.put("key3", "src3".getBytes());
+
+        assertThat(read(cache.get("key1"))).isEqualTo("src1");
+        assertThat(cache.get("key2")).isNull();
+        assertThat(read(cache.get("key3"))).isEqualTo("src3");
+        assertThat(tmpDir.getRoot().toPath().resolve("key2").toFile()).doesNotExist();
+        assertThat(cache.size()).isEqualTo(8);
+    }
+
+    @Test
+    public void test_eviction_skips_sources_that_cannot_be_deleted() throws IOException {
+        Path directory = tmpDir.getRoot().toPath();
+        EmbeddedSourceCache cache = new EmbeddedSourceCache(directory, 10);
+        cache.put("key1", "src1".getBytes());
+        cache.put("key2", "src2".getBytes());
+        Files.delete(directory.resolve("key1"));
+        Files.createDirectories(directory.resolve("key1")); // a non empty directory cannot be deleted
+        Files.write(directory.resolve("key1").resolve("locked"), "locked".getBytes());
+
+        cache.put("key3", "src3".getBytes());
+
+        assertThat(cache.get("key2")).isNull();
+        assertThat(read(cache.get("key3"))).isEqualTo("src3");
+        assertThat(cache.size()).isEqualTo(8);
+    }
+
+    @Test
+    public void test_source_larger_than_cache_is_not_kept() throws IOException {
+        EmbeddedSourceCache cache = new EmbeddedSourceCache(tmpDir.getRoot().toPath(), 10);
+        cache.put("key", "a source larger than cache".getBytes());
+
+        assertThat(cache.get("key")).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void test_reload_sources_from_directory() throws IOException {
+        Path directory = tmpDir.getRoot().toPath();
+        new EmbeddedSourceCache(directory, 10).put("key", "source".getBytes());
+
+        EmbeddedSourceCache cache = new EmbeddedSourceCache(directory, 10);
+
+        assertThat(cache.size()).isEqualTo(6);
+        assertThat(read(cache.get("key"))).isEqualTo("source");
+    }
+
+    @Test
+    public void test_reload_evicts_when_directory_is_larger_than_cache() throws IOException {
+        Path directory = tmpDir.getRoot().toPath();
+        EmbeddedSourceCache bigCache = new EmbeddedSourceCache(directory, 100);
+        bigCache.put("key1", "source1".getBytes());
+        bigCache.put("key2", "source2".getBytes());
+
+        assertThat(new EmbeddedSourceCache(directory, 10).size()).isEqualTo(7);
+    }
+
+    @Test
+    public void test_shared_cache_for_same_directory() {
+        Path directory = tmpDir.getRoot().toPath();
+        assertThat(EmbeddedSourceCache.get(directory, 10)).isSameAs(EmbeddedSourceCache.get(directory.resolve("."), 10));
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        try (inputStream) {
+            return new String(inputStream.readAllBytes());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.icij.datashare.text.indexing.elasticsearch;
 
 import co.elastic.clients.elasticsearch._types.Refresh;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.parser.DigestingParser;
 import org.icij.datashare.PropertiesProvider;
 import org.icij.datashare.extract.MemoryDocumentCollectionFactory;
 import org.icij.datashare.test.ElasticsearchRule;
@@ -9,6 +11,7 @@ import org.icij.datashare.text.DocumentBuilder;
 import org.icij.datashare.text.Language;
 import org.icij.extract.document.DocumentFactory;
 import org.icij.extract.document.TikaDocument;
+import org.icij.extract.document.TikaDocumentSource;
 import org.icij.extract.extractor.EmbeddedDocumentMemoryExtractor;
 import org.icij.extract.extractor.Extractor;
 import org.icij.spewer.FieldNames;
@@ -16,6 +19,7 @@ import org.icij.task.Options;
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.xml.sax.SAXException;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -26,6 +30,7 @@ import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.nio.file.Paths.get;
 import static org.fest.assertions.Assertions.assertThat;
@@ -108,6 +113,7 @@ public class SourceExtractorTest {
                 new MemoryDocumentCollectionFactory<>(), l -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(
                         new HashMap<>() {{
                             put("defaultProject", TEST_INDEX);
+                            put("elasticsearchBulkSize", "1");
                         }}
         ));
         spewer.write(document);
@@ -146,6 +152,7 @@ public class SourceExtractorTest {
                 new MemoryDocumentCollectionFactory<>(), l -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(
                 new HashMap<>() {{
                     put("defaultProject", TEST_INDEX);
+                    put("elasticsearchBulkSize", "1");
                 }}
 
         ));
@@ -160,6 +167,41 @@ public class SourceExtractorTest {
         assertThat(getBytes(source).length).isNotEqualTo(49779);
     }
 
+    @Test
+    public void test_get_source_for_embedded_doc_from_cache() throws Exception {
+        Options<String> options = Options.from(new HashMap<>() {{
+            put("digestAlgorithm", Document.DEFAULT_DIGESTER.toString());
+            put("digestProjectName", TEST_INDEX);
+        }});
+        DocumentFactory tikaFactory = new DocumentFactory().configure(options);
+        Extractor extractor = new Extractor(tikaFactory).configure(options);
+
+        Path path = get(getClass().getResource("/docs/embedded_doc.eml").getPath());
+        final TikaDocument document = extractor.extract(path);
+        ElasticsearchSpewer spewer = new ElasticsearchSpewer(createIndexer(TEST_INDEX),
+                new MemoryDocumentCollectionFactory<>(), l -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(
+                new HashMap<>() {{
+                    put("defaultProject", TEST_INDEX);
+                    put("elasticsearchBulkSize", "1");
+                }}
+        ));
+        spewer.write(document);
+
+        Document attachedPdf = createIndexer(TEST_INDEX).
+                get(TEST_INDEX, "1bf2b6aa27dd8b45c7db58875004b8cb27a78ced5200b4976b63e351ebbae5ececb86076d90e156a7cdea06cde9573ca",
+                        "f4078910c3e73a192e3a82d205f3c0bdb749c4e7b23c1d05a622db0f07d7f0ededb335abdb62aef41ace5d3cdb9298bc");
+        File cacheDir = tmpDir.newFolder();
+        PropertiesProvider propertiesProvider = new PropertiesProvider(new HashMap<>() {{
+            put("embeddedSourceCacheDir", cacheDir.getPath());
+            put("embeddedSourceCacheSize", "10M");
+        }});
+
+        assertThat(getBytes(new SourceExtractor(propertiesProvider).getSource(project(TEST_INDEX), attachedPdf))).hasSize(49779);
+        assertThat(cacheDir.list()).hasSize(1);
+        assertThat(getBytes(new SourceExtractor(propertiesProvider).getSource(project(TEST_INDEX), attachedPdf))).hasSize(49779);
+        assertThat(getBytes(new SourceExtractor(propertiesProvider, true).getSource(project(TEST_INDEX), attachedPdf)).length).isNotEqualTo(49779);
+    }
+
     @Test
     public void test_get_source_for_embedded_doc_without_digest_project_name() throws Exception {
         Options<String> options = Options.from(new HashMap<>() {{
@@ -175,6 +217,7 @@ public class SourceExtractorTest {
                 new MemoryDocumentCollectionFactory<>(), l -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(
                 new HashMap<>() {{
                     put("defaultProject", TEST_INDEX);
+                    put("elasticsearchBulkSize", "1");
                 }}
 
         ));
@@ -206,6 +249,7 @@ public class SourceExtractorTest {
                 new MemoryDocumentCollectionFactory<>(), l -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(
                 new HashMap<>() {{
                     put("defaultProject", TEST_INDEX);
+                    put("elasticsearchBulkSize", "1");
                     put("digestProjectName", "local-datashare");
                 }}
 
@@ -221,6 +265,45 @@ public class SourceExtractorTest {
         assertThat(getBytes(source)).hasSize(49779);
     }
 
+    @Test
+    public void test_get_source_for_embedded_doc_with_legacy_digester_parses_root_once() throws Exception {
+        PropertiesProvider propertiesProvider = new PropertiesProvider(new HashMap<>() {{
+            put("digestAlgorithm", Document.DEFAULT_DIGESTER.toString());
+            put("digestProjectName", "local-datashare");
+            put("mode", "LOCAL");
+        }});
+        Options<String> options = Options.from(propertiesProvider.getProperties());
+        DocumentFactory tikaFactory = new DocumentFactory().configure(options);
+        Extractor extractor = new Extractor(tikaFactory).configure(options);
+
+        Path path = get(getClass().getResource("/docs/embedded_doc.eml").getPath());
+        final TikaDocument document = extractor.extract(path);
+        ElasticsearchSpewer spewer = new ElasticsearchSpewer(createIndexer(TEST_INDEX),
+                new MemoryDocumentCollectionFactory<>(), l -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(
+                new HashMap<>() {{
+                    put("defaultProject", TEST_INDEX);
+                    put("elasticsearchBulkSize", "1");
+                    put("digestProjectName", "local-datashare");
+                }}
+        ));
+        spewer.write(document);
+
+        Document attachedPdf = createIndexer(TEST_INDEX).
+                get(TEST_INDEX, "d365f488df3c84ecd6d7aa752ca268b78589f2082e4fe2fbe9f62dff6b3a6b74bedc645ec6df9ae5599dab7631433623",
+                        "34ec4641c845234af66cfded88fed3ea92ee27da41e610d67eed0b9ba0c04ecf1cefae80d694050e29b8aadfd9cc7205");
+        AtomicInteger nbParses = new AtomicInteger();
+        SourceExtractor sourceExtractor = new SourceExtractor(propertiesProvider) {
+            @Override
+            TikaDocumentSource extract(TikaDocument rootDocument, String embeddedDocumentDigest, DigestingParser.Digester digester, String algorithm) throws SAXException, TikaException, IOException {
+                nbParses.incrementAndGet();
+                return super.extract(rootDocument, embeddedDocumentDigest, digester, algorithm);
+            }
+        };
+
+        assertThat(getBytes(sourceExtractor.getSource(project(TEST_INDEX), attachedPdf))).hasSize(49779);
+        assertThat(nbParses.get()).isEqualTo(1);
+    }
+
     @Test(expected = EmbeddedDocumentMemoryExtractor.ContentNotFoundException.class)
     public void test_not_get_source_for_embedded_doc_with_digest_project_name_using_legacy_value_in_server() throws Exception {
         PropertiesProvider propertiesProvider = new PropertiesProvider(new HashMap<>() {{
@@ -238,6 +321,7 @@ public class SourceExtractorTest {
                 new MemoryDocumentCollectionFactory<>(), l -> Language.ENGLISH, new FieldNames(), new PropertiesProvider(
                 new HashMap<>() {{
                     put("defaultProject", TEST_INDEX);
+                    put("elasticsearchBulkSize", "1");
                     put("digestProjectName", "local-datashare");
                 }}
 
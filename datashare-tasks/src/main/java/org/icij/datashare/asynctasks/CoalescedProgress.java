@@ -0,0 +1,106 @@
+package org.icij.datashare.asynctasks;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Progress function of a task forwarding at most one progress by interval, so that a task
+ * reporting its progress for each document doesn't publish a message by document.
+ * <p>
+ * The first progress is forwarded, then the progress reports received during the interval are
+ * coalesced: the latest one is forwarded when the interval ends (with a scheduler) or with the
+ * next report after the interval, and in any case when the progress is closed, before the
+ * result of the task is sent. It can be called by several threads of the same task.
+ */
+class CoalescedProgress implements Function<Double, Void> {
+    private static final long NEVER = Long.MIN_VALUE;
+    private final Function<Double, Void> progress;
+    private final long intervalNanos;
+    private final ScheduledExecutorService scheduler;
+    private long lastForwardNanos = NEVER;
+    private Double pending;
+    private ScheduledFuture<?> trailing;
+    private boolean closed = false;
+
+    CoalescedProgress(Function<Double, Void> progress, int intervalMillis) {
+        this(progress, intervalMillis, null);
+    }
+
+    /**
+     * @param scheduler used to forward the latest progress at the end of the interval, or null
+     *                  to forward it only with the next progress report or when closing
+     */
+    CoalescedProgress(Function<Double, Void> progress, int intervalMillis, ScheduledExecutorService scheduler) {
+        this.progress = progress;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Void apply(Double rate) {
+        synchronized (this) {
+            if (closed) {
+                return null;
+            }
+            long now = System.nanoTime();
+            if (lastForwardNanos != NEVER && now - lastForwardNanos < intervalNanos) {
+                pending = rate;
+                if (scheduler != null && trailing == null) {
+                    trailing = scheduler.schedule(this::flush, lastForwardNanos + intervalNanos - now, TimeUnit.NANOSECONDS);
+                }
+                return null;
+            }
+            forwarded(now);
+        }
+        return progress.apply(rate);
+    }
+
+    /**
+     * forwards the latest coalesced progress if any. The reports received after are dropped.
+     */
+    void close() {
+        Double latest;
+        synchronized (this) {
+            latest = takePending();
+            closed = true;
+        }
+        if (latest != null) {
+            progress.apply(latest);
+        }
+    }
+
+    private void flush() {
+        Double latest;
+        synchronized (this) {
+            latest = closed ? null : takePending();
+        }
+        if (latest != null) {
+            progress.apply(latest);
+        }
+    }
+
+    /**
+     * the coalescing state is updated with the monitor held, and the progress is forwarded
+     * after releasing it, so that the reporting threads don't wait for the forward I/O.
+     *
+     * @return the pending progress to forward, or null
+     */
+    private Double takePending() {
+        Double latest = pending;
+        if (latest != null) {
+            forwarded(System.nanoTime());
+        }
+        return latest;
+    }
+
+    private void forwarded(long now) {
+        pending = null;
+        if (trailing != null) {
+            trailing.cancel(false);
+            trailing = null;
+        }
+        lastForwardNanos = now;
+    }
+}
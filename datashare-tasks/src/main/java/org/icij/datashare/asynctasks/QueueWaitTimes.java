@@ -0,0 +1,78 @@
+package org.icij.datashare.asynctasks;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Time spent by tasks in the queue before they start running, by task priority.
+ */
+public class QueueWaitTimes {
+    private final ConcurrentSkipListMap<Integer, Stats> statsByPriority = new ConcurrentSkipListMap<>();
+
+    /**
+     * records the queue wait time of a task that has just started running.
+     * Tasks that have not been queued are ignored.
+     */
+    public void taskStarted(TaskView<?> task) {
+        Date queuedAt = task.getQueuedAt();
+        if (queuedAt != null) {
+            record(task.priority, Math.max(0, System.currentTimeMillis() - queuedAt.getTime()));
+        }
+    }
+
+    void record(int priority, long waitMs) {
+        statsByPriority.computeIfAbsent(priority, p -> new Stats()).add(waitMs);
+    }
+
+    /**
+     * @return a copy of the statistics by priority, from the lowest priority to the highest
+     */
+    public Map<Integer, Stats> byPriority() {
+        return statsByPriority.entrySet().stream().collect(toMap(Map.Entry::getKey, e -> e.getValue().copy(),
+                (s1, s2) -> s1, ConcurrentSkipListMap::new));
+    }
+
+    public void clear() {
+        statsByPriority.clear();
+    }
+
+    public static class Stats {
+        private long count;
+        private long totalMs;
+        private long maxMs;
+
+        private synchronized void add(long waitMs) {
+            count++;
+            totalMs += waitMs;
+            maxMs = Math.max(maxMs, waitMs);
+        }
+
+        private synchronized Stats copy() {
+            Stats copy = new Stats();
+            copy.count = count;
+            copy.totalMs = totalMs;
+            copy.maxMs = maxMs;
+            return copy;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMaxMs() {
+            return maxMs;
+        }
+
+        public long getMeanMs() {
+            return count == 0 ? 0 : totalMs / count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d mean=%dms max=%dms", count, getMeanMs(), maxMs);
+        }
+    }
+}
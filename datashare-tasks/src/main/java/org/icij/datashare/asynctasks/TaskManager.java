@@ -34,6 +34,7 @@ public interface TaskManager extends Closeable {
     void clear();
     void save(TaskView<?> task);
     void enqueue(TaskView<?> task) throws IOException;
+    QueueWaitTimes getQueueWaitTimes();
 
     static List<TaskView<?>> getTasks(Stream<TaskView<?>> stream, User user, Pattern pattern) {
         return stream.
@@ -54,10 +55,18 @@ public interface TaskManager extends Closeable {
         return startTask(new TaskView<>(taskName, user, properties));
     }
 
+    default  <V> TaskView<V> startTask(String taskName, User user, Map<String, Object> properties, int priority) throws IOException {
+        return startTask(new TaskView<>(taskName, user, properties, priority));
+    }
+
     default  <V> TaskView<V> startTask(String id, String taskName, User user) throws IOException {
         return startTask(new TaskView<>(id, taskName, user, new HashMap<>()));
     }
 
+    default  <V> TaskView<V> startTask(String id, String taskName, User user, int priority) throws IOException {
+        return startTask(new TaskView<>(id, taskName, user, new HashMap<>(), priority));
+    }
+
     default <V> TaskView<V> startTask(TaskView<V> taskView) throws IOException {
         taskView.queue();
         save(taskView);
@@ -106,6 +115,9 @@ public interface TaskManager extends Closeable {
         logger.debug("progress event for {}", e.taskId);
         TaskView<?> taskView = getTask(e.taskId);
         if (taskView != null) {
+            if (taskView.getState() == TaskView.State.QUEUED) {
+                getQueueWaitTimes().taskStarted(taskView);
+            }
             taskView.setProgress(e.rate);
             save(taskView);
         }
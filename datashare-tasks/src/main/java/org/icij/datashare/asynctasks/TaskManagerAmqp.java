@@ -26,6 +26,7 @@ public class TaskManagerAmqp implements TaskManager {
     private final AmqpInterlocutor amqp;
     private final AmqpConsumer<TaskEvent, Consumer<TaskEvent>> eventConsumer;
     private final AmqpConsumer<ResultEvent<? extends Serializable>, Consumer<ResultEvent<? extends Serializable>>> resultConsumer;
+    private final QueueWaitTimes queueWaitTimes = new QueueWaitTimes();
 
     public TaskManagerAmqp(AmqpInterlocutor amqp, Map<String, TaskView<?>> tasks) throws IOException {
         this(amqp, tasks, null);
@@ -76,7 +77,12 @@ public class TaskManagerAmqp implements TaskManager {
 
     @Override
     public void enqueue(TaskView<?> task) throws IOException {
-        amqp.publish(AmqpQueue.TASK, new TaskViewEvent(task));
+        amqp.publish(AmqpQueue.TASK, new TaskViewEvent(task), task.priority);
+    }
+
+    @Override
+    public QueueWaitTimes getQueueWaitTimes() {
+        return queueWaitTimes;
     }
 
     @Override
@@ -108,5 +114,6 @@ public class TaskManagerAmqp implements TaskManager {
     @Override
     public void clear() {
         tasks.clear();
+        queueWaitTimes.clear();
     }
 }
@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
@@ -19,28 +20,51 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
-import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.stream.Collectors.toList;
 import static org.icij.datashare.asynctasks.TaskView.State.RUNNING;
 
 
+/**
+ * Task manager running the tasks in the JVM with nbWorkers task runner loops polling the same queue.
+ * Queued tasks are taken by priority, and in queue order for the same priority.
+ * Task types can be given a maximum number of tasks running concurrently: a queued task whose type
+ * has reached its limit is left in the queue and the workers take the next ones.
+ */
 public class TaskManagerMemory implements TaskManager, TaskSupplier {
+    static final int QUEUE_CHECK_MS = 100;
     private final Logger logger = LoggerFactory.getLogger(getClass());
-    private final ExecutorService executor = newSingleThreadExecutor();
+    private final ExecutorService executor;
     private final ConcurrentMap<String, TaskView<?>> tasks = new ConcurrentHashMap<>();
     private final BlockingQueue<TaskView<?>> taskQueue;
-    private final TaskRunnerLoop loop;
+    private final List<TaskRunnerLoop> loops;
+    private final Map<String, Integer> taskTypeLimits;
+    private final ConcurrentMap<String, String> runningTaskTypes = new ConcurrentHashMap<>();
+    private final Object queueMonitor = new Object();
     private final AtomicInteger executedTasks = new AtomicInteger(0);
+    private final QueueWaitTimes queueWaitTimes = new QueueWaitTimes();
 
     public TaskManagerMemory(BlockingQueue<TaskView<?>> taskQueue, TaskFactory taskFactory) {
         this(taskQueue, taskFactory, new CountDownLatch(1));
     }
 
     public TaskManagerMemory(BlockingQueue<TaskView<?>> taskQueue, TaskFactory taskFactory, CountDownLatch latch) {
+        this(taskQueue, taskFactory, latch, 1, Map.of());
+    }
+
+    /**
+     * @param nbWorkers number of tasks running concurrently
+     * @param taskTypeLimits maximum number of running tasks by task name (class name or simple class name)
+     */
+    public TaskManagerMemory(BlockingQueue<TaskView<?>> taskQueue, TaskFactory taskFactory, CountDownLatch latch, int nbWorkers, Map<String, Integer> taskTypeLimits) {
         this.taskQueue = taskQueue;
-        loop = new TaskRunnerLoop(taskFactory, this, latch);
-        executor.submit(loop);
+        this.taskTypeLimits = taskTypeLimits;
+        this.executor = newFixedThreadPool(nbWorkers);
+        this.loops = IntStream.range(0, nbWorkers).mapToObj(i -> new TaskRunnerLoop(taskFactory, this, latch)).collect(toList());
+        loops.forEach(executor::submit);
     }
 
     public <V> TaskView<V> getTask(final String taskId) {
@@ -61,6 +85,9 @@ public class TaskManagerMemory implements TaskManager, TaskSupplier {
     public Void progress(String taskId, double rate) {
         TaskView<?> taskView = tasks.get(taskId);
         if (taskView != null) {
+            if (taskView.getState() == TaskView.State.QUEUED) {
+                queueWaitTimes.taskStarted(taskView);
+            }
             taskView.setProgress(rate);
         } else {
             logger.warn("unknown task id <{}> for progress={} call", taskId, rate);
@@ -77,6 +104,7 @@ public class TaskManagerMemory implements TaskManager, TaskSupplier {
         } else {
             logger.warn("unknown task id <{}> for result={} call", taskId, result);
         }
+        released(taskId);
     }
 
     @Override
@@ -86,8 +114,10 @@ public class TaskManagerMemory implements TaskManager, TaskSupplier {
             taskView.cancel();
             if (requeue) {
                 taskQueue.offer(task);
+                notifyWorkers();
             }
         }
+        released(task.id);
     }
 
     @Override
@@ -99,6 +129,7 @@ public class TaskManagerMemory implements TaskManager, TaskSupplier {
         } else {
             logger.warn("unknown task id <{}> for error={} call", taskId, reason.toString());
         }
+        released(taskId);
     }
 
     public void save(TaskView<?> taskView) {
@@ -108,10 +139,12 @@ public class TaskManagerMemory implements TaskManager, TaskSupplier {
     @Override
     public void enqueue(TaskView<?> task) {
         taskQueue.add(task);
+        notifyWorkers();
     }
 
     public boolean shutdownAndAwaitTermination(int timeout, TimeUnit timeUnit) throws InterruptedException {
-        taskQueue.add(TaskView.nullObject());
+        loops.forEach(loop -> taskQueue.add(TaskView.nullObject()));
+        notifyWorkers();
         waitTasksToBeDone(timeout, timeUnit);
         executor.shutdownNow();
         return executor.awaitTermination(timeout, timeUnit);
@@ -145,7 +178,7 @@ public class TaskManagerMemory implements TaskManager, TaskSupplier {
                     canceled(taskView, false);
                     return removed;
                 case RUNNING:
-                    loop.cancel(taskId, false);
+                    loops.forEach(loop -> loop.cancel(taskId, false));
                     return true;
             }
         } else {
@@ -156,7 +189,66 @@ public class TaskManagerMemory implements TaskManager, TaskSupplier {
 
     @Override
     public <V extends Serializable> TaskView<V> get(int timeOut, TimeUnit timeUnit) throws InterruptedException {
-        return (TaskView<V>) taskQueue.poll(timeOut, timeUnit);
+        if (taskTypeLimits.isEmpty()) {
+            TaskView<V> task = (TaskView<V>) takeNextAllowedTask();
+            return task != null ? task : (TaskView<V>) taskQueue.poll(timeOut, timeUnit);
+        }
+        long deadline = System.nanoTime() + timeUnit.toNanos(timeOut);
+        synchronized (queueMonitor) {
+            while (true) {
+                TaskView<V> task = (TaskView<V>) takeNextAllowedTask();
+                if (task != null) {
+                    return task;
+                }
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return null;
+                }
+                // the queue can be filled without enqueue (requeue, tests) so it is checked periodically
+                queueMonitor.wait(Math.min(remainingMs, QUEUE_CHECK_MS));
+            }
+        }
+    }
+
+    private TaskView<?> takeNextAllowedTask() {
+        while (true) {
+            TaskView<?> next = null;
+            for (TaskView<?> task : taskQueue) {
+                if ((next == null || task.priority > next.priority) && (task.isNull() || isUnderLimit(task.name))) {
+                    next = task;
+                }
+            }
+            if (next == null) {
+                return null;
+            }
+            // without limits the queue is not read under the monitor: another worker may have taken the task
+            if (taskQueue.remove(next)) {
+                if (!next.isNull()) {
+                    runningTaskTypes.put(next.id, next.name);
+                }
+                return next;
+            }
+        }
+    }
+
+    private boolean isUnderLimit(String taskName) {
+        Integer limit = ofNullable(taskTypeLimits.get(taskName))
+                .orElse(taskTypeLimits.get(taskName.substring(Math.max(taskName.lastIndexOf('.'), taskName.lastIndexOf('$')) + 1)));
+        return limit == null || runningTaskTypes.values().stream().filter(taskName::equals).count() < limit;
+    }
+
+    private void released(String taskId) {
+        if (runningTaskTypes.remove(taskId) != null) {
+            notifyWorkers();
+        }
+    }
+
+    private void notifyWorkers() {
+        if (!taskTypeLimits.isEmpty()) {
+            synchronized (queueMonitor) {
+                queueMonitor.notifyAll();
+            }
+        }
     }
 
     @Override
@@ -164,6 +256,11 @@ public class TaskManagerMemory implements TaskManager, TaskSupplier {
         executor.shutdown();
     }
 
+    @Override
+    public QueueWaitTimes getQueueWaitTimes() {
+        return queueWaitTimes;
+    }
+
     int numberOfExecutedTasks() {
         return executedTasks.get();
     }
@@ -171,6 +268,8 @@ public class TaskManagerMemory implements TaskManager, TaskSupplier {
     @Override
     public void clear() {
         executedTasks.set(0);
+        queueWaitTimes.clear();
+        // running tasks are still accounted for the task type limits until they end, even if they are cleared
         taskQueue.clear();
         tasks.clear();
     }
@@ -10,11 +10,17 @@ import org.icij.datashare.asynctasks.bus.amqp.TaskEvent;
 import org.icij.datashare.json.JsonObjectMapper;
 import org.icij.datashare.user.User;
 import org.redisson.Redisson;
-import org.redisson.RedissonBlockingQueue;
 import org.redisson.RedissonMap;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucket;
+import org.redisson.api.RFuture;
+import org.redisson.api.RSet;
+import org.redisson.api.RSetAsync;
 import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
 import org.redisson.client.codec.BaseCodec;
+import org.redisson.client.codec.StringCodec;
 import org.redisson.client.handler.State;
 import org.redisson.client.protocol.Decoder;
 import org.redisson.client.protocol.Encoder;
@@ -25,22 +31,43 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
+import static java.util.Arrays.stream;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.icij.datashare.asynctasks.TaskView.State.CANCELLED;
+import static org.icij.datashare.asynctasks.TaskView.State.DONE;
+import static org.icij.datashare.asynctasks.TaskView.State.ERROR;
+import static org.icij.datashare.asynctasks.TaskView.State.QUEUED;
+import static org.icij.datashare.asynctasks.TaskView.State.RUNNING;
 
+/**
+ * Task manager with the tasks stored in a redis map. The ids of the tasks are also kept in a set
+ * by user and a set by state, so that listing the tasks of a user only reads this user's tasks.
+ * The sets are only written when a task is new or changes state: a progress update is one write.
+ */
 public class TaskManagerRedis implements TaskManager {
     private final Runnable eventCallback; // for test
     public static final String EVENT_CHANNEL_NAME = "EVENT";
+    private final RedissonClient redissonClient;
+    private final String taskMapName;
     private final RedissonMap<String, TaskView<?>> tasks;
-    private final BlockingQueue<TaskView<?>> taskQueue;
+    private final TaskQueuesRedis taskQueues;
     private final RTopic eventTopic;
+    private final QueueWaitTimes queueWaitTimes = new QueueWaitTimes();
+    private final Map<String, TaskView.State> indexedStates = new ConcurrentHashMap<>();
 
     public TaskManagerRedis(RedissonClient redissonClient, BlockingQueue<TaskView<?>> taskQueue, String taskMapName) {
         this(redissonClient, taskQueue, taskMapName,null);
@@ -48,10 +75,13 @@ public class TaskManagerRedis implements TaskManager {
 
     public TaskManagerRedis(RedissonClient redissonClient, BlockingQueue<TaskView<?>> taskQueue, String taskMapName, Runnable eventCallback) {
         CommandSyncService commandSyncService = new CommandSyncService(((Redisson) redissonClient).getConnectionManager(), new RedissonObjectBuilder(redissonClient));
+        this.redissonClient = redissonClient;
+        this.taskMapName = taskMapName;
         this.tasks = new RedissonMap<>(new TaskViewCodec(), commandSyncService, taskMapName, redissonClient, null, null);
-        this.taskQueue = taskQueue;
+        this.taskQueues = new TaskQueuesRedis(redissonClient, taskQueue);
         this.eventTopic = redissonClient.getTopic(EVENT_CHANNEL_NAME);
         this.eventCallback = eventCallback;
+        indexExistingTasks();
         addEventListener(this::handleEvent);
     }
 
@@ -67,17 +97,38 @@ public class TaskManagerRedis implements TaskManager {
 
     @Override
     public List<TaskView<?>> getTasks(User user, Pattern pattern) {
-        return TaskManager.getTasks(tasks.values().stream(), user, pattern);
+        return TaskManager.getTasks(getTasks(userIndex(user).readAll()).stream(), user, pattern);
     }
 
     @Override
     public List<TaskView<?>> clearDoneTasks() {
-        return tasks.values().stream().filter(TaskView::isFinished).map(t -> tasks.remove(t.id)).collect(toList());
+        Set<String> finishedTaskIds = stateIndex(DONE).readUnion(stateIndexName(CANCELLED), stateIndexName(ERROR));
+        return getTasks(finishedTaskIds).stream().filter(TaskView::isFinished).map(this::clearTask).filter(Objects::nonNull).collect(toList());
     }
 
     @Override
     public TaskView<?> clearTask(String taskName) {
-        return tasks.remove(taskName);
+        TaskView<?> task = tasks.get(taskName);
+        return task == null ? null : clearTask(task);
+    }
+
+    private TaskView<?> clearTask(TaskView<?> task) {
+        // the task and its index entries are removed in one MULTI/EXEC transaction
+        RBatch batch = redissonClient.createBatch(atomicBatch());
+        RFuture<Long> removed = batch.<String, TaskView<?>>getMap(taskMapName, new TaskViewCodec()).fastRemoveAsync(task.id);
+        ofNullable(userIndexName(task.user)).ifPresent(name -> batch.getSet(name, StringCodec.INSTANCE).removeAsync(task.id));
+        stream(TaskView.State.values()).forEach(state -> batch.getSet(stateIndexName(state), StringCodec.INSTANCE).removeAsync(task.id));
+        batch.execute();
+        indexedStates.remove(task.id);
+        return removed.toCompletableFuture().join() > 0 ? task : null;
+    }
+
+    @Override
+    public Map<String, Boolean> stopAllTasks(User user) {
+        RSet<String> userTasks = userIndex(user);
+        Set<String> taskIds = new HashSet<>(userTasks.readIntersection(stateIndexName(RUNNING)));
+        taskIds.addAll(userTasks.readIntersection(stateIndexName(QUEUED)));
+        return taskIds.stream().collect(toMap(id -> id, this::stopTask));
     }
 
     @Override
@@ -101,7 +152,7 @@ public class TaskManagerRedis implements TaskManager {
 
     @Override
     public boolean shutdownAndAwaitTermination(int timeout, TimeUnit timeUnit) {
-        taskQueue.add(TaskView.nullObject());
+        taskQueues.add(TaskView.nullObject());
         return true;
     }
 
@@ -111,24 +162,103 @@ public class TaskManagerRedis implements TaskManager {
         // we cannot close RedissonClient connection pool as it may be used by other keys
         eventTopic.removeAllListeners();
         tasks.delete();
-        if (taskQueue instanceof RedissonBlockingQueue) {
-            ((RedissonBlockingQueue<TaskView<?>>) taskQueue).delete();
-        }
+        deleteIndexes();
+        taskQueues.delete();
     }
 
     @Override
     public void clear() {
         tasks.clear();
-        taskQueue.clear();
+        indexedStates.clear();
+        deleteIndexes();
+        taskQueues.clear();
+        queueWaitTimes.clear();
     }
 
     public void save(TaskView<?> task) {
-        tasks.put(task.id, task);
+        TaskView.State state = task.getState();
+        if (state == indexedStates.get(task.id)) {
+            // same state as the last indexed one (progress update): the indexes are up to date
+            tasks.fastPut(task.id, task);
+            return;
+        }
+        // the task and its indexes are written in one MULTI/EXEC transaction, so that the
+        // indexes never point to a task state that is not saved
+        RBatch batch = redissonClient.createBatch(atomicBatch());
+        batch.<String, TaskView<?>>getMap(taskMapName, new TaskViewCodec()).fastPutAsync(task.id, task);
+        index(batch, task);
+        batch.execute();
+        indexedStates.put(task.id, state);
+    }
+
+    private static BatchOptions atomicBatch() {
+        return BatchOptions.defaults().executionMode(BatchOptions.ExecutionMode.IN_MEMORY_ATOMIC);
+    }
+
+    private List<TaskView<?>> getTasks(Set<String> taskIds) {
+        return taskIds.isEmpty() ? new LinkedList<>() : new LinkedList<>(tasks.getAll(taskIds).values());
+    }
+
+    private void index(TaskView<?> task) {
+        // one round trip for the user set and the state sets
+        RBatch batch = redissonClient.createBatch();
+        index(batch, task);
+        batch.execute();
+    }
+
+    private void index(RBatch batch, TaskView<?> task) {
+        ofNullable(userIndexName(task.user)).ifPresent(name -> batch.getSet(name, StringCodec.INSTANCE).addAsync(task.id));
+        for (TaskView.State state : TaskView.State.values()) {
+            RSetAsync<String> stateTasks = batch.getSet(stateIndexName(state), StringCodec.INSTANCE);
+            if (state == task.getState()) {
+                stateTasks.addAsync(task.id);
+            } else {
+                stateTasks.removeAsync(task.id);
+            }
+        }
+    }
+
+    /**
+     * tasks saved before the indexes existed are indexed once
+     */
+    private void indexExistingTasks() {
+        RBucket<String> indexed = redissonClient.getBucket(taskMapName + ":indexed", StringCodec.INSTANCE);
+        if (!indexed.isExists()) {
+            logger.info("indexing tasks of {} by user and state", taskMapName);
+            tasks.values().forEach(this::index);
+            indexed.set("true");
+        }
+    }
+
+    private void deleteIndexes() {
+        redissonClient.getKeys().deleteByPattern(taskMapName + ":user:*");
+        redissonClient.getKeys().delete(stream(TaskView.State.values()).map(this::stateIndexName).toArray(String[]::new));
+    }
+
+    private RSet<String> userIndex(User user) {
+        return redissonClient.getSet(taskMapName + ":user:" + user.id, StringCodec.INSTANCE);
+    }
+
+    private RSet<String> stateIndex(TaskView.State state) {
+        return redissonClient.getSet(stateIndexName(state), StringCodec.INSTANCE);
+    }
+
+    private String userIndexName(User user) {
+        return user == null || user.id == null ? null : taskMapName + ":user:" + user.id;
+    }
+
+    private String stateIndexName(TaskView.State state) {
+        return taskMapName + ":state:" + state;
     }
 
     @Override
     public void enqueue(TaskView<?> task) {
-        taskQueue.add(task);
+        taskQueues.add(task);
+    }
+
+    @Override
+    public QueueWaitTimes getQueueWaitTimes() {
+        return queueWaitTimes;
     }
 
     public static class TaskViewCodec extends BaseCodec {
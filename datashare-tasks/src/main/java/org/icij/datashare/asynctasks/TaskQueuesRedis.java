@@ -0,0 +1,78 @@
+package org.icij.datashare.asynctasks;
+
+import org.redisson.api.RBlockingQueue;
+import org.redisson.api.RedissonClient;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.icij.datashare.asynctasks.TaskView.DEFAULT_PRIORITY;
+import static org.icij.datashare.asynctasks.TaskView.MAX_PRIORITY;
+import static org.icij.datashare.asynctasks.TaskView.MIN_PRIORITY;
+
+/**
+ * Redis lists of queued tasks by priority. Tasks with the default priority are kept in the task
+ * queue itself, the others in lists named after it with the priority as suffix (ds:task:queue:9).
+ * A single BLPOP on all the lists from the highest priority to the lowest pops the next task.
+ * <p>
+ * If the task queue is not a redis queue (tests) the priorities are ignored.
+ */
+class TaskQueuesRedis {
+    private final RedissonClient redissonClient;
+    private final BlockingQueue<TaskView<?>> taskQueue;
+
+    TaskQueuesRedis(RedissonClient redissonClient, BlockingQueue<TaskView<?>> taskQueue) {
+        this.redissonClient = redissonClient;
+        this.taskQueue = taskQueue;
+    }
+
+    void add(TaskView<?> task) {
+        queue(task.priority).add(task);
+    }
+
+    @SuppressWarnings("unchecked")
+    TaskView<?> poll(int timeOut, TimeUnit timeUnit) throws InterruptedException {
+        if (!(taskQueue instanceof RBlockingQueue)) {
+            return taskQueue.poll(timeOut, timeUnit);
+        }
+        String[] lowerPriorityQueues = IntStream.iterate(MAX_PRIORITY - 1, p -> p - 1).limit(MAX_PRIORITY - MIN_PRIORITY)
+                .mapToObj(this::queueName).toArray(String[]::new);
+        return ((RBlockingQueue<TaskView<?>>) queue(MAX_PRIORITY)).pollFromAny(timeOut, timeUnit, lowerPriorityQueues);
+    }
+
+    void clear() {
+        forEachQueue(BlockingQueue::clear);
+    }
+
+    @SuppressWarnings("unchecked")
+    void delete() {
+        forEachQueue(queue -> {
+            if (queue instanceof RBlockingQueue) {
+                ((RBlockingQueue<TaskView<?>>) queue).delete();
+            }
+        });
+    }
+
+    private void forEachQueue(Consumer<BlockingQueue<TaskView<?>>> action) {
+        if (taskQueue instanceof RBlockingQueue) {
+            IntStream.rangeClosed(MIN_PRIORITY, MAX_PRIORITY).mapToObj(this::queue).forEach(action);
+        } else {
+            action.accept(taskQueue);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private BlockingQueue<TaskView<?>> queue(int priority) {
+        if (priority == DEFAULT_PRIORITY || !(taskQueue instanceof RBlockingQueue)) {
+            return taskQueue;
+        }
+        return redissonClient.getBlockingQueue(queueName(priority), ((RBlockingQueue<TaskView<?>>) taskQueue).getCodec());
+    }
+
+    private String queueName(int priority) {
+        String taskQueueName = ((RBlockingQueue<?>) taskQueue).getName();
+        return priority == DEFAULT_PRIORITY ? taskQueueName : taskQueueName + ":" + priority;
+    }
+}
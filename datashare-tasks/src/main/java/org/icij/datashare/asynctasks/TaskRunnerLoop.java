@@ -5,11 +5,18 @@ import static java.util.Optional.ofNullable;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import org.icij.datashare.asynctasks.bus.amqp.CancelEvent;
 import org.icij.datashare.asynctasks.bus.amqp.CancelledEvent;
 import org.slf4j.Logger;
@@ -21,34 +28,61 @@ public class TaskRunnerLoop implements Callable<Integer>, Closeable {
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final TaskFactory factory;
     private final TaskSupplier taskSupplier;
-    final AtomicReference<Callable<?>> currentTaskReference = new AtomicReference<>();
+    final ConcurrentHashMap<String, Callable<?>> runningTasks = new ConcurrentHashMap<>();
     public static final TaskView<Serializable> POISON = TaskView.nullObject();
     private final CountDownLatch waitForMainLoopCalled; // for tests only
     private final int pollTimeMillis;
+    private final int maxConcurrentTasks;
+    private final int progressIntervalMillis;
     private final ConcurrentHashMap<String, Boolean> cancelledTasks;
     private volatile boolean exitAsked = false;
     private volatile Thread loopThread;
-    private volatile TaskView<?> currentTask = null;
+    private volatile ExecutorService taskExecutor;
+    private volatile ScheduledExecutorService progressScheduler;
+    // several loops can run in the same JVM, the TERM handler is installed once and stops all the running ones
+    private static final Set<TaskRunnerLoop> LOOPS = ConcurrentHashMap.newKeySet();
+    private static final AtomicBoolean TERM_HANDLER_INSTALLED = new AtomicBoolean(false);
 
     public TaskRunnerLoop(TaskFactory factory, TaskSupplier taskSupplier) {
         this(factory, taskSupplier, new CountDownLatch(1));
     }
 
+    /**
+     * @param maxConcurrentTasks number of tasks run at the same time. The supplier is polled
+     *                           only when less tasks are running.
+     */
+    public TaskRunnerLoop(TaskFactory factory, TaskSupplier taskSupplier, int maxConcurrentTasks) {
+        this(factory, taskSupplier, maxConcurrentTasks, 0);
+    }
+
+    /**
+     * @param progressIntervalMillis minimum time between two progress reports of a task sent to
+     *                               the supplier, 0 to send all the reports
+     */
+    public TaskRunnerLoop(TaskFactory factory, TaskSupplier taskSupplier, int maxConcurrentTasks, int progressIntervalMillis) {
+        this(factory, taskSupplier, new CountDownLatch(1), 60_000, maxConcurrentTasks, progressIntervalMillis);
+    }
+
     TaskRunnerLoop(TaskFactory factory, TaskSupplier taskSupplier, CountDownLatch countDownLatch) {
         this(factory, taskSupplier, countDownLatch, 60_000);
     }
 
     TaskRunnerLoop(TaskFactory factory, TaskSupplier taskSupplier, CountDownLatch countDownLatch, int pollTimeMillis) {
+        this(factory, taskSupplier, countDownLatch, pollTimeMillis, 1);
+    }
+
+    TaskRunnerLoop(TaskFactory factory, TaskSupplier taskSupplier, CountDownLatch countDownLatch, int pollTimeMillis, int maxConcurrentTasks) {
+        this(factory, taskSupplier, countDownLatch, pollTimeMillis, maxConcurrentTasks, 0);
+    }
+
+    TaskRunnerLoop(TaskFactory factory, TaskSupplier taskSupplier, CountDownLatch countDownLatch, int pollTimeMillis, int maxConcurrentTasks, int progressIntervalMillis) {
         this.factory = factory;
         this.taskSupplier = taskSupplier;
         this.waitForMainLoopCalled = countDownLatch;
         this.pollTimeMillis = pollTimeMillis;
+        this.maxConcurrentTasks = Math.max(1, maxConcurrentTasks);
+        this.progressIntervalMillis = Math.max(0, progressIntervalMillis);
         this.cancelledTasks = new ConcurrentHashMap<>();
-        Signal.handle(new Signal("TERM"), signal -> {
-            exitAsked = true;
-            cancel(null, true);
-            ofNullable(loopThread).ifPresent(Thread::interrupt); // for interrupting poll
-        });
         taskSupplier.addEventListener((event -> {
             // TODO: python alignment possible, in Python if the
             //  worker.negative_acknowledge(task_id, requeue) succeeds the worker doesn't wait
@@ -65,72 +99,149 @@ public class TaskRunnerLoop implements Callable<Integer>, Closeable {
     }
 
     public Integer call() {
-        return mainLoop();
+        if (TERM_HANDLER_INSTALLED.compareAndSet(false, true)) {
+            Signal.handle(new Signal("TERM"), signal -> LOOPS.forEach(TaskRunnerLoop::exit));
+        }
+        LOOPS.add(this);
+        try {
+            return mainLoop();
+        } finally {
+            LOOPS.remove(this);
+        }
     }
 
-    @SuppressWarnings("unchecked")
     private Integer mainLoop() {
         waitForMainLoopCalled.countDown();
         loopThread = Thread.currentThread();
-        int nbTasks = 0;
-        logger.info("Waiting tasks from supplier ({})", taskSupplier.getClass());
-        while (!POISON.equals(currentTask) && !exitAsked) {
+        AtomicInteger nbTasks = new AtomicInteger(0);
+        // with one task at a time, tasks are run in the loop thread
+        ExecutorService executor = maxConcurrentTasks > 1 ? Executors.newFixedThreadPool(maxConcurrentTasks) : null;
+        taskExecutor = executor;
+        // forwards the coalesced progress of the running tasks at the end of each interval
+        progressScheduler = progressIntervalMillis > 0 ? Executors.newSingleThreadScheduledExecutor() : null;
+        Semaphore freeSlots = new Semaphore(maxConcurrentTasks);
+        logger.info("Waiting tasks from supplier ({}) for {} concurrent task(s)", taskSupplier.getClass(), maxConcurrentTasks);
+        TaskView<?> task = null;
+        while (!POISON.equals(task) && !exitAsked) {
             try {
-                currentTask = taskSupplier.get(pollTimeMillis, TimeUnit.MILLISECONDS);
-                if (currentTask != null && !POISON.equals(currentTask)) {
-                    if (cancelledTasks.get(currentTask.id) != null) {
-                        logger.info("cancelled task {} not executed", currentTask.id);
-                        taskSupplier.canceled(currentTask, cancelledTasks.remove(currentTask.id));
-                        continue;
+                if (executor != null) {
+                    freeSlots.acquire();
+                }
+                boolean submitted = false;
+                try {
+                    task = taskSupplier.get(pollTimeMillis, TimeUnit.MILLISECONDS);
+                    if (task != null && !POISON.equals(task)) {
+                        if (cancelledTasks.get(task.id) != null) {
+                            logger.info("cancelled task {} not executed", task.id);
+                            taskSupplier.canceled(task, cancelledTasks.remove(task.id));
+                        } else if (executor == null) {
+                            runTask(task, nbTasks);
+                        } else {
+                            TaskView<?> submittedTask = task;
+                            executor.submit(() -> {
+                                try {
+                                    runTask(submittedTask, nbTasks);
+                                } finally {
+                                    freeSlots.release();
+                                }
+                            });
+                            submitted = true;
+                        }
+                    }
+                } finally {
+                    if (executor != null && !submitted) {
+                        freeSlots.release();
                     }
-                    // TODO: this should probably evolve towards
-                    //  TaskFactoryHelper.createTaskCallable(factory, currentTask.name, currentTask.properties, currentTask.progress(taskSupplier::progress))
-                    //  since the task view itself is not needed, only the properties are needed.
-                    //  Passing the view allows the task function to perform actions it shouldn't
-                    //  be allow to perform (setResult, setError, cancel, queue and so on...) with
-                    //  potential side effects
-                    Callable<?> taskFn;
-                    taskFn = TaskFactoryHelper.createTaskCallable(factory, currentTask.name, currentTask, currentTask.progress(taskSupplier::progress));
-                    currentTaskReference.set(taskFn);
-                    logger.info("running task {}", currentTask);
-                    taskSupplier.progress(currentTask.id, 0);
-                    Serializable result = (Serializable) taskFn.call();
-                    taskSupplier.result(currentTask.id, result);
-                    nbTasks++;
-                    currentTask = null;
                 }
-            } catch (CancelException cex) {
-                // TODO: this has to be improved/simplified. The cancellation mechanism relies on
-                //  the fact that the CancellableTask code will properly handle the cancellation.
-                //  However while some task correctly throw a CancelException and correctly forward
-                //  the requeue arg. However some tasks like the PipelineTask simple throw an
-                //  InterruptedException and without rethrowing a new CancelException(requeue) with
-                //  the requeue attribute correctly set. This will lead to unexpected behavior,
-                //  such asking for cancel with requeue argument which is actually ignored.
-                logger.error("task {} cancelled with requeue = {}", currentTask, cex.requeue);
-                taskSupplier.canceled(currentTask, cex.requeue);
             } catch (InterruptedException iex) {
-                logger.error("task {} interrupted, cancelling it", currentTask, iex);
-                // TODO: align with Python (requeue)
-                ofNullable(currentTask).ifPresent(t -> taskSupplier.canceled(t, false));
-            } catch (Throwable ex) {
-                logger.error("error in loop for task {}", currentTask, ex);
-                if (currentTask != null && !currentTask.isNull()) {
-                    taskSupplier.error(currentTask.id, ex);
-                }
+                logger.error("loop interrupted while waiting for tasks", iex);
+            }
+        }
+        if (executor != null) {
+            awaitRunningTasks(executor);
+        }
+        ofNullable(progressScheduler).ifPresent(ExecutorService::shutdownNow);
+        logger.info("Exiting loop after {} tasks", nbTasks.get());
+        return nbTasks.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTask(TaskView<?> task, AtomicInteger nbTasks) {
+        try {
+            // TODO: this should probably evolve towards
+            //  TaskFactoryHelper.createTaskCallable(factory, task.name, task.properties, task.progress(taskSupplier::progress))
+            //  since the task view itself is not needed, only the properties are needed.
+            //  Passing the view allows the task function to perform actions it shouldn't
+            //  be allow to perform (setResult, setError, cancel, queue and so on...) with
+            //  potential side effects
+            Function<Double, Void> progress = task.progress(taskSupplier::progress);
+            CoalescedProgress coalescedProgress = null;
+            if (progressIntervalMillis > 0) {
+                coalescedProgress = new CoalescedProgress(progress, progressIntervalMillis, progressScheduler);
+                progress = coalescedProgress;
+            }
+            Callable<?> taskFn = TaskFactoryHelper.createTaskCallable(factory, task.name, task, progress);
+            runningTasks.put(task.id, taskFn);
+            logger.info("running task {}", task);
+            taskSupplier.progress(task.id, 0);
+            Serializable result;
+            try {
+                result = (Serializable) taskFn.call();
             } finally {
-                currentTaskReference.set(null);
+                // the latest coalesced progress is sent before the result, the error or the cancel
+                ofNullable(coalescedProgress).ifPresent(CoalescedProgress::close);
+            }
+            taskSupplier.result(task.id, result);
+            nbTasks.incrementAndGet();
+        } catch (CancelException cex) {
+            // TODO: this has to be improved/simplified. The cancellation mechanism relies on
+            //  the fact that the CancellableTask code will properly handle the cancellation.
+            //  However while some task correctly throw a CancelException and correctly forward
+            //  the requeue arg. However some tasks like the PipelineTask simple throw an
+            //  InterruptedException and without rethrowing a new CancelException(requeue) with
+            //  the requeue attribute correctly set. This will lead to unexpected behavior,
+            //  such asking for cancel with requeue argument which is actually ignored.
+            logger.error("task {} cancelled with requeue = {}", task, cex.requeue);
+            taskSupplier.canceled(task, cex.requeue);
+        } catch (InterruptedException iex) {
+            logger.error("task {} interrupted, cancelling it", task, iex);
+            // TODO: align with Python (requeue)
+            taskSupplier.canceled(task, false);
+        } catch (Throwable ex) {
+            logger.error("error in loop for task {}", task, ex);
+            if (!task.isNull()) {
+                taskSupplier.error(task.id, ex);
             }
+        } finally {
+            runningTasks.remove(task.id);
         }
-        logger.info("Exiting loop after {} tasks", nbTasks);
-        return nbTasks;
+    }
+
+    private void awaitRunningTasks(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.info("waiting for {} running task(s) to finish", runningTasks.size());
+            }
+        } catch (InterruptedException e) {
+            logger.error("loop interrupted while waiting for running tasks, interrupting them", e);
+            executor.shutdownNow();
+        }
+    }
+
+    private void exit() {
+        exitAsked = true;
+        cancel(null, true);
+        ofNullable(loopThread).ifPresent(Thread::interrupt); // for interrupting poll
     }
 
     @Override
     public void close() throws IOException {
+        LOOPS.remove(this);
         exitAsked = true;
         taskSupplier.close();
         loopThread.interrupt();
+        ofNullable(taskExecutor).ifPresent(ExecutorService::shutdownNow);
     }
 
      public void cancel(String taskId, boolean requeue) {
@@ -140,10 +251,9 @@ public class TaskRunnerLoop implements Callable<Integer>, Closeable {
         //  some useful behavior will be painful to implement:
         //  - global graceful shutdown (task which are not cancellable will run until complete...)
         //  - graceful restart of a task
-        ofNullable(currentTaskReference.get()).ifPresent(t -> {
-            if (CancellableTask.class.isAssignableFrom(t.getClass()) &&
-                    (taskId == null || (currentTask != null && taskId.equals(currentTask.id)))) {
-                logger.info("cancelling callable for task {} requeue={}", taskId, requeue);
+        runningTasks.forEach((id, t) -> {
+            if (CancellableTask.class.isAssignableFrom(t.getClass()) && (taskId == null || taskId.equals(id))) {
+                logger.info("cancelling callable for task {} requeue={}", id, requeue);
                 ((CancellableTask) t).cancel(requeue);
             }
         });
@@ -16,25 +16,45 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import static java.util.Optional.ofNullable;
 
+/**
+ * Task supplier for AMQP. The tasks are acknowledged when they are finished (result, error or
+ * cancellation), so the broker delivers at most prefetch tasks that are waiting in the supplier
+ * buffer or running.
+ */
 public class TaskSupplierAmqp implements TaskSupplier {
-    private final BlockingQueue<TaskViewEvent> taskViewEvents = new ArrayBlockingQueue<>(1024);
+    private final BlockingQueue<TaskViewEvent> taskViewEvents;
+    private final ConcurrentMap<String, Long> deliveryTags = new ConcurrentHashMap<>();
     final AmqpConsumer<TaskViewEvent, Consumer<TaskViewEvent>> consumer;
     final AmqpConsumer<TaskEvent, Consumer<TaskEvent>> eventConsumer;
     final List<Consumer<TaskEvent>> eventCallbackList = new LinkedList<>();
     private final AmqpInterlocutor amqp;
 
     public TaskSupplierAmqp(AmqpInterlocutor amqp) throws IOException {
+        this(amqp, 1);
+    }
+
+    /**
+     * @param prefetch maximum number of tasks delivered to this supplier and not finished yet
+     */
+    public TaskSupplierAmqp(AmqpInterlocutor amqp, int prefetch) throws IOException {
         this.amqp = amqp;
-        consumer = new AmqpConsumer<>(amqp, event -> {
-            if (!taskViewEvents.offer(event)) {
-                throw new SupplierBufferingException();
-            }
-        }, AmqpQueue.TASK, TaskViewEvent.class).consumeEvents();
+        this.taskViewEvents = new ArrayBlockingQueue<>(prefetch);
+        // the event consumer is not used with manual ack
+        consumer = new AmqpConsumer<TaskViewEvent, Consumer<TaskViewEvent>>(amqp, null, AmqpQueue.TASK, TaskViewEvent.class, prefetch)
+                .consumeEventsWithManualAck((event, deliveryTag) -> {
+                    deliveryTags.put(event.taskView.id, deliveryTag);
+                    if (!taskViewEvents.offer(event)) {
+                        deliveryTags.remove(event.taskView.id);
+                        throw new SupplierBufferingException();
+                    }
+                });
         eventConsumer = new AmqpConsumer<>(amqp, this::handleEvent, AmqpQueue.EVENT, TaskEvent.class).consumeEvents();
     }
 
@@ -60,6 +80,7 @@ public class TaskSupplierAmqp implements TaskSupplier {
         } catch (IOException e) {
             LoggerFactory.getLogger(getClass()).warn("cannot publish result {} for task {}", result, taskId);
         }
+        acknowledge(taskId);
     }
 
     @Override
@@ -74,6 +95,8 @@ public class TaskSupplierAmqp implements TaskSupplier {
         } catch (IOException e) {
             LoggerFactory.getLogger(getClass()).warn("cannot publish cancelled for task {}", task.id);
         }
+        // requeued tasks are published again by the task manager
+        acknowledge(task.id);
     }
 
     @Override
@@ -81,6 +104,17 @@ public class TaskSupplierAmqp implements TaskSupplier {
         result(taskId, throwable);
     }
 
+    private void acknowledge(String taskId) {
+        Long deliveryTag = deliveryTags.remove(taskId);
+        if (deliveryTag != null) {
+            try {
+                consumer.ack(deliveryTag);
+            } catch (IOException e) {
+                LoggerFactory.getLogger(getClass()).warn("cannot ack task {}", taskId);
+            }
+        }
+    }
+
     private void handleEvent(TaskEvent taskEvent) {
         eventCallbackList.forEach(c -> c.accept(taskEvent));
     }
@@ -93,6 +127,14 @@ public class TaskSupplierAmqp implements TaskSupplier {
     @Override
     public void close() throws IOException {
         consumer.cancel();
+        // tasks received but not taken by a runner are given back to the broker
+        TaskViewEvent event;
+        while ((event = taskViewEvents.poll()) != null) {
+            Long deliveryTag = deliveryTags.remove(event.taskView.id);
+            if (deliveryTag != null) {
+                consumer.nack(deliveryTag, true);
+            }
+        }
     }
 
     static class SupplierBufferingException extends RuntimeException { }
@@ -16,17 +16,17 @@ import java.util.function.Consumer;
 import static org.icij.datashare.asynctasks.TaskManagerRedis.EVENT_CHANNEL_NAME;
 
 public class TaskSupplierRedis implements TaskSupplier {
-    private final BlockingQueue<TaskView<?>> taskQueue;
+    private final TaskQueuesRedis taskQueues;
     private final RTopic eventTopic;
 
     public TaskSupplierRedis(RedissonClient redissonClient, BlockingQueue<TaskView<?>> taskQueue) {
-        this.taskQueue = taskQueue;
+        this.taskQueues = new TaskQueuesRedis(redissonClient, taskQueue);
         this.eventTopic = redissonClient.getTopic(EVENT_CHANNEL_NAME);
     }
 
     @Override
     public <V extends Serializable> TaskView<V> get(int timeOut, TimeUnit timeUnit) throws InterruptedException {
-        return (TaskView<V>) taskQueue.poll(timeOut, timeUnit);
+        return (TaskView<V>) taskQueues.poll(timeOut, timeUnit);
     }
 
     @Override
@@ -9,6 +9,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.io.Serializable;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -25,12 +26,18 @@ public class TaskView<V> implements Entity {
     @JsonIgnore private final Object lock = new Object();
 
     public enum State {CREATED, QUEUED, RUNNING, CANCELLED, ERROR, DONE}
+    // tasks with a higher priority are run first, tasks with the same priority in queue order
+    public static final int MIN_PRIORITY = 0;
+    public static final int DEFAULT_PRIORITY = 5;
+    public static final int MAX_PRIORITY = 9;
     public final Map<String, Object> properties;
 
     public final String id;
     public final String name;
     public final User user;
+    public final int priority;
     volatile Throwable error;
+    private volatile Date queuedAt;
     private volatile State state;
     private volatile double progress;
     private volatile V result;
@@ -44,7 +51,19 @@ public class TaskView<V> implements Entity {
     }
 
     public TaskView(String id, String name, User user, Map<String, Object> properties) {
-        this(id, name, State.CREATED, 0, user, null, properties);
+        this(id, name, user, properties, DEFAULT_PRIORITY);
+    }
+
+    public TaskView(String name, User user, Map<String, Object> properties, int priority) {
+        this(randomUUID().toString(), name, user, properties, priority);
+    }
+
+    public TaskView(String id, String name, User user, Map<String, Object> properties, int priority) {
+        this(id, name, State.CREATED, 0, user, null, properties, priority, null);
+    }
+
+    TaskView(String id, String name, State state, double progress, User user, V result, Map<String, Object> properties) {
+        this(id, name, state, progress, user, result, properties, DEFAULT_PRIORITY, null);
     }
 
     @JsonCreator
@@ -54,13 +73,20 @@ public class TaskView<V> implements Entity {
              @JsonProperty("progress") double progress,
              @JsonProperty("user") User user,
              @JsonProperty("result") V result,
-             @JsonProperty("properties") Map<String, Object> properties) {
+             @JsonProperty("properties") Map<String, Object> properties,
+             @JsonProperty("priority") Integer priority,
+             @JsonProperty("queuedAt") Date queuedAt) {
+        if (priority != null && (priority < MIN_PRIORITY || priority > MAX_PRIORITY)) {
+            throw new IllegalArgumentException(String.format("priority %d is not between %d and %d", priority, MIN_PRIORITY, MAX_PRIORITY));
+        }
         this.id = id;
         this.name = name;
         this.state = state;
         this.progress = progress;
         this.user = user;
         this.result = result;
+        this.priority = ofNullable(priority).orElse(DEFAULT_PRIORITY);
+        this.queuedAt = queuedAt;
         // avoids "no default constructor found" for anonymous inline maps
         this.properties =
             Collections.unmodifiableMap(ofNullable(properties).orElse(new HashMap<>()));
@@ -115,10 +141,18 @@ public class TaskView<V> implements Entity {
 
     public void queue() {
         synchronized (lock) {
+            this.queuedAt = new Date();
             setState(State.QUEUED);
         }
     }
 
+    /**
+     * @return the date when the task has been queued or null if it has not been queued
+     */
+    public Date getQueuedAt() {
+        return queuedAt;
+    }
+
     public double getProgress() {
         return progress;
     }
@@ -177,7 +211,8 @@ public class TaskView<V> implements Entity {
     }
 
     public static TaskView<Serializable> nullObject() {
-        return new TaskView<>(null, null, State.CREATED, 0, User.nullUser(), null, new HashMap<>());
+        // lowest priority so that a worker stops after the tasks already queued
+        return new TaskView<>(null, null, State.CREATED, 0, User.nullUser(), null, new HashMap<>(), MIN_PRIORITY, null);
     }
 
     public Function<Double, Void> progress(BiFunction<String, Double, Void> taskSupplierProgress) {
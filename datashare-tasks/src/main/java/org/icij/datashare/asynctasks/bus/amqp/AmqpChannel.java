@@ -6,6 +6,7 @@ import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.ConfirmCallback;
 import com.rabbitmq.client.DefaultConsumer;
 import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownSignalException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,6 +16,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
@@ -59,6 +61,11 @@ public class AmqpChannel {
 		rabbitMqChannel.basicPublish(queue.exchange, queue.routingKey, null, event.serialize());
 	}
 
+	void publish(Event event, int priority) throws IOException {
+		rabbitMqChannel.basicPublish(queue.exchange, queue.routingKey,
+				new AMQP.BasicProperties.Builder().priority(priority).build(), event.serialize());
+	}
+
 	String consume(Consumer<byte[]> bodyHandler, ConsumerCriteria criteria, CancelFunction cancelCallback) throws IOException {
 		return this.rabbitMqChannel.basicConsume(queueName(), new DefaultConsumer(rabbitMqChannel) {
 			@Override
@@ -78,6 +85,32 @@ public class AmqpChannel {
 		});
 	}
 
+	/**
+	 * consumes messages without acknowledging them: the handler receives the delivery tag
+	 * and the message must be acked or nacked later with ack/nack.
+	 */
+	String consumeWithManualAck(BiConsumer<byte[], Long> bodyHandler) throws IOException {
+		return this.rabbitMqChannel.basicConsume(queueName(), false, new DefaultConsumer(rabbitMqChannel) {
+			@Override
+			public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
+				try {
+					bodyHandler.accept(body, envelope.getDeliveryTag());
+				} catch (RuntimeException rex) {
+					logger.warn("exception while accepting message", rex);
+					rabbitMqChannel.basicNack(envelope.getDeliveryTag(), false, false);
+				}
+			}
+		});
+	}
+
+	void ack(long deliveryTag) throws IOException {
+		rabbitMqChannel.basicAck(deliveryTag, false);
+	}
+
+	void nack(long deliveryTag, boolean requeue) throws IOException {
+		rabbitMqChannel.basicNack(deliveryTag, false, requeue);
+	}
+
 	void cancel(String consumerTag) throws IOException {
 		this.rabbitMqChannel.basicCancel(consumerTag);
 	}
@@ -111,13 +144,47 @@ public class AmqpChannel {
 		Map<String, Object> queueParameters = new HashMap<>() {{
 			if (queue.deadLetterQueue != null && deadletter)
 				put("x-dead-letter-exchange", queue.deadLetterQueue.exchange);
+			if (queue.maxPriority > 0)
+				put("x-max-priority", queue.maxPriority);
 		}};
+		if (queue.maxPriority > 0 && isDeclaredWithoutPriority(queueParameters)) {
+			logger.warn("queue {} has been declared without priorities, its messages won't be delivered by priority until it is deleted", queueName());
+			queueParameters.remove("x-max-priority");
+		}
 		rabbitMqChannel.exchangeDeclare(queue.exchange, queue.exchangeType, durable);
 		rabbitMqChannel.queueDeclare(queueName(), durable, exclusive, autoDelete, queueParameters);
 		rabbitMqChannel.queueBind(queueName(), queue.exchange, queue.routingKey);
 		rabbitMqChannel.basicQos(nbMaxMessages);
 	}
 
+	/**
+	 * A durable queue declared before priorities were added cannot be declared again with
+	 * x-max-priority: the broker closes the channel with PRECONDITION_FAILED. The declaration is
+	 * tried on a separate channel so that the channel of this queue stays open.
+	 */
+	private boolean isDeclaredWithoutPriority(Map<String, Object> queueParameters) throws IOException {
+		Channel probeChannel = rabbitMqChannel.getConnection().createChannel();
+		try {
+			probeChannel.queueDeclare(queueName(), durable, exclusive, autoDelete, queueParameters);
+			return false;
+		} catch (IOException ex) {
+			if (ex.getCause() instanceof ShutdownSignalException &&
+					((ShutdownSignalException) ex.getCause()).getReason() instanceof AMQP.Channel.Close &&
+					((AMQP.Channel.Close) ((ShutdownSignalException) ex.getCause()).getReason()).getReplyCode() == AMQP.PRECONDITION_FAILED) {
+				return true;
+			}
+			throw ex;
+		} finally {
+			try {
+				if (probeChannel.isOpen()) {
+					probeChannel.close();
+				}
+			} catch (TimeoutException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
 	@FunctionalInterface
 	interface CancelFunction {
 		void cancel() throws IOException;
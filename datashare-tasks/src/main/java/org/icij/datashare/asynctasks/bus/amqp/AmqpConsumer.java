@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
@@ -27,9 +28,21 @@ public class AmqpConsumer<Evt extends Event, EvtConsumer extends Consumer<Evt>>
 
     public AmqpConsumer(AmqpInterlocutor amqpInterlocutor,
                         EvtConsumer eventConsumer, AmqpQueue queue, Class<Evt> evtClass) throws IOException {
+        this(amqpInterlocutor, eventConsumer, amqpInterlocutor.createAmqpChannelForConsume(queue), evtClass);
+    }
+
+    /**
+     * @param nbMaxMessages maximum number of messages delivered to the consumer and not acknowledged yet
+     */
+    public AmqpConsumer(AmqpInterlocutor amqpInterlocutor,
+                        EvtConsumer eventConsumer, AmqpQueue queue, Class<Evt> evtClass, int nbMaxMessages) throws IOException {
+        this(amqpInterlocutor, eventConsumer, amqpInterlocutor.createAmqpChannelForConsume(queue, nbMaxMessages), evtClass);
+    }
+
+    private AmqpConsumer(AmqpInterlocutor amqpInterlocutor, EvtConsumer eventConsumer, AmqpChannel channel, Class<Evt> evtClass) {
         this.amqpInterlocutor = amqpInterlocutor;
         this.eventConsumer = eventConsumer;
-        this.channel = amqpInterlocutor.createAmqpChannelForConsume(queue);
+        this.channel = channel;
         this.evtClass = evtClass;
     }
 
@@ -41,6 +54,29 @@ public class AmqpConsumer<Evt extends Event, EvtConsumer extends Consumer<Evt>>
         return launchConsumer(channel, AmqpConsumer.this::handle, nb);
     }
 
+    /**
+     * consumes events without acknowledging them when they are received. The event consumer is not
+     * called: the handler receives each event with its delivery tag, that must be given to ack or nack
+     * once the event has been processed.
+     */
+    public AmqpConsumer<Evt, EvtConsumer> consumeEventsWithManualAck(BiConsumer<Evt, Long> eventHandler) {
+        try {
+            logger.info("starting consuming events with manual ack for {}", channel);
+            consumerTag.set(channel.consumeWithManualAck((body, deliveryTag) -> eventHandler.accept(this.deserialize(body), deliveryTag)));
+        } catch (IOException ioe) {
+            logger.error("exception during basicConsume", ioe);
+        }
+        return this;
+    }
+
+    public void ack(long deliveryTag) throws IOException {
+        channel.ack(deliveryTag);
+    }
+
+    public void nack(long deliveryTag, boolean requeue) throws IOException {
+        channel.nack(deliveryTag, requeue);
+    }
+
     AmqpConsumer<Evt, EvtConsumer> launchConsumer(AmqpChannel channel, Consumer<Evt> eventHandler, final int nbEventsToConsume) {
         launchConsumer(channel, eventHandler, new ConsumerCriteria() {
             int nvReceivedEvents = 0;
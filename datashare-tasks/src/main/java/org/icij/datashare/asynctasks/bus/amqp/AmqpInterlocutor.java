@@ -59,6 +59,13 @@ public class AmqpInterlocutor {
         getChannel(queue).publish(event);
     }
 
+    /**
+     * publishes with a message priority, for queues declared with a max priority.
+     */
+    public void publish(AmqpQueue queue, Event event, int priority) throws IOException {
+        getChannel(queue).publish(event, priority);
+    }
+
     AmqpChannel getChannel(AmqpQueue queue) {
         if (queue == null) {
             throw new UnknownChannelException(queue);
@@ -89,9 +96,13 @@ public class AmqpInterlocutor {
         return this;
     }
 
-    public synchronized AmqpChannel createAmqpChannelForConsume(AmqpQueue queue) throws IOException {
+    public AmqpChannel createAmqpChannelForConsume(AmqpQueue queue) throws IOException {
+        return createAmqpChannelForConsume(queue, configuration.nbMaxMessages);
+    }
+
+    public synchronized AmqpChannel createAmqpChannelForConsume(AmqpQueue queue, int nbMaxMessages) throws IOException {
         AmqpChannel channel = new AmqpChannel(connection.createChannel(), queue, nbQueue.incrementAndGet());
-        channel.initForConsume(configuration.deadLetter, configuration.nbMaxMessages);
+        channel.initForConsume(configuration.deadLetter, nbMaxMessages);
         logger.info("consume channel " + channel + " has been created for queue {}", channel.queueName());
         return channel;
     }
@@ -1,6 +1,7 @@
 package org.icij.datashare.asynctasks.bus.amqp;
 
 import com.rabbitmq.client.BuiltinExchangeType;
+import org.icij.datashare.asynctasks.TaskView;
 
 /**
  * Enum that provides a registry for all used Queues/Exchanges/routing keys and more generally
@@ -12,21 +13,26 @@ public enum AmqpQueue {
 	TASK_RESULT_DLQ  ("exchangeDLQTaskResults", BuiltinExchangeType.DIRECT, "routingKeyDLQTaskResults"),
 	TASK_RESULT  ("exchangeTaskResults",  BuiltinExchangeType.DIRECT,"routingKeyMainTaskResults", TASK_RESULT_DLQ),
 	TASK_DLQ  ("exchangeDLQTasks", BuiltinExchangeType.DIRECT, "routingKeyDLQTasks"),
-	TASK  ("exchangeMainTasks",  BuiltinExchangeType.DIRECT,"routingKeyMainTasks", TASK_DLQ);
+	TASK  ("exchangeMainTasks",  BuiltinExchangeType.DIRECT,"routingKeyMainTasks", TASK_DLQ, TaskView.MAX_PRIORITY);
 
 	public final String exchange;
 	public final String routingKey;
 	public final AmqpQueue deadLetterQueue;
 	public final BuiltinExchangeType exchangeType;
+	public final int maxPriority; // 0 for queues without priority
 
 	AmqpQueue(String exchange, BuiltinExchangeType exchangeType, String routingKey) {
 		this(exchange, exchangeType, routingKey, null);
 	}
 	AmqpQueue(String exchange, BuiltinExchangeType exchangeType, String routingKey, AmqpQueue deadLetterQueue) {
+		this(exchange, exchangeType, routingKey, deadLetterQueue, 0);
+	}
+	AmqpQueue(String exchange, BuiltinExchangeType exchangeType, String routingKey, AmqpQueue deadLetterQueue, int maxPriority) {
 		this.exchange = exchange;
 		this.exchangeType = exchangeType;
 		this.routingKey = routingKey;
 		this.deadLetterQueue = deadLetterQueue;
+		this.maxPriority = maxPriority;
 	}
 
 	@Override public String toString() {
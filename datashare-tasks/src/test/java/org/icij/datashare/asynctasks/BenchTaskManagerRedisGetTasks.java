@@ -0,0 +1,62 @@
+package org.icij.datashare.asynctasks;
+
+import org.icij.datashare.PropertiesProvider;
+import org.icij.datashare.user.User;
+import org.icij.extract.redis.RedissonClientFactory;
+import org.icij.task.Options;
+import org.junit.After;
+import org.junit.Test;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Latency of the task list of one user with 100k tasks stored, read with the user index
+ * and by decoding all the tasks of the map.
+ */
+public class BenchTaskManagerRedisGetTasks {
+    private static final Logger logger = LoggerFactory.getLogger(BenchTaskManagerRedisGetTasks.class);
+    private static final int NB_TASKS = 100_000;
+    private static final int NB_USERS = 1000;
+    private static final int NB_CALLS = 20;
+    private final RedissonClient redissonClient = new RedissonClientFactory().withOptions(
+            Options.from(new PropertiesProvider(Map.of("redisAddress", "redis://redis:6379")).getProperties())).create();
+    private final TaskManagerRedis taskManager = new TaskManagerRedis(redissonClient, new LinkedBlockingQueue<>(), "bench:task:manager");
+
+    @Test
+    public void testGetTasksOfUser() {
+        logger.info("saving {} tasks for {} users", NB_TASKS, NB_USERS);
+        for (int i = 0; i < NB_TASKS; i++) {
+            taskManager.save(new TaskView<>("task" + i, new User("user" + i % NB_USERS), Map.of("key", "value" + i)));
+        }
+        User user = new User("user0");
+        Pattern all = Pattern.compile(".*");
+
+        long beginTime = System.currentTimeMillis();
+        List<TaskView<?>> tasks = null;
+        for (int i = 0; i < NB_CALLS; i++) {
+            tasks = taskManager.getTasks(user, all);
+        }
+        long indexDuration = (System.currentTimeMillis() - beginTime) / NB_CALLS;
+
+        beginTime = System.currentTimeMillis();
+        for (int i = 0; i < NB_CALLS; i++) {
+            TaskManager.getTasks(taskManager.getTasks().stream(), user, all);
+        }
+        long scanDuration = (System.currentTimeMillis() - beginTime) / NB_CALLS;
+
+        logger.info("{} tasks of a user among {}: {}ms with user index, {}ms decoding all tasks", tasks.size(), NB_TASKS, indexDuration, scanDuration);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        taskManager.close();
+        redissonClient.getBucket("bench:task:manager:indexed").delete();
+        redissonClient.shutdown();
+    }
+}
@@ -0,0 +1,93 @@
+package org.icij.datashare.asynctasks;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class CoalescedProgressTest {
+    private final List<Double> forwarded = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @Test
+    public void test_first_progress_is_forwarded_and_next_ones_are_coalesced() {
+        CoalescedProgress progress = new CoalescedProgress(this::forward, 3_600_000);
+
+        progress.apply(0.1);
+        progress.apply(0.2);
+        progress.apply(0.3);
+
+        assertThat(forwarded).isEqualTo(asList(0.1));
+    }
+
+    @Test
+    public void test_close_forwards_the_latest_progress_and_drops_the_next_ones() {
+        CoalescedProgress progress = new CoalescedProgress(this::forward, 3_600_000);
+        progress.apply(0.1);
+        progress.apply(0.2);
+        progress.apply(0.3);
+
+        progress.close();
+        progress.apply(0.4);
+        progress.close();
+
+        assertThat(forwarded).isEqualTo(asList(0.1, 0.3));
+    }
+
+    @Test(timeout = 2000)
+    public void test_latest_progress_is_forwarded_at_the_end_of_the_interval() throws Exception {
+        CoalescedProgress progress = new CoalescedProgress(this::forward, 50, scheduler);
+        progress.apply(0.1);
+        progress.apply(0.2);
+        progress.apply(0.3);
+
+        while (forwarded.size() < 2) {
+            Thread.sleep(10);
+        }
+
+        assertThat(forwarded).isEqualTo(asList(0.1, 0.3));
+    }
+
+    @Test(timeout = 2000)
+    public void test_progress_is_coalesced_while_another_one_is_forwarded() throws Exception {
+        CountDownLatch forwarding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CoalescedProgress progress = new CoalescedProgress(rate -> {
+            forwarding.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return forward(rate);
+        }, 3_600_000);
+        Thread first = new Thread(() -> progress.apply(0.1));
+        first.start();
+        forwarding.await();
+
+        progress.apply(0.2);
+        release.countDown();
+        first.join();
+
+        assertThat(forwarded).isEqualTo(asList(0.1));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    private Void forward(Double rate) {
+        forwarded.add(rate);
+        return null;
+    }
+}
@@ -60,6 +60,28 @@ public class TaskManagerAmqpTest {
         }
     }
 
+    @Test(timeout = 2000)
+    public void test_tasks_are_delivered_by_priority() throws Exception {
+        taskManager.startTask("running", User.local(), new HashMap<>());
+        TaskView<Serializable> running = taskSupplier.get(2, TimeUnit.SECONDS);
+        // the supplier won't receive the next task until the running one is done
+        TaskView<?> low = taskManager.startTask("low", User.local(), new HashMap<>(), TaskView.MIN_PRIORITY);
+        TaskView<?> high = taskManager.startTask("high", User.local(), new HashMap<>(), TaskView.MAX_PRIORITY);
+        TaskView<?> normal = taskManager.startTask("normal", User.local(), new HashMap<>());
+
+        taskSupplier.result(running.id, "done");
+        TaskView<Serializable> first = taskSupplier.get(2, TimeUnit.SECONDS);
+        taskSupplier.result(first.id, "done");
+        TaskView<Serializable> second = taskSupplier.get(2, TimeUnit.SECONDS);
+        taskSupplier.result(second.id, "done");
+        TaskView<Serializable> third = taskSupplier.get(2, TimeUnit.SECONDS);
+        taskSupplier.result(third.id, "done");
+
+        Assertions.assertThat(first).isEqualTo(high);
+        Assertions.assertThat(second).isEqualTo(normal);
+        Assertions.assertThat(third).isEqualTo(low);
+    }
+
     @Test(timeout = 2000)
     public void test_task_progress() throws Exception {
         taskManager.startTask("taskName", User.local(), new HashMap<>());
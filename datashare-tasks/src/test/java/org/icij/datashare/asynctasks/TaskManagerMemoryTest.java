@@ -2,6 +2,8 @@ package org.icij.datashare.asynctasks;
 
 import static org.fest.assertions.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -105,6 +107,128 @@ public class TaskManagerMemoryTest {
             "unknown task id <unknownId> for result=0.5 call");
     }
 
+    @Test
+    public void test_run_tasks_concurrently_with_several_workers() throws Exception {
+        TaskManagerMemory manager = createTaskManager(2, Map.of());
+        TaskInspector inspector = new TaskInspector(manager);
+        TaskView<Integer> t1 = manager.startTask(new TaskView<>(TestFactory.SleepForever.class.getName(), User.local(), Map.of()));
+        TaskView<Integer> t2 = manager.startTask(new TaskView<>(TestFactory.SleepForever.class.getName(), User.local(), Map.of()));
+
+        assertThat(inspector.awaitToBeStarted(t1.id, 1000)).isTrue();
+        assertThat(inspector.awaitToBeStarted(t2.id, 1000)).isTrue();
+
+        manager.stopTask(t1.id);
+        manager.stopTask(t2.id);
+        manager.shutdownAndAwaitTermination(1, TimeUnit.SECONDS);
+        assertThat(manager.getTask(t1.id).getState()).isEqualTo(TaskView.State.CANCELLED);
+        assertThat(manager.getTask(t2.id).getState()).isEqualTo(TaskView.State.CANCELLED);
+        manager.close();
+    }
+
+    @Test
+    public void test_task_type_limit_lets_other_tasks_run() throws Exception {
+        TaskManagerMemory manager = createTaskManager(2, Map.of("SleepForever", 1));
+        TaskInspector inspector = new TaskInspector(manager);
+        TaskView<Integer> t1 = manager.startTask(new TaskView<>(TestFactory.SleepForever.class.getName(), User.local(), Map.of()));
+        TaskView<Integer> t2 = manager.startTask(new TaskView<>(TestFactory.SleepForever.class.getName(), User.local(), Map.of()));
+        TaskView<Integer> t3 = manager.startTask(new TaskView<>(TestFactory.HelloWorld.class.getName(), User.local(), Map.of("greeted", "world")));
+
+        assertThat(inspector.awaitToBeStarted(t1.id, 1000)).isTrue();
+        assertThat(inspector.awaitStatus(t3.id, TaskView.State.DONE, 1, TimeUnit.SECONDS)).isTrue();
+        assertThat(manager.getTask(t2.id).getState()).isEqualTo(TaskView.State.QUEUED);
+
+        manager.stopTask(t1.id);
+        assertThat(inspector.awaitToBeStarted(t2.id, 1000)).isTrue();
+        manager.stopTask(t2.id);
+        manager.shutdownAndAwaitTermination(1, TimeUnit.SECONDS);
+        assertThat(manager.getTask(t1.id).getState()).isEqualTo(TaskView.State.CANCELLED);
+        assertThat(manager.getTask(t2.id).getState()).isEqualTo(TaskView.State.CANCELLED);
+        manager.close();
+    }
+
+    @Test
+    public void test_task_type_limit_still_counts_running_tasks_after_clear() throws Exception {
+        TaskManagerMemory manager = createTaskManager(2, Map.of("Sleep", 1));
+        TaskInspector inspector = new TaskInspector(manager);
+        TaskView<Integer> t1 = manager.startTask(new TaskView<>(TestFactory.Sleep.class.getName(), User.local(), Map.of("duration", 1000)));
+        assertThat(inspector.awaitToBeStarted(t1.id, 1000)).isTrue();
+
+        manager.clear();
+        TaskView<Integer> t2 = manager.startTask(new TaskView<>(TestFactory.Sleep.class.getName(), User.local(), Map.of("duration", 10)));
+        TaskView<Integer> t3 = manager.startTask(new TaskView<>(TestFactory.HelloWorld.class.getName(), User.local(), Map.of("greeted", "world")));
+
+        assertThat(inspector.awaitStatus(t3.id, TaskView.State.DONE, 1, TimeUnit.SECONDS)).isTrue();
+        assertThat(manager.getTask(t2.id).getState()).isEqualTo(TaskView.State.QUEUED);
+        assertThat(inspector.awaitStatus(t2.id, TaskView.State.DONE, 2, TimeUnit.SECONDS)).isTrue();
+        manager.shutdownAndAwaitTermination(1, TimeUnit.SECONDS);
+        manager.close();
+    }
+
+    @Test
+    public void test_progress_of_concurrent_tasks() throws Exception {
+        TaskManagerMemory manager = createTaskManager(4, Map.of());
+        List<TaskView<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tasks.add(manager.startTask(new TaskView<>(TestFactory.HelloWorld.class.getName(), User.local(), Map.of("greeted", "world " + i))));
+        }
+
+        manager.shutdownAndAwaitTermination(1, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(manager.getTask(tasks.get(i).id).getState()).isEqualTo(TaskView.State.DONE);
+            assertThat(manager.getTask(tasks.get(i).id).getProgress()).isEqualTo(1.0);
+            assertThat(manager.getTask(tasks.get(i).id).getResult()).isEqualTo("Hello world " + i + "!");
+        }
+        assertThat(manager.numberOfExecutedTasks()).isEqualTo(20);
+        manager.close();
+    }
+
+    @Test
+    public void test_tasks_are_taken_by_priority() throws Exception {
+        TaskView<Integer> running = taskManager.startTask(new TaskView<>(TestFactory.SleepForever.class.getName(), User.local(), Map.of()));
+        taskInspector.awaitToBeStarted(running.id, 1000);
+        TaskView<Integer> low = taskManager.startTask(new TaskView<>(TestFactory.SleepForever.class.getName(), User.local(), Map.of(), TaskView.MIN_PRIORITY));
+        TaskView<Integer> high = taskManager.startTask(new TaskView<>(TestFactory.SleepForever.class.getName(), User.local(), Map.of(), TaskView.MAX_PRIORITY));
+
+        taskManager.stopTask(running.id);
+        assertThat(taskInspector.awaitToBeStarted(high.id, 1000)).isTrue();
+        assertThat(taskManager.getTask(low.id).getState()).isEqualTo(TaskView.State.QUEUED);
+
+        taskManager.stopTask(high.id);
+        assertThat(taskInspector.awaitToBeStarted(low.id, 1000)).isTrue();
+        taskManager.stopTask(low.id);
+        taskManager.shutdownAndAwaitTermination(1, TimeUnit.SECONDS);
+
+        Map<Integer, QueueWaitTimes.Stats> waitTimes = taskManager.getQueueWaitTimes().byPriority();
+        assertThat(waitTimes.keySet()).containsOnly(TaskView.MIN_PRIORITY, TaskView.DEFAULT_PRIORITY, TaskView.MAX_PRIORITY);
+        assertThat(waitTimes.get(TaskView.MAX_PRIORITY).getCount()).isEqualTo(1);
+        assertThat(waitTimes.get(TaskView.MIN_PRIORITY).getMaxMs()).isGreaterThanOrEqualTo(waitTimes.get(TaskView.MAX_PRIORITY).getMaxMs());
+    }
+
+    @Test
+    public void test_same_priority_tasks_are_taken_in_queue_order() throws Exception {
+        TaskView<Integer> running = taskManager.startTask(new TaskView<>(TestFactory.SleepForever.class.getName(), User.local(), Map.of()));
+        taskInspector.awaitToBeStarted(running.id, 1000);
+        TaskView<Integer> first = taskManager.startTask(new TaskView<>(TestFactory.SleepForever.class.getName(), User.local(), Map.of()));
+        TaskView<Integer> second = taskManager.startTask(new TaskView<>(TestFactory.SleepForever.class.getName(), User.local(), Map.of()));
+
+        taskManager.stopTask(running.id);
+        assertThat(taskInspector.awaitToBeStarted(first.id, 1000)).isTrue();
+        assertThat(taskManager.getTask(second.id).getState()).isEqualTo(TaskView.State.QUEUED);
+
+        taskManager.stopTask(first.id);
+        assertThat(taskInspector.awaitToBeStarted(second.id, 1000)).isTrue();
+        taskManager.stopTask(second.id);
+        taskManager.shutdownAndAwaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    private TaskManagerMemory createTaskManager(int nbWorkers, Map<String, Integer> taskTypeLimits) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        TaskManagerMemory manager = new TaskManagerMemory(new LinkedBlockingQueue<>(), factory, latch, nbWorkers, taskTypeLimits);
+        latch.await();
+        return manager;
+    }
+
 
     @After
     public void tearDown() throws Exception {
@@ -7,7 +7,11 @@ import org.icij.extract.redis.RedissonClientFactory;
 import org.icij.task.Options;
 import org.junit.After;
 import org.junit.Test;
+import org.redisson.Redisson;
+import org.redisson.RedissonMap;
 import org.redisson.api.RedissonClient;
+import org.redisson.command.CommandSyncService;
+import org.redisson.liveobject.core.RedissonObjectBuilder;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -15,6 +19,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import static org.fest.assertions.Assertions.assertThat;
 
@@ -99,6 +104,59 @@ public class TaskManagerRedisTest {
         assertThat(taskManager.getTasks().get(0).getResult()).isEqualTo(expectedResult);
     }
 
+    @Test
+    public void test_get_tasks_of_user() throws Exception {
+        TaskView<Integer> fooTask = taskManager.startTask("HelloWorld", new User("foo"), new HashMap<>());
+        taskManager.startTask("HelloWorld", new User("bar"), new HashMap<>());
+        taskManager.startTask("sleep", new User("foo"), new HashMap<>());
+
+        assertThat(taskManager.getTasks(new User("foo"), Pattern.compile(".*"))).hasSize(2);
+        assertThat(taskManager.getTasks(new User("foo"), Pattern.compile("Hello.*"))).containsOnly(fooTask);
+        assertThat(taskManager.getTasks(new User("baz"), Pattern.compile(".*"))).isEmpty();
+    }
+
+    @Test
+    public void test_cleared_tasks_are_removed_from_user_index() throws Exception {
+        TaskView<Integer> taskView1 = taskManager.startTask("sleep", User.local(), new HashMap<>());
+        TaskView<Integer> taskView2 = taskManager.startTask("sleep", User.local(), new HashMap<>());
+        taskSupplier.result(taskView1.id, 12);
+        assertThat(waitForEvent.await(1, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(taskManager.clearDoneTasks()).hasSize(1);
+
+        assertThat(taskManager.getTasks(User.local(), Pattern.compile(".*"))).containsOnly(taskView2);
+    }
+
+    @Test
+    public void test_progress_of_task_keeps_its_indexes() throws Exception {
+        TaskView<Integer> taskView = taskManager.startTask("sleep", User.local(), new HashMap<>());
+
+        taskView.setProgress(0.5);
+        taskManager.save(taskView);
+        taskView.setProgress(0.7);
+        taskManager.save(taskView);
+
+        assertThat(taskManager.getTask(taskView.id).getProgress()).isEqualTo(0.7);
+        assertThat(taskManager.getTasks(User.local(), Pattern.compile(".*"))).containsOnly(taskView);
+        assertThat(taskManager.stopAllTasks(User.local())).hasSize(1);
+    }
+
+    @Test
+    public void test_index_tasks_saved_before_indexes() throws Exception {
+        TaskView<Integer> taskView = new TaskView<>("sleep", User.local(), new HashMap<>());
+        new RedissonMap<String, TaskView<?>>(new TaskManagerRedis.TaskViewCodec(),
+                new CommandSyncService(((Redisson) redissonClient).getConnectionManager(), new RedissonObjectBuilder(redissonClient)),
+                "test:task:manager:legacy", redissonClient, null, null).put(taskView.id, taskView);
+
+        TaskManagerRedis legacyTaskManager = new TaskManagerRedis(redissonClient, batchDownloadQueue, "test:task:manager:legacy");
+        try {
+            assertThat(legacyTaskManager.getTasks(User.local(), Pattern.compile(".*"))).containsOnly(taskView);
+        } finally {
+            legacyTaskManager.close();
+            redissonClient.getBucket("test:task:manager:legacy:indexed").delete();
+        }
+    }
+
     private void callback() {
         waitForEvent.countDown();
     }
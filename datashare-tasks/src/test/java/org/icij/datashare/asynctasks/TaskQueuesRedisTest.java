@@ -0,0 +1,72 @@
+package org.icij.datashare.asynctasks;
+
+import org.icij.datashare.PropertiesProvider;
+import org.icij.datashare.user.User;
+import org.icij.extract.redis.RedissonClientFactory;
+import org.icij.task.Options;
+import org.junit.After;
+import org.junit.Test;
+import org.redisson.Redisson;
+import org.redisson.RedissonBlockingQueue;
+import org.redisson.api.RedissonClient;
+import org.redisson.command.CommandSyncService;
+import org.redisson.liveobject.core.RedissonObjectBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TaskQueuesRedisTest {
+    private final RedissonClient redissonClient = new RedissonClientFactory().withOptions(
+            Options.from(new PropertiesProvider(Map.of("redisAddress", "redis://redis:6379")).getProperties())).create();
+    private final BlockingQueue<TaskView<?>> taskQueue = new RedissonBlockingQueue<>(new TaskManagerRedis.TaskViewCodec(),
+            new CommandSyncService(((Redisson) redissonClient).getConnectionManager(),
+                    new RedissonObjectBuilder(redissonClient)), "test:task:queue", redissonClient);
+    private final TaskQueuesRedis taskQueues = new TaskQueuesRedis(redissonClient, taskQueue);
+
+    @Test
+    public void test_default_priority_tasks_are_in_task_queue() {
+        TaskView<Object> task = new TaskView<>("name", User.local(), new HashMap<>());
+
+        taskQueues.add(task);
+
+        assertThat(taskQueue).containsOnly(task);
+    }
+
+    @Test
+    public void test_poll_by_priority_then_queue_order() throws Exception {
+        TaskView<Object> low = new TaskView<>("low", User.local(), new HashMap<>(), TaskView.MIN_PRIORITY);
+        TaskView<Object> normal1 = new TaskView<>("normal1", User.local(), new HashMap<>());
+        TaskView<Object> high = new TaskView<>("high", User.local(), new HashMap<>(), TaskView.MAX_PRIORITY);
+        TaskView<Object> normal2 = new TaskView<>("normal2", User.local(), new HashMap<>());
+        taskQueues.add(low);
+        taskQueues.add(normal1);
+        taskQueues.add(high);
+        taskQueues.add(normal2);
+
+        assertThat(taskQueues.poll(1, TimeUnit.SECONDS)).isEqualTo(high);
+        assertThat(taskQueues.poll(1, TimeUnit.SECONDS)).isEqualTo(normal1);
+        assertThat(taskQueues.poll(1, TimeUnit.SECONDS)).isEqualTo(normal2);
+        assertThat(taskQueues.poll(1, TimeUnit.SECONDS)).isEqualTo(low);
+        assertThat(taskQueues.poll(1, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test
+    public void test_clear_all_priorities() throws Exception {
+        taskQueues.add(new TaskView<>("low", User.local(), new HashMap<>(), TaskView.MIN_PRIORITY));
+        taskQueues.add(new TaskView<>("normal", User.local(), new HashMap<>()));
+
+        taskQueues.clear();
+
+        assertThat(taskQueues.poll(1, TimeUnit.SECONDS)).isNull();
+    }
+
+    @After
+    public void tearDown() {
+        taskQueues.delete();
+        redissonClient.shutdown();
+    }
+}
@@ -3,6 +3,7 @@ package org.icij.datashare.asynctasks;
 import org.icij.datashare.user.User;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -12,6 +13,8 @@ import java.io.Serializable;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyDouble;
@@ -85,6 +88,78 @@ public class TaskRunnerLoopTest {
         verify(supplier).canceled(eq(taskView), eq(false));
     }
 
+    @Test(timeout = 2000)
+    public void test_run_tasks_concurrently() throws Exception {
+        TaskRunnerLoop app = new TaskRunnerLoop(registry, supplier, new CountDownLatch(1), 60_000, 2);
+        TaskView<Serializable> t1 = new TaskView<>(TestFactory.SleepForever.class.getName(), User.local(), Map.of());
+        TaskView<Serializable> t2 = new TaskView<>(TestFactory.SleepForever.class.getName(), User.local(), Map.of());
+        Mockito.when(supplier.get(ArgumentMatchers.anyInt(), ArgumentMatchers.any())).thenReturn(t1, t2, TaskView.nullObject());
+        CountDownLatch t1Started = whenTaskHasStarted(t1.id);
+        CountDownLatch t2Started = whenTaskHasStarted(t2.id);
+
+        Thread appThread = new Thread(app::call);
+        appThread.start();
+        t1Started.await();
+        t2Started.await();
+        assertThat(app.runningTasks.keySet()).containsOnly(t1.id, t2.id);
+
+        app.cancel(t1.id, false);
+        app.cancel(t2.id, true);
+        appThread.join();
+
+        verify(supplier).canceled(eq(t1), eq(false));
+        verify(supplier).canceled(eq(t2), eq(true));
+        assertThat(app.runningTasks).isEmpty();
+    }
+
+    @Test(timeout = 2000)
+    public void test_supplier_is_not_polled_when_max_tasks_are_running() throws Exception {
+        TaskRunnerLoop app = new TaskRunnerLoop(registry, supplier, new CountDownLatch(1), 60_000, 2);
+        TaskView<Serializable> t1 = new TaskView<>(TestFactory.SleepForever.class.getName(), User.local(), Map.of());
+        TaskView<Serializable> t2 = new TaskView<>(TestFactory.SleepForever.class.getName(), User.local(), Map.of());
+        Mockito.when(supplier.get(ArgumentMatchers.anyInt(), ArgumentMatchers.any())).thenReturn(t1, t2, TaskView.nullObject());
+        CountDownLatch t1Started = whenTaskHasStarted(t1.id);
+        CountDownLatch t2Started = whenTaskHasStarted(t2.id);
+
+        Thread appThread = new Thread(app::call);
+        appThread.start();
+        t1Started.await();
+        t2Started.await();
+        Thread.sleep(100);
+        verify(supplier, Mockito.times(2)).get(ArgumentMatchers.anyInt(), ArgumentMatchers.any());
+
+        app.cancel(null, false);
+        appThread.join();
+        verify(supplier, Mockito.times(3)).get(ArgumentMatchers.anyInt(), ArgumentMatchers.any());
+    }
+
+    @Test(timeout = 5000)
+    public void test_progress_reports_are_coalesced() throws Exception {
+        int intervalMs = 50;
+        TaskRunnerLoop app = new TaskRunnerLoop(registry, supplier, new CountDownLatch(1), 60_000, 1, intervalMs);
+        TaskView<Serializable> taskView = new TaskView<>(TestFactory.Progress.class.getName(), User.local(), Map.of("duration", 500));
+        Mockito.when(supplier.get(ArgumentMatchers.anyInt(), ArgumentMatchers.any())).thenReturn(taskView, TaskView.nullObject());
+        AtomicInteger nbProgress = new AtomicInteger();
+        AtomicReference<Double> lastProgress = new AtomicReference<>();
+        when(supplier.progress(eq(taskView.id), anyDouble())).thenAnswer(invocationOnMock -> {
+            nbProgress.incrementAndGet();
+            lastProgress.set(invocationOnMock.getArgument(1));
+            return null;
+        });
+        ArgumentCaptor<Integer> nbUpdates = ArgumentCaptor.forClass(Integer.class);
+
+        long start = System.currentTimeMillis();
+        app.call();
+        long elapsed = System.currentTimeMillis() - start;
+
+        verify(supplier).result(eq(taskView.id), nbUpdates.capture());
+        assertThat(nbUpdates.getValue()).isGreaterThan(1000);
+        // the start marker, the first progress, at most one by interval, then the latest progress before the result
+        assertThat(nbProgress.get()).isGreaterThan(2);
+        assertThat(nbProgress.get()).isLessThanOrEqualTo(3 + (int) (elapsed / intervalMs));
+        assertThat(lastProgress.get()).isGreaterThanOrEqualTo(0.99);
+    }
+
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
@@ -62,6 +62,22 @@ public class TaskViewTest {
         assertThat(taskView.getResult()).isEqualTo("run");
     }
 
+    @Test
+    public void test_json_serialize_priority_and_queue_date() throws Exception {
+        TaskView<Object> taskView = new TaskView<>("name", User.local(), new HashMap<>(), TaskView.MAX_PRIORITY);
+        taskView.queue();
+
+        TaskView<?> deserialized = JsonObjectMapper.MAPPER.readValue(JsonObjectMapper.MAPPER.writeValueAsString(taskView), TaskView.class);
+
+        assertThat(deserialized.priority).isEqualTo(TaskView.MAX_PRIORITY);
+        assertThat(deserialized.getQueuedAt()).isEqualTo(taskView.getQueuedAt());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_priority_out_of_range() {
+        new TaskView<>("name", User.local(), new HashMap<>(), TaskView.MAX_PRIORITY + 1);
+    }
+
     @Test
     public void test_json_deserialize() throws Exception {
         String json = "{\"id\":\"d605de70-dc8d-429f-8b22-1cc3e9157756\"," +
@@ -78,5 +94,6 @@ public class TaskViewTest {
         TaskView<?> taskView = JsonObjectMapper.MAPPER.readValue(json, TaskView.class);
         Assertions.assertThat(taskView.name).isEqualTo("HelloWorld");
         Assertions.assertThat(taskView.id).isEqualTo("d605de70-dc8d-429f-8b22-1cc3e9157756");
+        Assertions.assertThat(taskView.priority).isEqualTo(TaskView.DEFAULT_PRIORITY);
     }
 }
\ No newline at end of file
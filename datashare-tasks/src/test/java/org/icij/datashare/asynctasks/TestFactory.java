@@ -3,6 +3,7 @@ package org.icij.datashare.asynctasks;
 import com.sun.xml.bind.v2.runtime.ClassBeanInfoImpl;
 import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +20,14 @@ public class TestFactory implements TaskFactory {
         return new SleepForever(taskView, progress);
     }
 
+    public Sleep createSleep(TaskView<Void> taskView, Function<Double, Void> progress) {
+        return new Sleep(taskView, progress);
+    }
+
+    public Progress createProgress(TaskView<Void> taskView, Function<Double, Void> progress) {
+        return new Progress(taskView, progress);
+    }
+
     public static class HelloWorld implements Callable<String> {
         private final Function<Double, Void> progress;
         private String greeted;
@@ -67,4 +76,50 @@ public class TestFactory implements TaskFactory {
             }
         }
     }
+
+    public static class Sleep implements Callable<Integer> {
+        static final AtomicInteger running = new AtomicInteger();
+        static final AtomicInteger maxRunning = new AtomicInteger();
+        private final Function<Double, Void> progress;
+        private final int durationMs;
+
+        Sleep(TaskView<Void> taskView, Function<Double, Void> progress) {
+            this.progress = progress;
+            this.durationMs = (Integer) Objects.requireNonNull(taskView.properties.get("duration"), "missing duration parameter");
+        }
+
+        @Override
+        public Integer call() throws InterruptedException {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                progress.apply(0.1);
+                Thread.sleep(durationMs);
+                return durationMs;
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    public static class Progress implements Callable<Integer> {
+        private final Function<Double, Void> progress;
+        private final int durationMs;
+
+        Progress(TaskView<Void> taskView, Function<Double, Void> progress) {
+            this.progress = progress;
+            this.durationMs = (Integer) Objects.requireNonNull(taskView.properties.get("duration"), "missing duration parameter");
+        }
+
+        @Override
+        public Integer call() {
+            int nbUpdates = 0;
+            long start = System.currentTimeMillis();
+            long elapsed;
+            while ((elapsed = System.currentTimeMillis() - start) < durationMs) {
+                progress.apply((double) elapsed / durationMs);
+                nbUpdates++;
+            }
+            return nbUpdates;
+        }
+    }
 }
@@ -2,6 +2,10 @@ package org.icij.datashare.asynctasks.bus.amqp;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import org.icij.datashare.asynctasks.TaskView;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -9,6 +13,7 @@ import org.junit.ClassRule;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -99,6 +104,32 @@ public class AmqpTest {
         consumer.cancel();
     }
 
+    @Test(timeout = 5000)
+    public void test_publish_receive_with_task_queue_declared_without_priority() throws Exception {
+        ConnectionFactory factory = new ConnectionFactory();
+        factory.setHost("localhost");
+        factory.setPort(12345);
+        factory.setUsername("admin");
+        factory.setPassword("admin");
+        try (Connection connection = factory.newConnection(); Channel channel = connection.createChannel()) {
+            // as it was declared before task priorities
+            channel.exchangeDeclare(AmqpQueue.TASK.exchange, AmqpQueue.TASK.exchangeType, true);
+            channel.queueDeclare(AmqpQueue.TASK.name(), true, false, false, Map.of("x-dead-letter-exchange", AmqpQueue.TASK_DLQ.exchange));
+            try {
+                amqp.createAmqpChannelForPublish(AmqpQueue.TASK);
+                AmqpConsumer<TestEvent, TestEventConsumer> consumer = new AmqpConsumer<>(amqp, new TestEventConsumer(), AmqpQueue.TASK, TestEvent.class);
+                consumer.consumeEvents();
+
+                amqp.publish(AmqpQueue.TASK, new TestEvent("hello old task queue"), TaskView.MAX_PRIORITY);
+
+                assertThat(eventQueue.take().field).isEqualTo("hello old task queue");
+                consumer.cancel();
+            } finally {
+                channel.queueDelete(AmqpQueue.TASK.name());
+            }
+        }
+    }
+
     @After
     public void tearDown() throws Exception {
         eventQueue.clear();